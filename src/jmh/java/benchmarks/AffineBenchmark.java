@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//One rotation applied to a whole population: shape by shape, on ShapeBuffer columns, and on plain point arrays.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AffineBenchmark {
+
+	static final MethodHandle ROTATE = Reflect.method("Affine", "rotate", double.class);
+	static final MethodHandle APPLY_SHAPES = Reflect.method("Affine", "apply", Iterable.class);
+	static final MethodHandle APPLY_BUFFER = Reflect.method("Affine", "apply", Reflect.type("ShapeBuffer"));
+	static final MethodHandle APPLY_POINTS = Reflect.method("Affine", "apply", double[].class, double[].class, int.class, int.class);
+	static final MethodHandle BUFFER_ADD = Reflect.method("ShapeBuffer", "add", Reflect.type("Shape"));
+
+	@Param({"100000"})
+	int size;
+
+	Object rotation;
+	List<Object> shapes;
+	Object buffer;
+	double[] xs;
+	double[] ys;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(3);
+		this.rotation = (Object) ROTATE.invokeExact(0.1);
+		this.shapes = new ArrayList<Object>(this.size);
+		this.buffer = Reflect.construct("ShapeBuffer", new Class<?>[]{int.class}, this.size);
+		this.xs = new double[this.size];
+		this.ys = new double[this.size];
+		for (int i = 0; i < this.size; i++) {
+			Object shape = ShapeBenchmark.newShape((i & 1) == 0 ? "Circle" : "Rectangle", 1 + random.nextInt(3), 1);
+			this.shapes.add(shape);
+			int row = (int) BUFFER_ADD.invokeExact(this.buffer, shape);
+			this.xs[i] = random.nextInt(1000);
+			this.ys[i] = random.nextInt(1000);
+		}
+	}
+
+	@Benchmark
+	public void shapes() throws Throwable {
+		APPLY_SHAPES.invokeExact(this.rotation, (Iterable) this.shapes);
+	}
+
+	@Benchmark
+	public void buffer() throws Throwable {
+		APPLY_BUFFER.invokeExact(this.rotation, this.buffer);
+	}
+
+	@Benchmark
+	public void points() throws Throwable {
+		APPLY_POINTS.invokeExact(this.rotation, this.xs, this.ys, 0, this.size);
+	}
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//One CollisionWorld tick after every shape has taken a random step. The 60 Hz budget is 16666 us.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+	static final MethodHandle WORLD_ADD = Reflect.method("CollisionWorld", "add", Reflect.type("Transformable"));
+	static final MethodHandle TICK = Reflect.method("CollisionWorld", "tick", Reflect.type("CollisionWorld$Listener"));
+	static final MethodHandle MOVE_BY = Reflect.method("Positions", "moveBy", Reflect.type("Transformable"), int.class, int.class);
+	static final MethodHandle APPLY = Reflect.method("MoveBatch", "apply", byte[].class, int[].class, int.class, int.class,
+			Array.newInstance(Reflect.type("Transformable"), 0).getClass());
+
+	static final int WORLD = 50000;
+
+	@Param({"100000"})
+	int size;
+
+	Object world;
+	Object shapes; //Transformable[]
+	byte[] ops;
+	int[] targets;
+	Random random = new Random(7);
+
+	@Setup
+	public void setup() throws Throwable {
+		this.world = Reflect.construct("CollisionWorld", new Class<?>[0]);
+		this.shapes = Array.newInstance(Reflect.type("Transformable"), this.size);
+		this.ops = new byte[this.size];
+		this.targets = new int[this.size];
+		for (int i = 0; i < this.size; i++) {
+			Object shape = (i & 1) == 0
+					? ShapeBenchmark.newShape("Circle", 1 + this.random.nextInt(5), 0)
+					: ShapeBenchmark.newShape("Rectangle", 1 + this.random.nextInt(10), 1 + this.random.nextInt(10));
+			MOVE_BY.invokeExact(shape, this.random.nextInt(WORLD), this.random.nextInt(WORLD));
+			Array.set(this.shapes, i, shape);
+			WORLD_ADD.invokeExact(this.world, shape);
+			this.targets[i] = i;
+		}
+	}
+
+	//Moving is not part of the tick being measured, so it happens before each call.
+	@Setup(Level.Invocation)
+	public void move() throws Throwable {
+		for (int i = 0; i < this.size; i++) {
+			this.ops[i] = (byte) this.random.nextInt(4);
+		}
+		APPLY.invokeExact(this.ops, this.targets, 0, this.size, this.shapes);
+	}
+
+	@Benchmark
+	public int tick() throws Throwable {
+		return (int) TICK.invokeExact(this.world, (Object) null);
+	}
+}
@@ -0,0 +1,102 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+//Moves per second on one shared rectangle: compare-and-set positions versus a synchronized lock.
+//Run on its own like the other benchmarks it uses one thread per core (Threads.MAX). main() runs
+//the scaling sweep, 1, 2, 4 ... threads up to the core count or -t, one result file per count:
+//  mvn -P jmh compile exec:exec -Djmh.main=benchmarks.ConcurrentMoveBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class ConcurrentMoveBenchmark {
+
+	static final MethodHandle UP = Reflect.method("ConcurrentRectangle", "up");
+	static final MethodHandle RIGHT = Reflect.method("ConcurrentRectangle", "right");
+
+	Object atomic;
+	final LockedRectangle locked = new LockedRectangle();
+
+	@Setup
+	public void setup() {
+		this.atomic = Reflect.construct("ConcurrentRectangle", new Class<?>[]{double.class, double.class}, 1.0, 1.0);
+	}
+
+	//Two moves per operation, on different axes, like the tests do.
+	@Benchmark
+	public void cas() throws Throwable {
+		UP.invokeExact(this.atomic);
+		RIGHT.invokeExact(this.atomic);
+	}
+
+	@Benchmark
+	public void synchronizedLock() {
+		this.locked.up();
+		this.locked.right();
+	}
+
+	//Takes the usual JMH options, then runs this benchmark once per thread count. Each run
+	//writes target/jmh-result-threads-N.json, so the counts can be compared side by side.
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions options = new CommandLineOptions(args);
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		if (options.getThreads().hasValue() && options.getThreads().get() > 0) {
+			maxThreads = options.getThreads().get();
+		}
+		for (int threads = 1; threads <= maxThreads; threads = nextThreads(threads, maxThreads)) {
+			Options run = new OptionsBuilder()
+					.parent(options)
+					.include(Pattern.quote(ConcurrentMoveBenchmark.class.getName()))
+					.threads(threads)
+					.resultFormat(ResultFormatType.JSON)
+					.result("target/jmh-result-threads-" + threads + ".json")
+					.build();
+			new Runner(run).run();
+		}
+	}
+
+	//Doubles, but lands on maxThreads itself so 6 or 12 cores get measured too.
+	static int nextThreads(int threads, int maxThreads) {
+		return threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2;
+	}
+
+	//The lock-based version the CAS one is compared against.
+	static class LockedRectangle {
+
+		int x = 0;
+		int y = 0;
+
+		synchronized void up() {
+			y += 1;
+		}
+
+		synchronized void right() {
+			x += 1;
+		}
+	}
+}
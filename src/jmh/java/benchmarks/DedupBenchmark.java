@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Counts distinct shapes with a toString() keyed HashMap, with ShapeIndex over the shapes, and with ShapeIndex over ShapeBuffer rows.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DedupBenchmark {
+
+	static final MethodHandle ADD_SHAPES = Reflect.method("ShapeIndex", "addAll", Iterable.class);
+	static final MethodHandle ADD_BUFFER = Reflect.method("ShapeIndex", "addAll", Reflect.type("ShapeBuffer"));
+	static final MethodHandle DISTINCT = Reflect.method("ShapeIndex", "distinct");
+	static final MethodHandle BUFFER_ADD_ALL = Reflect.method("ShapeBuffer", "addAll", Iterable.class);
+
+	@Param({"2000000"})
+	int count;
+
+	//how many values the varying dimension takes
+	@Param({"1000"})
+	int dimensions;
+
+	List<Object> shapes;
+	Object buffer;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(7);
+		Object[] shapes = new Object[this.count];
+		for (int i = 0; i < this.count; i++) {
+			switch (random.nextInt(3)) {
+				case 0: shapes[i] = ShapeBenchmark.newShape("Circle", random.nextInt(this.dimensions) / 4.0, 0); break;
+				case 1: shapes[i] = ShapeBenchmark.newShape("Rectangle", random.nextInt(this.dimensions), random.nextInt(10)); break;
+				default: shapes[i] = ShapeBenchmark.newShape("Triangle", random.nextInt(10), random.nextInt(this.dimensions)); break;
+			}
+		}
+		this.shapes = Arrays.asList(shapes);
+		this.buffer = Reflect.construct("ShapeBuffer", new Class<?>[]{int.class}, this.count);
+		BUFFER_ADD_ALL.invokeExact(this.buffer, (Iterable) this.shapes);
+	}
+
+	@Benchmark
+	public int hashMap() {
+		HashMap<String, Object> map = new HashMap<String, Object>();
+		for (Object shape : this.shapes) {
+			map.putIfAbsent(shape.toString(), shape);
+		}
+		return map.size();
+	}
+
+	@Benchmark
+	public int shapeIndex() throws Throwable {
+		Object index = Reflect.construct("ShapeIndex", new Class<?>[0]);
+		int added = (int) ADD_SHAPES.invokeExact(index, (Iterable) this.shapes);
+		return (int) DISTINCT.invokeExact(index);
+	}
+
+	@Benchmark
+	public int shapeIndexBuffer() throws Throwable {
+		Object index = Reflect.construct("ShapeIndex", new Class<?>[0]);
+		int added = (int) ADD_BUFFER.invokeExact(index, this.buffer);
+		return (int) DISTINCT.invokeExact(index);
+	}
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Plays an album of generated WAV files through an AudioPipeline into a NullAudioSink, as fast as the sink takes them.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GaplessBenchmark {
+
+	static final MethodHandle PLAY = Reflect.method("AudioPipeline", "play", int.class);
+	static final MethodHandle IS_FINISHED = Reflect.method("AudioPipeline", "isFinished");
+	static final MethodHandle CLOSE = Reflect.method("AudioPipeline", "close");
+	static final MethodHandle GET_BYTES = Reflect.method("NullAudioSink", "getBytes");
+
+	@Param({"40"})
+	int tracks;
+
+	@Param({"30"})
+	int seconds;
+
+	@Param({"1048576"})
+	int ringBytes;
+
+	Path library;
+	String[] titles;
+	Object music;
+
+	//16-bit PCM with a minimal RIFF header.
+	static void writeWav(Path file, int sampleRate, int channels, byte[] pcm) throws IOException {
+		ByteBuffer wav = ByteBuffer.allocate(44 + pcm.length).order(ByteOrder.LITTLE_ENDIAN);
+		wav.putInt(0x46464952).putInt(36 + pcm.length).putInt(0x45564157);
+		wav.putInt(0x20746D66).putInt(16).putShort((short) 1).putShort((short) channels);
+		wav.putInt(sampleRate).putInt(sampleRate * channels * 2).putShort((short) (channels * 2)).putShort((short) 16);
+		wav.putInt(0x61746164).putInt(pcm.length).put(pcm);
+		Files.write(file, wav.array());
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		this.library = Files.createTempDirectory("album");
+		this.titles = new String[this.tracks];
+		Random random = new Random(42);
+		byte[] pcm = new byte[44100 * 4 * this.seconds];
+		for (int i = 0; i < this.tracks; i++) {
+			random.nextBytes(pcm);
+			this.titles[i] = "track" + i + ".wav";
+			writeWav(this.library.resolve(this.titles[i]), 44100, 2, pcm);
+		}
+		this.music = Reflect.construct("MusicPlayer", new Class<?>[]{String[].class}, (Object) this.titles);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		for (String title : this.titles) {
+			if (title != null) {
+				Files.deleteIfExists(this.library.resolve(title));
+			}
+		}
+		Files.delete(this.library);
+	}
+
+	//The whole album, from play(0) to isFinished(), threads started and stopped included.
+	@Benchmark
+	public long album() throws Throwable {
+		Object sink = Reflect.construct("NullAudioSink", new Class<?>[0]);
+		Object pipeline = Reflect.construct("AudioPipeline",
+				new Class<?>[]{Reflect.type("MusicPlayer"), Path.class, Reflect.type("AudioSink"), int.class},
+				this.music, this.library, sink, this.ringBytes);
+		try {
+			PLAY.invokeExact(pipeline, 0);
+			while (!(boolean) IS_FINISHED.invokeExact(pipeline)) {
+				Thread.sleep(1);
+			}
+		} finally {
+			CLOSE.invokeExact(pipeline);
+		}
+		return (long) GET_BYTES.invokeExact(sink);
+	}
+}
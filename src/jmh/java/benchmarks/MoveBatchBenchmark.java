@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//A tick of random moves over a population through MoveBatch. One operation is the whole tick.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBatchBenchmark {
+
+	static final MethodHandle BATCH_ADD = Reflect.method("MoveBatch", "add", int.class, byte.class);
+	static final MethodHandle APPLY_OBJECTS = Reflect.method("MoveBatch", "apply", Array.newInstance(Reflect.type("Transformable"), 0).getClass());
+	static final MethodHandle APPLY_BUFFER = Reflect.method("MoveBatch", "apply", Reflect.type("ShapeBuffer"));
+	static final MethodHandle BUFFER_ADD = Reflect.method("ShapeBuffer", "add", Reflect.type("Shape"));
+
+	@Param({"100000"})
+	int size;
+
+	Object shapes; //Transformable[]
+	Object buffer;
+	Object batch;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(3);
+		this.shapes = Array.newInstance(Reflect.type("Transformable"), this.size);
+		this.buffer = Reflect.construct("ShapeBuffer", new Class<?>[]{int.class}, this.size);
+		this.batch = Reflect.construct("MoveBatch", new Class<?>[]{int.class}, this.size);
+		for (int i = 0; i < this.size; i++) {
+			Object shape = ShapeBenchmark.newShape((i & 1) == 0 ? "Circle" : "Rectangle", 1 + random.nextInt(3), 1);
+			Array.set(this.shapes, i, shape);
+			int row = (int) BUFFER_ADD.invokeExact(this.buffer, shape);
+			BATCH_ADD.invokeExact(this.batch, random.nextInt(this.size), (byte) random.nextInt(4));
+		}
+	}
+
+	@Benchmark
+	public void objects() throws Throwable {
+		APPLY_OBJECTS.invokeExact(this.batch, this.shapes);
+	}
+
+	@Benchmark
+	public void buffer() throws Throwable {
+		APPLY_BUFFER.invokeExact(this.batch, this.buffer);
+	}
+}
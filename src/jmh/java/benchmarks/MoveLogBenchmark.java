@@ -0,0 +1,135 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Random moves recorded in a MoveLog one tick at a time, and replays of a long history to its last and middle tick.
+//With the default snapshot interval there is only the empty first snapshot,
+//so every replay starts from the registration positions.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveLogBenchmark {
+
+	static final MethodHandle REGISTER = Reflect.method("MoveLog", "register", Reflect.type("Transformable"));
+	static final MethodHandle TICK = Reflect.method("MoveLog", "tick");
+	static final MethodHandle GET_TICKS = Reflect.method("MoveLog", "getTicks");
+	static final MethodHandle POSITIONS_AT = Reflect.method("MoveLog", "positionsAt", long.class, int[].class, int[].class);
+	static final MethodHandle UP = Reflect.method("Transformable", "up");
+	static final MethodHandle DOWN = Reflect.method("Transformable", "down");
+	static final MethodHandle LEFT = Reflect.method("Transformable", "left");
+	static final MethodHandle RIGHT = Reflect.method("Transformable", "right");
+
+	@Param({"100000"})
+	int count;
+
+	//length of the history replayed
+	@Param({"20000000"})
+	long moves;
+
+	@Param({"100000"})
+	int movesPerTick;
+
+	@Param({"2147483647"})
+	int snapshotEvery;
+
+	Object history;
+	long lastTick;
+	int[] x;
+	int[] y;
+
+	//a fresh log every iteration for record(), so the history it keeps stays small
+	Object recorder;
+	Object[] recorded;
+	int[] targets;
+	byte[] directions;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(7);
+		Object[] shapes = new Object[this.count];
+		this.history = newLog(shapes, random);
+		for (long m = 0; m < this.moves; m++) {
+			move(shapes[random.nextInt(this.count)], random.nextInt(4));
+			if ((m + 1) % this.movesPerTick == 0) {
+				TICK.invokeExact(this.history);
+			}
+		}
+		this.lastTick = (long) GET_TICKS.invokeExact(this.history);
+		this.x = new int[this.count];
+		this.y = new int[this.count];
+		this.targets = new int[this.movesPerTick];
+		this.directions = new byte[this.movesPerTick];
+		for (int m = 0; m < this.movesPerTick; m++) {
+			this.targets[m] = random.nextInt(this.count);
+			this.directions[m] = (byte) random.nextInt(4);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setupRecorder() throws Throwable {
+		this.recorded = new Object[this.count];
+		this.recorder = newLog(this.recorded, new Random(11));
+	}
+
+	Object newLog(Object[] shapes, Random random) throws Throwable {
+		Object log = Reflect.construct("MoveLog", new Class<?>[]{int.class, int.class}, 16, this.snapshotEvery);
+		for (int i = 0; i < shapes.length; i++) {
+			shapes[i] = (i & 1) == 0
+					? ShapeBenchmark.newShape("Circle", 1 + random.nextInt(5), 0)
+					: ShapeBenchmark.newShape("Rectangle", 2, 3);
+			int id = (int) REGISTER.invokeExact(log, shapes[i]);
+		}
+		return log;
+	}
+
+	static void move(Object shape, int direction) throws Throwable {
+		switch (direction) {
+			case 0: UP.invokeExact(shape); break;
+			case 1: DOWN.invokeExact(shape); break;
+			case 2: LEFT.invokeExact(shape); break;
+			default: RIGHT.invokeExact(shape); break;
+		}
+	}
+
+	//One tick of movesPerTick moves.
+	@Benchmark
+	public void record() throws Throwable {
+		Object[] shapes = this.recorded;
+		int[] targets = this.targets;
+		byte[] directions = this.directions;
+		for (int m = 0; m < targets.length; m++) {
+			move(shapes[targets[m]], directions[m]);
+		}
+		TICK.invokeExact(this.recorder);
+	}
+
+	@Benchmark
+	public int[] replayLast() throws Throwable {
+		POSITIONS_AT.invokeExact(this.history, this.lastTick, this.x, this.y);
+		return this.x;
+	}
+
+	@Benchmark
+	public int[] replayMiddle() throws Throwable {
+		POSITIONS_AT.invokeExact(this.history, this.lastTick / 2 + 1, this.x, this.y);
+		return this.x;
+	}
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//MusicPlayer.next() then previous() over libraries of different sizes, from the first, a middle
+//and the last track, in list order and shuffled. At either end one of the two calls has nowhere to go.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MusicLibraryBenchmark {
+
+	static final MethodHandle START = Reflect.method("Player", "start");
+	static final MethodHandle NEXT = Reflect.method("MusicPlayer", "next");
+	static final MethodHandle PREVIOUS = Reflect.method("MusicPlayer", "previous");
+	static final MethodHandle JUMP_TO = Reflect.method("MusicPlayer", "jumpTo", int.class);
+	static final MethodHandle SHUFFLE = Reflect.method("MusicPlayer", "shuffle", long.class);
+	static final MethodHandle SHUFFLE_AT = Reflect.method("Shuffle", "at", int.class);
+
+	@Param({"10", "10000"})
+	int tracks;
+
+	@Param({"first", "middle", "last"})
+	String cursor;
+
+	@Param({"false", "true"})
+	boolean shuffled;
+
+	Object music;
+
+	@Setup
+	public void setup() throws Throwable {
+		this.music = PlayerBenchmark.newPlayer("MusicPlayer", this.tracks);
+		START.invokeExact(this.music);
+		int position = this.cursor.equals("first") ? 0 : this.cursor.equals("middle") ? this.tracks / 2 : this.tracks - 1;
+		int index = position;
+		if (this.shuffled) {
+			//the cursor is a position in the shuffled order, so jump to the track played there
+			SHUFFLE.invokeExact(this.music, 1L);
+			Object shuffle = Reflect.construct("Shuffle", new Class<?>[]{int.class, long.class}, this.tracks, 1L);
+			index = (int) SHUFFLE_AT.invokeExact(shuffle, position);
+		}
+		JUMP_TO.invokeExact(this.music, index);
+	}
+
+	@Benchmark
+	public void nextPrevious() throws Throwable {
+		NEXT.invokeExact(this.music);
+		PREVIOUS.invokeExact(this.music);
+	}
+}
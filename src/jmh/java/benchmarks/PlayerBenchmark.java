@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//The Player methods on MusicPlayer, RadioPlayer and VideoPlayer.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerBenchmark {
+
+	static final MethodHandle START = Reflect.method("Player", "start");
+	static final MethodHandle STOP = Reflect.method("Player", "stop");
+	static final MethodHandle VOLUME_UP = Reflect.method("Player", "volumeUp");
+	static final MethodHandle GET_VOLUME = Reflect.method("Player", "getVolume");
+
+	@Param({"MusicPlayer", "RadioPlayer", "VideoPlayer"})
+	String kind;
+
+	Object player;
+
+	@Setup
+	public void setup() {
+		this.player = newPlayer(this.kind, 100);
+	}
+
+	static Object newPlayer(String kind, int items) {
+		if (kind.equals("MusicPlayer")) {
+			String[] songs = new String[items];
+			for (int i = 0; i < items; i++) {
+				songs[i] = "Song " + i;
+			}
+			return Reflect.construct(kind, new Class<?>[]{String[].class}, (Object) songs);
+		}
+		if (kind.equals("RadioPlayer")) {
+			double[] stations = new double[items];
+			for (int i = 0; i < items; i++) {
+				stations[i] = 88.0 + i * 0.2;
+			}
+			return Reflect.construct(kind, new Class<?>[]{double[].class}, (Object) stations);
+		}
+		return Reflect.construct(kind, new Class<?>[]{String.class}, "Movie");
+	}
+
+	@Benchmark
+	public void startStop() throws Throwable {
+		START.invokeExact(this.player);
+		STOP.invokeExact(this.player);
+	}
+
+	@Benchmark
+	public int volumeUp() throws Throwable {
+		VOLUME_UP.invokeExact(this.player);
+		return (int) GET_VOLUME.invokeExact(this.player);
+	}
+}
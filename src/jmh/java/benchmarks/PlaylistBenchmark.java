@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Loads a generated library into a Playlist, and steps a MusicPlayer through all of it with next(), in order or shuffled.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaylistBenchmark {
+
+	static final MethodHandle LOAD = Reflect.method("Playlist", "load", Path.class);
+	static final MethodHandle START = Reflect.method("Player", "start");
+	static final MethodHandle NEXT = Reflect.method("MusicPlayer", "next");
+	static final MethodHandle JUMP_TO = Reflect.method("MusicPlayer", "jumpTo", int.class);
+	static final MethodHandle SHUFFLE = Reflect.method("MusicPlayer", "shuffle", long.class);
+	static final MethodHandle SHUFFLE_AT = Reflect.method("Shuffle", "at", int.class);
+	static final MethodHandle GET_CURRENT_INDEX = Reflect.method("MusicPlayer", "getCurrentIndex");
+
+	@Param({"5000000"})
+	int tracks;
+
+	@Param({"false", "true"})
+	boolean shuffled;
+
+	Path file;
+	Object music;
+	int first;
+
+	@Setup
+	public void setup() throws Throwable {
+		this.file = Files.createTempFile("playlist", ".txt");
+		try (BufferedWriter out = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < this.tracks; i++) {
+				out.write("Artist " + (i % 9973) + " - Track " + i + "\n");
+			}
+		}
+		Object playlist = (Object) LOAD.invokeExact(this.file);
+		this.music = Reflect.construct("MusicPlayer", new Class<?>[]{Reflect.type("Playlist")}, playlist);
+		if (this.shuffled) {
+			SHUFFLE.invokeExact(this.music, 42L);
+			Object shuffle = Reflect.construct("Shuffle", new Class<?>[]{int.class, long.class}, this.tracks, 42L);
+			this.first = (int) SHUFFLE_AT.invokeExact(shuffle, 0);
+		}
+		START.invokeExact(this.music);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(this.file);
+	}
+
+	@Benchmark
+	public Object load() throws Throwable {
+		return (Object) LOAD.invokeExact(this.file);
+	}
+
+	//One pass over the whole library, tracks - 1 calls to next().
+	@Benchmark
+	public int walk() throws Throwable {
+		JUMP_TO.invokeExact(this.music, this.first);
+		for (int i = 1; i < this.tracks; i++) {
+			NEXT.invokeExact(this.music);
+		}
+		return (int) GET_CURRENT_INDEX.invokeExact(this.music);
+	}
+}
@@ -0,0 +1,104 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Steps, tunes and scans a receiver with many presets in random order. linearLookup is what finding the
+//current station in the list cost before the index was kept, buildIndex what the first tune or scan costs.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RadioBenchmark {
+
+	static final MethodHandle START = Reflect.method("Player", "start");
+	static final MethodHandle NEXT = Reflect.method("RadioPlayer", "next");
+	static final MethodHandle PREVIOUS = Reflect.method("RadioPlayer", "previous");
+	static final MethodHandle TUNE_NEAREST = Reflect.method("RadioPlayer", "tuneNearest", double.class, double.class);
+	static final MethodHandle SCAN_UP = Reflect.method("RadioPlayer", "scanUp");
+	static final MethodHandle SCAN_DOWN = Reflect.method("RadioPlayer", "scanDown");
+
+	static final int QUERIES = 1024;
+
+	@Param({"50000"})
+	int presets;
+
+	double[] stations;
+	Object radio;
+	double[] frequencies = new double[QUERIES];
+	int query = 0;
+	int step = 0;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(42);
+		this.stations = new double[this.presets];
+		for (int i = 0; i < this.presets; i++) {
+			this.stations[i] = 87.5 + random.nextInt(205000) / 10000.0; //the FM band at 10 Hz steps
+		}
+		this.radio = Reflect.construct("RadioPlayer", new Class<?>[]{double[].class}, (Object) this.stations);
+		START.invokeExact(this.radio);
+		SCAN_UP.invokeExact(this.radio); //builds the index
+		for (int q = 0; q < QUERIES; q++) {
+			this.frequencies[q] = 87.5 + random.nextDouble() * 20.5;
+		}
+	}
+
+	//Half a pass up the list, then half a pass back down.
+	@Benchmark
+	public void nextPrevious() throws Throwable {
+		if (this.step++ % this.presets < this.presets / 2) {
+			NEXT.invokeExact(this.radio);
+		} else {
+			PREVIOUS.invokeExact(this.radio);
+		}
+	}
+
+	@Benchmark
+	public int linearLookup() {
+		this.query = (this.query + 1) % QUERIES;
+		double station = this.stations[this.query * 31 % this.presets];
+		for (int j = 0; j < this.presets; j++) {
+			if (this.stations[j] == station) {
+				return j;
+			}
+		}
+		return -1;
+	}
+
+	@Benchmark
+	public boolean tuneNearest() throws Throwable {
+		this.query = (this.query + 1) % QUERIES;
+		return (boolean) TUNE_NEAREST.invokeExact(this.radio, this.frequencies[this.query], 0.001);
+	}
+
+	@Benchmark
+	public void scanUp() throws Throwable {
+		SCAN_UP.invokeExact(this.radio);
+	}
+
+	@Benchmark
+	public void scanDown() throws Throwable {
+		SCAN_DOWN.invokeExact(this.radio);
+	}
+
+	@Benchmark
+	public Object buildIndex() {
+		return Reflect.construct("StationIndex", new Class<?>[]{double[].class}, (Object) this.stations);
+	}
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//The largest shapes by area: sorting a copy with a Comparator against ShapeRanking over the list and over a ShapeBuffer.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RankingBenchmark {
+
+	static final MethodHandle TOP_LIST = Reflect.method("ShapeRanking", "topByArea", Collection.class, int.class);
+	static final MethodHandle TOP_BUFFER = Reflect.method("ShapeRanking", "topByArea", Reflect.type("ShapeBuffer"), int.class);
+	static final MethodHandle SORT_BUFFER = Reflect.method("ShapeRanking", "sortByArea", Reflect.type("ShapeBuffer"));
+	static final MethodHandle BUFFER_ADD_ALL = Reflect.method("ShapeBuffer", "addAll", Iterable.class);
+
+	@Param({"2000000"})
+	int count;
+
+	@Param({"1000"})
+	int k;
+
+	List<Object> shapes;
+	Object buffer;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(7);
+		this.shapes = new ArrayList<Object>(this.count);
+		for (int i = 0; i < this.count; i++) {
+			switch (random.nextInt(3)) {
+				case 0: this.shapes.add(ShapeBenchmark.newShape("Circle", random.nextDouble() * 10, 0)); break;
+				case 1: this.shapes.add(ShapeBenchmark.newShape("Rectangle", random.nextDouble() * 10, random.nextDouble() * 10)); break;
+				default: this.shapes.add(ShapeBenchmark.newShape("Triangle", random.nextDouble() * 10, random.nextDouble() * 10)); break;
+			}
+		}
+		this.buffer = Reflect.construct("ShapeBuffer", new Class<?>[]{int.class}, this.count);
+		BUFFER_ADD_ALL.invokeExact(this.buffer, (Iterable) this.shapes);
+	}
+
+	static double area(Object shape) {
+		try {
+			return (double) ShapeBenchmark.GET_AREA.invokeExact(shape);
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Benchmark
+	public List<Object> comparator() {
+		List<Object> sorted = new ArrayList<Object>(this.shapes);
+		sorted.sort(Comparator.comparingDouble(RankingBenchmark::area).reversed());
+		return sorted.subList(0, this.k);
+	}
+
+	@Benchmark
+	public int[] topList() throws Throwable {
+		return (int[]) TOP_LIST.invokeExact((Collection) this.shapes, this.k);
+	}
+
+	@Benchmark
+	public int[] topBuffer() throws Throwable {
+		return (int[]) TOP_BUFFER.invokeExact(this.buffer, this.k);
+	}
+
+	@Benchmark
+	public int[] orderBuffer() throws Throwable {
+		return (int[]) SORT_BUFFER.invokeExact(this.buffer);
+	}
+}
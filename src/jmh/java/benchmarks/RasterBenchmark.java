@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Small circles and rectangles rasterized onto a square canvas, as an occupancy bitmap and as coverage counts.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RasterBenchmark {
+
+	static final MethodHandle ADD_CIRCLE = Reflect.method("ShapeBuffer", "addCircle", double.class);
+	static final MethodHandle ADD_RECTANGLE = Reflect.method("ShapeBuffer", "addRectangle", double.class, double.class);
+	static final MethodHandle SET_POSITION = Reflect.method("ShapeBuffer", "setPosition", int.class, int.class, int.class);
+	static final MethodHandle ADD_ALL = Reflect.method("Rasterizer", "addAll", Reflect.type("ShapeBuffer"));
+	static final MethodHandle OCCUPANCY = Reflect.method("Rasterizer", "occupancy");
+	static final MethodHandle COVERAGE = Reflect.method("Rasterizer", "coverage");
+
+	@Param({"1000000"})
+	int shapes;
+
+	@Param({"4096"})
+	int canvas;
+
+	Object raster;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(7);
+		Object buffer = Reflect.construct("ShapeBuffer", new Class<?>[]{int.class}, this.shapes);
+		for (int i = 0; i < this.shapes; i++) {
+			int index = (i & 1) == 0
+					? (int) ADD_CIRCLE.invokeExact(buffer, (double) (1 + random.nextInt(8)))
+					: (int) ADD_RECTANGLE.invokeExact(buffer, (double) (1 + random.nextInt(16)), (double) (1 + random.nextInt(16)));
+			SET_POSITION.invokeExact(buffer, index, random.nextInt(this.canvas), random.nextInt(this.canvas));
+		}
+		this.raster = Reflect.construct("Rasterizer", new Class<?>[]{int.class, int.class}, this.canvas, this.canvas);
+		ADD_ALL.invokeExact(this.raster, buffer);
+	}
+
+	@Benchmark
+	public long[] occupancy() throws Throwable {
+		return (long[]) OCCUPANCY.invokeExact(this.raster);
+	}
+
+	@Benchmark
+	public int[] coverage() throws Throwable {
+		return (int[]) COVERAGE.invokeExact(this.raster);
+	}
+}
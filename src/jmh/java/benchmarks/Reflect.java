@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+//JMH refuses benchmarks in the default package, and a named package cannot
+//import default package classes, so the benchmarks reach the project's classes
+//through method handles. Kept in static final fields these are constants to the
+//JIT and inline like direct calls.
+final class Reflect {
+
+	private Reflect() {
+	}
+
+	static Class<?> type(String name) {
+		try {
+			return Class.forName(name);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Class not found: " + name, e);
+		}
+	}
+
+	static Object construct(String className, Class<?>[] types, Object... args) {
+		try {
+			Constructor<?> constructor = type(className).getDeclaredConstructor(types);
+			constructor.setAccessible(true);
+			return constructor.newInstance(args);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot construct " + className, e);
+		}
+	}
+
+	//A handle for a constructor, returning the new instance as Object. Parameters are
+	//seen as in method().
+	static MethodHandle constructor(String className, Class<?>... params) {
+		try {
+			Constructor<?> constructor = type(className).getDeclaredConstructor(params);
+			constructor.setAccessible(true);
+			return asObjects(MethodHandles.lookup().unreflectConstructor(constructor), false);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot find a constructor of " + className, e);
+		}
+	}
+
+	//A handle for an instance or static method. The receiver, the return type and
+	//any parameter whose type is a project class (or an array of one) are seen as
+	//Object, so benchmarks can call it with invokeExact.
+	static MethodHandle method(String className, String name, Class<?>... params) {
+		try {
+			Method method = type(className).getDeclaredMethod(name, params);
+			method.setAccessible(true);
+			return asObjects(MethodHandles.lookup().unreflect(method), !Modifier.isStatic(method.getModifiers()));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot find " + className + "." + name, e);
+		}
+	}
+
+	static MethodHandle asObjects(MethodHandle handle, boolean receiver) {
+		for (int i = 0; i < handle.type().parameterCount(); i++) {
+			if (isProjectType(handle.type().parameterType(i)) || (i == 0 && receiver)) {
+				handle = handle.asType(handle.type().changeParameterType(i, Object.class));
+			}
+		}
+		if (isProjectType(handle.type().returnType())) {
+			handle = handle.asType(handle.type().changeReturnType(Object.class));
+		}
+		return handle;
+	}
+
+	static boolean isProjectType(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		return !type.isPrimitive() && type.getName().indexOf('.') < 0;
+	}
+}
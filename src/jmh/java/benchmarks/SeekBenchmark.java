@@ -0,0 +1,164 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Writes a transport stream, then times scanning it for keyframes, opening it again from the sidecar,
+//and seeking through it with a VideoPlayer, one fastForward() or one seek() at a time.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeekBenchmark {
+
+	static final MethodHandle OPEN_INDEX = Reflect.method("KeyframeIndex", "open", Path.class);
+	static final MethodHandle SIDECAR_OF = Reflect.method("KeyframeIndex", "sidecarOf", Path.class);
+	static final MethodHandle GET_TIME = Reflect.method("KeyframeIndex", "getTime", int.class);
+	static final MethodHandle SIZE = Reflect.method("KeyframeIndex", "size");
+	static final MethodHandle OPEN = Reflect.method("VideoPlayer", "open", Path.class);
+	static final MethodHandle FAST_FORWARD = Reflect.method("VideoPlayer", "fastForward");
+	static final MethodHandle SEEK = Reflect.method("VideoPlayer", "seek", int.class);
+	static final MethodHandle GET_CURRENT_TIME = Reflect.method("VideoPlayer", "getCurrentTime");
+	static final MethodHandle GET_POSITION = Reflect.method("VideoPlayer", "getPosition");
+
+	static final int TS_PACKET = 188;
+	static final byte TS_SYNC = 0x47;
+	static final int SEEKS = 1024;
+
+	@Param({"512"})
+	int megabytes;
+
+	@Param({"50"})
+	int gop;
+
+	Path file;
+	Path sidecar;
+	Object player;
+	int seconds;
+	int[] targets = new int[SEEKS];
+	int seek = 0;
+
+	@Setup
+	public void setup() throws Throwable {
+		this.file = Files.createTempFile("video", ".ts");
+		writeStream(this.file, (long) this.megabytes << 20, this.gop, 42);
+		this.sidecar = (Path) SIDECAR_OF.invokeExact(this.file);
+		Object index = (Object) OPEN_INDEX.invokeExact(this.file);
+		this.seconds = (int) GET_TIME.invokeExact(index, (int) SIZE.invokeExact(index) - 1) / 1000;
+		this.player = Reflect.construct("VideoPlayer", new Class<?>[]{String.class}, "");
+		OPEN.invokeExact(this.player, this.file);
+		Random random = new Random(7);
+		for (int i = 0; i < SEEKS; i++) {
+			this.targets[i] = random.nextInt(this.seconds);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(this.sidecar);
+		Files.delete(this.file);
+	}
+
+	//One TS packet: video PID 0x100 or audio PID 0x101, with a PES header carrying pts when it starts a frame.
+	static void packet(ByteBuffer out, boolean video, boolean keyframe, long pts) {
+		int start = out.position();
+		out.put(TS_SYNC);
+		out.put((byte) ((pts >= 0 ? 0x40 : 0) | 0x01));
+		out.put((byte) (video ? 0x00 : 0x01));
+		out.put((byte) (keyframe ? 0x30 : 0x10)); //adaptation field only on keyframes
+		if (keyframe) {
+			out.put((byte) 1).put((byte) 0x40); //random access indicator
+		}
+		if (pts >= 0) {
+			out.put((byte) 0).put((byte) 0).put((byte) 1).put((byte) (video ? 0xE0 : 0xC0));
+			out.put((byte) 0).put((byte) 0).put((byte) 0x80).put((byte) 0x80).put((byte) 5);
+			out.put((byte) (0x21 | (pts >> 29) & 0x0E));
+			out.put((byte) (pts >> 22));
+			out.put((byte) ((pts >> 14) | 1));
+			out.put((byte) (pts >> 7));
+			out.put((byte) ((pts << 1) | 1));
+		}
+		while (out.position() - start < TS_PACKET) {
+			out.put((byte) 0xFF);
+		}
+	}
+
+	//25 frames a second, a keyframe every gop frames, a few packets per frame.
+	static void writeStream(Path file, long bytes, int gop, long seed) throws IOException {
+		Random random = new Random(seed);
+		ByteBuffer out = ByteBuffer.allocate(TS_PACKET * 4096);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			long written = 0;
+			for (long frame = 0; written < bytes; frame++) {
+				long pts = 900000 + frame * 3600; //90 kHz clock, 40 ms a frame
+				int packets = 2 + random.nextInt(frame % gop == 0 ? 40 : 8);
+				for (int p = 0; p < packets; p++) {
+					if (out.remaining() < 2 * TS_PACKET) {
+						out.flip();
+						while (out.hasRemaining()) {
+							written += channel.write(out);
+						}
+						out.clear();
+					}
+					packet(out, true, p == 0 && frame % gop == 0, p == 0 ? pts : -1);
+					if (p == 1) {
+						packet(out, false, false, pts); //audio, never a keyframe
+					}
+				}
+			}
+			out.flip();
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+	}
+
+	//A full scan of the stream and a new sidecar.
+	@Benchmark
+	public Object index() throws Throwable {
+		Files.deleteIfExists(this.sidecar);
+		return (Object) OPEN_INDEX.invokeExact(this.file);
+	}
+
+	@Benchmark
+	public Object reopen() throws Throwable {
+		return (Object) OPEN_INDEX.invokeExact(this.file);
+	}
+
+	@Benchmark
+	public long fastForward() throws Throwable {
+		if ((int) GET_CURRENT_TIME.invokeExact(this.player) >= this.seconds) {
+			SEEK.invokeExact(this.player, 0);
+		}
+		FAST_FORWARD.invokeExact(this.player);
+		return (long) GET_POSITION.invokeExact(this.player);
+	}
+
+	@Benchmark
+	public long seek() throws Throwable {
+		SEEK.invokeExact(this.player, this.targets[this.seek++ & (SEEKS - 1)]);
+		return (long) GET_POSITION.invokeExact(this.player);
+	}
+}
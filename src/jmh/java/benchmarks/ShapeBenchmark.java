@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Single-call latency of getArea/getPerimeter/toString per shape class.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShapeBenchmark {
+
+	static final MethodHandle GET_AREA = Reflect.method("Shape", "getArea");
+	static final MethodHandle GET_PERIMETER = Reflect.method("Shape", "getPerimeter");
+	static final MethodHandle APPEND_TO = Reflect.method("Shape", "appendTo", StringBuilder.class);
+
+	@Param({"Circle", "Rectangle", "Triangle"})
+	String kind;
+
+	Object shape;
+	StringBuilder out = new StringBuilder();
+
+	@Setup
+	public void setup() {
+		this.shape = newShape(this.kind, 5, 4);
+	}
+
+	static Object newShape(String kind, double a, double b) {
+		if (kind.equals("Circle")) {
+			return Reflect.construct("Circle", new Class<?>[]{double.class}, a);
+		}
+		return Reflect.construct(kind, new Class<?>[]{double.class, double.class}, a, b);
+	}
+
+	@Benchmark
+	public double getArea() throws Throwable {
+		return (double) GET_AREA.invokeExact(this.shape);
+	}
+
+	@Benchmark
+	public double getPerimeter() throws Throwable {
+		return (double) GET_PERIMETER.invokeExact(this.shape);
+	}
+
+	@Benchmark
+	public String toStringCall() {
+		return this.shape.toString();
+	}
+
+	@Benchmark
+	public int appendTo() throws Throwable {
+		this.out.setLength(0);
+		APPEND_TO.invokeExact(this.shape, this.out);
+		return this.out.length();
+	}
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Bulk throughput over a shuffled mix of shapes. One operation is one pass over every shape.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShapeBulkBenchmark {
+
+	static final MethodHandle PARTITIONED_TOTAL_AREA = Reflect.method("PartitionedShapeList", "totalArea");
+	static final MethodHandle BUFFER_TOTAL_AREA = Reflect.method("ShapeBuffer", "getArea", int.class, int.class);
+	static final MethodHandle BUFFER_ADD = Reflect.method("ShapeBuffer", "add", Reflect.type("Shape"));
+	static final MethodHandle STATS_OF = Reflect.method("ShapeStats", "of", List.class);
+
+	@Param({"1000", "1000000"})
+	int size;
+
+	List<Object> shuffled;
+	Object partitioned;
+	Object buffer;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(42);
+		this.shuffled = new ArrayList<Object>(this.size);
+		String[] kinds = {"Circle", "Rectangle", "Triangle"};
+		for (int i = 0; i < this.size; i++) {
+			this.shuffled.add(ShapeBenchmark.newShape(kinds[i % 3], random.nextDouble() * 10, random.nextDouble() * 10));
+		}
+		Collections.shuffle(this.shuffled, random);
+		this.partitioned = Reflect.construct("PartitionedShapeList", new Class<?>[]{Iterable.class}, this.shuffled);
+		this.buffer = Reflect.construct("ShapeBuffer", new Class<?>[]{int.class}, this.size);
+		for (Object shape : this.shuffled) {
+			int row = (int) BUFFER_ADD.invokeExact(this.buffer, shape);
+		}
+	}
+
+	@Benchmark
+	public double listArea() throws Throwable {
+		//the loop PartitionedShapeList replaces: one getArea() call site that sees every class
+		double total = 0;
+		for (int i = 0; i < this.shuffled.size(); i++) {
+			total += (double) ShapeBenchmark.GET_AREA.invokeExact(this.shuffled.get(i));
+		}
+		return total;
+	}
+
+	@Benchmark
+	public double partitionedArea() throws Throwable {
+		return (double) PARTITIONED_TOTAL_AREA.invokeExact(this.partitioned);
+	}
+
+	@Benchmark
+	public double bufferArea() throws Throwable {
+		return (double) BUFFER_TOTAL_AREA.invokeExact(this.buffer, 0, this.size);
+	}
+
+	@Benchmark
+	public Object parallelStats() throws Throwable {
+		return (Object) STATS_OF.invokeExact(this.shuffled);
+	}
+}
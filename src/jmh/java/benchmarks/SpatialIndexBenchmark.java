@@ -0,0 +1,118 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Range and k-nearest queries on GridIndex and QuadTreeIndex, against scanning every shape.
+//One operation is one query; the query point moves round a fixed set each call.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+	static final MethodHandle INDEX_ADD = Reflect.method("SpatialIndex", "add", Reflect.type("Transformable"));
+	static final MethodHandle INDEX_RANGE = Reflect.method("SpatialIndex", "range", int.class, int.class, int.class, int.class);
+	static final MethodHandle INDEX_NEAREST = Reflect.method("SpatialIndex", "nearest", int.class, int.class, int.class);
+	static final MethodHandle BRUTE_RANGE = Reflect.method("GridIndex", "collect", List.class, int.class, int.class, int.class, int.class, List.class);
+	static final MethodHandle NEW_NEIGHBOURS = Reflect.constructor("Neighbours", int.class, int.class, int.class);
+	static final MethodHandle NEIGHBOURS_OFFER = Reflect.method("Neighbours", "offer", Reflect.type("Transformable"));
+	static final MethodHandle NEIGHBOURS_RESULT = Reflect.method("Neighbours", "result");
+	static final MethodHandle MOVE_BY = Reflect.method("Positions", "moveBy", Reflect.type("Transformable"), int.class, int.class);
+	static final MethodHandle UP = Reflect.method("Transformable", "up");
+
+	static final int WORLD = 100000;
+	static final int HALF = 500;
+	static final int K = 10;
+	static final int QUERIES = 1024;
+
+	//BruteForce scans the whole list, the way the indexes are checked in SpatialIndexTest.
+	@Param({"GridIndex", "QuadTreeIndex", "BruteForce"})
+	String index;
+
+	@Param({"200000"})
+	int size;
+
+	List<Object> shapes;
+	Object spatial; //null for BruteForce
+	int[] qx = new int[QUERIES];
+	int[] qy = new int[QUERIES];
+	int next = 0;
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(42);
+		this.shapes = new ArrayList<Object>(this.size);
+		if (this.index.equals("GridIndex")) {
+			this.spatial = Reflect.construct("GridIndex", new Class<?>[]{int.class}, 256);
+		} else if (this.index.equals("QuadTreeIndex")) {
+			this.spatial = Reflect.construct("QuadTreeIndex", new Class<?>[]{int.class, int.class, int.class}, 0, 0, WORLD);
+		}
+		for (int i = 0; i < this.size; i++) {
+			Object rect = ShapeBenchmark.newShape("Rectangle", 1, 1);
+			MOVE_BY.invokeExact(rect, random.nextInt(WORLD), random.nextInt(WORLD));
+			this.shapes.add(rect);
+			if (this.spatial != null) {
+				INDEX_ADD.invokeExact(this.spatial, rect);
+			}
+		}
+		for (int i = 0; i < QUERIES; i++) {
+			this.qx[i] = random.nextInt(WORLD);
+			this.qy[i] = random.nextInt(WORLD);
+		}
+	}
+
+	int nextQuery() {
+		this.next = (this.next + 1) & (QUERIES - 1);
+		return this.next;
+	}
+
+	@Benchmark
+	public Object range() throws Throwable {
+		int q = nextQuery();
+		int x = this.qx[q];
+		int y = this.qy[q];
+		if (this.spatial == null) {
+			List<Object> found = new ArrayList<Object>();
+			BRUTE_RANGE.invokeExact((List) this.shapes, x - HALF, y - HALF, x + HALF, y + HALF, (List) found);
+			return found;
+		}
+		return (List) INDEX_RANGE.invokeExact(this.spatial, x - HALF, y - HALF, x + HALF, y + HALF);
+	}
+
+	@Benchmark
+	public Object nearest() throws Throwable {
+		int q = nextQuery();
+		if (this.spatial == null) {
+			Object best = (Object) NEW_NEIGHBOURS.invokeExact(this.qx[q], this.qy[q], K);
+			for (int i = 0; i < this.shapes.size(); i++) {
+				NEIGHBOURS_OFFER.invokeExact(best, this.shapes.get(i));
+			}
+			return (List) NEIGHBOURS_RESULT.invokeExact(best);
+		}
+		return (List) INDEX_NEAREST.invokeExact(this.spatial, this.qx[q], this.qy[q], K);
+	}
+
+	//One move, so the index's listener refiles the shape when it crosses a cell or node edge.
+	@Benchmark
+	public void move() throws Throwable {
+		UP.invokeExact(this.shapes.get(nextQuery()));
+	}
+}
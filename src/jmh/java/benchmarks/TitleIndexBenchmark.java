@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Builds a TitleIndex over a generated library, and times prefix and substring queries against one scan of the titles.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleIndexBenchmark {
+
+	static final MethodHandle ADD = Reflect.method("Playlist", "add", String.class);
+	static final MethodHandle STARTING_WITH = Reflect.method("TitleIndex", "startingWith", String.class, int.class);
+	static final MethodHandle CONTAINING = Reflect.method("TitleIndex", "containing", String.class, int.class);
+	static final MethodHandle FOLDED = Reflect.method("TitleIndex", "folded", String.class);
+	static final MethodHandle CONTAINS = Reflect.method("TitleIndex", "contains", Reflect.type("Playlist"), int.class, byte[].class);
+
+	static final String[] WORDS = {"love", "night", "river", "blue", "fire", "dream", "heart", "summer", "road", "rain",
+			"gold", "shadow", "dance", "light", "storm", "home", "wild", "stone", "echo", "ghost"};
+
+	static final int QUERIES = 2000;
+
+	@Param({"5000000"})
+	int tracks;
+
+	Object playlist;
+	Object index;
+	String[] prefixes = new String[QUERIES];
+	String[] substrings = new String[QUERIES];
+	int query = 0;
+
+	static String title(Random random, int i) {
+		return "Artist " + random.nextInt(20000) + " - " + WORDS[random.nextInt(WORDS.length)] + " "
+				+ WORDS[random.nextInt(WORDS.length)] + " " + i;
+	}
+
+	@Setup
+	public void setup() throws Throwable {
+		Random random = new Random(42);
+		this.playlist = Reflect.construct("Playlist", new Class<?>[]{int.class, int.class}, this.tracks, this.tracks * 40);
+		for (int i = 0; i < this.tracks; i++) {
+			int id = (int) ADD.invokeExact(this.playlist, title(random, i));
+		}
+		this.index = build();
+		for (int q = 0; q < QUERIES; q++) {
+			this.prefixes[q] = "artist " + random.nextInt(20000) + " - ";
+			this.substrings[q] = " " + random.nextInt(this.tracks);
+		}
+	}
+
+	@Benchmark
+	public Object build() {
+		return Reflect.construct("TitleIndex", new Class<?>[]{Reflect.type("Playlist")}, this.playlist);
+	}
+
+	@Benchmark
+	public int[] startingWith() throws Throwable {
+		this.query = (this.query + 1) % QUERIES;
+		return (int[]) STARTING_WITH.invokeExact(this.index, this.prefixes[this.query], 10);
+	}
+
+	@Benchmark
+	public int[] containing() throws Throwable {
+		this.query = (this.query + 1) % QUERIES;
+		return (int[]) CONTAINING.invokeExact(this.index, this.substrings[this.query], 10);
+	}
+
+	//What a substring query costs without the index.
+	@Benchmark
+	public int scan() throws Throwable {
+		this.query = (this.query + 1) % QUERIES;
+		byte[] query = (byte[]) FOLDED.invokeExact(this.substrings[this.query]);
+		int found = 0;
+		for (int id = 0; id < this.tracks; id++) {
+			if ((boolean) CONTAINS.invokeExact(this.playlist, id, query)) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
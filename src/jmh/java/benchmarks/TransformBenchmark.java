@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Single moves on Circle and Rectangle.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+	static final MethodHandle UP = Reflect.method("Transformable", "up");
+	static final MethodHandle RIGHT = Reflect.method("Transformable", "right");
+
+	@Param({"Circle", "Rectangle"})
+	String kind;
+
+	Object shape;
+
+	@Setup
+	public void setup() {
+		this.shape = ShapeBenchmark.newShape(this.kind, 1, 1);
+	}
+
+	@Benchmark
+	public void up() throws Throwable {
+		UP.invokeExact(this.shape);
+	}
+
+	@Benchmark
+	public void right() throws Throwable {
+		RIGHT.invokeExact(this.shape);
+	}
+}
@@ -0,0 +1,272 @@
+final class Affine {//a 2D scale, rotate and translate, composed into one matrix and applied to shapes in bulk
+
+	//x' = m00 * x + m01 * y + m02
+	//y' = m10 * x + m11 * y + m12
+	//
+	//Shapes stay the kind they are, so the matrix is applied like this:
+	//- positions (a Circle's centre, a Rectangle's centre) are mapped and rounded to the nearest int
+	//- a Circle's radius is multiplied by sqrt(|det|), so its area scales exactly like the plane's
+	//- a Rectangle stays axis-aligned. Its length becomes the length of the mapped length edge and
+	//  its width whatever keeps the area exact. After a quarter turn the two are swapped.
+	//- a Triangle has no position, only base and height change, the same way as a Rectangle's
+
+	public static final Affine IDENTITY = new Affine(1, 0, 0, 0, 1, 0);
+
+	final double m00;
+	final double m01;
+	final double m02;
+	final double m10;
+	final double m11;
+	final double m12;
+
+	public Affine(double m00, double m01, double m02, double m10, double m11, double m12) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+	}
+
+	public static Affine translate(double dx, double dy) {
+		return new Affine(1, 0, dx, 0, 1, dy);
+	}
+
+	public static Affine scale(double factor) {
+		return scale(factor, factor);
+	}
+
+	public static Affine scale(double sx, double sy) {
+		return new Affine(sx, 0, 0, 0, sy, 0);
+	}
+
+	//Counter-clockwise about the origin.
+	public static Affine rotate(double radians) {
+		double cos = Math.cos(radians);
+		double sin = Math.sin(radians);
+		//exact zeros for quarter turns, so rectangles swap cleanly
+		if (Math.abs(cos) < 1e-15) {
+			cos = 0;
+		}
+		if (Math.abs(sin) < 1e-15) {
+			sin = 0;
+		}
+		return new Affine(cos, -sin, 0, sin, cos, 0);
+	}
+
+	public static Affine rotate(double radians, double cx, double cy) {
+		return translate(-cx, -cy).then(rotate(radians)).then(translate(cx, cy));
+	}
+
+	public static Affine scale(double factor, double cx, double cy) {
+		return translate(-cx, -cy).then(scale(factor)).then(translate(cx, cy));
+	}
+
+	//This transform followed by next.
+	public Affine then(Affine next) {
+		return new Affine(
+				next.m00 * this.m00 + next.m01 * this.m10,
+				next.m00 * this.m01 + next.m01 * this.m11,
+				next.m00 * this.m02 + next.m01 * this.m12 + next.m02,
+				next.m10 * this.m00 + next.m11 * this.m10,
+				next.m10 * this.m01 + next.m11 * this.m11,
+				next.m10 * this.m02 + next.m11 * this.m12 + next.m12);
+	}
+
+	public double mapX(double x, double y) {
+		return this.m00 * x + this.m01 * y + this.m02;
+	}
+
+	public double mapY(double x, double y) {
+		return this.m10 * x + this.m11 * y + this.m12;
+	}
+
+	public double determinant() {
+		return this.m00 * this.m11 - this.m01 * this.m10;
+	}
+
+	//Factor for a Circle's radius.
+	double radiusScale() {
+		return Math.sqrt(Math.abs(determinant()));
+	}
+
+	//Factor for a Rectangle's length or a Triangle's base.
+	double lengthScale() {
+		return Math.hypot(this.m00, this.m10);
+	}
+
+	//Factor for a Rectangle's width or a Triangle's height, so that the area scales by |det|.
+	double widthScale() {
+		double length = lengthScale();
+		return length == 0 ? Math.hypot(this.m01, this.m11) : Math.abs(determinant()) / length;
+	}
+
+	//True when the length edge ends up closer to the y axis than to the x axis.
+	boolean swapsAxes() {
+		return Math.abs(this.m10) > Math.abs(this.m00);
+	}
+
+	static int round(double value) {
+		return (int) Math.rint(value);
+	}
+
+	//Circle, Rectangle and Triangle are changed in place through their setters,
+	//so move and resize listeners hear about it.
+	public void apply(Shape shape) {
+		if (shape instanceof Circle) {
+			Circle cir = (Circle) shape;
+			int oldX = cir.position[0];
+			int oldY = cir.position[1];
+			cir.position[0] = round(mapX(oldX, oldY));
+			cir.position[1] = round(mapY(oldX, oldY));
+			cir.moved(cir.position[0] - oldX, cir.position[1] - oldY);
+			cir.setRadius(cir.radius * radiusScale());
+		} else if (shape instanceof Rectangle) {
+			Rectangle rect = (Rectangle) shape;
+			double length = rect.length * lengthScale();
+			double width = rect.width * widthScale();
+			if (swapsAxes()) {
+				double swap = length;
+				length = width;
+				width = swap;
+			}
+			double cx = rect.x + rect.length / 2;
+			double cy = rect.y + rect.width / 2;
+			int oldX = rect.x;
+			int oldY = rect.y;
+			rect.x = round(mapX(cx, cy) - length / 2);
+			rect.y = round(mapY(cx, cy) - width / 2);
+			rect.moved(rect.x - oldX, rect.y - oldY);
+			rect.length = length;
+			rect.setWidth(width);
+		} else if (shape instanceof Triangle) {
+			Triangle tri = (Triangle) shape;
+			tri.base *= lengthScale();
+			tri.setHeight(tri.height * widthScale());
+		} else {
+			throw new IllegalArgumentException("Cannot transform " + shape);
+		}
+	}
+
+	public void apply(Iterable<? extends Shape> shapes) {
+		for (Shape shape : shapes) {
+			apply(shape);
+		}
+	}
+
+	//Same rules as apply(Shape), straight on the columns.
+	public void apply(ShapeBuffer buffer) {
+		apply(buffer, 0, buffer.size());
+	}
+
+	public void apply(ShapeBuffer buffer, int from, int to) {
+		buffer.checkRange(from, to);
+		byte[] kinds = buffer.kinds;
+		double[] dim1 = buffer.dim1;
+		double[] dim2 = buffer.dim2;
+		int[] x = buffer.x;
+		int[] y = buffer.y;
+		double radius = radiusScale();
+		double length = lengthScale();
+		double width = widthScale();
+		boolean swap = swapsAxes();
+		//positions first, they need the rectangles' old dimensions
+		for (int i = from; i < to; i++) {
+			double cx = x[i];
+			double cy = y[i];
+			if (kinds[i] == ShapeBuffer.TRIANGLE) {
+				continue;
+			}
+			if (kinds[i] == ShapeBuffer.CIRCLE) {
+				x[i] = round(this.m00 * cx + this.m01 * cy + this.m02);
+				y[i] = round(this.m10 * cx + this.m11 * cy + this.m12);
+				continue;
+			}
+			double l = dim1[i] * length;
+			double w = dim2[i] * width;
+			double halfX = (swap ? w : l) / 2;
+			double halfY = (swap ? l : w) / 2;
+			cx += dim1[i] / 2;
+			cy += dim2[i] / 2;
+			x[i] = round(this.m00 * cx + this.m01 * cy + this.m02 - halfX);
+			y[i] = round(this.m10 * cx + this.m11 * cy + this.m12 - halfY);
+		}
+		if (radius == length && radius == width && !swap) {
+			//rotations by less than 45 degrees and uniform scales: one multiply for every column entry
+			for (int i = from; i < to; i++) {
+				dim1[i] *= radius;
+			}
+			for (int i = from; i < to; i++) {
+				dim2[i] *= radius;
+			}
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			byte kind = kinds[i];
+			if (kind == ShapeBuffer.CIRCLE) {
+				dim1[i] *= radius;
+			} else if (kind == ShapeBuffer.RECTANGLE && swap) {
+				double l = dim1[i] * length;
+				dim1[i] = dim2[i] * width;
+				dim2[i] = l;
+			} else {
+				dim1[i] *= length;
+				dim2[i] *= width;
+			}
+		}
+	}
+
+	//Maps points in place. Branch free, so the JIT can vectorize it.
+	public void apply(double[] xs, double[] ys, int from, int to) {
+		double m00 = this.m00;
+		double m01 = this.m01;
+		double m02 = this.m02;
+		double m10 = this.m10;
+		double m11 = this.m11;
+		double m12 = this.m12;
+		for (int i = from; i < to; i++) {
+			double px = xs[i];
+			double py = ys[i];
+			xs[i] = m00 * px + m01 * py + m02;
+			ys[i] = m10 * px + m11 * py + m12;
+		}
+	}
+
+	//Maps int points in place, rounding to the nearest int.
+	public void apply(int[] xs, int[] ys, int from, int to) {
+		for (int i = from; i < to; i++) {
+			double px = xs[i];
+			double py = ys[i];
+			xs[i] = round(this.m00 * px + this.m01 * py + this.m02);
+			ys[i] = round(this.m10 * px + this.m11 * py + this.m12);
+		}
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Affine)) {
+			return false;
+		}
+		Affine that = (Affine) other;
+		return Double.compare(this.m00, that.m00) == 0 && Double.compare(this.m01, that.m01) == 0
+				&& Double.compare(this.m02, that.m02) == 0 && Double.compare(this.m10, that.m10) == 0
+				&& Double.compare(this.m11, that.m11) == 0 && Double.compare(this.m12, that.m12) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		long bits = Double.doubleToLongBits(this.m00);
+		bits = bits * 31 + Double.doubleToLongBits(this.m01);
+		bits = bits * 31 + Double.doubleToLongBits(this.m02);
+		bits = bits * 31 + Double.doubleToLongBits(this.m10);
+		bits = bits * 31 + Double.doubleToLongBits(this.m11);
+		bits = bits * 31 + Double.doubleToLongBits(this.m12);
+		return (int) (bits ^ (bits >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return "Affine: [" + this.m00 + ", " + this.m01 + ", " + this.m02 + "; " + this.m10 + ", " + this.m11 + ", " + this.m12 + "]";
+	}
+
+}
@@ -0,0 +1,65 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+class AtomicPosition {//an (x, y) pair packed into one 64-bit word and updated with compare-and-set
+
+	final AtomicLong packed;
+
+	public AtomicPosition(int x, int y) {
+		this.packed = new AtomicLong(pack(x, y));
+	}
+
+	static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+
+	static int unpackX(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	static int unpackY(long packed) {
+		return (int) packed;
+	}
+
+	public int getX() {
+		return unpackX(this.packed.get());
+	}
+
+	public int getY() {
+		return unpackY(this.packed.get());
+	}
+
+	//Both coordinates from the same instant, packed. Use unpackX/unpackY to read it.
+	public long get() {
+		return this.packed.get();
+	}
+
+	public void set(int x, int y) {
+		this.packed.set(pack(x, y));
+	}
+
+	//Moves by whole steps. Never blocks, retries only if another thread moved first.
+	public void move(int dx, int dy) {
+		long current;
+		long next;
+		do {
+			current = this.packed.get();
+			next = pack(unpackX(current) + dx, unpackY(current) + dy);
+		} while (!this.packed.compareAndSet(current, next));
+	}
+
+	//Moves by a fractional step, converting the result to int the same way
+	//position[1] += this.radius does in Circle.
+	public void move(double dx, double dy) {
+		long current;
+		long next;
+		do {
+			current = this.packed.get();
+			int x = unpackX(current);
+			int y = unpackY(current);
+			x += dx;
+			y += dy;
+			next = pack(x, y);
+		} while (!this.packed.compareAndSet(current, next));
+	}
+
+}
@@ -0,0 +1,295 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+class AudioPipeline implements Closeable {//plays a MusicPlayer's tracks from local WAV/PCM files without gaps between them
+
+	//A decode thread reads the files and a playback thread feeds the sink, with a
+	//PcmRing between them. When the decode thread reaches the end of a file it
+	//opens the track MusicPlayer would play next and keeps filling the ring, so
+	//that track is already buffered when the current one ends. Memory is the ring
+	//plus one read buffer, however long the tracks are.
+	//
+	//Where each track starts in the ring is passed along in a second, small ring
+	//of marks. play(track) bumps the generation: the decode thread drops its file
+	//and marks the new track, and the playback thread throws away the bytes of
+	//the old generation instead of playing them.
+	//
+	//The decode thread never touches the MusicPlayer, which belongs to the caller's
+	//thread: play() hands it a snapshot of the titles and their order along with the
+	//requested track.
+	//
+	//Track titles are file names under the library directory. A file that cannot
+	//be read, or a title that is not a file name, is counted in getErrors() and skipped.
+
+	static final int MARKS = 64;
+	static final int CHUNK = 16 * 1024;
+	static final long PARK_NANOS = 200000;
+
+	final MusicPlayer player;
+	final Path library;
+	final AudioSink sink;
+	final PcmRing ring;
+
+	//marks, one writer (decode) and one reader (playback) like the ring
+	final long[] markAt = new long[MARKS];
+	final int[] markTrack = new int[MARKS]; //-1 marks the end of the list
+	final int[] markGeneration = new int[MARKS];
+	final int[][] markFormat = new int[MARKS][];
+	final AtomicLong marksWritten = new AtomicLong();
+	final AtomicLong marksRead = new AtomicLong();
+
+	final AtomicInteger generation = new AtomicInteger();
+	volatile int requested = -1; //the track play() asked for
+	volatile MusicPlayer order; //the player's titles and order when play() was called
+	volatile boolean closed = false;
+	volatile int playing = -1;
+	volatile int finished = -1; //generation that played to the end of the list
+	final AtomicLong played = new AtomicLong();
+	final AtomicLong underruns = new AtomicLong();
+	final AtomicInteger errors = new AtomicInteger();
+
+	Thread decoder;
+	Thread playback;
+
+	public AudioPipeline(MusicPlayer player, Path library, AudioSink sink, int ringBytes) {
+		this.player = player;
+		this.library = library;
+		this.sink = sink;
+		this.ring = new PcmRing(ringBytes);
+	}
+
+	//Plays from the player's current song, or the first one while it is stopped.
+	public void play() {
+		play(Math.max(this.player.getCurrentIndex(), 0));
+	}
+
+	//Starts the track now, dropping whatever was buffered.
+	public void play(int track) {
+		if (track < 0 || track >= this.player.size()) {
+			throw new IndexOutOfBoundsException("Index: " + track + ", size: " + this.player.size());
+		}
+		if (this.closed) {
+			throw new IllegalStateException("Pipeline is closed");
+		}
+		this.order = this.player.snapshot();
+		this.requested = track;
+		this.generation.incrementAndGet();
+		if (this.decoder == null) {
+			this.decoder = new Thread(this::decode, "audio-decode");
+			this.playback = new Thread(this::playback, "audio-playback");
+			this.decoder.setDaemon(true);
+			this.playback.setDaemon(true);
+			this.decoder.start();
+			this.playback.start();
+		}
+		LockSupport.unpark(this.decoder);
+	}
+
+	//The track being heard, -1 before the first one and after the last.
+	public int getPlaying() {
+		return this.playing;
+	}
+
+	//Moves the player's current song to the track being heard. Call it from the thread that owns the player.
+	public void update() {
+		int track = this.playing;
+		if (track >= 0 && track != this.player.getCurrentIndex()) {
+			this.player.jumpTo(track);
+		}
+	}
+
+	public long getPlayedBytes() {
+		return this.played.get();
+	}
+
+	//Times the ring ran empty while a track was playing: each one is a gap the listener hears.
+	public long getUnderruns() {
+		return this.underruns.get();
+	}
+
+	public int getErrors() {
+		return this.errors.get();
+	}
+
+	//True once every track up to the end of the list has gone to the sink.
+	public boolean isFinished() {
+		return this.finished == this.generation.get();
+	}
+
+	//Waits for a free slot. False, with nothing written, once play() or close() makes the
+	//generation stale: the slot the wait was for may still be unread.
+	boolean putMark(int track, int generation, int[] format) {
+		long at = this.marksWritten.get();
+		while (at - this.marksRead.get() == MARKS) {
+			if (stale(generation)) {
+				return false;
+			}
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+		int slot = (int) at & (MARKS - 1);
+		this.markAt[slot] = this.ring.writePosition();
+		this.markTrack[slot] = track;
+		this.markGeneration[slot] = generation;
+		this.markFormat[slot] = format;
+		this.marksWritten.lazySet(at + 1);
+		return true;
+	}
+
+	boolean stale(int generation) {
+		return this.closed || this.generation.get() != generation;
+	}
+
+	void decode() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK);
+		WavFile file = null;
+		MusicPlayer order = null;
+		int track = -1;
+		int generation = -1;
+		while (!this.closed) {
+			try {
+				if (generation != this.generation.get()) {
+					//play() was called: start over from the requested track
+					generation = this.generation.get();
+					track = this.requested;
+					order = this.order;
+					buffer.clear();
+					file = close(file);
+					file = open(order, track, generation);
+				} else if (file == null && buffer.position() == 0) {
+					//the last file is all in the ring: prefetch the one after it
+					if (track < 0) {
+						LockSupport.parkNanos(PARK_NANOS); //at the end of the list until play()
+						continue;
+					}
+					track = order.following(track);
+					if (track < 0) {
+						putMark(-1, generation, null); //if stale, the next pass starts over
+						continue;
+					}
+					file = open(order, track, generation);
+				}
+				if (file != null && buffer.hasRemaining() && file.read(buffer) < 0) {
+					file = close(file);
+				}
+				buffer.flip();
+				int offered = this.ring.offer(buffer);
+				buffer.compact();
+				if (offered == 0 && buffer.position() > 0) {
+					LockSupport.parkNanos(PARK_NANOS); //ring is full, playback is ahead by a whole ring
+				}
+			} catch (IOException e) {
+				this.errors.incrementAndGet();
+				buffer.clear();
+				try {
+					file = close(file);
+				} catch (IOException ignored) {
+					file = null;
+				}
+			}
+		}
+		try {
+			close(file);
+		} catch (IOException ignored) {
+			//nothing left to play
+		}
+	}
+
+	//Opens a track's file and marks where its bytes start. Unreadable tracks count as errors and are skipped.
+	//Null too when the generation went stale waiting for a mark, the track is then dropped.
+	WavFile open(MusicPlayer order, int track, int generation) throws IOException {
+		WavFile file;
+		try {
+			file = WavFile.open(this.library.resolve(order.title(track)));
+		} catch (IOException | InvalidPathException e) {
+			this.errors.incrementAndGet();
+			putMark(track, generation, null); //nothing to play, but the track was reached
+			return null;
+		}
+		if (!putMark(track, generation, new int[]{file.sampleRate, file.channels, file.bitsPerSample})) {
+			return close(file);
+		}
+		return file;
+	}
+
+	WavFile close(WavFile file) throws IOException {
+		if (file != null) {
+			file.close();
+		}
+		return null;
+	}
+
+	void playback() {
+		byte[] chunk = new byte[CHUNK];
+		int generation = 0;
+		int[] format = null;
+		boolean dry = true; //counts each time the ring runs out once, not every wait
+		while (!this.closed) {
+			//ring first, marks second, generation last: a mark is published before
+			//its track's bytes and play() bumps the generation before the mark
+			int available = this.ring.available();
+			long at = this.ring.readPosition();
+			long marks = this.marksRead.get();
+			boolean marked = marks < this.marksWritten.get();
+			int target = this.generation.get();
+			int slot = (int) marks & (MARKS - 1);
+			long markAt = marked ? this.markAt[slot] : at + available;
+			if (generation != target && markAt > at) {
+				this.ring.skip((int) (markAt - at)); //bytes from before play() was called
+				continue;
+			}
+			if (marked && markAt <= at) { //never behind the read position, but a negative length must not reach poll()
+				if (this.markGeneration[slot] == target) {
+					generation = target;
+					int[] next = this.markFormat[slot];
+					if (next != null && (format == null || format[0] != next[0] || format[1] != next[1] || format[2] != next[2])) {
+						this.sink.format(next[0], next[1], next[2]);
+						format = next;
+					}
+					this.playing = this.markTrack[slot];
+					if (this.playing < 0) {
+						this.finished = generation;
+					}
+				}
+				this.marksRead.lazySet(marks + 1);
+				continue;
+			}
+			available = (int) Math.min(available, markAt - at); //stop at the next track
+			if (available == 0) {
+				if (this.playing >= 0 && !dry) {
+					this.underruns.incrementAndGet();
+				}
+				dry = true;
+				LockSupport.parkNanos(PARK_NANOS);
+				continue;
+			}
+			dry = false;
+			int read = this.ring.poll(chunk, 0, Math.min(available, chunk.length));
+			this.sink.write(chunk, 0, read);
+			this.played.addAndGet(read);
+		}
+	}
+
+	//Stops both threads and waits for them.
+	@Override
+	public void close() {
+		this.closed = true;
+		if (this.decoder == null) {
+			return;
+		}
+		LockSupport.unpark(this.decoder);
+		LockSupport.unpark(this.playback);
+		try {
+			this.decoder.join();
+			this.playback.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
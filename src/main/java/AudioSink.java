@@ -0,0 +1,9 @@
+interface AudioSink {
+
+	//Called before the first bytes, and again whenever a track with another format starts.
+	public void format(int sampleRate, int channels, int bitsPerSample);
+
+	//Called with PCM bytes in order, from the playback thread only. May block to pace playback.
+	public void write(byte[] pcm, int off, int len);
+
+}
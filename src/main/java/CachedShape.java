@@ -0,0 +1,84 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CachedShape implements Shape, ResizeListener {//remembers area and perimeter of a mutable shape until a setter changes it
+
+	final Shape shape;
+	//bumped by every change; the cache holds the version its values were computed at
+	final AtomicInteger version = new AtomicInteger();
+	//area and perimeter published together, so a reader never mixes two versions
+	volatile Values values;
+
+	//shape must be a Circle, Rectangle or Triangle. Changes made through their setters
+	//clear the cache; writing the public fields directly does not, so call invalidate() then.
+	//Like the shape it wraps, only one thread should change it, though any thread may read it.
+	public CachedShape(Shape shape) {
+		this.shape = shape;
+		ResizeListeners.addResizeListener(shape, this);
+	}
+
+	public Shape getShape() {
+		return this.shape;
+	}
+
+	public void invalidate() {
+		this.version.incrementAndGet();
+	}
+
+	//Stops listening to the wrapped shape so this wrapper can be garbage collected.
+	public void detach() {
+		ResizeListeners.removeResizeListener(this.shape, this);
+	}
+
+	@Override
+	public void resized(Shape shape) {
+		this.version.incrementAndGet();
+	}
+
+	//The cached values if they are current, else computes them again. The version is
+	//read before the shape, so values computed while a resize lands carry the old version
+	//and are never taken as current; the loop repeats until the version holds still.
+	Values values() {
+		Values values = this.values;
+		int version = this.version.get();
+		while (values == null || values.version != version) {
+			values = new Values(version, this.shape.getArea(), this.shape.getPerimeter());
+			this.values = values;
+			version = this.version.get();
+		}
+		return values;
+	}
+
+	@Override
+	public double getArea() {
+		return values().area;
+	}
+
+	@Override
+	public double getPerimeter() {
+		return values().perimeter;
+	}
+
+	static final class Values {//area and perimeter of one version of the shape
+
+		final int version;
+		final double area;
+		final double perimeter;
+
+		Values(int version, double area, double perimeter) {
+			this.version = version;
+			this.area = area;
+			this.perimeter = perimeter;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.shape.toString();
+	}
+
+	@Override
+	public void appendTo(StringBuilder out) {
+		this.shape.appendTo(out);
+	}
+
+}
@@ -2,11 +2,19 @@ class Circle implements Shape, Transformable {//use implements to implement inte
 	
 	public double radius;
 	int[] position = new int[]{0, 0};
+	MoveListener listener; //null until something wants to hear about moves
+	ResizeListener resizeListener;
 
 	public Circle(double radius) {
 		this.radius = radius;
 	}
 
+	//Writing radius directly still works, but only the setter tells listeners.
+	public void setRadius(double radius) {
+		this.radius = radius;
+		resized();
+	}
+
 	@Override
 	public double getArea() {
 		return this.radius * this.radius * Math.PI;
@@ -22,24 +30,65 @@ class Circle implements Shape, Transformable {//use implements to implement inte
 		return "Circle: " + this.radius;
 	}
 
+	@Override
+	public void appendTo(StringBuilder out) {
+		out.append("Circle: ").append(this.radius);
+	}
+
 	@Override
 	public void up() {
+		int old = position[1];
 		position[1] += this.radius;
+		moved(0, position[1] - old);
 	}
 
 	@Override
 	public void down() {
+		int old = position[1];
 		position[1] -= this.radius;
+		moved(0, position[1] - old);
 	}
 
 	@Override
 	public void left() {
+		int old = position[0];
 		position[0] -= this.radius;
+		moved(position[0] - old, 0);
 	}
 
 	@Override
 	public void right() {
+		int old = position[0];
 		position[0] += this.radius;
+		moved(position[0] - old, 0);
+	}
+
+	public void addMoveListener(MoveListener listener) {
+		this.listener = MoveListeners.add(this.listener, listener);
+	}
+
+	public void removeMoveListener(MoveListener listener) {
+		this.listener = MoveListeners.remove(this.listener, listener);
+	}
+
+	void moved(int dx, int dy) {
+		if (this.listener != null) {
+			this.listener.moved(this, dx, dy);
+		}
+	}
+
+	public void addResizeListener(ResizeListener listener) {
+		this.resizeListener = ResizeListeners.add(this.resizeListener, listener);
+	}
+
+	public void removeResizeListener(ResizeListener listener) {
+		this.resizeListener = ResizeListeners.remove(this.resizeListener, listener);
+	}
+
+	void resized() {
+		if (this.resizeListener != null) {
+			this.resizeListener.resized(this);
+		}
 	}
 
 }
\ No newline at end of file
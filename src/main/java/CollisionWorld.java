@@ -0,0 +1,216 @@
+import java.util.Arrays;
+
+class CollisionWorld {//finds overlapping circles and rectangles with an incremental sweep-and-prune
+
+	//Bounds conventions: a Circle is centred on its position and a Rectangle has
+	//its bottom-left corner at (x, y), spanning length along x and width along y.
+	//Shapes that only touch at an edge count as colliding.
+
+	interface Listener {
+		public void collided(Transformable a, Transformable b);
+	}
+
+	static final byte CIRCLE = 0;
+	static final byte RECTANGLE = 1;
+
+	Transformable[] shapes = new Transformable[16];
+	byte[] kinds = new byte[16];
+	double[] minX = new double[16];
+	double[] maxX = new double[16];
+	double[] minY = new double[16];
+	double[] maxY = new double[16];
+	//shape indexes sorted by minX, kept between ticks so re-sorting is nearly free
+	int[] order = new int[16];
+	//bounds copied into sort order each tick
+	double[] sortedMinX = new double[0];
+	double[] sortedMinY = new double[0];
+	double[] sortedMaxY = new double[0];
+	int size = 0;
+
+	public int size() {
+		return this.size;
+	}
+
+	public void add(Transformable shape) {
+		byte kind;
+		if (shape instanceof Circle) {
+			kind = CIRCLE;
+		} else if (shape instanceof Rectangle) {
+			kind = RECTANGLE;
+		} else {
+			throw new IllegalArgumentException("Only circles and rectangles can collide: " + shape);
+		}
+		if (this.size == this.shapes.length) {
+			int capacity = this.size * 2;
+			this.shapes = Arrays.copyOf(this.shapes, capacity);
+			this.kinds = Arrays.copyOf(this.kinds, capacity);
+			this.minX = Arrays.copyOf(this.minX, capacity);
+			this.maxX = Arrays.copyOf(this.maxX, capacity);
+			this.minY = Arrays.copyOf(this.minY, capacity);
+			this.maxY = Arrays.copyOf(this.maxY, capacity);
+			this.order = Arrays.copyOf(this.order, capacity);
+		}
+		this.shapes[this.size] = shape;
+		this.kinds[this.size] = kind;
+		this.order[this.size] = this.size;
+		this.size++;
+	}
+
+	public boolean remove(Transformable shape) {
+		for (int i = 0; i < this.size; i++) {
+			if (this.shapes[i] == shape) {
+				int last = --this.size;
+				this.shapes[i] = this.shapes[last];
+				this.kinds[i] = this.kinds[last];
+				this.shapes[last] = null;
+				//drop i from the sort order and rename last to i, keeping the rest in place
+				int to = 0;
+				for (int j = 0; j <= last; j++) {
+					int index = this.order[j];
+					if (index == i) {
+						continue;
+					}
+					this.order[to++] = index == last ? i : index;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void updateBounds() {
+		for (int i = 0; i < this.size; i++) {
+			if (this.kinds[i] == CIRCLE) {
+				Circle cir = (Circle) this.shapes[i];
+				double r = Math.abs(cir.radius);
+				this.minX[i] = cir.position[0] - r;
+				this.maxX[i] = cir.position[0] + r;
+				this.minY[i] = cir.position[1] - r;
+				this.maxY[i] = cir.position[1] + r;
+			} else {
+				Rectangle rect = (Rectangle) this.shapes[i];
+				this.minX[i] = Math.min(rect.x, rect.x + rect.length);
+				this.maxX[i] = Math.max(rect.x, rect.x + rect.length);
+				this.minY[i] = Math.min(rect.y, rect.y + rect.width);
+				this.maxY[i] = Math.max(rect.y, rect.y + rect.width);
+			}
+		}
+	}
+
+	//Insertion sort: close to linear because shapes only move a little per tick.
+	//If it has to shift too much (first tick, teleports) it gives up and merge sorts instead.
+	void sortOrder() {
+		int[] order = this.order;
+		double[] minX = this.minX;
+		long budget = 8L * this.size + 64;
+		for (int i = 1; i < this.size; i++) {
+			int index = order[i];
+			double key = minX[index];
+			int j = i - 1;
+			while (j >= 0 && minX[order[j]] > key) {
+				order[j + 1] = order[j];
+				j--;
+				if (--budget == 0) {
+					order[j + 1] = index;
+					mergeSort();
+					return;
+				}
+			}
+			order[j + 1] = index;
+		}
+	}
+
+	void mergeSort() {
+		int[] from = this.order;
+		int[] to = new int[from.length];
+		for (int width = 1; width < this.size; width *= 2) {
+			for (int lo = 0; lo < this.size; lo += 2 * width) {
+				int mid = Math.min(lo + width, this.size);
+				int hi = Math.min(lo + 2 * width, this.size);
+				int i = lo;
+				int j = mid;
+				for (int k = lo; k < hi; k++) {
+					if (j >= hi || (i < mid && this.minX[from[i]] <= this.minX[from[j]])) {
+						to[k] = from[i++];
+					} else {
+						to[k] = from[j++];
+					}
+				}
+			}
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		this.order = from;
+	}
+
+	//Reads current positions, then reports every overlapping pair once. Returns the pair count.
+	public int tick(Listener listener) {
+		updateBounds();
+		sortOrder();
+		//copy bounds into sweep order so the inner loop reads memory front to back
+		if (this.sortedMinX.length < this.size) {
+			this.sortedMinX = new double[this.shapes.length];
+			this.sortedMinY = new double[this.shapes.length];
+			this.sortedMaxY = new double[this.shapes.length];
+		}
+		double[] sMinX = this.sortedMinX;
+		double[] sMinY = this.sortedMinY;
+		double[] sMaxY = this.sortedMaxY;
+		for (int i = 0; i < this.size; i++) {
+			int index = this.order[i];
+			sMinX[i] = this.minX[index];
+			sMinY[i] = this.minY[index];
+			sMaxY[i] = this.maxY[index];
+		}
+		int pairs = 0;
+		int n = this.size;
+		for (int i = 0; i < n; i++) {
+			int a = this.order[i];
+			double right = this.maxX[a];
+			double bottom = sMinY[i];
+			double top = sMaxY[i];
+			for (int j = i + 1; j < n; j++) {
+				if (sMinX[j] > right) {
+					break; //everything later in the order starts even further right
+				}
+				if (sMinY[j] > top || sMaxY[j] < bottom) {
+					continue;
+				}
+				int b = this.order[j];
+				if (overlaps(a, b)) {
+					pairs++;
+					if (listener != null) {
+						listener.collided(this.shapes[a], this.shapes[b]);
+					}
+				}
+			}
+		}
+		return pairs;
+	}
+
+	//Exact test for a pair whose bounds already overlap.
+	boolean overlaps(int a, int b) {
+		if (this.kinds[a] == RECTANGLE && this.kinds[b] == RECTANGLE) {
+			return true; //bounds are the rectangles themselves
+		}
+		if (this.kinds[a] == CIRCLE && this.kinds[b] == CIRCLE) {
+			Circle c1 = (Circle) this.shapes[a];
+			Circle c2 = (Circle) this.shapes[b];
+			double dx = c1.position[0] - c2.position[0];
+			double dy = c1.position[1] - c2.position[1];
+			double reach = Math.abs(c1.radius) + Math.abs(c2.radius);
+			return dx * dx + dy * dy <= reach * reach;
+		}
+		int circle = this.kinds[a] == CIRCLE ? a : b;
+		int rect = circle == a ? b : a;
+		Circle cir = (Circle) this.shapes[circle];
+		//closest point of the rectangle to the centre of the circle
+		double cx = Math.max(this.minX[rect], Math.min(cir.position[0], this.maxX[rect]));
+		double cy = Math.max(this.minY[rect], Math.min(cir.position[1], this.maxY[rect]));
+		double dx = cir.position[0] - cx;
+		double dy = cir.position[1] - cy;
+		return dx * dx + dy * dy <= cir.radius * cir.radius;
+	}
+
+}
@@ -0,0 +1,50 @@
+class ConcurrentCircle implements Shape, Transformable {//a Circle that many threads can move at once
+
+	public final double radius;
+	final AtomicPosition position = new AtomicPosition(0, 0);
+
+	public ConcurrentCircle(double radius) {
+		this.radius = radius;
+	}
+
+	@Override
+	public double getArea() {
+		return this.radius * this.radius * Math.PI;
+	}
+
+	@Override
+	public double getPerimeter() {
+		return this.radius*2*Math.PI;
+	}
+
+	@Override
+	public String toString() {
+		return "Circle: " + this.radius;
+	}
+
+	@Override
+	public void appendTo(StringBuilder out) {
+		out.append("Circle: ").append(this.radius);
+	}
+
+	@Override
+	public void up() {
+		position.move(0, this.radius);
+	}
+
+	@Override
+	public void down() {
+		position.move(0, -this.radius);
+	}
+
+	@Override
+	public void left() {
+		position.move(-this.radius, 0);
+	}
+
+	@Override
+	public void right() {
+		position.move(this.radius, 0);
+	}
+
+}
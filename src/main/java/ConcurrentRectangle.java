@@ -0,0 +1,46 @@
+class ConcurrentRectangle implements Shape, Transformable {//a Rectangle that many threads can move at once
+
+	final AtomicPosition position = new AtomicPosition(0, 0);
+
+	public final double length;
+	public final double width;
+
+	public ConcurrentRectangle(double length, double width) {
+		this.length = length;
+		this.width = width;
+	}
+
+	@Override
+	public double getArea() {
+		return this.length * this.width;
+	}
+	@Override
+	public double getPerimeter() {
+		return this.length * 2 + this.width * 2;
+	}
+	@Override
+	public String toString() {
+		return "Rectangle: " + this.length + " by " + this.width;
+	}
+	@Override
+	public void appendTo(StringBuilder out) {
+		out.append("Rectangle: ").append(this.length).append(" by ").append(this.width);
+	}
+
+	@Override
+	public void up() {
+		position.move(0, 1);
+	}
+	@Override
+	public void down() {
+		position.move(0, -1);
+	}
+	@Override
+	public void left() {
+		position.move(-1, 0);
+	}
+	@Override
+	public void right() {
+		position.move(1, 0);
+	}
+}
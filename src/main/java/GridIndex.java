@@ -0,0 +1,208 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+class GridIndex implements SpatialIndex {//uniform hash grid over shape positions
+
+	final int cellSize;
+	final HashMap<Long, ArrayList<Transformable>> cells = new HashMap<Long, ArrayList<Transformable>>();
+	final IdentityHashMap<Transformable, Long> cellOf = new IdentityHashMap<Transformable, Long>();
+
+	public GridIndex(int cellSize) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+		}
+		this.cellSize = cellSize;
+	}
+
+	static long key(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xffffffffL);
+	}
+
+	int cell(int coordinate) {
+		return Math.floorDiv(coordinate, this.cellSize);
+	}
+
+	long keyOf(Transformable shape) {
+		return key(cell(Positions.x(shape)), cell(Positions.y(shape)));
+	}
+
+	@Override
+	public void add(Transformable shape) {
+		if (this.cellOf.containsKey(shape)) {
+			return;
+		}
+		long key = keyOf(shape);
+		file(shape, key);
+		Positions.addMoveListener(shape, this);
+	}
+
+	@Override
+	public void remove(Transformable shape) {
+		Long key = this.cellOf.remove(shape);
+		if (key == null) {
+			return;
+		}
+		unfile(shape, key);
+		Positions.removeMoveListener(shape, this);
+	}
+
+	@Override
+	public int size() {
+		return this.cellOf.size();
+	}
+
+	//Only touches the two cells involved, and only when the shape crossed a cell edge.
+	@Override
+	public void moved(Transformable shape, int dx, int dy) {
+		Long old = this.cellOf.get(shape);
+		if (old == null) {
+			return;
+		}
+		long key = keyOf(shape);
+		if (key != old) {
+			unfile(shape, old);
+			file(shape, key);
+		}
+	}
+
+	void file(Transformable shape, long key) {
+		ArrayList<Transformable> cell = this.cells.get(key);
+		if (cell == null) {
+			cell = new ArrayList<Transformable>(4);
+			this.cells.put(key, cell);
+		}
+		cell.add(shape);
+		this.cellOf.put(shape, key);
+	}
+
+	void unfile(Transformable shape, long key) {
+		ArrayList<Transformable> cell = this.cells.get(key);
+		for (int i = 0; i < cell.size(); i++) {
+			if (cell.get(i) == shape) {
+				//order inside a cell does not matter, so swap in the last one
+				cell.set(i, cell.get(cell.size() - 1));
+				cell.remove(cell.size() - 1);
+				break;
+			}
+		}
+		if (cell.isEmpty()) {
+			this.cells.remove(key);
+		}
+	}
+
+	@Override
+	public List<Transformable> range(int minX, int minY, int maxX, int maxY) {
+		List<Transformable> found = new ArrayList<Transformable>();
+		int cx0 = cell(minX);
+		int cy0 = cell(minY);
+		int cx1 = cell(maxX);
+		int cy1 = cell(maxY);
+		long span = ((long) cx1 - cx0 + 1) * ((long) cy1 - cy0 + 1);
+		if (span > this.cells.size()) {
+			//box covers more cells than are occupied, so walk the occupied ones instead
+			for (ArrayList<Transformable> cell : this.cells.values()) {
+				collect(cell, minX, minY, maxX, maxY, found);
+			}
+			return found;
+		}
+		for (int cx = cx0; cx <= cx1; cx++) {
+			for (int cy = cy0; cy <= cy1; cy++) {
+				ArrayList<Transformable> cell = this.cells.get(key(cx, cy));
+				if (cell != null) {
+					collect(cell, minX, minY, maxX, maxY, found);
+				}
+			}
+		}
+		return found;
+	}
+
+	static void collect(List<Transformable> cell, int minX, int minY, int maxX, int maxY, List<Transformable> found) {
+		for (int i = 0; i < cell.size(); i++) {
+			Transformable shape = cell.get(i);
+			int x = Positions.x(shape);
+			int y = Positions.y(shape);
+			if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+				found.add(shape);
+			}
+		}
+	}
+
+	//Searches rings of cells outward from the query cell until nothing closer can remain.
+	@Override
+	public List<Transformable> nearest(int x, int y, int k) {
+		Neighbours best = new Neighbours(x, y, k);
+		if (k == 0 || this.cellOf.isEmpty()) {
+			return best.result();
+		}
+		int cx = cell(x);
+		int cy = cell(y);
+		int seen = 0;
+		for (int r = 0; ; r++) {
+			long ringCells = r == 0 ? 1 : 8L * r;
+			if (ringCells > this.cells.size()) {
+				//rings are now bigger than the occupied grid, a full scan is cheaper;
+				//it starts over, the rings seen so far would be offered twice
+				best = new Neighbours(x, y, k);
+				for (ArrayList<Transformable> cell : this.cells.values()) {
+					for (int i = 0; i < cell.size(); i++) {
+						best.offer(cell.get(i));
+					}
+				}
+				return best.result();
+			}
+			for (int i = -r; i <= r; i++) {
+				seen += offerCell(best, cx + i, cy - r);
+				if (r > 0) {
+					seen += offerCell(best, cx + i, cy + r);
+				}
+			}
+			for (int j = -r + 1; j <= r - 1; j++) {
+				seen += offerCell(best, cx - r, cy + j);
+				seen += offerCell(best, cx + r, cy + j);
+			}
+			//anything in ring r + 1 is at least r whole cells away
+			long reach = (long) r * this.cellSize;
+			if (seen == this.cellOf.size() || (best.full() && reach * reach > best.worst())) {
+				return best.result();
+			}
+		}
+	}
+
+	int offerCell(Neighbours best, int cx, int cy) {
+		ArrayList<Transformable> cell = this.cells.get(key(cx, cy));
+		if (cell == null) {
+			return 0;
+		}
+		for (int i = 0; i < cell.size(); i++) {
+			best.offer(cell.get(i));
+		}
+		return cell.size();
+	}
+
+	@Override
+	public void checkConsistency() {
+		int filed = 0;
+		for (Map.Entry<Long, ArrayList<Transformable>> entry : this.cells.entrySet()) {
+			if (entry.getValue().isEmpty()) {
+				throw new IllegalStateException("Empty cell left in grid: " + entry.getKey());
+			}
+			for (Transformable shape : entry.getValue()) {
+				Long recorded = this.cellOf.get(shape);
+				if (recorded == null || recorded.longValue() != entry.getKey().longValue()) {
+					throw new IllegalStateException("Cell bookkeeping out of date for " + shape);
+				}
+				if (keyOf(shape) != entry.getKey()) {
+					throw new IllegalStateException("Shape filed in the wrong cell: " + shape);
+				}
+				filed++;
+			}
+		}
+		if (filed != this.cellOf.size()) {
+			throw new IllegalStateException("Grid holds " + filed + " shapes but " + this.cellOf.size() + " are registered");
+		}
+	}
+
+}
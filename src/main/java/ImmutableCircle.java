@@ -0,0 +1,48 @@
+final class ImmutableCircle implements Shape {//a Circle that can never change, so its metrics are worked out once
+
+	public final double radius;
+	final double area;
+	final double perimeter;
+
+	public ImmutableCircle(double radius) {
+		this.radius = radius;
+		this.area = radius * radius * Math.PI;
+		this.perimeter = radius*2*Math.PI;
+	}
+
+	public static ImmutableCircle of(Circle circle) {
+		return new ImmutableCircle(circle.radius);
+	}
+
+	@Override
+	public double getArea() {
+		return this.area;
+	}
+
+	@Override
+	public double getPerimeter() {
+		return this.perimeter;
+	}
+
+	@Override
+	public String toString() {
+		return "Circle: " + this.radius;
+	}
+
+	@Override
+	public void appendTo(StringBuilder out) {
+		out.append("Circle: ").append(this.radius);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof ImmutableCircle
+				&& Double.compare(this.radius, ((ImmutableCircle) other).radius) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return Double.hashCode(this.radius);
+	}
+
+}
@@ -0,0 +1,49 @@
+final class ImmutableRectangle implements Shape {//a Rectangle that can never change, so its metrics are worked out once
+
+	public final double length;
+	public final double width;
+	final double area;
+	final double perimeter;
+
+	public ImmutableRectangle(double length, double width) {
+		this.length = length;
+		this.width = width;
+		this.area = length * width;
+		this.perimeter = length * 2 + width * 2;
+	}
+
+	public static ImmutableRectangle of(Rectangle rectangle) {
+		return new ImmutableRectangle(rectangle.length, rectangle.width);
+	}
+
+	@Override
+	public double getArea() {
+		return this.area;
+	}
+	@Override
+	public double getPerimeter() {
+		return this.perimeter;
+	}
+	@Override
+	public String toString() {
+		return "Rectangle: " + this.length + " by " + this.width;
+	}
+	@Override
+	public void appendTo(StringBuilder out) {
+		out.append("Rectangle: ").append(this.length).append(" by ").append(this.width);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof ImmutableRectangle)) {
+			return false;
+		}
+		ImmutableRectangle rect = (ImmutableRectangle) other;
+		return Double.compare(this.length, rect.length) == 0 && Double.compare(this.width, rect.width) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Double.hashCode(this.length) + Double.hashCode(this.width);
+	}
+}
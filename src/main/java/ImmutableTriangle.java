@@ -0,0 +1,51 @@
+final class ImmutableTriangle implements Shape {//a Triangle that can never change, so its metrics are worked out once
+
+	public final double base;
+	public final double height;
+	final double area;
+
+	public ImmutableTriangle(double base, double height) {
+		this.base = base;
+		this.height = height;
+		this.area = base * height / 2;
+	}
+
+	public static ImmutableTriangle of(Triangle triangle) {
+		return new ImmutableTriangle(triangle.base, triangle.height);
+	}
+
+	@Override
+	public double getArea() {
+		return this.area;
+	}
+
+	@Override
+	public double getPerimeter() {
+		return 0; //unknown at the moment, same as Triangle
+	}
+
+	@Override
+	public String toString() {
+		return "Triangle: " + this.base + " by " + this.height;
+	}
+
+	@Override
+	public void appendTo(StringBuilder out) {
+		out.append("Triangle: ").append(this.base).append(" by ").append(this.height);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof ImmutableTriangle)) {
+			return false;
+		}
+		ImmutableTriangle tri = (ImmutableTriangle) other;
+		return Double.compare(this.base, tri.base) == 0 && Double.compare(this.height, tri.height) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Double.hashCode(this.base) + Double.hashCode(this.height);
+	}
+
+}
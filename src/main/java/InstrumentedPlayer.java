@@ -0,0 +1,81 @@
+class InstrumentedPlayer implements Player {//counts and samples the timing of calls on a wrapped Player
+
+	final Player player;
+	final int sampleMask;
+	final Metric start;
+	final Metric stop;
+	final Metric volumeUp;
+	final Metric volumeDown;
+	final int[] calls = new int[4]; //racy on purpose, see InstrumentedShape
+
+	InstrumentedPlayer(Player player, Metrics metrics, String name) {
+		this.player = player;
+		this.sampleMask = metrics.sampleMask;
+		this.start = metrics.metric(name + ".start");
+		this.stop = metrics.metric(name + ".stop");
+		this.volumeUp = metrics.metric(name + ".volumeUp");
+		this.volumeDown = metrics.metric(name + ".volumeDown");
+	}
+
+	public Player getPlayer() {
+		return this.player;
+	}
+
+	boolean sample(int method) {
+		return (++this.calls[method] & this.sampleMask) == 0;
+	}
+
+	@Override
+	public void start() {
+		this.start.calls.increment();
+		if (!sample(0)) {
+			this.player.start();
+			return;
+		}
+		long begin = System.nanoTime();
+		this.player.start();
+		this.start.latency.record(System.nanoTime() - begin);
+	}
+
+	@Override
+	public void stop() {
+		this.stop.calls.increment();
+		if (!sample(1)) {
+			this.player.stop();
+			return;
+		}
+		long begin = System.nanoTime();
+		this.player.stop();
+		this.stop.latency.record(System.nanoTime() - begin);
+	}
+
+	@Override
+	public void volumeUp() {
+		this.volumeUp.calls.increment();
+		if (!sample(2)) {
+			this.player.volumeUp();
+			return;
+		}
+		long begin = System.nanoTime();
+		this.player.volumeUp();
+		this.volumeUp.latency.record(System.nanoTime() - begin);
+	}
+
+	@Override
+	public void volumeDown() {
+		this.volumeDown.calls.increment();
+		if (!sample(3)) {
+			this.player.volumeDown();
+			return;
+		}
+		long begin = System.nanoTime();
+		this.player.volumeDown();
+		this.volumeDown.latency.record(System.nanoTime() - begin);
+	}
+
+	@Override
+	public int getVolume() {
+		return this.player.getVolume();
+	}
+
+}
@@ -0,0 +1,125 @@
+class InstrumentedShape implements Shape {//counts and samples the timing of calls on a wrapped Shape
+
+	final Shape shape;
+	final int sampleMask;
+	final Metric area;
+	final Metric perimeter;
+	//one sample counter per method, racy on purpose: a lost increment only shifts which call gets timed
+	final int[] calls = new int[6];
+
+	InstrumentedShape(Shape shape, Metrics metrics, String name) {
+		this.shape = shape;
+		this.sampleMask = metrics.sampleMask;
+		this.area = metrics.metric(name + ".getArea");
+		this.perimeter = metrics.metric(name + ".getPerimeter");
+	}
+
+	public Shape getShape() {
+		return this.shape;
+	}
+
+	boolean sample(int method) {
+		return (++this.calls[method] & this.sampleMask) == 0;
+	}
+
+	@Override
+	public double getArea() {
+		this.area.calls.increment();
+		if (!sample(0)) {
+			return this.shape.getArea();
+		}
+		long start = System.nanoTime();
+		double result = this.shape.getArea();
+		this.area.latency.record(System.nanoTime() - start);
+		return result;
+	}
+
+	@Override
+	public double getPerimeter() {
+		this.perimeter.calls.increment();
+		if (!sample(1)) {
+			return this.shape.getPerimeter();
+		}
+		long start = System.nanoTime();
+		double result = this.shape.getPerimeter();
+		this.perimeter.latency.record(System.nanoTime() - start);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return this.shape.toString();
+	}
+
+	@Override
+	public void appendTo(StringBuilder out) {
+		this.shape.appendTo(out);
+	}
+
+	static class Moving extends InstrumentedShape implements Transformable {//for shapes that are also Transformable
+
+		final Transformable moves;
+		final Metric up;
+		final Metric down;
+		final Metric left;
+		final Metric right;
+
+		Moving(Shape shape, Metrics metrics, String name) {
+			super(shape, metrics, name);
+			this.moves = (Transformable) shape;
+			this.up = metrics.metric(name + ".up");
+			this.down = metrics.metric(name + ".down");
+			this.left = metrics.metric(name + ".left");
+			this.right = metrics.metric(name + ".right");
+		}
+
+		@Override
+		public void up() {
+			this.up.calls.increment();
+			if (!sample(2)) {
+				this.moves.up();
+				return;
+			}
+			long start = System.nanoTime();
+			this.moves.up();
+			this.up.latency.record(System.nanoTime() - start);
+		}
+
+		@Override
+		public void down() {
+			this.down.calls.increment();
+			if (!sample(3)) {
+				this.moves.down();
+				return;
+			}
+			long start = System.nanoTime();
+			this.moves.down();
+			this.down.latency.record(System.nanoTime() - start);
+		}
+
+		@Override
+		public void left() {
+			this.left.calls.increment();
+			if (!sample(4)) {
+				this.moves.left();
+				return;
+			}
+			long start = System.nanoTime();
+			this.moves.left();
+			this.left.latency.record(System.nanoTime() - start);
+		}
+
+		@Override
+		public void right() {
+			this.right.calls.increment();
+			if (!sample(5)) {
+				this.moves.right();
+				return;
+			}
+			long start = System.nanoTime();
+			this.moves.right();
+			this.right.latency.record(System.nanoTime() - start);
+		}
+	}
+
+}
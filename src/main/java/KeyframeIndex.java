@@ -0,0 +1,288 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+class KeyframeIndex {//keyframe times and byte offsets of a video file, kept in a memory-mapped sidecar file
+
+	//The sidecar is the video's path plus ".kfi". It is written once, by scanning
+	//the video, and used again as long as the video keeps its size and modification
+	//time. Times are milliseconds from the first keyframe. Where the sidecar cannot
+	//be written, e.g. next to a video on read-only media, the scan is kept in memory
+	//in the same layout and repeated on the next open.
+	//
+	//Sidecar layout, little endian:
+	//  header (32 bytes): magic int, version int, count int, unused int,
+	//                     video size long, video modified millis long
+	//  times (4 bytes each, ascending), then offsets (8 bytes each)
+	//
+	//Keeping the times in their own column makes the binary search read one int
+	//per step. Videos are MPEG transport streams: a keyframe is a video PES packet
+	//that starts in a TS packet with the random access indicator set.
+	static final int MAGIC = 0x4B464958; //"KFIX"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 32;
+	static final String SUFFIX = ".kfi";
+
+	static final int TS_PACKET = 188;
+	static final byte TS_SYNC = 0x47;
+
+	//Moves this many keyframes or fewer are walked instead of searched.
+	static final int WALK = 16;
+
+	final ByteBuffer map;
+	final int count;
+
+	KeyframeIndex(ByteBuffer map) throws IOException {
+		this.map = map;
+		map.order(ByteOrder.LITTLE_ENDIAN);
+		if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+			throw new IOException("Not a keyframe index, bad magic number");
+		}
+		if (map.getInt(4) != VERSION) {
+			throw new IOException("Unsupported keyframe index version: " + map.getInt(4));
+		}
+		this.count = map.getInt(8);
+		if (this.count < 0 || HEADER_BYTES + 12L * this.count != map.capacity()) {
+			throw new IOException("Corrupt keyframe index, count " + this.count + " does not fit the file");
+		}
+	}
+
+	public static Path sidecarOf(Path video) {
+		return video.resolveSibling(video.getFileName() + SUFFIX);
+	}
+
+	//Maps the video's sidecar, scanning the video and writing the sidecar first if it is missing or stale.
+	//Only a video that cannot be read or scanned is an error, a sidecar that cannot be written is not.
+	public static KeyframeIndex open(Path video) throws IOException {
+		Path sidecar = sidecarOf(video);
+		long size = Files.size(video);
+		long modified = Files.getLastModifiedTime(video).toMillis();
+		if (Files.exists(sidecar)) {
+			try {
+				KeyframeIndex index = map(sidecar);
+				if (index.map.getLong(16) == size && index.map.getLong(24) == modified) {
+					return index;
+				}
+			} catch (IOException e) {
+				//unreadable, written again below
+			}
+		}
+		Keyframes keyframes = new Keyframes();
+		try (FileChannel channel = FileChannel.open(video, StandardOpenOption.READ)) {
+			scanTransportStream(channel, keyframes);
+		}
+		ByteBuffer index = encode(keyframes, size, modified);
+		try {
+			write(sidecar, index.duplicate());
+			return map(sidecar);
+		} catch (IOException e) {
+			return new KeyframeIndex(index);
+		}
+	}
+
+	public static KeyframeIndex map(Path sidecar) throws IOException {
+		try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Keyframe index exceeds 2GB mapping limit");
+			}
+			//the mapping stays valid after the channel is closed
+			return new KeyframeIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	//The sidecar's bytes, header included, ready to be written or read in place.
+	static ByteBuffer encode(Keyframes keyframes, long videoSize, long videoModified) {
+		int n = keyframes.size;
+		ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + 12 * n).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0).putLong(videoSize).putLong(videoModified);
+		for (int i = 0; i < n; i++) {
+			out.putInt(keyframes.times[i]);
+		}
+		for (int i = 0; i < n; i++) {
+			out.putLong(keyframes.offsets[i]);
+		}
+		out.flip();
+		return out;
+	}
+
+	//Writes to a temporary file and moves it into place, so a reader never maps half a sidecar.
+	//Each writer gets its own temporary file, so two processes indexing the same video do not
+	//write into one file; the last move wins and both sidecars are the same.
+	static void write(Path sidecar, ByteBuffer out) throws IOException {
+		Path temp = Files.createTempFile(sidecar.toAbsolutePath().getParent(), sidecar.getFileName() + ".", ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				while (out.hasRemaining()) {
+					channel.write(out);
+				}
+				channel.force(true);
+			}
+			Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+	}
+
+	static class Keyframes {//times and offsets collected by a scan
+
+		int[] times = new int[1024];
+		long[] offsets = new long[1024];
+		int size = 0;
+
+		//Keeps times ascending: a keyframe that does not come later than the last one is dropped.
+		void add(int time, long offset) {
+			if (this.size > 0 && time <= this.times[this.size - 1]) {
+				return;
+			}
+			if (this.size == this.times.length) {
+				this.times = Arrays.copyOf(this.times, this.size * 2);
+				this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+			}
+			this.times[this.size] = time;
+			this.offsets[this.size] = offset;
+			this.size++;
+		}
+	}
+
+	//Reads the stream once, in big sequential chunks, and records the offset of each TS packet that starts a keyframe.
+	static void scanTransportStream(FileChannel channel, Keyframes keyframes) throws IOException {
+		ByteBuffer chunk = ByteBuffer.allocate(TS_PACKET * 4096);
+		long chunkStart = 0; //file offset of chunk[0]
+		long firstPts = -1;
+		long lastPts = 0;
+		long wraps = 0; //PTS is 33 bits and wraps after about 26 hours
+		boolean synced = false;
+		while (true) {
+			int read = channel.read(chunk);
+			chunk.flip();
+			byte[] bytes = chunk.array();
+			int limit = chunk.limit();
+			int at = 0;
+			while (limit - at >= TS_PACKET) {
+				if (bytes[at] != TS_SYNC) {
+					if (!synced && chunkStart + at >= TS_PACKET) {
+						throw new IOException("Not an MPEG transport stream, no sync byte");
+					}
+					at++; //lost sync, look for it byte by byte
+					continue;
+				}
+				synced = true;
+				long pts = keyframePts(bytes, at);
+				if (pts >= 0) {
+					if (firstPts < 0) {
+						firstPts = pts;
+					} else if (pts < lastPts - (1L << 32)) {
+						wraps += 1L << 33;
+					}
+					lastPts = pts;
+					long millis = (pts + wraps - firstPts) / 90;
+					if (millis <= Integer.MAX_VALUE) {
+						keyframes.add((int) millis, chunkStart + at);
+					}
+				}
+				at += TS_PACKET;
+			}
+			if (read < 0) {
+				return;
+			}
+			chunkStart += at;
+			chunk.position(at);
+			chunk.compact();
+		}
+	}
+
+	//PTS of the video PES packet that starts a keyframe in the TS packet at bytes[at], -1 for any other packet.
+	static long keyframePts(byte[] bytes, int at) {
+		int flags = bytes[at + 1] & 0xFF;
+		int control = (bytes[at + 3] >> 4) & 0x3;
+		if ((flags & 0x40) == 0 || (control & 0x2) == 0 || (control & 0x1) == 0) {
+			return -1; //no payload start, no adaptation field or no payload
+		}
+		int adaptation = bytes[at + 4] & 0xFF;
+		if (adaptation == 0 || (bytes[at + 5] & 0x40) == 0) {
+			return -1; //not a random access point
+		}
+		int pes = at + 5 + adaptation;
+		if (pes + 14 > at + TS_PACKET) {
+			return -1;
+		}
+		if (bytes[pes] != 0 || bytes[pes + 1] != 0 || bytes[pes + 2] != 1 || (bytes[pes + 3] & 0xF0) != 0xE0) {
+			return -1; //not a video stream
+		}
+		if ((bytes[pes + 7] & 0x80) == 0) {
+			return -1; //no PTS
+		}
+		int p = pes + 9;
+		return ((long) (bytes[p] >> 1) & 0x7) << 30 | (bytes[p + 1] & 0xFFL) << 22 | ((bytes[p + 2] & 0xFFL) >> 1) << 15
+				| (bytes[p + 3] & 0xFFL) << 7 | (bytes[p + 4] & 0xFFL) >> 1;
+	}
+
+	public int size() {
+		return this.count;
+	}
+
+	public int getTime(int entry) {
+		checkEntry(entry);
+		return this.map.getInt(HEADER_BYTES + 4 * entry);
+	}
+
+	public long getOffset(int entry) {
+		checkEntry(entry);
+		return this.map.getLong(HEADER_BYTES + 4 * this.count + 8 * entry);
+	}
+
+	int time(int entry) {
+		return this.map.getInt(HEADER_BYTES + 4 * entry);
+	}
+
+	//The last keyframe at or before millis, so playback starts on a full picture.
+	//0 before the first keyframe, -1 if there are none.
+	public int floor(long millis) {
+		if (this.count == 0) {
+			return -1;
+		}
+		int lo = 0;
+		int hi = this.count - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (time(mid) <= millis) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+
+	//Same as floor(millis), but starts from a known entry. Short moves such as a
+	//fast forward walk a few keyframes instead of searching.
+	public int step(int entry, long millis) {
+		if (entry < 0 || entry >= this.count) {
+			return floor(millis);
+		}
+		for (int walked = 0; walked < WALK; walked++) {
+			if (entry + 1 < this.count && time(entry + 1) <= millis) {
+				entry++;
+			} else if (entry > 0 && time(entry) > millis) {
+				entry--;
+			} else {
+				return entry;
+			}
+		}
+		return floor(millis);
+	}
+
+	void checkEntry(int entry) {
+		if (entry < 0 || entry >= this.count) {
+			throw new IndexOutOfBoundsException("Entry: " + entry + ", keyframes: " + this.count);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+class LatencyHistogram {//lock-free log-linear histogram of nanosecond timings, in the style of HdrHistogram
+
+	//Each power of two is split into 8 sub-buckets, so any recorded value is
+	//reported within 12.5% of its real value.
+	static final int SUB_BITS = 3;
+	static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+	final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) Math.max(value, 0);
+		}
+		int top = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (top - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (top - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	//Largest value that lands in the given bucket.
+	static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int top = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		long low = (1L << top) | (sub << (top - SUB_BITS));
+		return low + (1L << (top - SUB_BITS)) - 1;
+	}
+
+	public void record(long nanos) {
+		this.counts.incrementAndGet(bucket(nanos));
+		this.max.accumulate(nanos);
+	}
+
+	public long getCount() {
+		long total = 0;
+		for (int i = 0; i < this.counts.length(); i++) {
+			total += this.counts.get(i);
+		}
+		return total;
+	}
+
+	public long getMax() {
+		return this.max.get();
+	}
+
+	//The value below which the given fraction (0 to 1) of recordings fall.
+	public long percentile(double fraction) {
+		long total = getCount();
+		if (total == 0) {
+			return 0;
+		}
+		long wanted = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for (int i = 0; i < this.counts.length(); i++) {
+			seen += this.counts.get(i);
+			if (seen >= wanted && seen > 0) {
+				return Math.min(highestValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	public void reset() {
+		for (int i = 0; i < this.counts.length(); i++) {
+			this.counts.set(i, 0);
+		}
+		this.max.reset();
+	}
+
+}
@@ -0,0 +1,49 @@
+import java.util.function.BinaryOperator;
+
+class ListenerChain {//chains listeners of any kind into pairs so each shape only needs one listener field
+
+	//Two listeners joined together. Subclasses pass each event to first, then second.
+	abstract static class Pair<L> {
+
+		final L first;
+		final L second;
+
+		Pair(L first, L second) {
+			this.first = first;
+			this.second = second;
+		}
+	}
+
+	//Returns a listener that calls both a and b. Either may be null.
+	static <L> L add(L a, L b, BinaryOperator<L> pair) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		return pair.apply(a, b);
+	}
+
+	//Returns the chain a with the first occurrence of b removed.
+	@SuppressWarnings("unchecked")
+	static <L> L remove(L a, L b, BinaryOperator<L> pair) {
+		if (a == b || a == null) {
+			return null;
+		}
+		if (a instanceof Pair) {
+			Pair<L> node = (Pair<L>) a;
+			//search the first half completely before the second, so the earliest one added goes
+			L first = remove(node.first, b, pair);
+			if (first != node.first) {
+				return add(first, node.second, pair);
+			}
+			L second = remove(node.second, b, pair);
+			if (second != node.second) {
+				return add(node.first, second, pair);
+			}
+		}
+		return a;
+	}
+
+}
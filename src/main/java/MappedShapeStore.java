@@ -0,0 +1,306 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class MappedShapeStore implements Closeable {//shapes kept in a memory-mapped file of fixed-width records
+
+	//File layout, little endian:
+	//  header (16 bytes): magic int, version int, record count long
+	//  records (32 bytes each): kind byte, deleted byte, 2 unused bytes,
+	//                           x int, y int, 4 unused bytes, dim1 double, dim2 double
+	static final int MAGIC = 0x53485053; //"SHPS"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	static final int RECORD_BYTES = 32;
+
+	static final int KIND = 0;
+	static final int DELETED = 1;
+	static final int X = 4;
+	static final int Y = 8;
+	static final int DIM1 = 16;
+	static final int DIM2 = 24;
+
+	final FileChannel channel;
+	MappedByteBuffer map;
+	int capacity; //records that fit in the current mapping
+	int size;
+
+	MappedShapeStore(FileChannel channel) throws IOException {
+		this.channel = channel;
+		long length = channel.size();
+		if (length == 0) {
+			remap(64);
+			this.map.putInt(0, MAGIC);
+			this.map.putInt(4, VERSION);
+			this.map.putLong(8, 0);
+			this.size = 0;
+			return;
+		}
+		if (length < HEADER_BYTES) {
+			throw new IOException("Not a shape store, file is too short");
+		}
+		remap((int) ((length - HEADER_BYTES) / RECORD_BYTES));
+		if (this.map.getInt(0) != MAGIC) {
+			throw new IOException("Not a shape store, bad magic number");
+		}
+		if (this.map.getInt(4) != VERSION) {
+			throw new IOException("Unsupported shape store version: " + this.map.getInt(4));
+		}
+		long count = this.map.getLong(8);
+		if (count < 0 || count > this.capacity) {
+			throw new IOException("Corrupt shape store, record count " + count + " does not fit the file");
+		}
+		this.size = (int) count;
+	}
+
+	//Opens the store at path, creating an empty one if the file does not exist.
+	public static MappedShapeStore open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			return new MappedShapeStore(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	void remap(int records) throws IOException {
+		long bytes = HEADER_BYTES + (long) records * RECORD_BYTES;
+		if (bytes > Integer.MAX_VALUE) {
+			throw new IOException("Shape store would exceed 2GB mapping limit");
+		}
+		this.map = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+		this.map.order(ByteOrder.LITTLE_ENDIAN);
+		this.capacity = records;
+	}
+
+	static int offset(int index) {
+		return HEADER_BYTES + index * RECORD_BYTES;
+	}
+
+	//Number of records, deleted ones included until compact() runs.
+	public int size() {
+		return this.size;
+	}
+
+	public int append(Shape shape) throws IOException {
+		if (shape instanceof Circle) {
+			Circle cir = (Circle) shape;
+			return append(ShapeBuffer.CIRCLE, cir.radius, 0, cir.position[0], cir.position[1]);
+		}
+		if (shape instanceof Rectangle) {
+			Rectangle rect = (Rectangle) shape;
+			return append(ShapeBuffer.RECTANGLE, rect.length, rect.width, rect.x, rect.y);
+		}
+		if (shape instanceof Triangle) {
+			Triangle tri = (Triangle) shape;
+			return append(ShapeBuffer.TRIANGLE, tri.base, tri.height, 0, 0);
+		}
+		if (shape instanceof ConcurrentCircle) {
+			ConcurrentCircle cir = (ConcurrentCircle) shape;
+			long position = cir.position.get(); //x and y from the same instant
+			return append(ShapeBuffer.CIRCLE, cir.radius, 0, AtomicPosition.unpackX(position), AtomicPosition.unpackY(position));
+		}
+		if (shape instanceof ConcurrentRectangle) {
+			ConcurrentRectangle rect = (ConcurrentRectangle) shape;
+			long position = rect.position.get();
+			return append(ShapeBuffer.RECTANGLE, rect.length, rect.width, AtomicPosition.unpackX(position), AtomicPosition.unpackY(position));
+		}
+		if (shape instanceof ImmutableCircle) {
+			return append(ShapeBuffer.CIRCLE, ((ImmutableCircle) shape).radius, 0, 0, 0);
+		}
+		if (shape instanceof ImmutableRectangle) {
+			ImmutableRectangle rect = (ImmutableRectangle) shape;
+			return append(ShapeBuffer.RECTANGLE, rect.length, rect.width, 0, 0);
+		}
+		if (shape instanceof ImmutableTriangle) {
+			ImmutableTriangle tri = (ImmutableTriangle) shape;
+			return append(ShapeBuffer.TRIANGLE, tri.base, tri.height, 0, 0);
+		}
+		if (shape instanceof CachedShape) {
+			return append(((CachedShape) shape).shape);
+		}
+		if (shape instanceof InstrumentedShape) {
+			return append(((InstrumentedShape) shape).shape);
+		}
+		if (shape instanceof View) {
+			View view = (View) shape;
+			int at = offset(view.index);
+			MappedByteBuffer from = view.store.map;
+			return append(from.get(at + KIND), from.getDouble(at + DIM1), from.getDouble(at + DIM2), from.getInt(at + X), from.getInt(at + Y));
+		}
+		throw new IllegalArgumentException("Unsupported shape: " + shape);
+	}
+
+	public void appendAll(Iterable<? extends Shape> shapes) throws IOException {
+		for (Shape shape : shapes) {
+			append(shape);
+		}
+	}
+
+	//Copies every row of a ShapeBuffer, positions included.
+	public void appendAll(ShapeBuffer buffer) throws IOException {
+		for (int i = 0; i < buffer.size(); i++) {
+			append(buffer.kinds[i], buffer.dim1[i], buffer.dim2[i], buffer.x[i], buffer.y[i]);
+		}
+	}
+
+	int append(byte kind, double d1, double d2, int x, int y) throws IOException {
+		if (this.size == this.capacity) {
+			remap(Math.max(this.capacity * 2, 64));
+		}
+		int index = this.size;
+		int at = offset(index);
+		this.map.put(at + KIND, kind);
+		this.map.put(at + DELETED, (byte) 0);
+		this.map.putInt(at + X, x);
+		this.map.putInt(at + Y, y);
+		this.map.putDouble(at + DIM1, d1);
+		this.map.putDouble(at + DIM2, d2);
+		//record first, count second, so a crash never exposes a half written record
+		this.size++;
+		this.map.putLong(8, this.size);
+		return index;
+	}
+
+	public void delete(int index) {
+		checkIndex(index);
+		this.map.put(offset(index) + DELETED, (byte) 1);
+	}
+
+	public boolean isDeleted(int index) {
+		checkIndex(index);
+		return this.map.get(offset(index) + DELETED) != 0;
+	}
+
+	//Slides live records down over deleted ones and shrinks the file. Indexes change.
+	public void compact() throws IOException {
+		int live = 0;
+		byte[] record = new byte[RECORD_BYTES];
+		for (int i = 0; i < this.size; i++) {
+			int at = offset(i);
+			if (this.map.get(at + DELETED) != 0) {
+				continue;
+			}
+			if (live != i) {
+				for (int b = 0; b < RECORD_BYTES; b++) {
+					record[b] = this.map.get(at + b);
+				}
+				int to = offset(live);
+				for (int b = 0; b < RECORD_BYTES; b++) {
+					this.map.put(to + b, record[b]);
+				}
+			}
+			live++;
+		}
+		this.size = live;
+		this.map.putLong(8, live);
+		this.map.force();
+		//shrink the file to the live records, then map what is left
+		this.map = null;
+		this.channel.truncate(offset(Math.max(live, 1)));
+		remap(Math.max(live, 1));
+	}
+
+	public byte getKind(int index) {
+		checkIndex(index);
+		return this.map.get(offset(index) + KIND);
+	}
+
+	public double getArea(int index) {
+		checkIndex(index);
+		int at = offset(index);
+		return ShapeBuffer.area(this.map.get(at + KIND), this.map.getDouble(at + DIM1), this.map.getDouble(at + DIM2));
+	}
+
+	public double getPerimeter(int index) {
+		checkIndex(index);
+		int at = offset(index);
+		return ShapeBuffer.perimeter(this.map.get(at + KIND), this.map.getDouble(at + DIM1), this.map.getDouble(at + DIM2));
+	}
+
+	public int getX(int index) {
+		checkIndex(index);
+		return this.map.getInt(offset(index) + X);
+	}
+
+	public int getY(int index) {
+		checkIndex(index);
+		return this.map.getInt(offset(index) + Y);
+	}
+
+	//A read-only view of the record. Nothing is decoded until a method is called on it.
+	public Shape get(int index) {
+		checkIndex(index);
+		return new View(this, index);
+	}
+
+	//Copies the live records into a ShapeBuffer for bulk work.
+	public void loadInto(ShapeBuffer buffer) {
+		for (int i = 0; i < this.size; i++) {
+			int at = offset(i);
+			if (this.map.get(at + DELETED) != 0) {
+				continue;
+			}
+			int row = buffer.add(this.map.get(at + KIND), this.map.getDouble(at + DIM1), this.map.getDouble(at + DIM2));
+			buffer.x[row] = this.map.getInt(at + X);
+			buffer.y[row] = this.map.getInt(at + Y);
+		}
+	}
+
+	public void force() {
+		this.map.force();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.map.force();
+		this.channel.close();
+	}
+
+	void checkIndex(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+
+	static class View implements Shape {//read-only window onto one record of a MappedShapeStore
+
+		final MappedShapeStore store;
+		final int index;
+
+		View(MappedShapeStore store, int index) {
+			this.store = store;
+			this.index = index;
+		}
+
+		@Override
+		public double getArea() {
+			return this.store.getArea(this.index);
+		}
+
+		@Override
+		public double getPerimeter() {
+			return this.store.getPerimeter(this.index);
+		}
+
+		@Override
+		public String toString() {
+			int at = offset(this.index);
+			MappedByteBuffer map = this.store.map;
+			return ShapeBuffer.format(map.get(at + KIND), map.getDouble(at + DIM1), map.getDouble(at + DIM2));
+		}
+
+		@Override
+		public void appendTo(StringBuilder out) {
+			int at = offset(this.index);
+			MappedByteBuffer map = this.store.map;
+			ShapeBuffer.appendTo(out, map.get(at + KIND), map.getDouble(at + DIM1), map.getDouble(at + DIM2));
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+import java.util.concurrent.atomic.LongAdder;
+
+class Metric {//call count and sampled latency for one instrumented method
+
+	final String name;
+	final LongAdder calls = new LongAdder();
+	final LatencyHistogram latency = new LatencyHistogram();
+
+	Metric(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public long getCalls() {
+		return this.calls.sum();
+	}
+
+	public LatencyHistogram getLatency() {
+		return this.latency;
+	}
+
+	public void reset() {
+		this.calls.reset();
+		this.latency.reset();
+	}
+
+	void appendTo(StringBuilder out) {
+		out.append(this.name).append(" calls=").append(getCalls())
+				.append(" sampled=").append(this.latency.getCount())
+				.append(" p50=").append(this.latency.percentile(0.5)).append("ns")
+				.append(" p99=").append(this.latency.percentile(0.99)).append("ns")
+				.append(" max=").append(this.latency.getMax()).append("ns");
+	}
+
+}
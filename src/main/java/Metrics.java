@@ -0,0 +1,97 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+class Metrics implements MetricsMBean {//registry of call counters and latency histograms for wrapped shapes and players
+
+	//Instrumentation is opt-in: only objects passed through wrap() are measured,
+	//so code that never wraps anything pays nothing. Wrapped objects count every
+	//call, but only time one call in sampleEvery to keep the cost to a few ns.
+
+	final ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+	final int sampleMask;
+
+	public Metrics() {
+		this(64);
+	}
+
+	//sampleEvery is rounded up to a power of two. 1 times every call.
+	public Metrics(int sampleEvery) {
+		int sample = Integer.highestOneBit(Math.max(sampleEvery, 1));
+		if (sample < sampleEvery) {
+			sample *= 2;
+		}
+		this.sampleMask = sample - 1;
+	}
+
+	public Metric metric(String name) {
+		Metric metric = this.metrics.get(name);
+		if (metric == null) {
+			metric = this.metrics.computeIfAbsent(name, Metric::new);
+		}
+		return metric;
+	}
+
+	//Returns an instrumented Shape. Circles and rectangles stay Transformable.
+	public Shape wrap(Shape shape) {
+		String name = shape.getClass().getSimpleName();
+		if (shape instanceof Transformable) {
+			return new InstrumentedShape.Moving(shape, this, name);
+		}
+		return new InstrumentedShape(shape, this, name);
+	}
+
+	public Player wrap(Player player) {
+		return new InstrumentedPlayer(player, this, player.getClass().getSimpleName());
+	}
+
+	//Sorted by metric name, one line each.
+	@Override
+	public String getSnapshot() {
+		StringBuilder out = new StringBuilder();
+		for (Metric metric : new TreeMap<String, Metric>(this.metrics).values()) {
+			metric.appendTo(out);
+			out.append('\n');
+		}
+		return out.toString();
+	}
+
+	@Override
+	public String[] getMetricNames() {
+		return new TreeMap<String, Metric>(this.metrics).keySet().toArray(new String[0]);
+	}
+
+	@Override
+	public long getCalls(String name) {
+		Metric metric = this.metrics.get(name);
+		return metric == null ? 0 : metric.getCalls();
+	}
+
+	@Override
+	public long getLatencyPercentile(String name, double fraction) {
+		Metric metric = this.metrics.get(name);
+		return metric == null ? 0 : metric.getLatency().percentile(fraction);
+	}
+
+	@Override
+	public void reset() {
+		for (Map.Entry<String, Metric> entry : this.metrics.entrySet()) {
+			entry.getValue().reset();
+		}
+	}
+
+	//Publishes this registry on the local platform MBean server, e.g. under "shapes:type=Metrics".
+	public ObjectName registerMBean(String objectName) throws JMException {
+		ObjectName name = new ObjectName(objectName);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+		return name;
+	}
+
+	public void unregisterMBean(ObjectName name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+	}
+
+}
@@ -0,0 +1,10 @@
+//JMX view of a Metrics registry. Standard MBean interfaces have to be public.
+public interface MetricsMBean {
+
+	public String getSnapshot();
+	public String[] getMetricNames();
+	public long getCalls(String name);
+	public long getLatencyPercentile(String name, double fraction);
+	public void reset();
+
+}
@@ -0,0 +1,163 @@
+import java.util.Arrays;
+import java.util.List;
+
+class MoveBatch {//a list of moves stored as one opcode byte and one target index each
+
+	public static final byte UP = 0;
+	public static final byte DOWN = 1;
+	public static final byte LEFT = 2;
+	public static final byte RIGHT = 3;
+
+	byte[] ops;
+	int[] targets;
+	int size = 0;
+
+	public MoveBatch() {
+		this(64);
+	}
+
+	public MoveBatch(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.ops = new byte[capacity];
+		this.targets = new int[capacity];
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public void add(int target, byte op) {
+		checkOp(op);
+		if (this.size == this.ops.length) {
+			this.ops = Arrays.copyOf(this.ops, this.size * 2);
+			this.targets = Arrays.copyOf(this.targets, this.size * 2);
+		}
+		this.ops[this.size] = op;
+		this.targets[this.size] = target;
+		this.size++;
+	}
+
+	public void up(int target) {
+		add(target, UP);
+	}
+
+	public void down(int target) {
+		add(target, DOWN);
+	}
+
+	public void left(int target) {
+		add(target, LEFT);
+	}
+
+	public void right(int target) {
+		add(target, RIGHT);
+	}
+
+	//Empties the batch but keeps its arrays so the next tick allocates nothing.
+	public void clear() {
+		this.size = 0;
+	}
+
+	public void apply(Transformable[] shapes) {
+		apply(this.ops, this.targets, 0, this.size, shapes);
+	}
+
+	public void apply(List<? extends Transformable> shapes) {
+		for (int i = 0; i < this.size; i++) {
+			move(shapes.get(this.targets[i]), this.ops[i]);
+		}
+	}
+
+	public void apply(ShapeBuffer buffer) {
+		apply(this.ops, this.targets, 0, this.size, buffer);
+	}
+
+	//Applies ops[i] to shapes[targets[i]] for every i in [from, to), in order.
+	public static void apply(byte[] ops, int[] targets, int from, int to, Transformable[] shapes) {
+		for (int i = from; i < to; i++) {
+			move(shapes[targets[i]], ops[i]);
+		}
+	}
+
+	//Calls through the concrete class so each call site only ever sees one type.
+	static void move(Transformable shape, byte op) {
+		if (shape instanceof Rectangle) {
+			Rectangle rect = (Rectangle) shape;
+			switch (op) {
+				case UP: rect.up(); break;
+				case DOWN: rect.down(); break;
+				case LEFT: rect.left(); break;
+				case RIGHT: rect.right(); break;
+				default: throw badOp(op);
+			}
+		} else if (shape instanceof Circle) {
+			Circle cir = (Circle) shape;
+			switch (op) {
+				case UP: cir.up(); break;
+				case DOWN: cir.down(); break;
+				case LEFT: cir.left(); break;
+				case RIGHT: cir.right(); break;
+				default: throw badOp(op);
+			}
+		} else {
+			switch (op) {
+				case UP: shape.up(); break;
+				case DOWN: shape.down(); break;
+				case LEFT: shape.left(); break;
+				case RIGHT: shape.right(); break;
+				default: throw badOp(op);
+			}
+		}
+	}
+
+	//Fast path: moves rows of a ShapeBuffer by editing its position columns directly.
+	//Circles step by their radius and rectangles by 1, exactly like Circle and Rectangle.
+	//Every target and op is checked before the first row moves, so a bad batch leaves the buffer untouched.
+	public static void apply(byte[] ops, int[] targets, int from, int to, ShapeBuffer buffer) {
+		byte[] kinds = buffer.kinds;
+		double[] dim1 = buffer.dim1;
+		int[] x = buffer.x;
+		int[] y = buffer.y;
+		for (int i = from; i < to; i++) {
+			int t = targets[i];
+			buffer.checkIndex(t);
+			if (kinds[t] == ShapeBuffer.TRIANGLE) {
+				throw new IllegalArgumentException("Triangle at index " + t + " is not Transformable");
+			}
+			checkOp(ops[i]);
+		}
+		for (int i = from; i < to; i++) {
+			int t = targets[i];
+			if (kinds[t] == ShapeBuffer.CIRCLE) {
+				//same int conversion as position[1] += this.radius
+				double radius = dim1[t];
+				switch (ops[i]) {
+					case UP: y[t] += radius; break;
+					case DOWN: y[t] -= radius; break;
+					case LEFT: x[t] -= radius; break;
+					case RIGHT: x[t] += radius; break;
+					default: throw badOp(ops[i]);
+				}
+			} else {
+				switch (ops[i]) {
+					case UP: y[t] += 1; break;
+					case DOWN: y[t] -= 1; break;
+					case LEFT: x[t] -= 1; break;
+					case RIGHT: x[t] += 1; break;
+					default: throw badOp(ops[i]);
+				}
+			}
+		}
+	}
+
+	static void checkOp(byte op) {
+		if (op < UP || op > RIGHT) {
+			throw badOp(op);
+		}
+	}
+
+	static IllegalArgumentException badOp(byte op) {
+		return new IllegalArgumentException("Unknown move opcode: " + op);
+	}
+
+}
@@ -0,0 +1,6 @@
+interface MoveListener {
+
+	//Called after a Transformable shape has moved by (dx, dy).
+	public void moved(Transformable shape, int dx, int dy);
+
+}
@@ -0,0 +1,26 @@
+class MoveListeners {//chains move listeners together so each shape only needs one listener field
+
+	//Returns a listener that calls both a and b. Either may be null.
+	static MoveListener add(MoveListener a, MoveListener b) {
+		return ListenerChain.add(a, b, Pair::new);
+	}
+
+	//Returns the chain a with the first occurrence of b removed.
+	static MoveListener remove(MoveListener a, MoveListener b) {
+		return ListenerChain.remove(a, b, Pair::new);
+	}
+
+	static class Pair extends ListenerChain.Pair<MoveListener> implements MoveListener {
+
+		Pair(MoveListener first, MoveListener second) {
+			super(first, second);
+		}
+
+		@Override
+		public void moved(Transformable shape, int dx, int dy) {
+			this.first.moved(shape, dx, dy);
+			this.second.moved(shape, dx, dy);
+		}
+	}
+
+}
@@ -0,0 +1,418 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+class MoveLog {//records every move of registered shapes so positions at any past tick can be rebuilt
+
+	//Each move is stored as its shape's id and a 2-bit direction, written as one
+	//varint into 64 KB blocks. Shapes are spread over partitions in groups of 1024
+	//ids, every partition has its own blocks, and since shapes never affect each
+	//other the partitions are replayed in parallel, each from the latest snapshot.
+	//
+	//Replay repeats the move with the shape's step (|radius| for a Circle, 1 for a
+	//Rectangle) and the same int conversion the shape uses. A move that does not
+	//match that, e.g. after a radius was changed, an Affine was applied or a
+	//position was written directly, is stored as a correction holding the new
+	//position instead. Every move is checked against the shape's actual position,
+	//so a direct write is picked up at the shape's next move, not before.
+	//Moves that do not change the position are not recorded.
+	//
+	//Not thread-safe: shapes must be moved and tick() called from one thread.
+
+	static final int BLOCK = 1 << 16;
+	static final int GROUP_BITS = 10;
+	static final int GROUP = 1 << GROUP_BITS;
+
+	static final int UP = 0;
+	static final int DOWN = 1;
+	static final int LEFT = 2;
+	static final int RIGHT = 3;
+
+	final Partition[] partitions;
+	final int snapshotEvery;
+	final ArrayList<Snapshot> snapshots = new ArrayList<Snapshot>();
+
+	Transformable[] shapes = new Transformable[16];
+	Listener[] listeners = new Listener[16];
+	//where each shape was when registered
+	int[] originX = new int[16];
+	int[] originY = new int[16];
+	double[] originStep = new double[16];
+	//current position and step of each shape, what snapshots copy
+	int[] x = new int[16];
+	int[] y = new int[16];
+	double[] steps = new double[16];
+	int size = 0;
+	long ticks = 0;
+	long moves = 0;
+
+	public MoveLog() {
+		this(16, 1024);
+	}
+
+	public MoveLog(int partitions, int snapshotEvery) {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("partitions must be at least 1: " + partitions);
+		}
+		if (snapshotEvery < 1) {
+			throw new IllegalArgumentException("snapshotEvery must be at least 1: " + snapshotEvery);
+		}
+		this.partitions = new Partition[partitions];
+		for (int p = 0; p < partitions; p++) {
+			this.partitions[p] = new Partition();
+		}
+		this.snapshotEvery = snapshotEvery;
+		this.snapshots.add(new Snapshot(this, 0));
+	}
+
+	//Starts recording the moves of a Circle or Rectangle. Returns its id, the index used by positionsAt().
+	public int register(Transformable shape) {
+		double step = step(shape);
+		if (this.size == this.shapes.length) {
+			int capacity = this.size * 2;
+			this.shapes = Arrays.copyOf(this.shapes, capacity);
+			this.listeners = Arrays.copyOf(this.listeners, capacity);
+			this.originX = Arrays.copyOf(this.originX, capacity);
+			this.originY = Arrays.copyOf(this.originY, capacity);
+			this.originStep = Arrays.copyOf(this.originStep, capacity);
+			this.x = Arrays.copyOf(this.x, capacity);
+			this.y = Arrays.copyOf(this.y, capacity);
+			this.steps = Arrays.copyOf(this.steps, capacity);
+		}
+		int id = this.size++;
+		this.shapes[id] = shape;
+		this.originX[id] = this.x[id] = Positions.x(shape);
+		this.originY[id] = this.y[id] = Positions.y(shape);
+		this.originStep[id] = this.steps[id] = step;
+		this.listeners[id] = new Listener(id);
+		Positions.addMoveListener(shape, this.listeners[id]);
+		return id;
+	}
+
+	static double step(Transformable shape) {
+		if (shape instanceof Circle) {
+			return Math.abs(((Circle) shape).radius);
+		}
+		if (shape instanceof Rectangle) {
+			return 1;
+		}
+		throw Positions.unsupported(shape);
+	}
+
+	//Stops recording. The history stays readable.
+	public void detach() {
+		for (int id = 0; id < this.size; id++) {
+			Positions.removeMoveListener(this.shapes[id], this.listeners[id]);
+		}
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public long getTicks() {
+		return this.ticks;
+	}
+
+	public long getMoves() {
+		return this.moves;
+	}
+
+	//Bytes used by the encoded moves.
+	public long getBytes() {
+		long bytes = 0;
+		for (Partition partition : this.partitions) {
+			for (byte[] block : partition.blocks) {
+				bytes += block.length;
+			}
+			bytes += partition.used;
+		}
+		return bytes;
+	}
+
+	//Ends the current tick. Every snapshotEvery ticks the current positions are copied.
+	public void tick() {
+		this.ticks++;
+		for (Partition partition : this.partitions) {
+			partition.endTick(this.ticks);
+		}
+		if (this.ticks % this.snapshotEvery == 0) {
+			this.snapshots.add(new Snapshot(this, this.ticks));
+		}
+	}
+
+	void moved(int id, int dx, int dy) {
+		int oldX = this.x[id];
+		int oldY = this.y[id];
+		int newX = Positions.x(this.shapes[id]);
+		int newY = Positions.y(this.shapes[id]);
+		if (newX == oldX && newY == oldY) {
+			return;
+		}
+		this.x[id] = newX;
+		this.y[id] = newY;
+		Partition partition = this.partitions[(id >>> GROUP_BITS) % this.partitions.length];
+		int local = local(id);
+		double step = this.steps[id];
+		int direction = -1;
+		//a shape that is not where the logged moves put it had its position written directly
+		if (newX == oldX + dx && newY == oldY + dy) {
+			if (dx == 0) {
+				if (newY == (int) (oldY + step)) {
+					direction = UP;
+				} else if (newY == (int) (oldY - step)) {
+					direction = DOWN;
+				}
+			} else if (dy == 0) {
+				if (newX == (int) (oldX - step)) {
+					direction = LEFT;
+				} else if (newX == (int) (oldX + step)) {
+					direction = RIGHT;
+				}
+			}
+		}
+		if (direction < 0) {
+			//the radius may have changed, so the next moves are predicted with the current one
+			this.steps[id] = step(this.shapes[id]);
+			partition.correct(this.ticks, local, newX, newY, this.steps[id]);
+			return;
+		}
+		partition.append(local << 2 | direction);
+		this.moves++;
+	}
+
+	int local(int id) {
+		return (id >>> GROUP_BITS) / this.partitions.length << GROUP_BITS | (id & (GROUP - 1));
+	}
+
+	int id(int partition, int local) {
+		return ((local >>> GROUP_BITS) * this.partitions.length + partition) << GROUP_BITS | (local & (GROUP - 1));
+	}
+
+	//Fills x[id] and y[id] with every shape's position after the first `ticks` ticks.
+	//ticks is between 0 and getTicks(). Shapes registered later report where they were registered.
+	public void positionsAt(long ticks, int[] x, int[] y) {
+		if (ticks < 0 || ticks > this.ticks) {
+			throw new IllegalArgumentException("ticks must be between 0 and " + this.ticks + ": " + ticks);
+		}
+		if (x.length < this.size || y.length < this.size) {
+			throw new IllegalArgumentException("Arrays must hold " + this.size + " positions");
+		}
+		Snapshot snapshot = this.snapshots.get((int) (ticks / this.snapshotEvery));
+		System.arraycopy(snapshot.x, 0, x, 0, snapshot.count);
+		System.arraycopy(snapshot.y, 0, y, 0, snapshot.count);
+		System.arraycopy(this.originX, snapshot.count, x, snapshot.count, this.size - snapshot.count);
+		System.arraycopy(this.originY, snapshot.count, y, snapshot.count, this.size - snapshot.count);
+		double[] steps = Arrays.copyOf(snapshot.steps, this.size);
+		System.arraycopy(this.originStep, snapshot.count, steps, snapshot.count, this.size - snapshot.count);
+		ForkJoinPool.commonPool().invoke(new ReplayTask(snapshot, ticks, x, y, steps, 0, this.partitions.length));
+	}
+
+	static class Partition {//the moves of one partition's shapes
+
+		final ArrayList<byte[]> blocks = new ArrayList<byte[]>();
+		byte[] current = new byte[BLOCK];
+		int used = 0;
+		long entries = 0;
+		//ends[t] is the entry count after t ticks
+		long[] ends = new long[16];
+		//corrections, in the order they happened
+		long[] fixOffset = new long[4];
+		long[] fixTick = new long[4];
+		int[] fixLocal = new int[4];
+		int[] fixX = new int[4];
+		int[] fixY = new int[4];
+		double[] fixStep = new double[4];
+		int fixes = 0;
+
+		void append(int value) {
+			if (this.used > BLOCK - 5) {
+				this.blocks.add(Arrays.copyOf(this.current, this.used));
+				this.used = 0;
+			}
+			byte[] block = this.current;
+			int at = this.used;
+			while ((value & ~0x7F) != 0) {
+				block[at++] = (byte) (value | 0x80);
+				value >>>= 7;
+			}
+			block[at++] = (byte) value;
+			this.used = at;
+			this.entries++;
+		}
+
+		void correct(long tick, int local, int x, int y, double step) {
+			if (this.fixes == this.fixOffset.length) {
+				int capacity = this.fixes * 2;
+				this.fixOffset = Arrays.copyOf(this.fixOffset, capacity);
+				this.fixTick = Arrays.copyOf(this.fixTick, capacity);
+				this.fixLocal = Arrays.copyOf(this.fixLocal, capacity);
+				this.fixX = Arrays.copyOf(this.fixX, capacity);
+				this.fixY = Arrays.copyOf(this.fixY, capacity);
+				this.fixStep = Arrays.copyOf(this.fixStep, capacity);
+			}
+			this.fixOffset[this.fixes] = this.entries;
+			this.fixTick[this.fixes] = tick;
+			this.fixLocal[this.fixes] = local;
+			this.fixX[this.fixes] = x;
+			this.fixY[this.fixes] = y;
+			this.fixStep[this.fixes] = step;
+			this.fixes++;
+		}
+
+		//Records the entry count after `ticks` ticks.
+		void endTick(long ticks) {
+			if (ticks >= this.ends.length) {
+				this.ends = Arrays.copyOf(this.ends, this.ends.length * 2);
+			}
+			this.ends[(int) ticks] = this.entries;
+		}
+
+		byte[] block(int index) {
+			return index < this.blocks.size() ? this.blocks.get(index) : this.current;
+		}
+	}
+
+	static class Snapshot {//every position after a number of ticks, and where each partition's moves continue
+
+		final long ticks;
+		final int count;
+		final int[] x;
+		final int[] y;
+		final double[] steps;
+		final int[] block;
+		final int[] offset;
+		final long[] entry;
+
+		Snapshot(MoveLog log, long ticks) {
+			this.ticks = ticks;
+			this.count = log.size;
+			this.x = Arrays.copyOf(log.x, log.size);
+			this.y = Arrays.copyOf(log.y, log.size);
+			this.steps = Arrays.copyOf(log.steps, log.size);
+			int partitions = log.partitions.length;
+			this.block = new int[partitions];
+			this.offset = new int[partitions];
+			this.entry = new long[partitions];
+			for (int p = 0; p < partitions; p++) {
+				Partition partition = log.partitions[p];
+				this.block[p] = partition.blocks.size();
+				this.offset[p] = partition.used;
+				this.entry[p] = partition.entries;
+			}
+		}
+	}
+
+	class ReplayTask extends RecursiveAction {
+
+		final Snapshot snapshot;
+		final long ticks;
+		final int[] x;
+		final int[] y;
+		final double[] steps;
+		final int from;
+		final int to;
+
+		ReplayTask(Snapshot snapshot, long ticks, int[] x, int[] y, double[] steps, int from, int to) {
+			this.snapshot = snapshot;
+			this.ticks = ticks;
+			this.x = x;
+			this.y = y;
+			this.steps = steps;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from == 1) {
+				replay(this.from);
+				return;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new ReplayTask(this.snapshot, this.ticks, this.x, this.y, this.steps, this.from, mid),
+					new ReplayTask(this.snapshot, this.ticks, this.x, this.y, this.steps, mid, this.to));
+		}
+
+		void replay(int p) {
+			Partition partition = partitions[p];
+			int[] x = this.x;
+			int[] y = this.y;
+			double[] steps = this.steps;
+			long entry = this.snapshot.entry[p];
+			long end = partition.ends[(int) this.ticks];
+			//first correction the snapshot does not already include
+			int fix = Arrays.binarySearch(partition.fixOffset, 0, partition.fixes, entry);
+			fix = fix < 0 ? -fix - 1 : fix;
+			while (fix > 0 && partition.fixOffset[fix - 1] == entry) {
+				fix--;
+			}
+			while (fix < partition.fixes && partition.fixOffset[fix] == entry && partition.fixTick[fix] < this.snapshot.ticks) {
+				fix++;
+			}
+			long nextFix = fix < partition.fixes ? partition.fixOffset[fix] : Long.MAX_VALUE;
+			int blockIndex = this.snapshot.block[p];
+			byte[] block = partition.block(blockIndex);
+			int at = this.snapshot.offset[p];
+			int limit = blockIndex < partition.blocks.size() ? block.length : partition.used;
+			for (; entry < end; entry++) {
+				while (nextFix == entry) {
+					fix = applyFix(partition, p, fix);
+					nextFix = fix < partition.fixes ? partition.fixOffset[fix] : Long.MAX_VALUE;
+				}
+				if (at == limit) {
+					block = partition.block(++blockIndex);
+					limit = blockIndex < partition.blocks.size() ? block.length : partition.used;
+					at = 0;
+				}
+				int value = block[at++];
+				if (value < 0) {
+					value &= 0x7F;
+					for (int shift = 7; ; shift += 7) {
+						int b = block[at++];
+						value |= (b & 0x7F) << shift;
+						if (b >= 0) {
+							break;
+						}
+					}
+				}
+				int id = id(p, value >>> 2);
+				switch (value & 3) {
+					case UP: y[id] = (int) (y[id] + steps[id]); break;
+					case DOWN: y[id] = (int) (y[id] - steps[id]); break;
+					case LEFT: x[id] = (int) (x[id] - steps[id]); break;
+					default: x[id] = (int) (x[id] + steps[id]); break;
+				}
+			}
+			//corrections after the last move of the tick range
+			while (nextFix == end && partition.fixTick[fix] < this.ticks) {
+				fix = applyFix(partition, p, fix);
+				nextFix = fix < partition.fixes ? partition.fixOffset[fix] : Long.MAX_VALUE;
+			}
+		}
+
+		int applyFix(Partition partition, int p, int fix) {
+			int id = id(p, partition.fixLocal[fix]);
+			this.x[id] = partition.fixX[fix];
+			this.y[id] = partition.fixY[fix];
+			this.steps[id] = partition.fixStep[fix];
+			return fix + 1;
+		}
+	}
+
+	class Listener implements MoveListener {//one per shape, so a move needs no id lookup
+
+		final int id;
+
+		Listener(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public void moved(Transformable shape, int dx, int dy) {
+			MoveLog.this.moved(this.id, dx, dy);
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+class MusicPlayer implements Player {
+
+	boolean onOff;
+	String[] musicList; //a copy of the caller's, never written, so snapshots can share it
+	String currentSong;
+	int volume;
+	//Titles for big libraries. Used instead of musicList, which is then null.
+	Playlist playlist;
+	int index = -1; //of currentSong, -1 while stopped
+	Shuffle shuffle; //null unless shuffling
+	int position; //of index in the shuffled order, see shuffledAt()
+
+	public MusicPlayer(String[] musicList) {
+		this.musicList = musicList.clone();
+		this.volume = 0;
+		this.onOff = false;
+		this.currentSong = "";
+	}
+
+	public MusicPlayer(Playlist playlist) {
+		this.playlist = playlist;
+		this.volume = 0;
+		this.onOff = false;
+		this.currentSong = "";
+	}
+
+	//Does nothing while the library is empty: there is no first song, so the player stays off.
+	@Override
+	public void start() {
+		if (!this.onOff && size() > 0) {
+			this.onOff = true;
+			play(this.shuffle == null ? 0 : shuffledAt(0));
+		}
+	}
+
+	@Override
+	public void stop() {
+		if (this.onOff) {
+			this.onOff = false;
+			this.currentSong = "";
+			this.index = -1;
+		}
+	}
+
+	public boolean getOnOff() {
+		return this.onOff;
+	}
+
+	@Override
+	public void volumeUp() {
+		this.volume += 1;
+	}
+
+	@Override
+	public void volumeDown() {
+		this.volume -= 1;
+	}
+
+	@Override
+	public int getVolume() {
+		return this.volume;
+	}
+
+	//Both keep a cursor, so they cost the same for any library size.
+	public void next() {
+		if (this.index < 0) {
+			return;
+		}
+		if (this.shuffle == null) {
+			if (this.index < size() - 1) {
+				play(this.index + 1);
+			}
+		} else if (this.position < size() - 1) {
+			this.position++;
+			show(shuffledAt(this.position));
+		}
+	}
+
+	public void previous() {
+		if (this.index < 0) {
+			return;
+		}
+		if (this.shuffle == null) {
+			if (this.index > 0) {
+				play(this.index - 1);
+			}
+		} else if (this.position > 0) {
+			this.position--;
+			show(shuffledAt(this.position));
+		}
+	}
+
+	public String getCurrentSong() {
+		return this.currentSong;
+	}
+
+	//-1 while stopped.
+	public int getCurrentIndex() {
+		return this.index;
+	}
+
+	//Plays the song at index, e.g. one found by a TitleIndex. Starts the player if it is off.
+	public void jumpTo(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+		}
+		this.onOff = true;
+		play(index);
+	}
+
+	//next() and previous() then follow a random order of the whole list, starting from the current song.
+	//Titles added to the playlist later are played after that order, in the order they were added.
+	public void shuffle(long seed) {
+		this.shuffle = new Shuffle(size(), seed);
+		if (this.index >= 0) {
+			this.position = shuffledPosition(this.index);
+		}
+	}
+
+	public void unshuffle() {
+		this.shuffle = null;
+	}
+
+	public boolean isShuffled() {
+		return this.shuffle != null;
+	}
+
+	public int size() {
+		return this.musicList != null ? this.musicList.length : this.playlist.size();
+	}
+
+	String title(int index) {
+		return this.musicList != null ? this.musicList[index] : this.playlist.get(index);
+	}
+
+	//The index next() would go to from index, in shuffled order if shuffling. -1 after the last one.
+	int following(int index) {
+		if (this.shuffle == null) {
+			return index + 1 < size() ? index + 1 : -1;
+		}
+		int position = shuffledPosition(index) + 1;
+		return position < size() ? shuffledAt(position) : -1;
+	}
+
+	//A stopped copy with the same titles and the same order, for another thread to
+	//read with title() and following(). Later changes to this player or its playlist
+	//do not show in it. Called on every AudioPipeline.play(), so nothing is copied:
+	//musicList is never written and Playlist.snapshot() shares its arrays.
+	MusicPlayer snapshot() {
+		MusicPlayer copy = new MusicPlayer(this.playlist != null ? this.playlist.snapshot() : null);
+		copy.musicList = this.musicList;
+		copy.shuffle = this.shuffle; //immutable
+		return copy;
+	}
+
+	//The Shuffle only covers the titles there were when shuffle() was called,
+	//positions past those play the rest unshuffled.
+	int shuffledAt(int position) {
+		return position < this.shuffle.size() ? this.shuffle.at(position) : position;
+	}
+
+	int shuffledPosition(int index) {
+		return index < this.shuffle.size() ? this.shuffle.positionOf(index) : index;
+	}
+
+	void play(int index) {
+		show(index);
+		if (this.shuffle != null) {
+			this.position = shuffledPosition(index);
+		}
+	}
+
+	void show(int index) {
+		this.currentSong = title(index);
+		this.index = index;
+	}
+
+}
@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+class Neighbours {//keeps the k closest shapes seen so far during a nearest-neighbour search
+
+	final int x;
+	final int y;
+	final int k;
+	//farthest candidate on top so it can be dropped when something closer turns up
+	final PriorityQueue<Candidate> heap;
+
+	Neighbours(int x, int y, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+		this.x = x;
+		this.y = y;
+		this.k = k;
+		this.heap = new PriorityQueue<Candidate>(Math.max(k, 1), (a, b) -> Long.compare(b.distance, a.distance));
+	}
+
+	static long distanceSquared(int x1, int y1, int x2, int y2) {
+		long dx = (long) x1 - x2;
+		long dy = (long) y1 - y2;
+		return dx * dx + dy * dy;
+	}
+
+	void offer(Transformable shape) {
+		offer(shape, Positions.x(shape), Positions.y(shape));
+	}
+
+	void offer(Transformable shape, int sx, int sy) {
+		if (this.k == 0) {
+			return;
+		}
+		long distance = distanceSquared(this.x, this.y, sx, sy);
+		if (this.heap.size() < this.k) {
+			this.heap.add(new Candidate(shape, distance));
+		} else if (distance < this.heap.peek().distance) {
+			this.heap.poll();
+			this.heap.add(new Candidate(shape, distance));
+		}
+	}
+
+	boolean full() {
+		return this.heap.size() == this.k;
+	}
+
+	//Squared distance of the worst candidate kept, or Long.MAX_VALUE while not full.
+	long worst() {
+		return full() && this.k > 0 ? this.heap.peek().distance : Long.MAX_VALUE;
+	}
+
+	List<Transformable> result() {
+		List<Candidate> sorted = new ArrayList<Candidate>(this.heap);
+		Collections.sort(sorted, (a, b) -> Long.compare(a.distance, b.distance));
+		List<Transformable> shapes = new ArrayList<Transformable>(sorted.size());
+		for (Candidate candidate : sorted) {
+			shapes.add(candidate.shape);
+		}
+		return shapes;
+	}
+
+	static class Candidate {
+
+		final Transformable shape;
+		final long distance;
+
+		Candidate(Transformable shape, long distance) {
+			this.shape = shape;
+			this.distance = distance;
+		}
+	}
+
+}
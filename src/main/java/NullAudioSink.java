@@ -0,0 +1,53 @@
+import java.util.concurrent.locks.LockSupport;
+
+class NullAudioSink implements AudioSink {//drops the audio and counts it, for tests and benchmarks
+
+	//With a speed it also takes as long as a device would, divided by speed, so
+	//the pipeline has to keep up. Without one it takes bytes as fast as they come.
+	final double speed;
+	double nanosPerByte = 0;
+	long due = 0; //when the bytes written so far would have finished playing
+	//volatile so another thread can watch playback progress
+	volatile long bytes = 0;
+	volatile int formats = 0;
+
+	public NullAudioSink() {
+		this(0);
+	}
+
+	public NullAudioSink(double speed) {
+		this.speed = speed;
+	}
+
+	@Override
+	public void format(int sampleRate, int channels, int bitsPerSample) {
+		this.formats++;
+		if (this.speed > 0) {
+			this.nanosPerByte = 1e9 * 8 / ((double) sampleRate * channels * bitsPerSample) / this.speed;
+		}
+	}
+
+	@Override
+	public void write(byte[] pcm, int off, int len) {
+		this.bytes += len;
+		if (this.nanosPerByte > 0) {
+			long now = System.nanoTime();
+			if (this.due < now) {
+				this.due = now; //the device ran dry, it starts again from now
+			}
+			this.due += (long) (len * this.nanosPerByte);
+			while ((now = System.nanoTime()) < this.due) {
+				LockSupport.parkNanos(this.due - now);
+			}
+		}
+	}
+
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	public int getFormats() {
+		return this.formats;
+	}
+
+}
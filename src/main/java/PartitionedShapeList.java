@@ -0,0 +1,220 @@
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+
+class PartitionedShapeList extends AbstractCollection<Shape> {//one list per shape class so loops only ever see one type
+
+	//Gets one call per shape, with the shape already cast to its own class.
+	interface Visitor {
+		public void circle(Circle circle);
+		public void rectangle(Rectangle rectangle);
+		public void triangle(Triangle triangle);
+		public void other(Shape shape);
+	}
+
+	final ArrayList<Circle> circles = new ArrayList<Circle>();
+	final ArrayList<Rectangle> rectangles = new ArrayList<Rectangle>();
+	final ArrayList<Triangle> triangles = new ArrayList<Triangle>();
+	final ArrayList<Shape> others = new ArrayList<Shape>(); //anything else, e.g. ImmutableCircle
+
+	public PartitionedShapeList() {
+	}
+
+	public PartitionedShapeList(Iterable<? extends Shape> shapes) {
+		for (Shape shape : shapes) {
+			add(shape);
+		}
+	}
+
+	@Override
+	public boolean add(Shape shape) {
+		if (shape == null) {
+			throw new NullPointerException("shape");
+		}
+		if (shape.getClass() == Circle.class) {
+			return this.circles.add((Circle) shape);
+		}
+		if (shape.getClass() == Rectangle.class) {
+			return this.rectangles.add((Rectangle) shape);
+		}
+		if (shape.getClass() == Triangle.class) {
+			return this.triangles.add((Triangle) shape);
+		}
+		return this.others.add(shape);
+	}
+
+	@Override
+	public int size() {
+		return this.circles.size() + this.rectangles.size() + this.triangles.size() + this.others.size();
+	}
+
+	@Override
+	public void clear() {
+		this.circles.clear();
+		this.rectangles.clear();
+		this.triangles.clear();
+		this.others.clear();
+	}
+
+	public ArrayList<Circle> getCircles() {
+		return this.circles;
+	}
+
+	public ArrayList<Rectangle> getRectangles() {
+		return this.rectangles;
+	}
+
+	public ArrayList<Triangle> getTriangles() {
+		return this.triangles;
+	}
+
+	//Each loop below has its own call site that only ever sees one class, so the JIT can inline it.
+	public double totalArea() {
+		double total = 0;
+		for (int i = 0; i < this.circles.size(); i++) {
+			total += this.circles.get(i).getArea();
+		}
+		for (int i = 0; i < this.rectangles.size(); i++) {
+			total += this.rectangles.get(i).getArea();
+		}
+		for (int i = 0; i < this.triangles.size(); i++) {
+			total += this.triangles.get(i).getArea();
+		}
+		for (int i = 0; i < this.others.size(); i++) {
+			total += this.others.get(i).getArea();
+		}
+		return total;
+	}
+
+	public double totalPerimeter() {
+		double total = 0;
+		for (int i = 0; i < this.circles.size(); i++) {
+			total += this.circles.get(i).getPerimeter();
+		}
+		for (int i = 0; i < this.rectangles.size(); i++) {
+			total += this.rectangles.get(i).getPerimeter();
+		}
+		for (int i = 0; i < this.triangles.size(); i++) {
+			total += this.triangles.get(i).getPerimeter();
+		}
+		for (int i = 0; i < this.others.size(); i++) {
+			total += this.others.get(i).getPerimeter();
+		}
+		return total;
+	}
+
+	//Folds every area into identity with op, e.g. reduceArea(Double.NEGATIVE_INFINITY, Math::max).
+	public double reduceArea(double identity, DoubleBinaryOperator op) {
+		double result = identity;
+		for (int i = 0; i < this.circles.size(); i++) {
+			result = op.applyAsDouble(result, this.circles.get(i).getArea());
+		}
+		for (int i = 0; i < this.rectangles.size(); i++) {
+			result = op.applyAsDouble(result, this.rectangles.get(i).getArea());
+		}
+		for (int i = 0; i < this.triangles.size(); i++) {
+			result = op.applyAsDouble(result, this.triangles.get(i).getArea());
+		}
+		for (int i = 0; i < this.others.size(); i++) {
+			result = op.applyAsDouble(result, this.others.get(i).getArea());
+		}
+		return result;
+	}
+
+	public double reducePerimeter(double identity, DoubleBinaryOperator op) {
+		double result = identity;
+		for (int i = 0; i < this.circles.size(); i++) {
+			result = op.applyAsDouble(result, this.circles.get(i).getPerimeter());
+		}
+		for (int i = 0; i < this.rectangles.size(); i++) {
+			result = op.applyAsDouble(result, this.rectangles.get(i).getPerimeter());
+		}
+		for (int i = 0; i < this.triangles.size(); i++) {
+			result = op.applyAsDouble(result, this.triangles.get(i).getPerimeter());
+		}
+		for (int i = 0; i < this.others.size(); i++) {
+			result = op.applyAsDouble(result, this.others.get(i).getPerimeter());
+		}
+		return result;
+	}
+
+	//Visits circles, then rectangles, then triangles, then everything else.
+	public void forEach(Visitor visitor) {
+		for (int i = 0; i < this.circles.size(); i++) {
+			visitor.circle(this.circles.get(i));
+		}
+		for (int i = 0; i < this.rectangles.size(); i++) {
+			visitor.rectangle(this.rectangles.get(i));
+		}
+		for (int i = 0; i < this.triangles.size(); i++) {
+			visitor.triangle(this.triangles.get(i));
+		}
+		for (int i = 0; i < this.others.size(); i++) {
+			visitor.other(this.others.get(i));
+		}
+	}
+
+	//Same segment order as forEach(Visitor). The loops are written out here rather than handed
+	//to ArrayList.forEach, whose one shared call site would see every class again.
+	@Override
+	public void forEach(Consumer<? super Shape> action) {
+		for (int i = 0; i < this.circles.size(); i++) {
+			action.accept(this.circles.get(i));
+		}
+		for (int i = 0; i < this.rectangles.size(); i++) {
+			action.accept(this.rectangles.get(i));
+		}
+		for (int i = 0; i < this.triangles.size(); i++) {
+			action.accept(this.triangles.get(i));
+		}
+		for (int i = 0; i < this.others.size(); i++) {
+			action.accept(this.others.get(i));
+		}
+	}
+
+	@Override
+	public Iterator<Shape> iterator() {
+		return new SegmentIterator();
+	}
+
+	class SegmentIterator implements Iterator<Shape> {
+
+		final ArrayList<?>[] segments = new ArrayList<?>[]{circles, rectangles, triangles, others};
+		int segment = 0;
+		Iterator<?> current = this.segments[0].iterator();
+		Iterator<?> last; //the iterator that returned the last element, for remove()
+
+		@Override
+		public boolean hasNext() {
+			while (!this.current.hasNext()) {
+				if (this.segment == this.segments.length - 1) {
+					return false;
+				}
+				this.current = this.segments[++this.segment].iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public Shape next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.last = this.current;
+			return (Shape) this.current.next();
+		}
+
+		@Override
+		public void remove() {
+			if (this.last == null) {
+				throw new IllegalStateException();
+			}
+			this.last.remove();
+			this.last = null;
+		}
+	}
+
+}
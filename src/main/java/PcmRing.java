@@ -0,0 +1,89 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+class PcmRing {//lock-free byte ring buffer for exactly one writing thread and one reading thread
+
+	//written and read count bytes since the start and never wrap, so full and
+	//empty are told apart without a spare slot. Each side publishes its counter
+	//with lazySet, a release store: the bytes are in place before the other side
+	//sees them counted. Each side also caches the other's counter and only reads
+	//the shared one again when the cached value says it has to wait.
+
+	final byte[] buffer;
+	final int mask;
+	final AtomicLong written = new AtomicLong();
+	final AtomicLong read = new AtomicLong();
+	long readSeen = 0; //writer's copy of read
+	long writtenSeen = 0; //reader's copy of written
+
+	//capacity is rounded up to a power of two
+	public PcmRing(int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity);
+		this.buffer = new byte[size < capacity ? size << 1 : size];
+		this.mask = this.buffer.length - 1;
+	}
+
+	public int capacity() {
+		return this.buffer.length;
+	}
+
+	//Writer only. Copies as much of src as fits and returns how many bytes that was.
+	public int offer(ByteBuffer src) {
+		long at = this.written.get();
+		long free = this.buffer.length - (at - this.readSeen);
+		if (free < src.remaining()) {
+			this.readSeen = this.read.get();
+			free = this.buffer.length - (at - this.readSeen);
+		}
+		int count = (int) Math.min(free, src.remaining());
+		int from = (int) at & this.mask;
+		int first = Math.min(count, this.buffer.length - from);
+		src.get(this.buffer, from, first);
+		src.get(this.buffer, 0, count - first);
+		this.written.lazySet(at + count);
+		return count;
+	}
+
+	//Bytes written so far. The writer uses it to mark where a track starts.
+	public long writePosition() {
+		return this.written.get();
+	}
+
+	//Reader only. Bytes that can be read without waiting.
+	public int available() {
+		long at = this.read.get();
+		this.writtenSeen = this.written.get();
+		return (int) (this.writtenSeen - at);
+	}
+
+	public long readPosition() {
+		return this.read.get();
+	}
+
+	//Reader only. Copies up to len bytes into dst and returns how many.
+	public int poll(byte[] dst, int off, int len) {
+		long at = this.read.get();
+		if (this.writtenSeen - at < len) {
+			this.writtenSeen = this.written.get();
+		}
+		int count = (int) Math.min(len, this.writtenSeen - at);
+		int from = (int) at & this.mask;
+		int first = Math.min(count, this.buffer.length - from);
+		System.arraycopy(this.buffer, from, dst, off, first);
+		System.arraycopy(this.buffer, 0, dst, off + first, count - first);
+		this.read.lazySet(at + count);
+		return count;
+	}
+
+	//Reader only. Drops up to len bytes unread.
+	public int skip(int len) {
+		long at = this.read.get();
+		int count = (int) Math.min(len, this.written.get() - at);
+		this.read.lazySet(at + count);
+		return count;
+	}
+
+}
@@ -0,0 +1,9 @@
+interface Player {
+
+	public void start();
+	public void stop();
+	public void volumeUp();
+	public void volumeDown();
+	public int getVolume();
+
+}
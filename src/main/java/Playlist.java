@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+class Playlist {//track titles stored as UTF-8 in one byte array, so a big library is not millions of Strings
+
+	//Title i is bytes[offsets[i]] up to bytes[offsets[i + 1]]. A String is only
+	//made when get() is called.
+
+	byte[] bytes;
+	int[] offsets;
+	int size = 0;
+
+	public Playlist() {
+		this(16, 16 * 32);
+	}
+
+	public Playlist(int capacity, int byteCapacity) {
+		this.bytes = new byte[Math.max(byteCapacity, 16)];
+		this.offsets = new int[Math.max(capacity, 1) + 1];
+	}
+
+	public static Playlist of(String... titles) {
+		Playlist playlist = new Playlist(titles.length, titles.length * 32);
+		for (String title : titles) {
+			playlist.add(title);
+		}
+		return playlist;
+	}
+
+	//One title per line, UTF-8. "\r\n" line ends work too. Empty lines are skipped.
+	public static Playlist load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 16) {
+				throw new IOException("Playlist file too large: " + file);
+			}
+			Playlist playlist = new Playlist((int) (size / 32), (int) size);
+			playlist.readAll(channel);
+			return playlist;
+		}
+	}
+
+	public static Playlist load(InputStream in) throws IOException {
+		Playlist playlist = new Playlist();
+		playlist.readAll(Channels.newChannel(in));
+		return playlist;
+	}
+
+	//Copies line bytes straight into the pool, no String or decoding on the way.
+	void readAll(ReadableByteChannel channel) throws IOException {
+		ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+		int start = this.offsets[this.size];
+		int at = start;
+		while (channel.read(chunk) >= 0) {
+			chunk.flip();
+			byte[] in = chunk.array();
+			int limit = chunk.limit();
+			ensureBytes(at + limit);
+			byte[] out = this.bytes;
+			for (int i = 0; i < limit; i++) {
+				byte b = in[i];
+				if (b == '\n') {
+					if (at > start && out[at - 1] == '\r') {
+						at--;
+					}
+					if (at > start) {
+						endTitle(at);
+						start = at;
+					}
+				} else {
+					out[at++] = b;
+				}
+			}
+			chunk.clear();
+		}
+		if (at > start && this.bytes[at - 1] == '\r') {
+			at--;
+		}
+		if (at > start) {
+			endTitle(at); //last line may have no newline
+		}
+	}
+
+	void ensureBytes(int capacity) {
+		if (capacity > this.bytes.length) {
+			this.bytes = Arrays.copyOf(this.bytes, Math.max(capacity, this.bytes.length * 2));
+		}
+	}
+
+	void endTitle(int end) {
+		if (this.size + 1 == this.offsets.length) {
+			this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+		}
+		this.offsets[++this.size] = end;
+	}
+
+	public int add(String title) {
+		byte[] utf8 = title.getBytes(StandardCharsets.UTF_8);
+		int start = this.offsets[this.size];
+		ensureBytes(start + utf8.length);
+		System.arraycopy(utf8, 0, this.bytes, start, utf8.length);
+		endTitle(start + utf8.length);
+		return this.size - 1;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	//The titles there are now, sharing the arrays: add() only writes past them, and
+	//grows by copying. Read-only, adding to the snapshot would write into the shared arrays.
+	Playlist snapshot() {
+		Playlist snapshot = new Playlist(0, 0);
+		snapshot.bytes = this.bytes;
+		snapshot.offsets = this.offsets;
+		snapshot.size = this.size;
+		return snapshot;
+	}
+
+	//Bytes used by the titles.
+	public int byteSize() {
+		return this.offsets[this.size];
+	}
+
+	public String get(int index) {
+		checkIndex(index);
+		return new String(this.bytes, this.offsets[index], this.offsets[index + 1] - this.offsets[index], StandardCharsets.UTF_8);
+	}
+
+	//Compares UTF-8 bytes, without decoding any title. -1 if there is no such title.
+	public int indexOf(String title) {
+		byte[] utf8 = title.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < this.size; i++) {
+			if (equals(i, utf8)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	boolean equals(int index, byte[] utf8) {
+		int start = this.offsets[index];
+		if (this.offsets[index + 1] - start != utf8.length) {
+			return false;
+		}
+		for (int j = 0; j < utf8.length; j++) {
+			if (this.bytes[start + j] != utf8[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	void checkIndex(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.size);
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+class Positions {//reads and writes the position of any Transformable shape
+
+	static int x(Transformable shape) {
+		if (shape instanceof Circle) {
+			return ((Circle) shape).position[0];
+		}
+		if (shape instanceof Rectangle) {
+			return ((Rectangle) shape).x;
+		}
+		if (shape instanceof ConcurrentCircle) {
+			return ((ConcurrentCircle) shape).position.getX();
+		}
+		if (shape instanceof ConcurrentRectangle) {
+			return ((ConcurrentRectangle) shape).position.getX();
+		}
+		throw unsupported(shape);
+	}
+
+	static int y(Transformable shape) {
+		if (shape instanceof Circle) {
+			return ((Circle) shape).position[1];
+		}
+		if (shape instanceof Rectangle) {
+			return ((Rectangle) shape).y;
+		}
+		if (shape instanceof ConcurrentCircle) {
+			return ((ConcurrentCircle) shape).position.getY();
+		}
+		if (shape instanceof ConcurrentRectangle) {
+			return ((ConcurrentRectangle) shape).position.getY();
+		}
+		throw unsupported(shape);
+	}
+
+	static void addMoveListener(Transformable shape, MoveListener listener) {
+		if (shape instanceof Circle) {
+			((Circle) shape).addMoveListener(listener);
+		} else if (shape instanceof Rectangle) {
+			((Rectangle) shape).addMoveListener(listener);
+		} else {
+			throw unsupported(shape);
+		}
+	}
+
+	static void removeMoveListener(Transformable shape, MoveListener listener) {
+		if (shape instanceof Circle) {
+			((Circle) shape).removeMoveListener(listener);
+		} else if (shape instanceof Rectangle) {
+			((Rectangle) shape).removeMoveListener(listener);
+		} else {
+			throw unsupported(shape);
+		}
+	}
+
+	//Moves by an exact delta, not a step, and tells the move listeners.
+	static void moveBy(Transformable shape, int dx, int dy) {
+		if (shape instanceof Circle) {
+			Circle cir = (Circle) shape;
+			cir.position[0] += dx;
+			cir.position[1] += dy;
+			cir.moved(dx, dy);
+		} else if (shape instanceof Rectangle) {
+			Rectangle rect = (Rectangle) shape;
+			rect.x += dx;
+			rect.y += dy;
+			rect.moved(dx, dy);
+		} else {
+			throw unsupported(shape);
+		}
+	}
+
+	static IllegalArgumentException unsupported(Transformable shape) {
+		return new IllegalArgumentException("Unsupported shape: " + shape);
+	}
+
+}
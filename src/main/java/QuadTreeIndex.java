@@ -0,0 +1,271 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+class QuadTreeIndex implements SpatialIndex {//point quadtree over a fixed square region
+
+	static final int LEAF_CAPACITY = 8;
+	static final int MAX_DEPTH = 20;
+
+	final Node root;
+	//shapes that have wandered outside the region are kept in a plain list
+	final ArrayList<Transformable> outside = new ArrayList<Transformable>();
+	//the position each shape was filed under, packed as x << 32 | y
+	final IdentityHashMap<Transformable, Long> filedAt = new IdentityHashMap<Transformable, Long>();
+
+	//Covers [minX, minX + size) by [minY, minY + size), with size rounded up to a power of two.
+	public QuadTreeIndex(int minX, int minY, int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("size must be positive: " + size);
+		}
+		long side = Long.highestOneBit(size);
+		if (side < size) {
+			side *= 2;
+		}
+		this.root = new Node((long) minX, (long) minY, side, 0);
+	}
+
+	static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+
+	static int unpackX(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	static int unpackY(long packed) {
+		return (int) packed;
+	}
+
+	@Override
+	public void add(Transformable shape) {
+		if (this.filedAt.containsKey(shape)) {
+			return;
+		}
+		insert(shape, Positions.x(shape), Positions.y(shape));
+		Positions.addMoveListener(shape, this);
+	}
+
+	@Override
+	public void remove(Transformable shape) {
+		Long at = this.filedAt.get(shape);
+		if (at == null) {
+			return;
+		}
+		delete(shape, at);
+		Positions.removeMoveListener(shape, this);
+	}
+
+	@Override
+	public int size() {
+		return this.filedAt.size();
+	}
+
+	@Override
+	public void moved(Transformable shape, int dx, int dy) {
+		Long at = this.filedAt.get(shape);
+		if (at == null) {
+			return;
+		}
+		int x = Positions.x(shape);
+		int y = Positions.y(shape);
+		Node node = this.root.contains(x, y) ? this.root.leafFor(x, y) : null;
+		Node old = this.root.contains(unpackX(at), unpackY(at)) ? this.root.leafFor(unpackX(at), unpackY(at)) : null;
+		if (node != null && node == old) {
+			//still in the same leaf, only the recorded position changes
+			this.filedAt.put(shape, pack(x, y));
+			return;
+		}
+		delete(shape, at);
+		insert(shape, x, y);
+	}
+
+	void insert(Transformable shape, int x, int y) {
+		if (this.root.contains(x, y)) {
+			this.root.insert(shape, x, y);
+		} else {
+			this.outside.add(shape);
+		}
+		this.filedAt.put(shape, pack(x, y));
+	}
+
+	void delete(Transformable shape, long at) {
+		int x = unpackX(at);
+		int y = unpackY(at);
+		if (this.root.contains(x, y)) {
+			this.root.leafFor(x, y).items.remove(shape);
+		} else {
+			this.outside.remove(shape);
+		}
+		this.filedAt.remove(shape);
+	}
+
+	@Override
+	public List<Transformable> range(int minX, int minY, int maxX, int maxY) {
+		List<Transformable> found = new ArrayList<Transformable>();
+		this.root.range(minX, minY, maxX, maxY, found);
+		GridIndex.collect(this.outside, minX, minY, maxX, maxY, found);
+		return found;
+	}
+
+	@Override
+	public List<Transformable> nearest(int x, int y, int k) {
+		Neighbours best = new Neighbours(x, y, k);
+		if (k == 0) {
+			return best.result();
+		}
+		for (Transformable shape : this.outside) {
+			best.offer(shape);
+		}
+		this.root.nearest(best);
+		return best.result();
+	}
+
+	@Override
+	public void checkConsistency() {
+		int filed = this.root.check(this) + this.outside.size();
+		for (Transformable shape : this.outside) {
+			Long at = this.filedAt.get(shape);
+			if (at == null || at != pack(Positions.x(shape), Positions.y(shape))) {
+				throw new IllegalStateException("Shape position out of date: " + shape);
+			}
+			if (this.root.contains(Positions.x(shape), Positions.y(shape))) {
+				throw new IllegalStateException("Shape inside the region is filed outside it: " + shape);
+			}
+		}
+		if (filed != this.filedAt.size()) {
+			throw new IllegalStateException("Tree holds " + filed + " shapes but " + this.filedAt.size() + " are registered");
+		}
+	}
+
+	static class Node {
+
+		//long so that minX + size never overflows
+		final long minX;
+		final long minY;
+		final long size;
+		final int depth;
+		ArrayList<Transformable> items = new ArrayList<Transformable>();
+		Node[] children; //null for a leaf, otherwise NW, NE, SW, SE
+
+		Node(long minX, long minY, long size, int depth) {
+			this.minX = minX;
+			this.minY = minY;
+			this.size = size;
+			this.depth = depth;
+		}
+
+		boolean contains(long x, long y) {
+			return x >= this.minX && x < this.minX + this.size && y >= this.minY && y < this.minY + this.size;
+		}
+
+		int childIndex(int x, int y) {
+			long half = this.size / 2;
+			int index = 0;
+			if (x >= this.minX + half) {
+				index += 1;
+			}
+			if (y >= this.minY + half) {
+				index += 2;
+			}
+			return index;
+		}
+
+		Node leafFor(int x, int y) {
+			Node node = this;
+			while (node.children != null) {
+				node = node.children[node.childIndex(x, y)];
+			}
+			return node;
+		}
+
+		void insert(Transformable shape, int x, int y) {
+			Node leaf = leafFor(x, y);
+			leaf.items.add(shape);
+			if (leaf.items.size() > LEAF_CAPACITY && leaf.depth < MAX_DEPTH && leaf.size > 1) {
+				leaf.split();
+			}
+		}
+
+		void split() {
+			long half = this.size / 2;
+			this.children = new Node[]{
+				new Node(this.minX, this.minY, half, this.depth + 1),
+				new Node(this.minX + half, this.minY, half, this.depth + 1),
+				new Node(this.minX, this.minY + half, half, this.depth + 1),
+				new Node(this.minX + half, this.minY + half, half, this.depth + 1)
+			};
+			ArrayList<Transformable> old = this.items;
+			this.items = null;
+			for (Transformable shape : old) {
+				this.children[childIndex(Positions.x(shape), Positions.y(shape))].items.add(shape);
+			}
+		}
+
+		boolean overlaps(int minX, int minY, int maxX, int maxY) {
+			return maxX >= this.minX && minX < this.minX + this.size && maxY >= this.minY && minY < this.minY + this.size;
+		}
+
+		void range(int minX, int minY, int maxX, int maxY, List<Transformable> found) {
+			if (!overlaps(minX, minY, maxX, maxY)) {
+				return;
+			}
+			if (this.children == null) {
+				GridIndex.collect(this.items, minX, minY, maxX, maxY, found);
+				return;
+			}
+			for (Node child : this.children) {
+				child.range(minX, minY, maxX, maxY, found);
+			}
+		}
+
+		//Smallest squared distance from (x, y) to any point of this node.
+		long distanceSquared(int x, int y) {
+			long dx = Math.max(0, Math.max(this.minX - x, x - (this.minX + this.size - 1)));
+			long dy = Math.max(0, Math.max(this.minY - y, y - (this.minY + this.size - 1)));
+			return dx * dx + dy * dy;
+		}
+
+		void nearest(Neighbours best) {
+			if (distanceSquared(best.x, best.y) > best.worst()) {
+				return;
+			}
+			if (this.children == null) {
+				for (Transformable shape : this.items) {
+					best.offer(shape);
+				}
+				return;
+			}
+			//the child holding the query point first, so the bound tightens quickly
+			Node[] order = this.children.clone();
+			Arrays.sort(order, (a, b) -> Long.compare(a.distanceSquared(best.x, best.y), b.distanceSquared(best.x, best.y)));
+			for (Node child : order) {
+				child.nearest(best);
+			}
+		}
+
+		int check(QuadTreeIndex index) {
+			if (this.children == null) {
+				for (Transformable shape : this.items) {
+					int x = Positions.x(shape);
+					int y = Positions.y(shape);
+					Long at = index.filedAt.get(shape);
+					if (at == null || at != pack(x, y)) {
+						throw new IllegalStateException("Shape position out of date: " + shape);
+					}
+					if (!contains(x, y)) {
+						throw new IllegalStateException("Shape filed in the wrong node: " + shape);
+					}
+				}
+				return this.items.size();
+			}
+			int total = 0;
+			for (Node child : this.children) {
+				total += child.check(index);
+			}
+			return total;
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+class RadioPlayer implements Player {
+
+	boolean onOff;
+	double[] stationList;
+	int volume;
+	double station;
+	int index = -1; //of station in stationList, -1 while off
+	StationIndex stations; //made by the first tune or scan
+
+	public RadioPlayer(double[] stationList) {
+		this.stationList = stationList;
+		this.volume = 0;
+		this.onOff = false;
+		this.station = 0;
+	}
+
+	//Does nothing without stations: there is none to tune to, so the radio stays off.
+	@Override
+	public void start() {
+		if (!this.onOff && this.stationList.length > 0) {
+			this.onOff = true;
+			tune(0);
+		}
+	}
+
+	@Override
+	public void stop() {
+		if (this.onOff) {
+			this.onOff = false;
+			this.station = 0;
+			this.index = -1;
+		}
+	}
+
+	public boolean getOnOff() {
+		return this.onOff;
+	}
+
+	@Override
+	public void volumeUp() {
+		this.volume += 2;
+	}
+
+	@Override
+	public void volumeDown() {
+		this.volume -= 2;
+	}
+
+	@Override
+	public int getVolume() {
+		return this.volume;
+	}
+
+	//In list order, like the README says. O(1), the index of the station is kept.
+	public void next() {
+		if (this.index >= 0 && this.index < this.stationList.length - 1) {
+			tune(this.index + 1);
+		}
+	}
+
+	public void previous() {
+		if (this.index > 0) {
+			tune(this.index - 1);
+		}
+	}
+
+	//Tunes to the station whose frequency is nearest, turning the radio on.
+	//Returns false, and changes nothing, if no station is within maxDistance.
+	public boolean tuneNearest(double frequency, double maxDistance) {
+		StationIndex stations = stations();
+		int r = stations.nearest(frequency);
+		if (r < 0 || Math.abs(stations.sorted[r] - frequency) > maxDistance + StationIndex.tolerance(frequency)) {
+			return false;
+		}
+		this.onOff = true;
+		tune(stations.order[r]);
+		return true;
+	}
+
+	public boolean tuneNearest(double frequency) {
+		return tuneNearest(frequency, Double.POSITIVE_INFINITY);
+	}
+
+	//Scanning walks to the next higher or lower frequency, whatever the list
+	//order, and wraps around at the ends of the band. Does nothing while off.
+	public void scanUp() {
+		StationIndex stations = stations();
+		if (this.index >= 0 && stations.valid > 0) {
+			tune(stations.order[stations.up(stations.rank[this.index])]);
+		}
+	}
+
+	public void scanDown() {
+		StationIndex stations = stations();
+		if (this.index >= 0 && stations.valid > 0) {
+			tune(stations.order[stations.down(stations.rank[this.index])]);
+		}
+	}
+
+	public double getStation() {
+		return this.station;
+	}
+
+	StationIndex stations() {
+		if (this.stations == null) {
+			this.stations = new StationIndex(this.stationList);
+		}
+		return this.stations;
+	}
+
+	void tune(int index) {
+		this.station = this.stationList[index];
+		this.index = index;
+	}
+
+}
@@ -0,0 +1,314 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+class Rasterizer {//draws positioned circles and rectangles into an occupancy bitmap or a coverage grid
+
+	//Pixel (px, py) is the unit square [px, px + 1) x [py, py + 1) and is covered
+	//when its centre lies inside the shape, edges included. Circles are centred on
+	//their position, rectangles span length along x and width along y from (x, y),
+	//as in CollisionWorld. Triangles have no position yet and cannot be drawn.
+	//
+	//The canvas is cut into TILE x TILE tiles that are drawn in parallel. Shapes
+	//are first binned to the tiles their bounds touch, so each tile only looks at
+	//its own shapes, and each shape is filled one row span at a time.
+
+	//A multiple of 64 so that no two tiles ever write to the same long of the bitmap.
+	static final int TILE = 256;
+	//Tile ranges smaller than this are drawn in one task instead of being split again.
+	static final int THRESHOLD = 2;
+
+	static final byte CIRCLE = 0;
+	static final byte RECTANGLE = 1;
+
+	final int width;
+	final int height;
+	final int tilesX;
+	final int tilesY;
+
+	//Geometry is copied when a shape is added. Circle: a = centre x, b = centre y,
+	//c = radius. Rectangle: a = min x, b = min y, c = max x, d = max y.
+	byte[] kinds = new byte[16];
+	double[] a = new double[16];
+	double[] b = new double[16];
+	double[] c = new double[16];
+	double[] d = new double[16];
+	//pixel bounds clipped to the canvas, minX > maxX when nothing is visible
+	int[] minX = new int[16];
+	int[] maxX = new int[16];
+	int[] minY = new int[16];
+	int[] maxY = new int[16];
+	int size = 0;
+
+	public Rasterizer(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Canvas must not be empty: " + width + " by " + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.tilesX = (width + TILE - 1) / TILE;
+		this.tilesY = (height + TILE - 1) / TILE;
+	}
+
+	public int getWidth() {
+		return this.width;
+	}
+
+	public int getHeight() {
+		return this.height;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	//Longs per bitmap row. Bit x % 64 of long y * wordsPerRow() + x / 64 is pixel (x, y).
+	public int wordsPerRow() {
+		return (this.width + 63) >>> 6;
+	}
+
+	public static boolean isSet(long[] bitmap, int wordsPerRow, int x, int y) {
+		return (bitmap[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+	}
+
+	//Reads the shape's current position. Later moves are not seen until it is added again.
+	public void add(Shape shape) {
+		if (shape instanceof Circle) {
+			Circle cir = (Circle) shape;
+			addCircle(cir.position[0], cir.position[1], cir.radius);
+		} else if (shape instanceof Rectangle) {
+			Rectangle rect = (Rectangle) shape;
+			addRectangle(rect.x, rect.y, rect.length, rect.width);
+		} else if (shape instanceof ConcurrentCircle) {
+			ConcurrentCircle cir = (ConcurrentCircle) shape;
+			addCircle(cir.position.getX(), cir.position.getY(), cir.radius);
+		} else if (shape instanceof ConcurrentRectangle) {
+			ConcurrentRectangle rect = (ConcurrentRectangle) shape;
+			addRectangle(rect.position.getX(), rect.position.getY(), rect.length, rect.width);
+		} else {
+			throw new IllegalArgumentException("Only circles and rectangles have a position: " + shape);
+		}
+	}
+
+	public void addAll(Iterable<? extends Shape> shapes) {
+		for (Shape shape : shapes) {
+			add(shape);
+		}
+	}
+
+	//Reads the columns directly, without making a Shape per entry.
+	public void addAll(ShapeBuffer buffer) {
+		for (int i = 0; i < buffer.size; i++) {
+			switch (buffer.kinds[i]) {
+				case ShapeBuffer.CIRCLE:
+					addCircle(buffer.x[i], buffer.y[i], buffer.dim1[i]);
+					break;
+				case ShapeBuffer.RECTANGLE:
+					addRectangle(buffer.x[i], buffer.y[i], buffer.dim1[i], buffer.dim2[i]);
+					break;
+				default:
+					throw new IllegalArgumentException("Only circles and rectangles have a position: entry " + i);
+			}
+		}
+	}
+
+	public void addCircle(double x, double y, double radius) {
+		double r = Math.abs(radius);
+		int i = grow();
+		this.kinds[i] = CIRCLE;
+		this.a[i] = x;
+		this.b[i] = y;
+		this.c[i] = r;
+		setBounds(i, x - r, y - r, x + r, y + r);
+	}
+
+	public void addRectangle(double x, double y, double length, double width) {
+		double x0 = Math.min(x, x + length);
+		double y0 = Math.min(y, y + width);
+		double x1 = Math.max(x, x + length);
+		double y1 = Math.max(y, y + width);
+		int i = grow();
+		this.kinds[i] = RECTANGLE;
+		this.a[i] = x0;
+		this.b[i] = y0;
+		this.c[i] = x1;
+		this.d[i] = y1;
+		setBounds(i, x0, y0, x1, y1);
+	}
+
+	int grow() {
+		if (this.size == this.kinds.length) {
+			int capacity = this.size * 2;
+			this.kinds = Arrays.copyOf(this.kinds, capacity);
+			this.a = Arrays.copyOf(this.a, capacity);
+			this.b = Arrays.copyOf(this.b, capacity);
+			this.c = Arrays.copyOf(this.c, capacity);
+			this.d = Arrays.copyOf(this.d, capacity);
+			this.minX = Arrays.copyOf(this.minX, capacity);
+			this.maxX = Arrays.copyOf(this.maxX, capacity);
+			this.minY = Arrays.copyOf(this.minY, capacity);
+			this.maxY = Arrays.copyOf(this.maxY, capacity);
+		}
+		return this.size++;
+	}
+
+	//Pixels whose centres fall inside [x0, x1] x [y0, y1], clipped to the canvas.
+	void setBounds(int i, double x0, double y0, double x1, double y1) {
+		this.minX[i] = (int) Math.max(0, Math.ceil(x0 - 0.5));
+		this.maxX[i] = (int) Math.min(this.width - 1, Math.floor(x1 - 0.5));
+		this.minY[i] = (int) Math.max(0, Math.ceil(y0 - 0.5));
+		this.maxY[i] = (int) Math.min(this.height - 1, Math.floor(y1 - 0.5));
+		if (this.minY[i] > this.maxY[i]) {
+			this.minX[i] = 1;
+			this.maxX[i] = 0;
+		}
+	}
+
+	public void clear() {
+		this.size = 0;
+	}
+
+	//One bit per pixel, set where any shape covers it. See wordsPerRow() for the layout.
+	public long[] occupancy() {
+		long[] bitmap = new long[this.height * wordsPerRow()];
+		draw(bitmap, null);
+		return bitmap;
+	}
+
+	//How many shapes cover each pixel, row by row: pixel (x, y) is at y * width + x.
+	public int[] coverage() {
+		int[] counts = new int[this.height * this.width];
+		draw(null, counts);
+		return counts;
+	}
+
+	void draw(long[] bitmap, int[] counts) {
+		int tiles = this.tilesX * this.tilesY;
+		//counting sort of shape indexes by tile, in two passes over the bounds
+		int[] start = new int[tiles + 1];
+		for (int i = 0; i < this.size; i++) {
+			if (this.minX[i] > this.maxX[i]) {
+				continue;
+			}
+			int tx1 = this.maxX[i] / TILE;
+			int ty1 = this.maxY[i] / TILE;
+			for (int ty = this.minY[i] / TILE; ty <= ty1; ty++) {
+				for (int tx = this.minX[i] / TILE; tx <= tx1; tx++) {
+					start[ty * this.tilesX + tx + 1]++;
+				}
+			}
+		}
+		for (int t = 0; t < tiles; t++) {
+			start[t + 1] += start[t];
+		}
+		int[] binned = new int[start[tiles]];
+		int[] next = Arrays.copyOf(start, tiles);
+		for (int i = 0; i < this.size; i++) {
+			if (this.minX[i] > this.maxX[i]) {
+				continue;
+			}
+			int tx1 = this.maxX[i] / TILE;
+			int ty1 = this.maxY[i] / TILE;
+			for (int ty = this.minY[i] / TILE; ty <= ty1; ty++) {
+				for (int tx = this.minX[i] / TILE; tx <= tx1; tx++) {
+					binned[next[ty * this.tilesX + tx]++] = i;
+				}
+			}
+		}
+		ForkJoinPool.commonPool().invoke(new TileTask(bitmap, counts, binned, start, 0, tiles));
+	}
+
+	class TileTask extends RecursiveAction {
+
+		final long[] bitmap;
+		final int[] counts;
+		final int[] binned;
+		final int[] start;
+		final int from;
+		final int to;
+
+		TileTask(long[] bitmap, int[] counts, int[] binned, int[] start, int from, int to) {
+			this.bitmap = bitmap;
+			this.counts = counts;
+			this.binned = binned;
+			this.start = start;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= THRESHOLD) {
+				for (int t = this.from; t < this.to; t++) {
+					drawTile(t);
+				}
+				return;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new TileTask(this.bitmap, this.counts, this.binned, this.start, this.from, mid),
+					new TileTask(this.bitmap, this.counts, this.binned, this.start, mid, this.to));
+		}
+
+		void drawTile(int tile) {
+			int tileX0 = (tile % tilesX) * TILE;
+			int tileY0 = (tile / tilesX) * TILE;
+			int tileX1 = Math.min(tileX0 + TILE, width) - 1;
+			int tileY1 = Math.min(tileY0 + TILE, height) - 1;
+			for (int k = this.start[tile]; k < this.start[tile + 1]; k++) {
+				int i = this.binned[k];
+				int x0 = Math.max(minX[i], tileX0);
+				int x1 = Math.min(maxX[i], tileX1);
+				int y0 = Math.max(minY[i], tileY0);
+				int y1 = Math.min(maxY[i], tileY1);
+				if (kinds[i] == RECTANGLE) {
+					for (int y = y0; y <= y1; y++) {
+						span(y, x0, x1);
+					}
+					continue;
+				}
+				double cx = a[i];
+				double cy = b[i];
+				double r2 = c[i] * c[i];
+				for (int y = y0; y <= y1; y++) {
+					double dy = y + 0.5 - cy;
+					double rest = r2 - dy * dy;
+					if (rest < 0) {
+						continue;
+					}
+					double half = Math.sqrt(rest);
+					int from = (int) Math.max(x0, Math.ceil(cx - half - 0.5));
+					int to = (int) Math.min(x1, Math.floor(cx + half - 0.5));
+					if (from <= to) {
+						span(y, from, to);
+					}
+				}
+			}
+		}
+
+		//Covers pixels x0 to x1 inclusive on row y.
+		void span(int y, int x0, int x1) {
+			if (this.counts != null) {
+				int row = y * width;
+				for (int x = x0; x <= x1; x++) {
+					this.counts[row + x]++;
+				}
+				return;
+			}
+			int row = y * wordsPerRow();
+			int w0 = x0 >>> 6;
+			int w1 = x1 >>> 6;
+			long first = -1L << x0;
+			long last = -1L >>> (63 - (x1 & 63));
+			if (w0 == w1) {
+				this.bitmap[row + w0] |= first & last;
+				return;
+			}
+			this.bitmap[row + w0] |= first;
+			for (int w = w0 + 1; w < w1; w++) {
+				this.bitmap[row + w] = -1L;
+			}
+			this.bitmap[row + w1] |= last;
+		}
+	}
+
+}
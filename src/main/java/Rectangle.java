@@ -2,6 +2,8 @@ class Rectangle implements Shape, Transformable {
 
 	int x = 0;
 	int y = 0;
+	MoveListener listener; //null until something wants to hear about moves
+	ResizeListener resizeListener;
 
 	public double length;
 	public double width;
@@ -11,6 +13,17 @@ class Rectangle implements Shape, Transformable {
 		this.width = width;
 	}
 
+	//Writing the fields directly still works, but only the setters tell listeners.
+	public void setLength(double length) {
+		this.length = length;
+		resized();
+	}
+
+	public void setWidth(double width) {
+		this.width = width;
+		resized();
+	}
+
 	//Shape methods we need to implement
 	@Override
 	public double getArea() {
@@ -24,22 +37,58 @@ class Rectangle implements Shape, Transformable {
 	public String toString() {
 		return "Rectangle: " + this.length + " by " + this.width;
 	}
+	@Override
+	public void appendTo(StringBuilder out) {
+		out.append("Rectangle: ").append(this.length).append(" by ").append(this.width);
+	}
 
 	//Transformable methods we need to implement
 	@Override
 	public void up() {
 		y += 1;
+		moved(0, 1);
 	}
 	@Override
 	public void down() {
 		y -= 1;
+		moved(0, -1);
 	}
 	@Override
 	public void left() {
 		x -= 1;
+		moved(-1, 0);
 	}
 	@Override
 	public void right() {
 		x += 1;
+		moved(1, 0);
+	}
+
+	public void addMoveListener(MoveListener listener) {
+		this.listener = MoveListeners.add(this.listener, listener);
+	}
+
+	public void removeMoveListener(MoveListener listener) {
+		this.listener = MoveListeners.remove(this.listener, listener);
+	}
+
+	void moved(int dx, int dy) {
+		if (this.listener != null) {
+			this.listener.moved(this, dx, dy);
+		}
+	}
+
+	public void addResizeListener(ResizeListener listener) {
+		this.resizeListener = ResizeListeners.add(this.resizeListener, listener);
+	}
+
+	public void removeResizeListener(ResizeListener listener) {
+		this.resizeListener = ResizeListeners.remove(this.resizeListener, listener);
+	}
+
+	void resized() {
+		if (this.resizeListener != null) {
+			this.resizeListener.resized(this);
+		}
 	}
 }
\ No newline at end of file
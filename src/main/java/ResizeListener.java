@@ -0,0 +1,6 @@
+interface ResizeListener {
+
+	//Called after a setter has changed one of the shape's dimensions.
+	public void resized(Shape shape);
+
+}
@@ -0,0 +1,48 @@
+class ResizeListeners {//chains resize listeners together so each shape only needs one listener field
+
+	//Returns a listener that calls both a and b. Either may be null.
+	static ResizeListener add(ResizeListener a, ResizeListener b) {
+		return ListenerChain.add(a, b, Pair::new);
+	}
+
+	//Returns the chain a with the first occurrence of b removed.
+	static ResizeListener remove(ResizeListener a, ResizeListener b) {
+		return ListenerChain.remove(a, b, Pair::new);
+	}
+
+	static void addResizeListener(Shape shape, ResizeListener listener) {
+		if (shape instanceof Circle) {
+			((Circle) shape).addResizeListener(listener);
+		} else if (shape instanceof Rectangle) {
+			((Rectangle) shape).addResizeListener(listener);
+		} else if (shape instanceof Triangle) {
+			((Triangle) shape).addResizeListener(listener);
+		} else {
+			throw new IllegalArgumentException("Shape cannot be resized: " + shape);
+		}
+	}
+
+	static void removeResizeListener(Shape shape, ResizeListener listener) {
+		if (shape instanceof Circle) {
+			((Circle) shape).removeResizeListener(listener);
+		} else if (shape instanceof Rectangle) {
+			((Rectangle) shape).removeResizeListener(listener);
+		} else if (shape instanceof Triangle) {
+			((Triangle) shape).removeResizeListener(listener);
+		}
+	}
+
+	static class Pair extends ListenerChain.Pair<ResizeListener> implements ResizeListener {
+
+		Pair(ResizeListener first, ResizeListener second) {
+			super(first, second);
+		}
+
+		@Override
+		public void resized(Shape shape) {
+			this.first.resized(shape);
+			this.second.resized(shape);
+		}
+	}
+
+}
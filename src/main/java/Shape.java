@@ -14,5 +14,8 @@ interface Shape {
 	public double getPerimeter();
 
 	public String toString();
+
+	//Writes the same text as toString() without building a new String.
+	public void appendTo(StringBuilder out);
 	
 }
\ No newline at end of file
@@ -0,0 +1,319 @@
+import java.util.Arrays;
+
+class ShapeBuffer {//stores shapes as parallel primitive columns instead of one object per shape
+
+	public static final byte CIRCLE = 0;
+	public static final byte RECTANGLE = 1;
+	public static final byte TRIANGLE = 2;
+
+	//one entry per shape in every column
+	//dim1 is radius, length or base. dim2 is width or height (0 for circles).
+	byte[] kinds;
+	double[] dim1;
+	double[] dim2;
+	//positions, used by Circle and Rectangle rows (always 0, 0 for triangles)
+	int[] x;
+	int[] y;
+	int size = 0;
+
+	public ShapeBuffer() {
+		this(16);
+	}
+
+	public ShapeBuffer(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.kinds = new byte[capacity];
+		this.dim1 = new double[capacity];
+		this.dim2 = new double[capacity];
+		this.x = new int[capacity];
+		this.y = new int[capacity];
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	//Ingest an existing Shape. Returns the index it was stored at.
+	public int add(Shape shape) {
+		if (shape instanceof Circle) {
+			Circle cir = (Circle) shape;
+			int i = addCircle(cir.radius);
+			setPosition(i, cir.position[0], cir.position[1]);
+			return i;
+		}
+		if (shape instanceof Rectangle) {
+			Rectangle rect = (Rectangle) shape;
+			int i = addRectangle(rect.length, rect.width);
+			setPosition(i, rect.x, rect.y);
+			return i;
+		}
+		if (shape instanceof Triangle) {
+			Triangle tri = (Triangle) shape;
+			return addTriangle(tri.base, tri.height);
+		}
+		if (shape instanceof ConcurrentCircle) {
+			ConcurrentCircle cir = (ConcurrentCircle) shape;
+			long position = cir.position.get(); //x and y from the same instant
+			int i = addCircle(cir.radius);
+			setPosition(i, AtomicPosition.unpackX(position), AtomicPosition.unpackY(position));
+			return i;
+		}
+		if (shape instanceof ConcurrentRectangle) {
+			ConcurrentRectangle rect = (ConcurrentRectangle) shape;
+			long position = rect.position.get();
+			int i = addRectangle(rect.length, rect.width);
+			setPosition(i, AtomicPosition.unpackX(position), AtomicPosition.unpackY(position));
+			return i;
+		}
+		if (shape instanceof ImmutableCircle) {
+			return addCircle(((ImmutableCircle) shape).radius);
+		}
+		if (shape instanceof ImmutableRectangle) {
+			ImmutableRectangle rect = (ImmutableRectangle) shape;
+			return addRectangle(rect.length, rect.width);
+		}
+		if (shape instanceof ImmutableTriangle) {
+			ImmutableTriangle tri = (ImmutableTriangle) shape;
+			return addTriangle(tri.base, tri.height);
+		}
+		if (shape instanceof CachedShape) {
+			return add(((CachedShape) shape).shape);
+		}
+		if (shape instanceof InstrumentedShape) {
+			return add(((InstrumentedShape) shape).shape);
+		}
+		if (shape instanceof View) {
+			View view = (View) shape;
+			int i = add(view.buffer.kinds[view.index], view.buffer.dim1[view.index], view.buffer.dim2[view.index]);
+			setPosition(i, view.buffer.x[view.index], view.buffer.y[view.index]);
+			return i;
+		}
+		throw new IllegalArgumentException("Unsupported shape: " + shape);
+	}
+
+	public void addAll(Iterable<? extends Shape> shapes) {
+		for (Shape shape : shapes) {
+			add(shape);
+		}
+	}
+
+	public int addCircle(double radius) {
+		return add(CIRCLE, radius, 0);
+	}
+
+	public int addRectangle(double length, double width) {
+		return add(RECTANGLE, length, width);
+	}
+
+	public int addTriangle(double base, double height) {
+		return add(TRIANGLE, base, height);
+	}
+
+	int add(byte kind, double d1, double d2) {
+		if (this.size == this.kinds.length) {
+			grow();
+		}
+		int i = this.size++;
+		this.kinds[i] = kind;
+		this.dim1[i] = d1;
+		this.dim2[i] = d2;
+		this.x[i] = 0;
+		this.y[i] = 0;
+		return i;
+	}
+
+	void grow() {
+		int capacity = this.kinds.length * 2;
+		this.kinds = Arrays.copyOf(this.kinds, capacity);
+		this.dim1 = Arrays.copyOf(this.dim1, capacity);
+		this.dim2 = Arrays.copyOf(this.dim2, capacity);
+		this.x = Arrays.copyOf(this.x, capacity);
+		this.y = Arrays.copyOf(this.y, capacity);
+	}
+
+	public byte getKind(int index) {
+		checkIndex(index);
+		return this.kinds[index];
+	}
+
+	public int getX(int index) {
+		checkIndex(index);
+		return this.x[index];
+	}
+
+	public int getY(int index) {
+		checkIndex(index);
+		return this.y[index];
+	}
+
+	public void setPosition(int index, int x, int y) {
+		checkIndex(index);
+		this.x[index] = x;
+		this.y[index] = y;
+	}
+
+	//Same formulas as Circle, Rectangle and Triangle so results match exactly.
+	static double area(byte kind, double d1, double d2) {
+		switch (kind) {
+			case CIRCLE:
+				return d1 * d1 * Math.PI;
+			case RECTANGLE:
+				return d1 * d2;
+			default:
+				return d1 * d2 / 2;
+		}
+	}
+
+	static double perimeter(byte kind, double d1, double d2) {
+		switch (kind) {
+			case CIRCLE:
+				return d1*2*Math.PI;
+			case RECTANGLE:
+				return d1 * 2 + d2 * 2;
+			default:
+				return 0; //unknown at the moment, same as Triangle
+		}
+	}
+
+	public double getArea(int index) {
+		checkIndex(index);
+		return area(this.kinds[index], this.dim1[index], this.dim2[index]);
+	}
+
+	public double getPerimeter(int index) {
+		checkIndex(index);
+		return perimeter(this.kinds[index], this.dim1[index], this.dim2[index]);
+	}
+
+	//Bulk versions over the range [from, to).
+	public double getArea(int from, int to) {
+		checkRange(from, to);
+		double total = 0;
+		for (int i = from; i < to; i++) {
+			total += area(this.kinds[i], this.dim1[i], this.dim2[i]);
+		}
+		return total;
+	}
+
+	public double getPerimeter(int from, int to) {
+		checkRange(from, to);
+		double total = 0;
+		for (int i = from; i < to; i++) {
+			total += perimeter(this.kinds[i], this.dim1[i], this.dim2[i]);
+		}
+		return total;
+	}
+
+	//Writes the area of every shape in [from, to) into out, starting at out[offset].
+	public void areas(int from, int to, double[] out, int offset) {
+		checkRange(from, to);
+		for (int i = from; i < to; i++) {
+			out[offset++] = area(this.kinds[i], this.dim1[i], this.dim2[i]);
+		}
+	}
+
+	public void perimeters(int from, int to, double[] out, int offset) {
+		checkRange(from, to);
+		for (int i = from; i < to; i++) {
+			out[offset++] = perimeter(this.kinds[i], this.dim1[i], this.dim2[i]);
+		}
+	}
+
+	//Returns a flyweight view of the shape at index. No data is copied.
+	public Shape get(int index) {
+		checkIndex(index);
+		return new View(this, index);
+	}
+
+	//Builds a real Circle, Rectangle or Triangle from the stored columns.
+	public Shape toShape(int index) {
+		checkIndex(index);
+		switch (this.kinds[index]) {
+			case CIRCLE:
+				Circle cir = new Circle(this.dim1[index]);
+				cir.position[0] = this.x[index];
+				cir.position[1] = this.y[index];
+				return cir;
+			case RECTANGLE:
+				Rectangle rect = new Rectangle(this.dim1[index], this.dim2[index]);
+				rect.x = this.x[index];
+				rect.y = this.y[index];
+				return rect;
+			default:
+				return new Triangle(this.dim1[index], this.dim2[index]);
+		}
+	}
+
+	public void clear() {
+		this.size = 0;
+	}
+
+	void checkIndex(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+
+	void checkRange(int from, int to) {
+		if (from < 0 || to > this.size || from > to) {
+			throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), Size: " + this.size);
+		}
+	}
+
+	static String format(byte kind, double d1, double d2) {
+		StringBuilder out = new StringBuilder(32);
+		appendTo(out, kind, d1, d2);
+		return out.toString();
+	}
+
+	static void appendTo(StringBuilder out, byte kind, double d1, double d2) {
+		switch (kind) {
+			case CIRCLE:
+				out.append("Circle: ").append(d1);
+				break;
+			case RECTANGLE:
+				out.append("Rectangle: ").append(d1).append(" by ").append(d2);
+				break;
+			default:
+				out.append("Triangle: ").append(d1).append(" by ").append(d2);
+				break;
+		}
+	}
+
+	public void appendTo(int index, StringBuilder out) {
+		checkIndex(index);
+		appendTo(out, this.kinds[index], this.dim1[index], this.dim2[index]);
+	}
+
+	static class View implements Shape {//read-only window onto one row of a ShapeBuffer
+
+		final ShapeBuffer buffer;
+		final int index;
+
+		View(ShapeBuffer buffer, int index) {
+			this.buffer = buffer;
+			this.index = index;
+		}
+
+		@Override
+		public double getArea() {
+			return this.buffer.getArea(this.index);
+		}
+
+		@Override
+		public double getPerimeter() {
+			return this.buffer.getPerimeter(this.index);
+		}
+
+		@Override
+		public String toString() {
+			return format(this.buffer.kinds[this.index], this.buffer.dim1[this.index], this.buffer.dim2[this.index]);
+		}
+
+		@Override
+		public void appendTo(StringBuilder out) {
+			this.buffer.appendTo(this.index, out);
+		}
+	}
+
+}
@@ -0,0 +1,296 @@
+import java.util.Arrays;
+
+class ShapeIndex {//counts distinct shapes by kind and dimensions in an open addressing table, without key objects
+
+	//Two shapes are the same when they have the same kind (see ShapeBuffer) and
+	//bit for bit the same dimensions, like keys made from toString(), so an
+	//ImmutableCircle and a Circle of the same radius match. Positions are ignored.
+	//Every NaN counts as the same value, 0.0 and -0.0 as different ones.
+	//
+	//Distinct shapes are stored once, in columns indexed by an entry number that
+	//stays fixed. The table only holds entry numbers plus one (0 is empty) and is
+	//probed linearly, kept at most half full.
+
+	byte[] kinds = new byte[16];
+	long[] dim1 = new long[16];
+	long[] dim2 = new long[16];
+	int[] counts = new int[16];
+	//the canonical Circle, Rectangle or Triangle of an entry, made or picked by intern()
+	Shape[] canonical = new Shape[16];
+	int size = 0;
+	long total = 0;
+
+	int[] table = new int[32];
+	int mask = 31;
+
+	//Number of distinct shapes seen.
+	public int distinct() {
+		return this.size;
+	}
+
+	//Number of shapes added, duplicates included.
+	public long total() {
+		return this.total;
+	}
+
+	static byte kindOf(Shape shape) {
+		if (shape instanceof Circle || shape instanceof ImmutableCircle || shape instanceof ConcurrentCircle) {
+			return ShapeBuffer.CIRCLE;
+		}
+		if (shape instanceof Rectangle || shape instanceof ImmutableRectangle || shape instanceof ConcurrentRectangle) {
+			return ShapeBuffer.RECTANGLE;
+		}
+		if (shape instanceof Triangle || shape instanceof ImmutableTriangle) {
+			return ShapeBuffer.TRIANGLE;
+		}
+		throw new IllegalArgumentException("Unsupported shape: " + shape);
+	}
+
+	static double dim1(Shape shape) {
+		if (shape instanceof Circle) {
+			return ((Circle) shape).radius;
+		}
+		if (shape instanceof Rectangle) {
+			return ((Rectangle) shape).length;
+		}
+		if (shape instanceof Triangle) {
+			return ((Triangle) shape).base;
+		}
+		if (shape instanceof ImmutableCircle) {
+			return ((ImmutableCircle) shape).radius;
+		}
+		if (shape instanceof ImmutableRectangle) {
+			return ((ImmutableRectangle) shape).length;
+		}
+		if (shape instanceof ImmutableTriangle) {
+			return ((ImmutableTriangle) shape).base;
+		}
+		if (shape instanceof ConcurrentCircle) {
+			return ((ConcurrentCircle) shape).radius;
+		}
+		if (shape instanceof ConcurrentRectangle) {
+			return ((ConcurrentRectangle) shape).length;
+		}
+		throw new IllegalArgumentException("Unsupported shape: " + shape);
+	}
+
+	//0 for circles.
+	static double dim2(Shape shape) {
+		if (shape instanceof Rectangle) {
+			return ((Rectangle) shape).width;
+		}
+		if (shape instanceof Triangle) {
+			return ((Triangle) shape).height;
+		}
+		if (shape instanceof ImmutableRectangle) {
+			return ((ImmutableRectangle) shape).width;
+		}
+		if (shape instanceof ImmutableTriangle) {
+			return ((ImmutableTriangle) shape).height;
+		}
+		if (shape instanceof ConcurrentRectangle) {
+			return ((ConcurrentRectangle) shape).width;
+		}
+		return 0;
+	}
+
+	static int hash(byte kind, long bits1, long bits2) {
+		long h = bits1 * 0x9E3779B97F4A7C15L + bits2;
+		h = (h ^ kind ^ (h >>> 29)) * 0xBF58476D1CE4E5B9L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	//Returns the entry of a shape, or -1 if it has not been added.
+	public int indexOf(byte kind, double dim1, double dim2) {
+		long bits1 = Double.doubleToLongBits(dim1);
+		long bits2 = Double.doubleToLongBits(dim2);
+		for (int slot = hash(kind, bits1, bits2) & this.mask; ; slot = (slot + 1) & this.mask) {
+			int entry = this.table[slot] - 1;
+			if (entry < 0) {
+				return -1;
+			}
+			if (this.dim1[entry] == bits1 && this.dim2[entry] == bits2 && this.kinds[entry] == kind) {
+				return entry;
+			}
+		}
+	}
+
+	public int indexOf(Shape shape) {
+		return indexOf(kindOf(shape), dim1(shape), dim2(shape));
+	}
+
+	public boolean contains(Shape shape) {
+		return indexOf(shape) >= 0;
+	}
+
+	//How many times the shape has been added.
+	public int count(Shape shape) {
+		int entry = indexOf(shape);
+		return entry < 0 ? 0 : this.counts[entry];
+	}
+
+	//Counts one more shape and returns its entry. The entry is new when getCount(entry) is 1.
+	public int insert(byte kind, double dim1, double dim2) {
+		if (kind < ShapeBuffer.CIRCLE || kind > ShapeBuffer.TRIANGLE) {
+			throw new IllegalArgumentException("Unknown shape kind: " + kind);
+		}
+		this.total++;
+		long bits1 = Double.doubleToLongBits(dim1);
+		long bits2 = Double.doubleToLongBits(dim2);
+		int slot = hash(kind, bits1, bits2) & this.mask;
+		for (; ; slot = (slot + 1) & this.mask) {
+			int entry = this.table[slot] - 1;
+			if (entry < 0) {
+				break;
+			}
+			if (this.dim1[entry] == bits1 && this.dim2[entry] == bits2 && this.kinds[entry] == kind) {
+				this.counts[entry]++;
+				return entry;
+			}
+		}
+		if (this.size == this.kinds.length) {
+			int capacity = this.size * 2;
+			this.kinds = Arrays.copyOf(this.kinds, capacity);
+			this.dim1 = Arrays.copyOf(this.dim1, capacity);
+			this.dim2 = Arrays.copyOf(this.dim2, capacity);
+			this.counts = Arrays.copyOf(this.counts, capacity);
+			this.canonical = Arrays.copyOf(this.canonical, capacity);
+		}
+		int entry = this.size++;
+		this.kinds[entry] = kind;
+		this.dim1[entry] = bits1;
+		this.dim2[entry] = bits2;
+		this.counts[entry] = 1;
+		this.table[slot] = entry + 1;
+		if (this.size * 2 > this.table.length) {
+			rehash(this.table.length * 2);
+		}
+		return entry;
+	}
+
+	void rehash(int capacity) {
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+		for (int entry = 0; entry < this.size; entry++) {
+			int slot = hash(this.kinds[entry], this.dim1[entry], this.dim2[entry]) & this.mask;
+			while (this.table[slot] != 0) {
+				slot = (slot + 1) & this.mask;
+			}
+			this.table[slot] = entry + 1;
+		}
+	}
+
+	//Returns true if no shape like it was added before, like Set.add().
+	public boolean add(Shape shape) {
+		int entry = insert(kindOf(shape), dim1(shape), dim2(shape));
+		return this.counts[entry] == 1;
+	}
+
+	//Returns how many of the rows were new.
+	public int addAll(ShapeBuffer buffer) {
+		int added = 0;
+		for (int i = 0; i < buffer.size; i++) {
+			int entry = insert(buffer.kinds[i], buffer.dim1[i], buffer.dim2[i]);
+			if (this.counts[entry] == 1) {
+				added++;
+			}
+		}
+		return added;
+	}
+
+	public int addAll(Iterable<? extends Shape> shapes) {
+		int added = 0;
+		for (Shape shape : shapes) {
+			if (add(shape)) {
+				added++;
+			}
+		}
+		return added;
+	}
+
+	public int getCount(int entry) {
+		checkEntry(entry);
+		return this.counts[entry];
+	}
+
+	public byte getKind(int entry) {
+		checkEntry(entry);
+		return this.kinds[entry];
+	}
+
+	public double getDim1(int entry) {
+		checkEntry(entry);
+		return Double.longBitsToDouble(this.dim1[entry]);
+	}
+
+	public double getDim2(int entry) {
+		checkEntry(entry);
+		return Double.longBitsToDouble(this.dim2[entry]);
+	}
+
+	//Flyweights: the first shape interned with these dimensions is handed back for
+	//every later one. They are shared, so callers must not resize them. Interning
+	//also counts the shape, like add().
+	public Circle intern(Circle circle) {
+		int entry = insert(ShapeBuffer.CIRCLE, circle.radius, 0);
+		if (this.canonical[entry] == null) {
+			this.canonical[entry] = circle;
+		}
+		return (Circle) this.canonical[entry];
+	}
+
+	public Rectangle intern(Rectangle rectangle) {
+		int entry = insert(ShapeBuffer.RECTANGLE, rectangle.length, rectangle.width);
+		if (this.canonical[entry] == null) {
+			this.canonical[entry] = rectangle;
+		}
+		return (Rectangle) this.canonical[entry];
+	}
+
+	public Triangle intern(Triangle triangle) {
+		int entry = insert(ShapeBuffer.TRIANGLE, triangle.base, triangle.height);
+		if (this.canonical[entry] == null) {
+			this.canonical[entry] = triangle;
+		}
+		return (Triangle) this.canonical[entry];
+	}
+
+	//Same as intern(new Circle(radius)), but only makes a Circle the first time.
+	public Circle circle(double radius) {
+		int entry = insert(ShapeBuffer.CIRCLE, radius, 0);
+		if (this.canonical[entry] == null) {
+			this.canonical[entry] = new Circle(radius);
+		}
+		return (Circle) this.canonical[entry];
+	}
+
+	public Rectangle rectangle(double length, double width) {
+		int entry = insert(ShapeBuffer.RECTANGLE, length, width);
+		if (this.canonical[entry] == null) {
+			this.canonical[entry] = new Rectangle(length, width);
+		}
+		return (Rectangle) this.canonical[entry];
+	}
+
+	public Triangle triangle(double base, double height) {
+		int entry = insert(ShapeBuffer.TRIANGLE, base, height);
+		if (this.canonical[entry] == null) {
+			this.canonical[entry] = new Triangle(base, height);
+		}
+		return (Triangle) this.canonical[entry];
+	}
+
+	public void clear() {
+		Arrays.fill(this.canonical, 0, this.size, null);
+		Arrays.fill(this.table, 0);
+		this.size = 0;
+		this.total = 0;
+	}
+
+	void checkEntry(int entry) {
+		if (entry < 0 || entry >= this.size) {
+			throw new IndexOutOfBoundsException("Entry: " + entry + ", distinct: " + this.size);
+		}
+	}
+
+}
@@ -0,0 +1,285 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+class ShapeRanking {//largest shapes by area or perimeter, worked out over a double[] instead of a Comparator
+
+	//Every method works on indexes: into the double[], the collection's iteration
+	//order or the ShapeBuffer rows. Each area or perimeter is computed once.
+	//Largest comes first. Equal values keep their index order and NaN ranks last.
+	//
+	//Values are turned into longs that sort the same way, so comparing them never
+	//needs Double.compare. top() keeps a bounded min-heap per fork/join chunk and
+	//merges the heaps. order() is a stable LSD radix sort and needs about
+	//24 bytes per value while it runs.
+
+	//Chunks smaller than this are scanned with one heap instead of being split again.
+	//Every chunk starts with an empty heap and fills it with about k * ln(chunk / k)
+	//replacements, so top() splits no further than a few chunks per worker thread.
+	static final int THRESHOLD = 1 << 16;
+
+	//6 passes of 11 bits: 2048 buckets keep the scatter writes inside the cache
+	static final int RADIX_BITS = 11;
+	static final int RADIX_MASK = (1 << RADIX_BITS) - 1;
+
+	public static double[] areas(Collection<? extends Shape> shapes) {
+		double[] areas = new double[shapes.size()];
+		int i = 0;
+		for (Shape shape : shapes) {
+			areas[i++] = shape.getArea();
+		}
+		return areas;
+	}
+
+	public static double[] perimeters(Collection<? extends Shape> shapes) {
+		double[] perimeters = new double[shapes.size()];
+		int i = 0;
+		for (Shape shape : shapes) {
+			perimeters[i++] = shape.getPerimeter();
+		}
+		return perimeters;
+	}
+
+	public static double[] areas(ShapeBuffer buffer) {
+		double[] areas = new double[buffer.size()];
+		buffer.areas(0, areas.length, areas, 0);
+		return areas;
+	}
+
+	public static double[] perimeters(ShapeBuffer buffer) {
+		double[] perimeters = new double[buffer.size()];
+		buffer.perimeters(0, perimeters.length, perimeters, 0);
+		return perimeters;
+	}
+
+	public static int[] topByArea(Collection<? extends Shape> shapes, int k) {
+		return top(areas(shapes), k);
+	}
+
+	public static int[] topByPerimeter(Collection<? extends Shape> shapes, int k) {
+		return top(perimeters(shapes), k);
+	}
+
+	public static int[] topByArea(ShapeBuffer buffer, int k) {
+		return top(areas(buffer), k);
+	}
+
+	public static int[] topByPerimeter(ShapeBuffer buffer, int k) {
+		return top(perimeters(buffer), k);
+	}
+
+	public static int[] sortByArea(Collection<? extends Shape> shapes) {
+		return order(areas(shapes));
+	}
+
+	public static int[] sortByPerimeter(Collection<? extends Shape> shapes) {
+		return order(perimeters(shapes));
+	}
+
+	public static int[] sortByArea(ShapeBuffer buffer) {
+		return order(areas(buffer));
+	}
+
+	public static int[] sortByPerimeter(ShapeBuffer buffer) {
+		return order(perimeters(buffer));
+	}
+
+	//The shapes at the given indexes, in that order.
+	public static <S extends Shape> List<S> select(List<S> shapes, int[] indexes) {
+		List<S> selected = new ArrayList<S>(indexes.length);
+		for (int index : indexes) {
+			selected.add(shapes.get(index));
+		}
+		return selected;
+	}
+
+	//Larger values give larger longs, NaN gives the smallest.
+	static long key(double value) {
+		if (value != value) {
+			return Long.MIN_VALUE;
+		}
+		long bits = Double.doubleToRawLongBits(value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	//Indexes of the k largest values, largest first.
+	public static int[] top(double[] values, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+		k = Math.min(k, values.length);
+		if (k == 0) {
+			return new int[0];
+		}
+		int chunk = Math.max(THRESHOLD, values.length / (4 * ForkJoinPool.getCommonPoolParallelism()));
+		Heap heap = ForkJoinPool.commonPool().invoke(new TopTask(values, 0, values.length, k, chunk));
+		return heap.drain();
+	}
+
+	//Every index, largest value first.
+	public static int[] order(double[] values) {
+		int n = values.length;
+		long[] keys = new long[n];
+		int[] indexes = new int[n];
+		for (int i = 0; i < n; i++) {
+			//inverted for largest first, sign bit flipped so the digits sort unsigned
+			keys[i] = ~key(values[i]) ^ Long.MIN_VALUE;
+			indexes[i] = i;
+		}
+		long[] keysTo = new long[n];
+		int[] indexesTo = new int[n];
+		int[] counts = new int[1 << RADIX_BITS];
+		for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < n; i++) {
+				counts[(int) (keys[i] >>> shift) & RADIX_MASK]++;
+			}
+			if (n > 0 && counts[(int) (keys[0] >>> shift) & RADIX_MASK] == n) {
+				continue; //every key has the same digit here
+			}
+			int sum = 0;
+			for (int d = 0; d < counts.length; d++) {
+				int count = counts[d];
+				counts[d] = sum;
+				sum += count;
+			}
+			for (int i = 0; i < n; i++) {
+				int to = counts[(int) (keys[i] >>> shift) & RADIX_MASK]++;
+				keysTo[to] = keys[i];
+				indexesTo[to] = indexes[i];
+			}
+			long[] swapKeys = keys;
+			keys = keysTo;
+			keysTo = swapKeys;
+			int[] swapIndexes = indexes;
+			indexes = indexesTo;
+			indexesTo = swapIndexes;
+		}
+		return indexes;
+	}
+
+	static class Heap {//the best k (key, index) pairs so far, worst at the root
+
+		final long[] keys;
+		final int[] indexes;
+		int size = 0;
+
+		Heap(int k) {
+			this.keys = new long[k];
+			this.indexes = new int[k];
+		}
+
+		//a is worse than b: smaller key, or the same key and a later index
+		static boolean worse(long keyA, int indexA, long keyB, int indexB) {
+			return keyA < keyB || (keyA == keyB && indexA > indexB);
+		}
+
+		void offer(long key, int index) {
+			if (this.size < this.keys.length) {
+				int i = this.size++;
+				while (i > 0) {
+					int parent = (i - 1) >>> 1;
+					if (!worse(key, index, this.keys[parent], this.indexes[parent])) {
+						break;
+					}
+					this.keys[i] = this.keys[parent];
+					this.indexes[i] = this.indexes[parent];
+					i = parent;
+				}
+				this.keys[i] = key;
+				this.indexes[i] = index;
+			} else if (worse(this.keys[0], this.indexes[0], key, index)) {
+				siftDown(key, index, this.size);
+			}
+		}
+
+		//Puts (key, index) at the root and moves it down within the first size slots.
+		void siftDown(long key, int index, int size) {
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && worse(this.keys[child + 1], this.indexes[child + 1], this.keys[child], this.indexes[child])) {
+					child++;
+				}
+				if (!worse(this.keys[child], this.indexes[child], key, index)) {
+					break;
+				}
+				this.keys[i] = this.keys[child];
+				this.indexes[i] = this.indexes[child];
+				i = child;
+			}
+			this.keys[i] = key;
+			this.indexes[i] = index;
+		}
+
+		Heap merge(Heap other) {
+			for (int i = 0; i < other.size; i++) {
+				offer(other.keys[i], other.indexes[i]);
+			}
+			return this;
+		}
+
+		//Empties the heap, best first.
+		int[] drain() {
+			int[] result = new int[this.size];
+			for (int n = this.size; n > 0; n--) {
+				result[n - 1] = this.indexes[0];
+				siftDown(this.keys[n - 1], this.indexes[n - 1], n - 1);
+			}
+			this.size = 0;
+			return result;
+		}
+	}
+
+	static class TopTask extends RecursiveTask<Heap> {
+
+		final double[] values;
+		final int from;
+		final int to;
+		final int k;
+		final int chunk;
+
+		TopTask(double[] values, int from, int to, int k, int chunk) {
+			this.values = values;
+			this.from = from;
+			this.to = to;
+			this.k = k;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected Heap compute() {
+			if (this.to - this.from <= this.chunk) {
+				Heap heap = new Heap(this.k);
+				double[] values = this.values;
+				int i = this.from;
+				for (; i < this.to && heap.size < this.k; i++) {
+					heap.offer(key(values[i]), i);
+				}
+				//indexes only grow from here, so a key equal to the root's is already worse
+				long worst = heap.keys[0];
+				for (; i < this.to; i++) {
+					long key = key(values[i]);
+					if (key > worst) {
+						heap.siftDown(key, i, this.k);
+						worst = heap.keys[0];
+					}
+				}
+				return heap;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			TopTask left = new TopTask(this.values, this.from, mid, this.k, this.chunk);
+			TopTask right = new TopTask(this.values, mid, this.to, this.k, this.chunk);
+			left.fork();
+			Heap rightHeap = right.compute();
+			return left.join().merge(rightHeap);
+		}
+	}
+
+}
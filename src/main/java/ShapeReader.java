@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class ShapeReader {//streams shape records in the toString() format without allocating per line
+
+	//Receives one parsed record. dim2 is 0 for circles.
+	interface Sink {
+		public void accept(byte kind, double dim1, double dim2);
+	}
+
+	static final byte[] CIRCLE = "Circle:".getBytes(StandardCharsets.US_ASCII);
+	static final byte[] RECTANGLE = "Rectangle:".getBytes(StandardCharsets.US_ASCII);
+	static final byte[] TRIANGLE = "Triangle:".getBytes(StandardCharsets.US_ASCII);
+	static final byte[] BY = "by".getBytes(StandardCharsets.US_ASCII);
+	static final byte[] NAN = "NaN".getBytes(StandardCharsets.US_ASCII);
+	static final byte[] INFINITY = "Infinity".getBytes(StandardCharsets.US_ASCII);
+
+	//Powers of ten that a double holds exactly.
+	static final double[] POWERS = new double[23];
+	static {
+		POWERS[0] = 1;
+		for (int i = 1; i < POWERS.length; i++) {
+			POWERS[i] = POWERS[i - 1] * 10;
+		}
+	}
+
+	final ReadableByteChannel channel;
+	final ByteBuffer chunk;
+	byte[] line = new byte[256]; //grows only if a line is longer than any seen before
+	int lineLength = 0;
+	long lineNumber = 0;
+
+	//parse state for the line being read, kept in fields so nothing is allocated
+	int pos;
+	int end;
+
+	public ShapeReader(ReadableByteChannel channel) {
+		this(channel, 64 * 1024);
+	}
+
+	public ShapeReader(InputStream in) {
+		this(Channels.newChannel(in));
+	}
+
+	public ShapeReader(ReadableByteChannel channel, int bufferSize) {
+		this.channel = channel;
+		this.chunk = ByteBuffer.allocate(Math.max(bufferSize, 16));
+	}
+
+	//Reads to the end of the input. Returns how many records were passed to sink.
+	public long readAll(Sink sink) throws IOException {
+		long records = 0;
+		while (this.channel.read(this.chunk) >= 0) {
+			this.chunk.flip();
+			byte[] bytes = this.chunk.array();
+			int limit = this.chunk.limit();
+			for (int i = this.chunk.position(); i < limit; i++) {
+				byte b = bytes[i];
+				if (b == '\n') {
+					records += endLine(sink);
+				} else {
+					if (this.lineLength == this.line.length) {
+						this.line = Arrays.copyOf(this.line, this.line.length * 2);
+					}
+					this.line[this.lineLength++] = b;
+				}
+			}
+			this.chunk.clear();
+		}
+		records += endLine(sink); //last line may have no newline
+		return records;
+	}
+
+	public long readAll(ShapeBuffer buffer) throws IOException {
+		return readAll((kind, dim1, dim2) -> buffer.add(kind, dim1, dim2));
+	}
+
+	public long getLineNumber() {
+		return this.lineNumber;
+	}
+
+	int endLine(Sink sink) throws IOException {
+		this.lineNumber++;
+		this.pos = 0;
+		this.end = this.lineLength;
+		this.lineLength = 0;
+		skipSpaces();
+		if (this.pos == this.end) {
+			return 0; //blank line
+		}
+		byte kind;
+		if (match(CIRCLE)) {
+			kind = ShapeBuffer.CIRCLE;
+		} else if (match(RECTANGLE)) {
+			kind = ShapeBuffer.RECTANGLE;
+		} else if (match(TRIANGLE)) {
+			kind = ShapeBuffer.TRIANGLE;
+		} else {
+			throw error("unknown shape");
+		}
+		skipSpaces();
+		double dim1 = number();
+		double dim2 = 0;
+		if (kind != ShapeBuffer.CIRCLE) {
+			skipSpaces();
+			if (!match(BY)) {
+				throw error("expected 'by'");
+			}
+			skipSpaces();
+			dim2 = number();
+		}
+		skipSpaces();
+		if (this.pos != this.end) {
+			throw error("unexpected text after record");
+		}
+		sink.accept(kind, dim1, dim2);
+		return 1;
+	}
+
+	void skipSpaces() {
+		while (this.pos < this.end && (this.line[this.pos] == ' ' || this.line[this.pos] == '\t' || this.line[this.pos] == '\r')) {
+			this.pos++;
+		}
+	}
+
+	boolean match(byte[] word) {
+		if (this.end - this.pos < word.length) {
+			return false;
+		}
+		for (int i = 0; i < word.length; i++) {
+			if (this.line[this.pos + i] != word[i]) {
+				return false;
+			}
+		}
+		this.pos += word.length;
+		return true;
+	}
+
+	//Parses what Double.toString produces. Short decimals take the exact fast path,
+	//anything else falls back to Double.parseDouble so the result is always correctly rounded.
+	double number() throws IOException {
+		int start = this.pos;
+		boolean negative = false;
+		if (this.pos < this.end && (this.line[this.pos] == '-' || this.line[this.pos] == '+')) {
+			negative = this.line[this.pos] == '-';
+			this.pos++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean any = false;
+		while (this.pos < this.end && isDigit(this.line[this.pos])) {
+			any = true;
+			if (digits < 18) {
+				mantissa = mantissa * 10 + (this.line[this.pos] - '0');
+				if (mantissa != 0) {
+					digits++;
+				}
+			} else {
+				scale++;
+			}
+			this.pos++;
+		}
+		if (this.pos < this.end && this.line[this.pos] == '.') {
+			this.pos++;
+			while (this.pos < this.end && isDigit(this.line[this.pos])) {
+				any = true;
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (this.line[this.pos] - '0');
+					if (mantissa != 0) {
+						digits++;
+					}
+					scale--;
+				}
+				this.pos++;
+			}
+		}
+		if (!any) {
+			return special(start, negative);
+		}
+		if (this.pos < this.end && (this.line[this.pos] == 'E' || this.line[this.pos] == 'e')) {
+			this.pos++;
+			boolean negativeExponent = false;
+			if (this.pos < this.end && (this.line[this.pos] == '-' || this.line[this.pos] == '+')) {
+				negativeExponent = this.line[this.pos] == '-';
+				this.pos++;
+			}
+			int exponent = 0;
+			boolean expDigits = false;
+			while (this.pos < this.end && isDigit(this.line[this.pos])) {
+				expDigits = true;
+				exponent = Math.min(exponent * 10 + (this.line[this.pos] - '0'), 100000);
+				this.pos++;
+			}
+			if (!expDigits) {
+				throw error("bad number");
+			}
+			scale += negativeExponent ? -exponent : exponent;
+		}
+		if (digits > 15 || mantissa >= (1L << 53) || scale > 22 || scale < -22) {
+			return Double.parseDouble(new String(this.line, start, this.pos - start, StandardCharsets.US_ASCII));
+		}
+		double value = scale >= 0 ? mantissa * POWERS[scale] : mantissa / POWERS[-scale];
+		return negative ? -value : value;
+	}
+
+	//"NaN", "Infinity" and "-Infinity" are what toString() gives for those values.
+	double special(int start, boolean negative) throws IOException {
+		if (match(NAN)) {
+			return Double.NaN;
+		}
+		if (match(INFINITY)) {
+			return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		}
+		this.pos = start;
+		throw error("bad number");
+	}
+
+	static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	IOException error(String problem) {
+		return new IOException("Bad shape record on line " + this.lineNumber + ": " + problem);
+	}
+
+}
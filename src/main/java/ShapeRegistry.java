@@ -0,0 +1,246 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+class ShapeRegistry implements ResizeListener {//running area and perimeter totals that update as shapes come, go and resize
+
+	public static final int CIRCLES = 0;
+	public static final int RECTANGLES = 1;
+	public static final int TRIANGLES = 2;
+	public static final int OTHERS = 3;
+
+	//How many times recompute() retries its quiet-moment check before leaving the totals alone.
+	static final int RECOMPUTE_ATTEMPTS = 4;
+
+	//Keyed by identity, so two equal immutable shapes are two shapes, like two equal Circles.
+	final ConcurrentHashMap<Key, Contribution> shapes = new ConcurrentHashMap<Key, Contribution>();
+	final DoubleAdder[] area = new DoubleAdder[4];
+	final DoubleAdder[] perimeter = new DoubleAdder[4];
+	final LongAdder[] count = new LongAdder[4];
+	//every add, remove and resize bumps started before it touches the totals and finished after,
+	//so recompute() can tell whether the totals held still while it read them
+	final LongAdder started = new LongAdder();
+	final LongAdder finished = new LongAdder();
+
+	public ShapeRegistry() {
+		for (int kind = 0; kind < 4; kind++) {
+			this.area[kind] = new DoubleAdder();
+			this.perimeter[kind] = new DoubleAdder();
+			this.count[kind] = new LongAdder();
+		}
+	}
+
+	//Wrappers count as the kind of shape they wrap.
+	static int kindOf(Shape shape) {
+		if (shape instanceof CachedShape) {
+			return kindOf(((CachedShape) shape).shape);
+		}
+		if (shape instanceof InstrumentedShape) {
+			return kindOf(((InstrumentedShape) shape).shape);
+		}
+		if (shape instanceof Circle || shape instanceof ImmutableCircle || shape instanceof ConcurrentCircle) {
+			return CIRCLES;
+		}
+		if (shape instanceof Rectangle || shape instanceof ImmutableRectangle || shape instanceof ConcurrentRectangle) {
+			return RECTANGLES;
+		}
+		if (shape instanceof Triangle || shape instanceof ImmutableTriangle) {
+			return TRIANGLES;
+		}
+		return OTHERS;
+	}
+
+	//Returns false if the shape was already registered.
+	public boolean add(Shape shape) {
+		Contribution contribution = new Contribution(kindOf(shape));
+		//held until the totals include this shape, so a resize cannot sneak in first
+		synchronized (contribution) {
+			this.started.increment();
+			try {
+				if (this.shapes.putIfAbsent(new Key(shape), contribution) != null) {
+					return false;
+				}
+				contribution.area = shape.getArea();
+				contribution.perimeter = shape.getPerimeter();
+				this.area[contribution.kind].add(contribution.area);
+				this.perimeter[contribution.kind].add(contribution.perimeter);
+				this.count[contribution.kind].increment();
+			} finally {
+				this.finished.increment();
+			}
+		}
+		if (shape instanceof Circle || shape instanceof Rectangle || shape instanceof Triangle) {
+			ResizeListeners.addResizeListener(shape, this);
+		}
+		return true;
+	}
+
+	public boolean remove(Shape shape) {
+		this.started.increment();
+		try {
+			Contribution contribution = this.shapes.remove(new Key(shape));
+			if (contribution == null) {
+				return false;
+			}
+			synchronized (contribution) {
+				this.area[contribution.kind].add(-contribution.area);
+				this.perimeter[contribution.kind].add(-contribution.perimeter);
+				this.count[contribution.kind].decrement();
+				contribution.removed = true;
+			}
+		} finally {
+			this.finished.increment();
+		}
+		if (shape instanceof Circle || shape instanceof Rectangle || shape instanceof Triangle) {
+			ResizeListeners.removeResizeListener(shape, this);
+		}
+		return true;
+	}
+
+	//Called by the shape's setters. Only the difference is added to the totals.
+	@Override
+	public void resized(Shape shape) {
+		Contribution contribution = this.shapes.get(new Key(shape));
+		if (contribution != null) {
+			refresh(shape, contribution);
+		}
+	}
+
+	//Returns false if the shape has been removed in the meantime.
+	boolean refresh(Shape shape, Contribution contribution) {
+		synchronized (contribution) {
+			if (contribution.removed) {
+				return false;
+			}
+			double newArea = shape.getArea();
+			double newPerimeter = shape.getPerimeter();
+			if (newArea != contribution.area || newPerimeter != contribution.perimeter) {
+				this.started.increment();
+				this.area[contribution.kind].add(newArea - contribution.area);
+				this.perimeter[contribution.kind].add(newPerimeter - contribution.perimeter);
+				contribution.area = newArea;
+				contribution.perimeter = newPerimeter;
+				this.finished.increment();
+			}
+			return true;
+		}
+	}
+
+	public int size() {
+		return this.shapes.size();
+	}
+
+	public double getTotalArea() {
+		double total = 0;
+		for (DoubleAdder adder : this.area) {
+			total += adder.sum();
+		}
+		return total;
+	}
+
+	public double getTotalPerimeter() {
+		double total = 0;
+		for (DoubleAdder adder : this.perimeter) {
+			total += adder.sum();
+		}
+		return total;
+	}
+
+	//kind is one of CIRCLES, RECTANGLES, TRIANGLES or OTHERS.
+	public double getArea(int kind) {
+		return this.area[kind].sum();
+	}
+
+	public double getPerimeter(int kind) {
+		return this.perimeter[kind].sum();
+	}
+
+	public long getCount(int kind) {
+		return this.count[kind].sum();
+	}
+
+	//Drift correction. Re-reads every shape, which catches public fields written
+	//without a setter, then replaces the add/subtract rounding error built up in
+	//the totals with a fresh sum. The rounding correction is only applied when no
+	//add, remove or resize ran while the sums were taken, so it never undoes one;
+	//under constant churn it is skipped and the next run tries again.
+	//Returns whether the totals were corrected. Exact when nothing is changing at the same time
+	//and the totals have only ever been updated from one thread. Once threads have contended,
+	//each DoubleAdder spreads its total over several cells and summing those can be a few ulps
+	//away from the fresh sum.
+	public boolean recompute() {
+		for (Map.Entry<Key, Contribution> entry : this.shapes.entrySet()) {
+			refresh(entry.getKey().shape, entry.getValue());
+		}
+		for (int attempt = 0; attempt < RECOMPUTE_ATTEMPTS; attempt++) {
+			long before = this.finished.sum();
+			double[] areas = new double[4];
+			double[] perimeters = new double[4];
+			for (Contribution contribution : this.shapes.values()) {
+				synchronized (contribution) {
+					if (!contribution.removed) {
+						areas[contribution.kind] += contribution.area;
+						perimeters[contribution.kind] += contribution.perimeter;
+					}
+				}
+			}
+			double[] areaDrift = new double[4];
+			double[] perimeterDrift = new double[4];
+			for (int kind = 0; kind < 4; kind++) {
+				areaDrift[kind] = areas[kind] - this.area[kind].sum();
+				perimeterDrift[kind] = perimeters[kind] - this.perimeter[kind].sum();
+			}
+			//no update started since before was read, and none was half done then
+			if (this.started.sum() == before) {
+				//updates that land from here on add their own change on top, so the order does not matter
+				for (int kind = 0; kind < 4; kind++) {
+					this.area[kind].add(areaDrift[kind]);
+					this.perimeter[kind].add(perimeterDrift[kind]);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//Runs recompute() every period on the given executor until the future is cancelled.
+	public ScheduledFuture<?> scheduleDriftCorrection(ScheduledExecutorService executor, long period, TimeUnit unit) {
+		return executor.scheduleAtFixedRate(this::recompute, period, period, unit);
+	}
+
+	static final class Key {//a shape compared by identity, whatever its equals() says
+
+		final Shape shape;
+
+		Key(Shape shape) {
+			this.shape = shape;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.shape);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key && ((Key) other).shape == this.shape;
+		}
+	}
+
+	static class Contribution {//what one shape currently adds to the totals
+
+		final int kind;
+		double area;
+		double perimeter;
+		boolean removed = false;
+
+		Contribution(int kind) {
+			this.kind = kind;
+		}
+	}
+
+}
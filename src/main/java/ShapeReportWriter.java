@@ -0,0 +1,89 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+class ShapeReportWriter implements Flushable {//writes shapes one per line through a single reused buffer
+
+	static final int FLUSH_AT = 8192;
+
+	final Writer writer; //one of writer or bytes is null
+	final ByteBuffer bytes;
+	final StringBuilder line = new StringBuilder(FLUSH_AT + 128);
+	char[] chars = new char[FLUSH_AT + 128];
+
+	public ShapeReportWriter(Writer writer) {
+		this.writer = writer;
+		this.bytes = null;
+	}
+
+	//Writes ASCII into bytes. A BufferOverflowException means the buffered text does not fit
+	//in what is left of bytes. Nothing is written then and the text is kept, so it can go out
+	//on the next flush() once bytes has been emptied.
+	public ShapeReportWriter(ByteBuffer bytes) {
+		this.writer = null;
+		this.bytes = bytes;
+	}
+
+	public void write(Shape shape) throws IOException {
+		shape.appendTo(this.line);
+		this.line.append('\n');
+		if (this.line.length() >= FLUSH_AT) {
+			drain();
+		}
+	}
+
+	public void writeAll(Iterable<? extends Shape> shapes) throws IOException {
+		for (Shape shape : shapes) {
+			write(shape);
+		}
+	}
+
+	public void writeAll(Shape[] shapes) throws IOException {
+		for (Shape shape : shapes) {
+			write(shape);
+		}
+	}
+
+	//Formats straight from the columns, no views are created.
+	public void writeAll(ShapeBuffer buffer) throws IOException {
+		for (int i = 0; i < buffer.size(); i++) {
+			ShapeBuffer.appendTo(this.line, buffer.kinds[i], buffer.dim1[i], buffer.dim2[i]);
+			this.line.append('\n');
+			if (this.line.length() >= FLUSH_AT) {
+				drain();
+			}
+		}
+	}
+
+	void drain() throws IOException {
+		int length = this.line.length();
+		if (this.chars.length < length) {
+			this.chars = new char[length];
+		}
+		this.line.getChars(0, length, this.chars, 0);
+		if (this.writer != null) {
+			this.writer.write(this.chars, 0, length);
+		} else {
+			if (this.bytes.remaining() < length) {
+				throw new BufferOverflowException();
+			}
+			//toString() output is plain ASCII, so every char is one byte
+			for (int i = 0; i < length; i++) {
+				this.bytes.put((byte) this.chars[i]);
+			}
+		}
+		//cleared only once written, a failed write loses nothing
+		this.line.setLength(0);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+		if (this.writer != null) {
+			this.writer.flush();
+		}
+	}
+
+}
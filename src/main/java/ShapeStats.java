@@ -0,0 +1,243 @@
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+class ShapeStats {//area and perimeter statistics gathered in one parallel pass
+
+	//Ranges smaller than this are summed in a plain loop instead of being split again.
+	static final int THRESHOLD = 4096;
+
+	//Parallel sums add the values in a different order than a simple loop does,
+	//so totals can differ from a sequential loop by a few ulps per addition.
+	//A relative difference of TOLERANCE is the most callers should expect.
+	public static final double TOLERANCE = 1e-9;
+
+	long count = 0;
+	double totalArea = 0;
+	double totalPerimeter = 0;
+	double minArea = Double.POSITIVE_INFINITY;
+	double maxArea = Double.NEGATIVE_INFINITY;
+
+	//Area histogram. bins[i] counts areas in [histMin + i * width, histMin + (i + 1) * width).
+	//Areas outside [histMin, histMax) are clamped into the first or last bin.
+	final double histMin;
+	final double histMax;
+	final long[] bins;
+
+	ShapeStats(double histMin, double histMax, int binCount) {
+		this.histMin = histMin;
+		this.histMax = histMax;
+		this.bins = new long[binCount];
+	}
+
+	public static ShapeStats of(List<? extends Shape> shapes) {
+		return of(shapes, 0, 0, 0);
+	}
+
+	public static ShapeStats of(Shape[] shapes) {
+		return of(shapes, 0, 0, 0);
+	}
+
+	public static ShapeStats of(ShapeBuffer buffer) {
+		return of(buffer, 0, 0, 0);
+	}
+
+	public static ShapeStats of(List<? extends Shape> shapes, double histMin, double histMax, int binCount) {
+		if (!(shapes instanceof RandomAccess)) {
+			return of(shapes.toArray(new Shape[0]), histMin, histMax, binCount);
+		}
+		checkHistogram(histMin, histMax, binCount);
+		return ForkJoinPool.commonPool().invoke(new ListTask(shapes, 0, shapes.size(), histMin, histMax, binCount));
+	}
+
+	public static ShapeStats of(Shape[] shapes, double histMin, double histMax, int binCount) {
+		checkHistogram(histMin, histMax, binCount);
+		return ForkJoinPool.commonPool().invoke(new ArrayTask(shapes, 0, shapes.length, histMin, histMax, binCount));
+	}
+
+	public static ShapeStats of(ShapeBuffer buffer, double histMin, double histMax, int binCount) {
+		checkHistogram(histMin, histMax, binCount);
+		return ForkJoinPool.commonPool().invoke(new BufferTask(buffer, 0, buffer.size(), histMin, histMax, binCount));
+	}
+
+	static void checkHistogram(double histMin, double histMax, int binCount) {
+		if (binCount < 0) {
+			throw new IllegalArgumentException("binCount must not be negative: " + binCount);
+		}
+		if (binCount > 0 && !(histMax > histMin)) {
+			throw new IllegalArgumentException("histMax must be greater than histMin");
+		}
+	}
+
+	void accept(double area, double perimeter) {
+		this.count++;
+		this.totalArea += area;
+		this.totalPerimeter += perimeter;
+		if (area < this.minArea) {
+			this.minArea = area;
+		}
+		if (area > this.maxArea) {
+			this.maxArea = area;
+		}
+		if (this.bins.length > 0) {
+			int bin = (int) ((area - this.histMin) / (this.histMax - this.histMin) * this.bins.length);
+			bin = Math.max(0, Math.min(this.bins.length - 1, bin));
+			this.bins[bin]++;
+		}
+	}
+
+	//Merges other into this. Every field combines associatively, so split order does not matter.
+	ShapeStats combine(ShapeStats other) {
+		this.count += other.count;
+		this.totalArea += other.totalArea;
+		this.totalPerimeter += other.totalPerimeter;
+		this.minArea = Math.min(this.minArea, other.minArea);
+		this.maxArea = Math.max(this.maxArea, other.maxArea);
+		for (int i = 0; i < this.bins.length; i++) {
+			this.bins[i] += other.bins[i];
+		}
+		return this;
+	}
+
+	public long getCount() {
+		return this.count;
+	}
+
+	public double getTotalArea() {
+		return this.totalArea;
+	}
+
+	public double getTotalPerimeter() {
+		return this.totalPerimeter;
+	}
+
+	//NaN when there were no shapes.
+	public double getMinArea() {
+		return this.count == 0 ? Double.NaN : this.minArea;
+	}
+
+	public double getMaxArea() {
+		return this.count == 0 ? Double.NaN : this.maxArea;
+	}
+
+	public double getAverageArea() {
+		return this.count == 0 ? Double.NaN : this.totalArea / this.count;
+	}
+
+	public long[] getHistogram() {
+		return this.bins.clone();
+	}
+
+	@Override
+	public String toString() {
+		return "ShapeStats: " + this.count + " shapes, area " + this.totalArea + ", perimeter " + this.totalPerimeter;
+	}
+
+	abstract static class StatsTask extends RecursiveTask<ShapeStats> {
+
+		final int from;
+		final int to;
+		final double histMin;
+		final double histMax;
+		final int binCount;
+
+		StatsTask(int from, int to, double histMin, double histMax, int binCount) {
+			this.from = from;
+			this.to = to;
+			this.histMin = histMin;
+			this.histMax = histMax;
+			this.binCount = binCount;
+		}
+
+		abstract StatsTask split(int from, int to);
+
+		abstract void scan(ShapeStats stats);
+
+		@Override
+		protected ShapeStats compute() {
+			if (this.to - this.from <= THRESHOLD) {
+				ShapeStats stats = new ShapeStats(this.histMin, this.histMax, this.binCount);
+				scan(stats);
+				return stats;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			StatsTask left = split(this.from, mid);
+			StatsTask right = split(mid, this.to);
+			left.fork();
+			ShapeStats rightStats = right.compute();
+			return left.join().combine(rightStats);
+		}
+	}
+
+	static class ListTask extends StatsTask {
+
+		final List<? extends Shape> shapes;
+
+		ListTask(List<? extends Shape> shapes, int from, int to, double histMin, double histMax, int binCount) {
+			super(from, to, histMin, histMax, binCount);
+			this.shapes = shapes;
+		}
+
+		@Override
+		StatsTask split(int from, int to) {
+			return new ListTask(this.shapes, from, to, this.histMin, this.histMax, this.binCount);
+		}
+
+		@Override
+		void scan(ShapeStats stats) {
+			for (int i = this.from; i < this.to; i++) {
+				Shape shape = this.shapes.get(i);
+				stats.accept(shape.getArea(), shape.getPerimeter());
+			}
+		}
+	}
+
+	static class ArrayTask extends StatsTask {
+
+		final Shape[] shapes;
+
+		ArrayTask(Shape[] shapes, int from, int to, double histMin, double histMax, int binCount) {
+			super(from, to, histMin, histMax, binCount);
+			this.shapes = shapes;
+		}
+
+		@Override
+		StatsTask split(int from, int to) {
+			return new ArrayTask(this.shapes, from, to, this.histMin, this.histMax, this.binCount);
+		}
+
+		@Override
+		void scan(ShapeStats stats) {
+			for (int i = this.from; i < this.to; i++) {
+				stats.accept(this.shapes[i].getArea(), this.shapes[i].getPerimeter());
+			}
+		}
+	}
+
+	static class BufferTask extends StatsTask {
+
+		final ShapeBuffer buffer;
+
+		BufferTask(ShapeBuffer buffer, int from, int to, double histMin, double histMax, int binCount) {
+			super(from, to, histMin, histMax, binCount);
+			this.buffer = buffer;
+		}
+
+		@Override
+		StatsTask split(int from, int to) {
+			return new BufferTask(this.buffer, from, to, this.histMin, this.histMax, this.binCount);
+		}
+
+		@Override
+		void scan(ShapeStats stats) {
+			byte[] kinds = this.buffer.kinds;
+			double[] dim1 = this.buffer.dim1;
+			double[] dim2 = this.buffer.dim2;
+			for (int i = this.from; i < this.to; i++) {
+				stats.accept(ShapeBuffer.area(kinds[i], dim1[i], dim2[i]), ShapeBuffer.perimeter(kinds[i], dim1[i], dim2[i]));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+class Shuffle {//a random permutation of 0..n-1 that is computed one position at a time, without a table
+
+	//A 4-round Feistel network permutes the 2^(2 * half) values that cover n.
+	//Results of n or more are fed through again (cycle walking) until they land
+	//below n, which takes fewer than four rounds on average because the cover is
+	//less than four times n. Running the rounds backwards inverts it, so both
+	//at() and positionOf() are O(1) on average and nothing is stored per track.
+
+	static final int ROUNDS = 4;
+
+	final int n;
+	final int half;
+	final long halfMask;
+	final long[] keys = new long[ROUNDS];
+
+	public Shuffle(int n, long seed) {
+		if (n < 0) {
+			throw new IllegalArgumentException("n must not be negative: " + n);
+		}
+		this.n = n;
+		int bits = 32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1));
+		this.half = (bits + 1) / 2;
+		this.halfMask = (1L << this.half) - 1;
+		long state = seed;
+		for (int r = 0; r < ROUNDS; r++) {
+			state += 0x9E3779B97F4A7C15L;
+			this.keys[r] = mix(state);
+		}
+	}
+
+	public int size() {
+		return this.n;
+	}
+
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	long round(int r, long value) {
+		return mix(this.keys[r] ^ value) & this.halfMask;
+	}
+
+	//long because the cover can be 2^32 values
+	long encrypt(long value) {
+		long left = value >>> this.half;
+		long right = value & this.halfMask;
+		for (int r = 0; r < ROUNDS; r++) {
+			long next = left ^ round(r, right);
+			left = right;
+			right = next;
+		}
+		return left << this.half | right;
+	}
+
+	long decrypt(long value) {
+		long left = value >>> this.half;
+		long right = value & this.halfMask;
+		for (int r = ROUNDS - 1; r >= 0; r--) {
+			long previous = right ^ round(r, left);
+			right = left;
+			left = previous;
+		}
+		return left << this.half | right;
+	}
+
+	//The index played at the given position.
+	public int at(int position) {
+		checkIndex(position);
+		long value = encrypt(position);
+		while (value >= this.n) {
+			value = encrypt(value);
+		}
+		return (int) value;
+	}
+
+	//The position at which index is played.
+	public int positionOf(int index) {
+		checkIndex(index);
+		long value = decrypt(index);
+		while (value >= this.n) {
+			value = decrypt(value);
+		}
+		return (int) value;
+	}
+
+	void checkIndex(int index) {
+		if (index < 0 || index >= this.n) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.n);
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+import java.util.List;
+
+interface SpatialIndex extends MoveListener {
+
+	//Registers a shape. The index listens for its moves from then on.
+	public void add(Transformable shape);
+
+	public void remove(Transformable shape);
+
+	public int size();
+
+	//Every registered shape whose position is inside the box, edges included.
+	public List<Transformable> range(int minX, int minY, int maxX, int maxY);
+
+	//The k registered shapes closest to (x, y), closest first.
+	public List<Transformable> nearest(int x, int y, int k);
+
+	//Throws IllegalStateException if any shape is filed under the wrong place.
+	public void checkConsistency();
+
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+
+class StationIndex {//the stations of a RadioPlayer in frequency order, for tuning and scanning
+
+	//sorted[r] is the r-th lowest frequency and order[r] its index in the station
+	//list, rank[] is the inverse. The frequencies are sorted as plain doubles,
+	//then every station takes the next free rank of its frequency in list order,
+	//so equal frequencies keep their list order. NaN stations sort last and are
+	//never the nearest. -0.0 and 0.0 are the same frequency.
+	//
+	//Equal frequencies form a run of ranks, runStart[r] and runEnd[r] are where
+	//the run of rank r starts and ends (exclusive), so stepping over one is O(1).
+
+	//Frequencies this close, relative to their size, count as equal. Enough for
+	//a preset typed in as 101.1 to find 101.1 + 0.0 that went through arithmetic.
+	static final double EPSILON = 1e-9;
+
+	final double[] sorted;
+	final int[] order;
+	final int[] rank;
+	final int[] runStart;
+	final int[] runEnd;
+	final int valid; //stations that are not NaN
+
+	public StationIndex(double[] stations) {
+		int n = stations.length;
+		double[] sorted = stations.clone();
+		Arrays.sort(sorted); //NaN last
+		int valid = n;
+		while (valid > 0 && sorted[valid - 1] != sorted[valid - 1]) {
+			valid--;
+		}
+		this.valid = valid;
+		this.runStart = new int[n];
+		this.runEnd = new int[n];
+		for (int r = 0; r < n; r++) {
+			this.runStart[r] = r < valid && r > 0 && sorted[r - 1] == sorted[r] ? this.runStart[r - 1] : r;
+		}
+		for (int r = n - 1; r >= 0; r--) {
+			this.runEnd[r] = r + 1 < valid && sorted[r + 1] == sorted[r] ? this.runEnd[r + 1] : r + 1;
+		}
+		//free[s] is the next rank to hand out in the run starting at s
+		int[] free = new int[n];
+		for (int r = 0; r < n; r++) {
+			free[r] = r;
+		}
+		this.order = new int[n];
+		this.rank = new int[n];
+		int nan = valid;
+		for (int i = 0; i < n; i++) {
+			double frequency = stations[i];
+			int r;
+			if (frequency != frequency) {
+				r = nan++;
+			} else {
+				int run = this.runStart[Arrays.binarySearch(sorted, 0, valid, frequency)];
+				r = free[run]++;
+			}
+			this.order[r] = i;
+			this.rank[i] = r;
+		}
+		//a run may mix -0.0 and 0.0, so every rank takes its own station's value
+		for (int r = 0; r < n; r++) {
+			sorted[r] = stations[this.order[r]];
+		}
+		this.sorted = sorted;
+	}
+
+	public int size() {
+		return this.sorted.length;
+	}
+
+	static double tolerance(double frequency) {
+		return EPSILON * Math.max(1, Math.abs(frequency));
+	}
+
+	//Rank of the station nearest to frequency, -1 if there is none. When two are
+	//equally near, within the tolerance, the lower one wins.
+	public int nearest(double frequency) {
+		if (this.valid == 0 || frequency != frequency) {
+			return -1;
+		}
+		//first rank with a frequency not below the one asked for
+		int lo = 0;
+		int hi = this.valid;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (this.sorted[mid] < frequency) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		if (lo == this.valid) {
+			return first(lo - 1);
+		}
+		if (lo == 0) {
+			return 0;
+		}
+		double below = frequency - this.sorted[lo - 1];
+		double above = this.sorted[lo] - frequency;
+		return above < below - tolerance(frequency) ? lo : first(lo - 1);
+	}
+
+	//The first rank with the same frequency as rank r.
+	int first(int r) {
+		return this.runStart[r];
+	}
+
+	//The next rank up with a higher frequency, wrapping to the lowest after the highest.
+	public int up(int r) {
+		return r < this.valid && this.runEnd[r] < this.valid ? this.runEnd[r] : 0;
+	}
+
+	//The next rank down with a lower frequency, wrapping to the highest after the lowest.
+	public int down(int r) {
+		int start = r < this.valid ? this.runStart[r] : this.valid; //from a NaN station, go to the highest
+		return this.runStart[start > 0 ? start - 1 : this.valid - 1];
+	}
+
+}
@@ -0,0 +1,478 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+class TitleIndex {//prefix and substring search over the titles of a Playlist
+
+	//Matching ignores ASCII case. Results are title indexes, ready for MusicPlayer.jumpTo().
+	//
+	//A Segment indexes a range of titles twice: their indexes sorted by title,
+	//which answers a prefix with two binary searches (a trie flattened into an
+	//array), and a trigram index that hashes every 3-byte window of a title into
+	//a bucket holding the delta-varint coded indexes of its titles. A substring
+	//query reads the smallest bucket among its trigrams and checks each title in
+	//it, so hash collisions cost time but never give wrong answers. Queries
+	//shorter than 3 bytes scan the titles.
+	//
+	//Titles added to the playlist later are found by a linear scan until update()
+	//indexes them in a small second segment. When that grows past a quarter of the
+	//main one, both are rebuilt as one. While a segment is built, its sort runs on
+	//the fork/join pool and the calling thread sizes and then fills the trigram
+	//buckets, one pass over the titles each.
+
+	final Playlist titles;
+	Segment main;
+	Segment recent;
+
+	public TitleIndex(Playlist titles) {
+		this.titles = titles;
+		this.main = new Segment(titles, 0, titles.size());
+		this.recent = new Segment(titles, titles.size(), titles.size());
+	}
+
+	public static TitleIndex of(MusicPlayer player) {
+		return new TitleIndex(player.playlist != null ? player.playlist : Playlist.of(player.musicList));
+	}
+
+	//Titles covered by the segments. Later ones are still found, just more slowly.
+	public int indexed() {
+		return this.recent.to;
+	}
+
+	//Indexes the titles added since the last call.
+	public void update() {
+		int size = this.titles.size();
+		if (size == this.recent.to) {
+			return;
+		}
+		if (size - this.main.to > this.main.to / 4) {
+			this.main = new Segment(this.titles, 0, size);
+			this.recent = new Segment(this.titles, size, size);
+		} else {
+			this.recent = new Segment(this.titles, this.main.to, size);
+		}
+	}
+
+	static byte fold(byte b) {
+		return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+	}
+
+	static byte[] folded(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = fold(bytes[i]);
+		}
+		return bytes;
+	}
+
+	//Up to limit titles starting with prefix. Each segment's matches come in title order.
+	public int[] startingWith(String prefix, int limit) {
+		byte[] query = folded(prefix);
+		Results results = new Results(limit);
+		this.main.startingWith(query, results);
+		this.recent.startingWith(query, results);
+		for (int id = this.recent.to; id < this.titles.size() && !results.full(); id++) {
+			if (startsWith(this.titles, id, query)) {
+				results.add(id);
+			}
+		}
+		return results.toArray();
+	}
+
+	//Up to limit titles that contain text anywhere.
+	public int[] containing(String text, int limit) {
+		byte[] query = folded(text);
+		Results results = new Results(limit);
+		this.main.containing(query, results);
+		this.recent.containing(query, results);
+		for (int id = this.recent.to; id < this.titles.size() && !results.full(); id++) {
+			if (contains(this.titles, id, query)) {
+				results.add(id);
+			}
+		}
+		return results.toArray();
+	}
+
+	static boolean startsWith(Playlist titles, int id, byte[] query) {
+		int start = titles.offsets[id];
+		if (titles.offsets[id + 1] - start < query.length) {
+			return false;
+		}
+		byte[] bytes = titles.bytes;
+		for (int i = 0; i < query.length; i++) {
+			if (fold(bytes[start + i]) != query[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean contains(Playlist titles, int id, byte[] query) {
+		byte[] bytes = titles.bytes;
+		int last = titles.offsets[id + 1] - query.length;
+		for (int at = titles.offsets[id]; at <= last; at++) {
+			int i = 0;
+			while (i < query.length && fold(bytes[at + i]) == query[i]) {
+				i++;
+			}
+			if (i == query.length) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//Compares a title's first query.length folded bytes with query.
+	static int comparePrefix(Playlist titles, int id, byte[] query) {
+		byte[] bytes = titles.bytes;
+		int at = titles.offsets[id];
+		int end = titles.offsets[id + 1];
+		for (int i = 0; i < query.length; i++, at++) {
+			if (at == end) {
+				return -1;
+			}
+			int x = fold(bytes[at]) & 0xFF;
+			int y = query[i] & 0xFF;
+			if (x != y) {
+				return x - y;
+			}
+		}
+		return 0;
+	}
+
+	static class Results {//collects up to limit indexes
+
+		final int limit;
+		int[] ids;
+		int size = 0;
+
+		Results(int limit) {
+			if (limit < 0) {
+				throw new IllegalArgumentException("limit must not be negative: " + limit);
+			}
+			this.limit = limit;
+			this.ids = new int[Math.min(limit, 64)];
+		}
+
+		boolean full() {
+			return this.size == this.limit;
+		}
+
+		void add(int id) {
+			if (this.size == this.ids.length) {
+				this.ids = Arrays.copyOf(this.ids, (int) Math.min(this.limit, 2L * this.size));
+			}
+			this.ids[this.size++] = id;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(this.ids, this.size);
+		}
+	}
+
+	static class Segment {//the indexes of titles from..to-1
+
+		final Playlist titles;
+		final int from;
+		final int to;
+		final int[] sorted;
+		final int bucketBits;
+		//bucket b is postings[bucketStart[b]] up to postings[bucketStart[b + 1]]
+		final int[] bucketStart;
+		final byte[] postings;
+
+		Segment(Playlist titles, int from, int to) {
+			this.titles = titles;
+			this.from = from;
+			this.to = to;
+			long bytes = (long) titles.offsets[to] - titles.offsets[from];
+			int bits = 10;
+			while (bits < 24 && (1L << bits) < bytes / 2) {
+				bits++;
+			}
+			this.bucketBits = bits;
+			this.sorted = new int[to - from];
+			for (int i = 0; i < this.sorted.length; i++) {
+				this.sorted[i] = from + i;
+			}
+			this.bucketStart = new int[(1 << bits) + 1];
+			int[] last = new int[1 << bits];
+			//splitting the trigram passes by title range would need a last[] and a size per
+			//bucket for every task, and by bucket every task would hash every title
+			SortTask sort = new SortTask(this.sorted, 0, this.sorted.length, 0);
+			ForkJoinPool.commonPool().execute(sort);
+			scan(last, null, true);
+			int total = 0;
+			for (int b = 0; b < (1 << bits); b++) {
+				int size = this.bucketStart[b];
+				this.bucketStart[b] = total;
+				total += size;
+				if (total < 0) {
+					throw new IllegalStateException("Trigram index over 2 GB");
+				}
+			}
+			this.bucketStart[1 << bits] = total;
+			this.postings = new byte[total];
+			int[] cursor = Arrays.copyOf(this.bucketStart, 1 << bits);
+			Arrays.fill(last, 0);
+			scan(last, cursor, false);
+			sort.join();
+		}
+
+		int bucket(int gram) {
+			return (gram * 0x9E3779B1) >>> (32 - this.bucketBits);
+		}
+
+		static int varintSize(int value) {
+			int size = 1;
+			while ((value & ~0x7F) != 0) {
+				value >>>= 7;
+				size++;
+			}
+			return size;
+		}
+
+		//last[b] is the last title put in bucket b, plus one. count adds sizes to bucketStart, otherwise it writes.
+		void scan(int[] last, int[] cursor, boolean count) {
+			byte[] bytes = this.titles.bytes;
+			int[] offsets = this.titles.offsets;
+			for (int id = this.from; id < this.to; id++) {
+				int end = offsets[id + 1];
+				int at = offsets[id];
+				if (end - at < 3) {
+					continue;
+				}
+				int gram = (fold(bytes[at]) & 0xFF) << 8 | (fold(bytes[at + 1]) & 0xFF);
+				for (at += 2; at < end; at++) {
+					gram = (gram << 8 | (fold(bytes[at]) & 0xFF)) & 0xFFFFFF;
+					int b = bucket(gram);
+					if (last[b] == id + 1) {
+						continue;
+					}
+					int delta = id + 1 - last[b]; //first delta is id + 1, never 0
+					last[b] = id + 1;
+					if (count) {
+						this.bucketStart[b] += varintSize(delta);
+						continue;
+					}
+					int to = cursor[b];
+					while ((delta & ~0x7F) != 0) {
+						this.postings[to++] = (byte) (delta | 0x80);
+						delta >>>= 7;
+					}
+					this.postings[to++] = (byte) delta;
+					cursor[b] = to;
+				}
+			}
+		}
+
+		void startingWith(byte[] query, Results results) {
+			//first title not below the prefix
+			int lo = 0;
+			int hi = this.sorted.length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (comparePrefix(this.titles, this.sorted[mid], query) < 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			for (int i = lo; i < this.sorted.length && !results.full(); i++) {
+				if (comparePrefix(this.titles, this.sorted[i], query) != 0) {
+					break;
+				}
+				results.add(this.sorted[i]);
+			}
+		}
+
+		void containing(byte[] query, Results results) {
+			if (query.length < 3) {
+				for (int id = this.from; id < this.to && !results.full(); id++) {
+					if (contains(this.titles, id, query)) {
+						results.add(id);
+					}
+				}
+				return;
+			}
+			//the query's buckets, shortest first
+			int[] buckets = new int[query.length - 2];
+			int count = 0;
+			int gram = (query[0] & 0xFF) << 8 | (query[1] & 0xFF);
+			for (int i = 2; i < query.length; i++) {
+				gram = (gram << 8 | (query[i] & 0xFF)) & 0xFFFFFF;
+				int b = bucket(gram);
+				int j = 0;
+				while (j < count && buckets[j] != b) {
+					j++;
+				}
+				if (j < count) {
+					continue; //repeated trigram
+				}
+				while (j > 0 && length(buckets[j - 1]) > length(b)) {
+					buckets[j] = buckets[j - 1];
+					j--;
+				}
+				buckets[j] = b;
+				count++;
+			}
+			//walks the shortest bucket and skips ahead in the others, so only titles in every bucket are checked
+			int[] at = new int[count];
+			int[] current = new int[count];
+			for (int k = 0; k < count; k++) {
+				at[k] = this.bucketStart[buckets[k]];
+				current[k] = -1;
+			}
+			int end = this.bucketStart[buckets[0] + 1];
+			candidates:
+			while (at[0] < end && !results.full()) {
+				int id = next(at, current, 0);
+				for (int k = 1; k < count; k++) {
+					int other = this.bucketStart[buckets[k] + 1];
+					while (current[k] < id && at[k] < other) {
+						next(at, current, k);
+					}
+					if (current[k] < id) {
+						return; //a bucket ran out
+					}
+					if (current[k] > id) {
+						continue candidates;
+					}
+				}
+				if (contains(this.titles, id, query)) {
+					results.add(id);
+				}
+			}
+		}
+
+		int length(int bucket) {
+			return this.bucketStart[bucket + 1] - this.bucketStart[bucket];
+		}
+
+		//Decodes the next title of cursor k.
+		int next(int[] at, int[] current, int k) {
+			int delta = 0;
+			for (int shift = 0; ; shift += 7) {
+				byte b = this.postings[at[k]++];
+				delta |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					break;
+				}
+			}
+			return current[k] += delta;
+		}
+
+		//Byte depth of a title, folded, or -1 past its end.
+		int byteAt(int id, int depth) {
+			int at = this.titles.offsets[id] + depth;
+			return at < this.titles.offsets[id + 1] ? fold(this.titles.bytes[at]) & 0xFF : -1;
+		}
+
+		//Multikey quicksort: partitions on one byte at a time, so a prefix shared by
+		//many titles is compared once per partition instead of once per comparison.
+		class SortTask extends RecursiveAction {
+
+			static final int THRESHOLD = 8192;
+
+			final int[] ids;
+			final int lo;
+			final int hi;
+			final int depth;
+			SortTask next; //forked before this one by the same sort() call
+
+			SortTask(int[] ids, int lo, int hi, int depth) {
+				this.ids = ids;
+				this.lo = lo;
+				this.hi = hi;
+				this.depth = depth;
+			}
+
+			@Override
+			protected void compute() {
+				sort(this.lo, this.hi, this.depth);
+			}
+
+			void sort(int lo, int hi, int depth) {
+				int[] ids = this.ids;
+				SortTask forked = null;
+				//the equal partition continues one byte deeper in this loop instead of recursing,
+				//so a prefix shared by many titles costs no stack
+				while (hi - lo > 16) {
+					int a = byteAt(ids[lo], depth);
+					int b = byteAt(ids[(lo + hi) >>> 1], depth);
+					int c = byteAt(ids[hi - 1], depth);
+					int pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+					//ids[lo, lt) below the pivot, [lt, i) equal, (gt, hi) above
+					int lt = lo;
+					int gt = hi - 1;
+					for (int i = lo; i <= gt; ) {
+						int d = byteAt(ids[i], depth);
+						if (d < pivot) {
+							swap(ids, lt++, i++);
+						} else if (d > pivot) {
+							swap(ids, i, gt--);
+						} else {
+							i++;
+						}
+					}
+					if (lt - lo > THRESHOLD) {
+						forked = fork(new SortTask(ids, lo, lt, depth), forked);
+					} else {
+						sort(lo, lt, depth);
+					}
+					if (hi - gt - 1 > THRESHOLD) {
+						forked = fork(new SortTask(ids, gt + 1, hi, depth), forked);
+					} else {
+						sort(gt + 1, hi, depth);
+					}
+					if (pivot < 0) {
+						//titles that end here are equal
+						lo = hi;
+						break;
+					}
+					lo = lt;
+					hi = gt + 1;
+					depth++;
+				}
+				for (int i = lo + 1; i < hi; i++) {
+					int id = ids[i];
+					int j = i;
+					while (j > lo && compare(ids[j - 1], id, depth) > 0) {
+						ids[j] = ids[j - 1];
+						j--;
+					}
+					ids[j] = id;
+				}
+				for (; forked != null; forked = forked.next) {
+					forked.join();
+				}
+			}
+
+			//Forks task and puts it in front of the ones this sort() still has to join.
+			SortTask fork(SortTask task, SortTask forked) {
+				task.next = forked;
+				task.fork();
+				return task;
+			}
+
+			//a and b share their first depth bytes
+			int compare(int a, int b, int depth) {
+				for (; ; depth++) {
+					int x = byteAt(a, depth);
+					int y = byteAt(b, depth);
+					if (x != y || x < 0) {
+						return x - y;
+					}
+				}
+			}
+
+			void swap(int[] ids, int i, int j) {
+				int id = ids[i];
+				ids[i] = ids[j];
+				ids[j] = id;
+			}
+		}
+	}
+
+}
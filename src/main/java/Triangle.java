@@ -2,12 +2,24 @@ class Triangle implements Shape {
 	
 	public double base;
 	public double height;
+	ResizeListener resizeListener; //null until something wants to hear about resizes
 
 	public Triangle (double base, double height) {
 		this.base = base;
 		this.height = height;
 	}
 
+	//Writing the fields directly still works, but only the setters tell listeners.
+	public void setBase(double base) {
+		this.base = base;
+		resized();
+	}
+
+	public void setHeight(double height) {
+		this.height = height;
+		resized();
+	}
+
 	@Override
 	public double getArea() {
 		return this.base * this.height / 2;
@@ -23,4 +35,23 @@ class Triangle implements Shape {
 		return "Triangle: " + this.base + " by " + this.height;
 	}
 
+	@Override
+	public void appendTo(StringBuilder out) {
+		out.append("Triangle: ").append(this.base).append(" by ").append(this.height);
+	}
+
+	public void addResizeListener(ResizeListener listener) {
+		this.resizeListener = ResizeListeners.add(this.resizeListener, listener);
+	}
+
+	public void removeResizeListener(ResizeListener listener) {
+		this.resizeListener = ResizeListeners.remove(this.resizeListener, listener);
+	}
+
+	void resized() {
+		if (this.resizeListener != null) {
+			this.resizeListener.resized(this);
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+import java.util.Arrays;
+
+class UndoHistory implements MoveListener {//undo and redo for moves of tracked circles and rectangles
+
+	//A step is what one undo() takes back. Moves inside begin()/commit() form one
+	//step; outside a transaction, back to back moves of the same shape do. Each
+	//step holds one entry per shape run, the summed (dx, dy) of that run, so a
+	//thousand right() calls in a row take one entry. Undo and redo move shapes
+	//by those exact deltas, which costs one entry per shape run no matter how
+	//big the scene is.
+	//
+	//At most maxEntries entries are kept. When more are needed the oldest steps
+	//are dropped first. A single transaction bigger than that cannot be undone:
+	//the history is cleared and starts again after its commit().
+	//
+	//Not thread-safe, like the shapes themselves.
+
+	final int capacity;
+	//entries, in a ring indexed by sequence number % capacity
+	final Transformable[] shapes;
+	final int[] dx;
+	final int[] dy;
+	//stepStart[k % capacity] is the first entry of step k
+	final long[] stepStart;
+	long firstEntry = 0;
+	long endEntry = 0;
+	long firstStep = 0;
+	long cursor = 0; //steps before the cursor can be undone, the ones after it redone
+	long endStep = 0;
+
+	int depth = 0; //open begin() calls
+	boolean stepOpen = false; //the last step may still take moves
+	boolean dropping = false; //the open transaction overflowed
+	boolean replaying = false; //undo() and redo() are moving shapes
+
+	public UndoHistory() {
+		this(1 << 16);
+	}
+
+	public UndoHistory(int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+		}
+		this.capacity = maxEntries;
+		this.shapes = new Transformable[maxEntries];
+		this.dx = new int[maxEntries];
+		this.dy = new int[maxEntries];
+		this.stepStart = new long[maxEntries];
+	}
+
+	public void track(Transformable shape) {
+		Positions.addMoveListener(shape, this);
+	}
+
+	//Already recorded moves of the shape can still be undone.
+	public void untrack(Transformable shape) {
+		Positions.removeMoveListener(shape, this);
+	}
+
+	//Transactions nest. The outermost commit() closes the step.
+	public void begin() {
+		if (this.depth++ == 0) {
+			this.stepOpen = false;
+		}
+	}
+
+	public void commit() {
+		if (this.depth == 0) {
+			throw new IllegalStateException("commit() without begin()");
+		}
+		if (--this.depth == 0) {
+			this.stepOpen = false;
+			this.dropping = false;
+		}
+	}
+
+	public boolean canUndo() {
+		return this.cursor > this.firstStep;
+	}
+
+	public boolean canRedo() {
+		return this.cursor < this.endStep;
+	}
+
+	public long getUndoSteps() {
+		return this.cursor - this.firstStep;
+	}
+
+	public long getRedoSteps() {
+		return this.endStep - this.cursor;
+	}
+
+	public int getEntries() {
+		return (int) (this.endEntry - this.firstEntry);
+	}
+
+	public void clear() {
+		Arrays.fill(this.shapes, null);
+		this.firstEntry = this.endEntry;
+		this.firstStep = this.cursor = this.endStep;
+		this.stepOpen = false;
+	}
+
+	@Override
+	public void moved(Transformable shape, int dx, int dy) {
+		if (this.replaying || this.dropping) {
+			return;
+		}
+		if (this.cursor < this.endStep) {
+			//a new move makes the undone steps unreachable
+			truncateRedo();
+		}
+		if (this.stepOpen) {
+			long last = this.endEntry - 1;
+			int index = (int) (last % this.capacity);
+			//outside a transaction a step only ever holds one shape's run
+			if (this.shapes[index] == shape) {
+				this.dx[index] += dx;
+				this.dy[index] += dy;
+				return;
+			}
+			if (this.depth == 0) {
+				this.stepOpen = false;
+			}
+		}
+		if (!this.stepOpen) {
+			if (this.endStep - this.firstStep == this.capacity) {
+				dropOldestStep();
+			}
+			this.stepStart[(int) (this.endStep % this.capacity)] = this.endEntry;
+			this.endStep++;
+			this.cursor = this.endStep;
+			this.stepOpen = true;
+		}
+		if (this.endEntry - this.firstEntry == this.capacity) {
+			if (this.endStep - this.firstStep == 1) {
+				//the open step alone fills the history
+				clear();
+				this.dropping = this.depth > 0;
+				return;
+			}
+			dropOldestStep();
+		}
+		int index = (int) (this.endEntry % this.capacity);
+		this.shapes[index] = shape;
+		this.dx[index] = dx;
+		this.dy[index] = dy;
+		this.endEntry++;
+	}
+
+	void truncateRedo() {
+		long end = this.stepStart[(int) (this.cursor % this.capacity)];
+		for (long e = end; e < this.endEntry; e++) {
+			this.shapes[(int) (e % this.capacity)] = null;
+		}
+		this.endEntry = end;
+		this.endStep = this.cursor;
+	}
+
+	void dropOldestStep() {
+		long end = stepEnd(this.firstStep);
+		for (long e = this.firstEntry; e < end; e++) {
+			this.shapes[(int) (e % this.capacity)] = null;
+		}
+		this.firstEntry = end;
+		this.firstStep++;
+	}
+
+	long stepEnd(long step) {
+		return step + 1 < this.endStep ? this.stepStart[(int) ((step + 1) % this.capacity)] : this.endEntry;
+	}
+
+	//Takes back the last step. Returns false if there is nothing to undo.
+	public boolean undo() {
+		checkNoTransaction();
+		if (!canUndo()) {
+			return false;
+		}
+		long step = --this.cursor;
+		long start = this.stepStart[(int) (step % this.capacity)];
+		this.replaying = true;
+		try {
+			for (long e = stepEnd(step) - 1; e >= start; e--) {
+				int index = (int) (e % this.capacity);
+				Positions.moveBy(this.shapes[index], -this.dx[index], -this.dy[index]);
+			}
+		} finally {
+			this.replaying = false;
+		}
+		this.stepOpen = false;
+		return true;
+	}
+
+	//Repeats the last undone step. Returns false if there is nothing to redo.
+	public boolean redo() {
+		checkNoTransaction();
+		if (!canRedo()) {
+			return false;
+		}
+		long step = this.cursor++;
+		long end = stepEnd(step);
+		this.replaying = true;
+		try {
+			for (long e = this.stepStart[(int) (step % this.capacity)]; e < end; e++) {
+				int index = (int) (e % this.capacity);
+				Positions.moveBy(this.shapes[index], this.dx[index], this.dy[index]);
+			}
+		} finally {
+			this.replaying = false;
+		}
+		this.stepOpen = false;
+		return true;
+	}
+
+	void checkNoTransaction() {
+		if (this.depth > 0) {
+			throw new IllegalStateException("Cannot undo or redo inside a transaction");
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+class VideoPlayer implements Player {
+
+	boolean onOff;
+	String video;
+	int currentTime;
+	int volume;
+	//Set by open() for a local file, null for a video that is only a name.
+	KeyframeIndex keyframes;
+	int keyframe = -1; //the one playback of currentTime starts from
+
+	public VideoPlayer(String video) {
+		this.video = video;
+		this.volume = 0;
+		this.onOff = false;
+		this.currentTime = 0;
+	}
+
+	@Override
+	public void start() {
+		if (!this.onOff) {
+			this.onOff = true;
+		}
+	}
+
+	@Override
+	public void stop() {
+		if (this.onOff) {
+			this.onOff = false;
+		}
+	}
+
+	public boolean getOnOff() {
+		return this.onOff;
+	}
+
+	@Override
+	public void volumeUp() {
+		this.volume += 5;
+	}
+
+	@Override
+	public void volumeDown() {
+		this.volume -= 5;
+	}
+
+	@Override
+	public int getVolume() {
+		return this.volume;
+	}
+
+	//Opens a local MPEG transport stream, indexing its keyframes on first use. Where no
+	//sidecar can be written the index is kept in memory, so only an unreadable video throws.
+	public void open(Path file) throws IOException {
+		this.keyframes = KeyframeIndex.open(file);
+		this.video = file.toString();
+		this.currentTime = 0;
+		this.keyframe = this.keyframes.floor(0);
+	}
+
+	public void fastForward() {
+		this.currentTime += 5;
+		if (this.keyframes != null) {
+			this.keyframe = this.keyframes.step(this.keyframe, this.currentTime * 1000L);
+		}
+	}
+
+	public void rewind() {
+		this.currentTime -= 5;
+		if (this.keyframes != null) {
+			this.keyframe = this.keyframes.step(this.keyframe, this.currentTime * 1000L);
+		}
+	}
+
+	//Jumps to any time, in seconds like currentTime.
+	public void seek(int time) {
+		this.currentTime = time;
+		if (this.keyframes != null) {
+			this.keyframe = this.keyframes.floor(time * 1000L);
+		}
+	}
+
+	//Byte offset in the file to read from for currentTime: the keyframe at or before it. 0 without an index.
+	public long getPosition() {
+		return this.keyframe < 0 ? 0 : this.keyframes.getOffset(this.keyframe);
+	}
+
+	public int getCurrentTime() {
+		return this.currentTime;
+	}
+
+	public String getVideo() {
+		return this.video;
+	}
+
+	//A new name drops the keyframe index of an opened file.
+	public void setVideo(String video) {
+		this.video = video;
+		this.keyframes = null;
+		this.keyframe = -1;
+	}
+
+}
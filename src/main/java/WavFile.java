@@ -0,0 +1,113 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class WavFile implements Closeable {//the PCM samples of a .wav file, or of a raw .pcm file, read through a FileChannel
+
+	//A .wav file is a RIFF header followed by chunks. Only "fmt " and "data"
+	//matter here, and only uncompressed PCM is accepted. A file with any other
+	//name is taken to be raw PCM in the CD format.
+	static final int RAW_RATE = 44100;
+	static final int RAW_CHANNELS = 2;
+	static final int RAW_BITS = 16;
+
+	final FileChannel channel;
+	int sampleRate = RAW_RATE;
+	int channels = RAW_CHANNELS;
+	int bitsPerSample = RAW_BITS;
+	long position; //next byte of sample data to read
+	long end; //first byte after the sample data
+
+	WavFile(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	public static WavFile open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			WavFile wav = new WavFile(channel);
+			if (file.getFileName().toString().toLowerCase().endsWith(".wav")) {
+				wav.readHeader();
+			} else {
+				wav.end = channel.size();
+			}
+			return wav;
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	void readHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+		readAt(header, 0, 12);
+		if (header.getInt(0) != 0x46464952 || header.getInt(8) != 0x45564157) {
+			throw new IOException("Not a WAV file, no RIFF/WAVE header");
+		}
+		long size = this.channel.size();
+		boolean format = false;
+		for (long at = 12; at + 8 <= size; ) {
+			readAt(header, at, 8);
+			int id = header.getInt(0);
+			long length = header.getInt(4) & 0xFFFFFFFFL;
+			if (id == 0x20746D66) { //"fmt "
+				readAt(header, at + 8, 16);
+				int encoding = header.getShort(0) & 0xFFFF;
+				if (encoding != 1 && encoding != 0xFFFE) {
+					throw new IOException("Unsupported WAV encoding: " + encoding);
+				}
+				this.channels = header.getShort(2) & 0xFFFF;
+				this.sampleRate = header.getInt(4);
+				this.bitsPerSample = header.getShort(14) & 0xFFFF;
+				format = true;
+			} else if (id == 0x61746164) { //"data"
+				if (!format) {
+					throw new IOException("WAV data chunk before fmt chunk");
+				}
+				this.position = at + 8;
+				this.end = Math.min(size, this.position + length);
+				return;
+			}
+			at += 8 + length + (length & 1); //chunks are padded to an even size
+		}
+		throw new IOException("WAV file has no data chunk");
+	}
+
+	void readAt(ByteBuffer buffer, long at, int length) throws IOException {
+		buffer.clear().limit(length);
+		while (buffer.hasRemaining()) {
+			if (this.channel.read(buffer, at + buffer.position()) < 0) {
+				throw new IOException("WAV file ends inside its header");
+			}
+		}
+	}
+
+	//Appends sample data to into, up to its limit. Returns -1 once all of it has been read.
+	public int read(ByteBuffer into) throws IOException {
+		if (this.position >= this.end) {
+			return -1;
+		}
+		int limit = into.limit();
+		if (this.end - this.position < into.remaining()) {
+			into.limit(into.position() + (int) (this.end - this.position));
+		}
+		int read = this.channel.read(into, this.position);
+		into.limit(limit);
+		if (read < 0) {
+			this.end = this.position; //file shrank since the header was read
+			return -1;
+		}
+		this.position += read;
+		return read;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+}
@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class AffineTest {
+
+    private Affine randomTransform(Random random) {
+        Affine transform = Affine.IDENTITY;
+        for (int step = random.nextInt(4); step >= 0; step--) {
+            switch (random.nextInt(5)) {
+                case 0: transform = transform.then(Affine.rotate(random.nextInt(4) * Math.PI / 2)); break;
+                case 1: transform = transform.then(Affine.rotate(random.nextDouble() * 2 * Math.PI)); break;
+                case 2: transform = transform.then(Affine.scale(0.25 + random.nextDouble() * 4)); break;
+                case 3: transform = transform.then(Affine.scale(random.nextDouble() * 3 - 1.5, random.nextDouble() * 3 - 1.5)); break;
+                default: transform = transform.then(Affine.translate(random.nextInt(2001) - 1000, random.nextDouble() * 100)); break;
+            }
+        }
+        return transform;
+    }
+
+    @Test
+    @DisplayName("A quarter turn swaps a rectangle's length and width and turns it about its centre")
+    void quarterTurnSwapsAxes() {
+        Rectangle rect = new Rectangle(4, 2);
+        Affine.rotate(Math.PI / 2).apply(rect);
+        assertEquals(2.0, rect.length);
+        assertEquals(4.0, rect.width);
+        // centre (2, 1) goes to (-1, 2)
+        assertEquals(-2, rect.x);
+        assertEquals(0, rect.y);
+
+        Affine.rotate(-Math.PI / 2).apply(rect);
+        assertEquals(4.0, rect.length);
+        assertEquals(2.0, rect.width);
+        assertEquals(0, rect.x);
+        assertEquals(0, rect.y);
+
+        Rectangle half = new Rectangle(4, 2);
+        Affine.rotate(Math.PI).apply(half);
+        assertEquals(4.0, half.length, "a half turn keeps the axes");
+        assertEquals(2.0, half.width);
+        assertTrue(Affine.rotate(Math.PI / 2).swapsAxes());
+        assertFalse(Affine.rotate(Math.PI / 5).swapsAxes());
+        assertTrue(Affine.rotate(Math.PI / 3).swapsAxes(), "past 45 degrees the length edge is closer to the y axis");
+    }
+
+    @Test
+    @DisplayName("Width scaling keeps every shape's area scaling exactly by |det|")
+    void keepsAreaExact() {
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            Affine transform = randomTransform(random);
+            double det = Math.abs(transform.determinant());
+            Circle cir = new Circle(random.nextDouble() * 50);
+            Rectangle rect = new Rectangle(random.nextDouble() * 50, random.nextDouble() * 50);
+            Triangle tri = new Triangle(random.nextDouble() * 50, random.nextDouble() * 50);
+            Shape[] shapes = {cir, rect, tri};
+            for (Shape shape : shapes) {
+                double expected = shape.getArea() * det;
+                transform.apply(shape);
+                assertEquals(expected, shape.getArea(), expected * 1e-12, shape + " under " + transform);
+            }
+        }
+        // a shear keeps area but stretches the width edge
+        Rectangle rect = new Rectangle(3, 2);
+        new Affine(1, 1, 0, 0, 1, 0).apply(rect);
+        assertEquals(3.0, rect.length);
+        assertEquals(2.0, rect.width);
+        Affine.scale(2, 3).apply(rect);
+        assertEquals(6.0, rect.length);
+        assertEquals(6.0, rect.width);
+        Affine.scale(-1, 1).apply(rect);
+        assertEquals(6.0, rect.length, "a mirror keeps sizes positive");
+        assertEquals(6.0, rect.width);
+    }
+
+    @Test
+    @DisplayName("apply(ShapeBuffer) gives exactly what apply(Shape) gives, shape by shape")
+    void bufferMatchesShapes() {
+        Random random = new Random(13);
+        for (int round = 0; round < 500; round++) {
+            Affine transform = randomTransform(random);
+            List<Shape> shapes = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                switch (random.nextInt(3)) {
+                    case 0:
+                        Circle cir = new Circle(random.nextDouble() * 20);
+                        cir.position[0] = random.nextInt(2001) - 1000;
+                        cir.position[1] = random.nextInt(2001) - 1000;
+                        shapes.add(cir);
+                        break;
+                    case 1:
+                        Rectangle rect = new Rectangle(random.nextInt(40) + random.nextDouble(), random.nextDouble() * 20);
+                        rect.x = random.nextInt(2001) - 1000;
+                        rect.y = random.nextInt(2001) - 1000;
+                        shapes.add(rect);
+                        break;
+                    default:
+                        shapes.add(new Triangle(random.nextDouble() * 20, random.nextDouble() * 20));
+                        break;
+                }
+            }
+            ShapeBuffer buffer = new ShapeBuffer();
+            buffer.addAll(shapes);
+            transform.apply(shapes);
+            transform.apply(buffer);
+            ShapeBuffer expected = new ShapeBuffer();
+            expected.addAll(shapes);
+            for (int i = 0; i < shapes.size(); i++) {
+                String what = shapes.get(i) + " under " + transform;
+                assertEquals(expected.getKind(i), buffer.getKind(i), what);
+                assertEquals(expected.getX(i), buffer.getX(i), what);
+                assertEquals(expected.getY(i), buffer.getY(i), what);
+                assertEquals(expected.dim1[i], buffer.dim1[i], what);
+                assertEquals(expected.dim2[i], buffer.dim2[i], what);
+            }
+        }
+    }
+}
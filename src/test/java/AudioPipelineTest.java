@@ -0,0 +1,237 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+class AudioPipelineTest {
+
+    @TempDir
+    Path library;
+
+    private final Random random = new Random(9);
+
+    private byte[] pcm(int length) {
+        byte[] pcm = new byte[length];
+        random.nextBytes(pcm);
+        return pcm;
+    }
+
+    // 16-bit PCM with a minimal RIFF header
+    private static void writeWav(Path file, int sampleRate, int channels, byte[] pcm) throws IOException {
+        ByteBuffer wav = ByteBuffer.allocate(44 + pcm.length).order(ByteOrder.LITTLE_ENDIAN);
+        wav.putInt(0x46464952).putInt(36 + pcm.length).putInt(0x45564157);
+        wav.putInt(0x20746D66).putInt(16).putShort((short) 1).putShort((short) channels);
+        wav.putInt(sampleRate).putInt(sampleRate * channels * 2).putShort((short) (channels * 2)).putShort((short) 16);
+        wav.putInt(0x61746164).putInt(pcm.length).put(pcm);
+        Files.write(file, wav.array());
+    }
+
+    // keeps everything it is given, optionally slowed down like a real device
+    private static class RecordingSink implements AudioSink {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final long nanosPerWrite;
+        final CountDownLatch open = new CountDownLatch(1);
+        volatile boolean blocking = false;
+        int formats = 0;
+
+        RecordingSink(long nanosPerWrite) {
+            this.nanosPerWrite = nanosPerWrite;
+        }
+
+        @Override
+        public void format(int sampleRate, int channels, int bitsPerSample) {
+            formats++;
+        }
+
+        @Override
+        public void write(byte[] pcm, int off, int len) {
+            while (blocking) {
+                try {
+                    open.await();
+                    blocking = false;
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            bytes.write(pcm, off, len);
+            if (nanosPerWrite > 0) {
+                LockSupport.parkNanos(nanosPerWrite);
+            }
+        }
+    }
+
+    private void awaitFinished(AudioPipeline pipeline) throws InterruptedException {
+        for (int i = 0; i < 2000 && !pipeline.isFinished(); i++) {
+            Thread.sleep(5);
+        }
+        assertTrue(pipeline.isFinished(), "pipeline did not reach the end of the list");
+    }
+
+    private byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            all.write(part, 0, part.length);
+        }
+        return all.toByteArray();
+    }
+
+    @Test
+    @DisplayName("Tracks reach the sink back to back, byte for byte, through a small ring")
+    void playsGapless() throws IOException, InterruptedException {
+        byte[] a = pcm(50000);
+        byte[] b = pcm(7777);
+        byte[] c = pcm(30002);
+        writeWav(library.resolve("a.wav"), 8000, 1, a);
+        Files.write(library.resolve("b.pcm"), b);
+        writeWav(library.resolve("c.wav"), 8000, 1, c);
+        MusicPlayer music = new MusicPlayer(new String[]{"a.wav", "missing.wav", "b.pcm", "c.wav"});
+        RecordingSink sink = new RecordingSink(0);
+        try (AudioPipeline pipeline = new AudioPipeline(music, library, sink, 1000)) {
+            assertEquals(1024, pipeline.ring.capacity());
+            pipeline.play();
+            awaitFinished(pipeline);
+            assertEquals(1, pipeline.getErrors());
+            assertEquals(-1, pipeline.getPlaying());
+        }
+        assertArrayEquals(concat(a, b, c), sink.bytes.toByteArray());
+        assertEquals(3, sink.formats);
+    }
+
+    @Test
+    @DisplayName("play() drops what was buffered and carries on from the new track")
+    void switchesTracks() throws IOException, InterruptedException {
+        byte[] a = pcm(400000);
+        byte[] b = pcm(20000);
+        byte[] c = pcm(20000);
+        writeWav(library.resolve("a.wav"), 8000, 1, a);
+        writeWav(library.resolve("b.wav"), 8000, 1, b);
+        writeWav(library.resolve("c.wav"), 8000, 1, c);
+        MusicPlayer music = new MusicPlayer(new String[]{"a.wav", "b.wav", "c.wav"});
+        music.start();
+        RecordingSink sink = new RecordingSink(1000000);
+        try (AudioPipeline pipeline = new AudioPipeline(music, library, sink, 4096)) {
+            pipeline.play();
+            while (pipeline.getPlayedBytes() == 0) {
+                Thread.sleep(1);
+            }
+            pipeline.play(1);
+            awaitFinished(pipeline);
+            assertEquals(0, music.getCurrentIndex());
+        }
+        byte[] played = sink.bytes.toByteArray();
+        byte[] tail = concat(b, c);
+        assertTrue(played.length >= tail.length && played.length < tail.length + a.length);
+        assertArrayEquals(tail, Arrays.copyOfRange(played, played.length - tail.length, played.length));
+        assertArrayEquals(Arrays.copyOf(a, played.length - tail.length), Arrays.copyOf(played, played.length - tail.length));
+    }
+
+    @Test
+    @DisplayName("play() while the marks are full drops the waiting track instead of overwriting an unread mark")
+    void switchesWithMarksFull() throws IOException, InterruptedException {
+        byte[] a = pcm(40000);
+        byte[] z = pcm(3000);
+        writeWav(library.resolve("a.wav"), 8000, 1, a);
+        writeWav(library.resolve("z.wav"), 8000, 1, z);
+        String[] titles = new String[102];
+        titles[0] = "a.wav";
+        for (int i = 1; i <= 100; i++) {
+            titles[i] = "missing" + i + ".wav";
+        }
+        titles[101] = "z.wav";
+        RecordingSink sink = new RecordingSink(0);
+        sink.blocking = true;
+        try (AudioPipeline pipeline = new AudioPipeline(new MusicPlayer(titles), library, sink, 1 << 16)) {
+            int errors;
+            try {
+                pipeline.play(0);
+                for (int i = 0; i < 2000 && pipeline.marksWritten.get() - pipeline.marksRead.get() < AudioPipeline.MARKS; i++) {
+                    Thread.sleep(5);
+                }
+                assertEquals(AudioPipeline.MARKS, pipeline.marksWritten.get() - pipeline.marksRead.get(), "the decoder waits for a mark");
+                Thread.sleep(20); // and has counted the missing file it waits with
+                errors = pipeline.getErrors();
+                pipeline.play(90);
+                for (int i = 0; i < 2000 && pipeline.getErrors() == errors; i++) {
+                    Thread.sleep(5);
+                }
+                Thread.sleep(20);
+                assertTrue(pipeline.marksWritten.get() - pipeline.marksRead.get() <= AudioPipeline.MARKS);
+            } finally {
+                sink.open.countDown(); // close() waits for the playback thread
+            }
+            awaitFinished(pipeline);
+            assertTrue(pipeline.playback.isAlive(), "playback is still running");
+            assertEquals(errors + 11, pipeline.getErrors(), "missing90 to missing100 after play(90)");
+        }
+        byte[] played = sink.bytes.toByteArray();
+        assertTrue(played.length >= z.length && played.length <= z.length + a.length);
+        assertArrayEquals(concat(Arrays.copyOf(a, played.length - z.length), z), played, "the start of a, then z");
+    }
+
+    @Test
+    @DisplayName("Many short and missing tracks through a slow sink, with play() in the middle")
+    void switchesAmongShortTracks() throws IOException, InterruptedException {
+        Playlist playlist = new Playlist();
+        byte[][] tracks = new byte[300][];
+        for (int i = 0; i < tracks.length; i++) {
+            if (i % 3 == 2) {
+                playlist.add("missing" + i + ".wav");
+                tracks[i] = new byte[0];
+            } else {
+                tracks[i] = pcm(100 + random.nextInt(400));
+                writeWav(library.resolve("t" + i + ".wav"), 8000, 1, tracks[i]);
+                playlist.add("t" + i + ".wav");
+            }
+        }
+        MusicPlayer music = new MusicPlayer(playlist);
+        RecordingSink sink = new RecordingSink(200000);
+        try (AudioPipeline pipeline = new AudioPipeline(music, library, sink, 1024)) {
+            pipeline.play(0);
+            while (pipeline.getPlaying() < 20) {
+                Thread.sleep(1);
+            }
+            pipeline.play(200);
+            writeWav(library.resolve("late.wav"), 8000, 1, pcm(1000));
+            playlist.add("late.wav"); // after play(), so not part of what is playing
+            music.shuffle(3); // neither is a new order
+            awaitFinished(pipeline);
+            assertTrue(pipeline.playback.isAlive());
+            assertEquals(-1, pipeline.getPlaying());
+        }
+        byte[] played = sink.bytes.toByteArray();
+        byte[] tail = concat(Arrays.copyOfRange(tracks, 200, tracks.length));
+        assertArrayEquals(tail, Arrays.copyOfRange(played, played.length - tail.length, played.length));
+        byte[] head = concat(Arrays.copyOf(tracks, 200));
+        int before = played.length - tail.length;
+        assertTrue(before <= head.length);
+        assertArrayEquals(Arrays.copyOf(head, before), Arrays.copyOf(played, before), "tracks from the start, cut off by play(200)");
+    }
+
+    @Test
+    @DisplayName("A title that is not a valid path is an error and is skipped")
+    void skipsInvalidTitles() throws IOException, InterruptedException {
+        byte[] a = pcm(5000);
+        byte[] b = pcm(6000);
+        writeWav(library.resolve("a.wav"), 8000, 1, a);
+        writeWav(library.resolve("b.wav"), 8000, 1, b);
+        MusicPlayer music = new MusicPlayer(new String[]{"bad\u0000.wav", "a.wav", "nul\u0000", "b.wav"});
+        RecordingSink sink = new RecordingSink(0);
+        try (AudioPipeline pipeline = new AudioPipeline(music, library, sink, 4096)) {
+            pipeline.play(0);
+            awaitFinished(pipeline);
+            assertEquals(2, pipeline.getErrors());
+        }
+        assertArrayEquals(concat(a, b), sink.bytes.toByteArray());
+    }
+}
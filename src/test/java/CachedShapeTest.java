@@ -0,0 +1,175 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class CachedShapeTest {
+
+    @Test
+    @DisplayName("Setters clear the cache, direct field writes need invalidate()")
+    void settersInvalidate() {
+        Circle cir = new Circle(2);
+        Rectangle rect = new Rectangle(2, 3);
+        Triangle tri = new Triangle(4, 5);
+        CachedShape cachedCircle = new CachedShape(cir);
+        CachedShape cachedRect = new CachedShape(rect);
+        CachedShape cachedTri = new CachedShape(tri);
+        assertEquals(cir.getArea(), cachedCircle.getArea());
+        assertEquals(6.0, cachedRect.getArea());
+        assertEquals(10.0, cachedRect.getPerimeter());
+        assertEquals(10.0, cachedTri.getArea());
+
+        cir.setRadius(3);
+        rect.setLength(4);
+        rect.setWidth(5);
+        tri.setBase(6);
+        tri.setHeight(7);
+        assertEquals(cir.getArea(), cachedCircle.getArea());
+        assertEquals(cir.getPerimeter(), cachedCircle.getPerimeter());
+        assertEquals(20.0, cachedRect.getArea());
+        assertEquals(18.0, cachedRect.getPerimeter());
+        assertEquals(21.0, cachedTri.getArea());
+
+        rect.length = 10;
+        assertEquals(20.0, cachedRect.getArea(), "a direct write is not seen until invalidate()");
+        cachedRect.invalidate();
+        assertEquals(50.0, cachedRect.getArea());
+
+        cachedRect.detach();
+        rect.setWidth(1);
+        assertEquals(50.0, cachedRect.getArea(), "a detached cache no longer hears setters");
+        assertEquals(rect.toString(), cachedRect.toString());
+        assertSame(rect, cachedRect.getShape());
+    }
+
+    @Test
+    @DisplayName("A resize that lands while the cache is being filled is not lost")
+    void resizeDuringRefresh() throws InterruptedException {
+        // resizes itself the first time its area is asked for, like a setter on another thread would
+        Rectangle rect = new Rectangle(2, 3) {
+            boolean resized = false;
+
+            @Override
+            public double getArea() {
+                double area = super.getArea();
+                if (!resized) {
+                    resized = true;
+                    setLength(10);
+                }
+                return area;
+            }
+        };
+        CachedShape cached = new CachedShape(rect);
+        assertEquals(30.0, cached.getArea());
+        assertEquals(26.0, cached.getPerimeter(), "area and perimeter of the same version");
+        rect.setWidth(1);
+        assertEquals(10.0, cached.getArea());
+
+        Rectangle shared = new Rectangle(1, 1);
+        CachedShape cachedShared = new CachedShape(shared);
+        Thread[] readers = new Thread[2];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                for (int i = 0; i < 200000; i++) {
+                    cachedShared.getArea(); // refreshes race the resizes below
+                }
+            });
+            readers[t].start();
+        }
+        for (int length = 1; length <= 20000; length++) {
+            shared.setLength(length);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(20000.0, cachedShared.getArea(), "the last resize wins");
+        assertEquals(40002.0, cachedShared.getPerimeter());
+    }
+
+    @Test
+    @DisplayName("Only resizable shapes can be cached")
+    void rejectsImmutableShapes() {
+        assertThrows(IllegalArgumentException.class, () -> new CachedShape(new ImmutableCircle(1)));
+    }
+
+    @Test
+    @DisplayName("Listener chains call every listener once and remove only the first match")
+    void chainsListeners() {
+        List<String> calls = new ArrayList<>();
+        ResizeListener a = shape -> calls.add("a");
+        ResizeListener b = shape -> calls.add("b");
+        ResizeListener c = shape -> calls.add("c");
+        Triangle tri = new Triangle(1, 1);
+        tri.addResizeListener(a);
+        tri.addResizeListener(b);
+        tri.addResizeListener(c);
+        tri.addResizeListener(a);
+        tri.setBase(2);
+        assertEquals(List.of("a", "b", "c", "a"), calls);
+
+        calls.clear();
+        tri.removeResizeListener(a);
+        tri.removeResizeListener(c);
+        tri.setBase(3);
+        assertEquals(List.of("b", "a"), calls);
+
+        calls.clear();
+        tri.removeResizeListener(b);
+        tri.removeResizeListener(a);
+        tri.removeResizeListener(a);
+        tri.setBase(4);
+        assertTrue(calls.isEmpty());
+
+        int[] moves = new int[2];
+        MoveListener first = (shape, dx, dy) -> moves[0] += dy;
+        MoveListener second = (shape, dx, dy) -> moves[1] += dy;
+        Circle cir = new Circle(2);
+        cir.addMoveListener(first);
+        cir.addMoveListener(second);
+        cir.up();
+        cir.removeMoveListener(first);
+        cir.up();
+        assertArrayEquals(new int[]{2, 4}, moves);
+    }
+
+    @Test
+    @DisplayName("Immutable shapes match their mutable originals and compare by value")
+    void immutableShapes() {
+        double[] values = {0, -0.0, 1.5, 3, Double.NaN};
+        for (double a : values) {
+            Circle cir = new Circle(a);
+            ImmutableCircle frozenCircle = ImmutableCircle.of(cir);
+            assertEquals(cir.getArea(), frozenCircle.getArea());
+            assertEquals(cir.getPerimeter(), frozenCircle.getPerimeter());
+            assertEquals(cir.toString(), frozenCircle.toString());
+            assertEquals(frozenCircle, new ImmutableCircle(a));
+            assertEquals(frozenCircle.hashCode(), new ImmutableCircle(a).hashCode());
+            for (double b : values) {
+                Rectangle rect = new Rectangle(a, b);
+                ImmutableRectangle frozenRect = ImmutableRectangle.of(rect);
+                assertEquals(rect.getArea(), frozenRect.getArea());
+                assertEquals(rect.getPerimeter(), frozenRect.getPerimeter());
+                assertEquals(rect.toString(), frozenRect.toString());
+                assertEquals(frozenRect, new ImmutableRectangle(a, b));
+                assertEquals(frozenRect.hashCode(), new ImmutableRectangle(a, b).hashCode());
+
+                Triangle tri = new Triangle(a, b);
+                ImmutableTriangle frozenTri = ImmutableTriangle.of(tri);
+                assertEquals(tri.getArea(), frozenTri.getArea());
+                assertEquals(tri.getPerimeter(), frozenTri.getPerimeter());
+                assertEquals(tri.toString(), frozenTri.toString());
+                assertEquals(frozenTri, new ImmutableTriangle(a, b));
+            }
+        }
+        assertNotEquals(new ImmutableCircle(0.0), new ImmutableCircle(-0.0));
+        assertNotEquals(new ImmutableRectangle(1, 2), new ImmutableRectangle(2, 1));
+        assertNotEquals(new ImmutableRectangle(1, 2), new ImmutableTriangle(1, 2));
+
+        Circle cir = new Circle(1);
+        ImmutableCircle frozen = ImmutableCircle.of(cir);
+        cir.setRadius(5);
+        assertEquals(Math.PI, frozen.getArea(), "a snapshot does not follow the original");
+    }
+}
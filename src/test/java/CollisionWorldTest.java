@@ -0,0 +1,212 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+class CollisionWorldTest {
+
+    // counts the merge sort fallbacks
+    private static class CountingWorld extends CollisionWorld {
+        int mergeSorts = 0;
+
+        @Override
+        void mergeSort() {
+            mergeSorts++;
+            super.mergeSort();
+        }
+    }
+
+    private Circle circle(double radius, int x, int y) {
+        Circle cir = new Circle(radius);
+        cir.position[0] = x;
+        cir.position[1] = y;
+        return cir;
+    }
+
+    private Rectangle rectangle(double length, double width, int x, int y) {
+        Rectangle rect = new Rectangle(length, width);
+        rect.x = x;
+        rect.y = y;
+        return rect;
+    }
+
+    // min x, max x, min y, max y
+    private double[] bounds(Transformable shape) {
+        if (shape instanceof Circle) {
+            Circle cir = (Circle) shape;
+            double r = Math.abs(cir.radius);
+            return new double[]{cir.position[0] - r, cir.position[0] + r, cir.position[1] - r, cir.position[1] + r};
+        }
+        Rectangle rect = (Rectangle) shape;
+        return new double[]{Math.min(rect.x, rect.x + rect.length), Math.max(rect.x, rect.x + rect.length),
+                Math.min(rect.y, rect.y + rect.width), Math.max(rect.y, rect.y + rect.width)};
+    }
+
+    private boolean collide(Transformable a, Transformable b) {
+        if (a instanceof Rectangle && b instanceof Circle) {
+            return collide(b, a);
+        }
+        if (a instanceof Circle && b instanceof Circle) {
+            Circle c1 = (Circle) a;
+            Circle c2 = (Circle) b;
+            double dx = c1.position[0] - c2.position[0];
+            double dy = c1.position[1] - c2.position[1];
+            double reach = Math.abs(c1.radius) + Math.abs(c2.radius);
+            return dx * dx + dy * dy <= reach * reach;
+        }
+        double[] rb = bounds(b);
+        if (a instanceof Circle) {
+            Circle cir = (Circle) a;
+            double dx = cir.position[0] - Math.max(rb[0], Math.min(cir.position[0], rb[1]));
+            double dy = cir.position[1] - Math.max(rb[2], Math.min(cir.position[1], rb[3]));
+            return dx * dx + dy * dy <= cir.radius * cir.radius;
+        }
+        double[] ra = bounds(a);
+        return ra[0] <= rb[1] && rb[0] <= ra[1] && ra[2] <= rb[3] && rb[2] <= ra[3];
+    }
+
+    // every colliding pair as "i-j" with i < j, i and j being indexes in shapes
+    private Set<String> brutePairs(List<Transformable> shapes) {
+        Set<String> pairs = new HashSet<>();
+        for (int i = 0; i < shapes.size(); i++) {
+            for (int j = i + 1; j < shapes.size(); j++) {
+                if (collide(shapes.get(i), shapes.get(j))) {
+                    pairs.add(i + "-" + j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private Set<String> tickPairs(CollisionWorld world, List<Transformable> shapes) {
+        Map<Transformable, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < shapes.size(); i++) {
+            indexes.put(shapes.get(i), i);
+        }
+        Set<String> pairs = new HashSet<>();
+        int count = world.tick((a, b) -> {
+            int i = indexes.get(a);
+            int j = indexes.get(b);
+            assertNotEquals(i, j, "a shape collides with itself");
+            assertTrue(pairs.add(Math.min(i, j) + "-" + Math.max(i, j)), "pair reported twice: " + a + ", " + b);
+        });
+        assertEquals(pairs.size(), count);
+        return pairs;
+    }
+
+    private Transformable randomShape(Random random, int world) {
+        if (random.nextBoolean()) {
+            return circle(random.nextInt(8), random.nextInt(world), random.nextInt(world));
+        }
+        // negative sizes reach left of or below the corner
+        return rectangle(random.nextInt(21) - 5, random.nextInt(21) - 5, random.nextInt(world), random.nextInt(world));
+    }
+
+    @Test
+    @DisplayName("tick() reports the same pairs as checking every pair, while shapes move and teleport")
+    void matchesBruteForce() {
+        Random random = new Random(43);
+        int size = 400;
+        CountingWorld world = new CountingWorld();
+        List<Transformable> shapes = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            Transformable shape = randomShape(random, size);
+            shapes.add(shape);
+            world.add(shape);
+        }
+        assertEquals(shapes.size(), world.size());
+        assertEquals(brutePairs(shapes), tickPairs(world, shapes));
+        assertEquals(1, world.mergeSorts, "the first tick sorts from insertion order");
+
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 300; i++) {
+                Transformable shape = shapes.get(random.nextInt(shapes.size()));
+                switch (random.nextInt(4)) {
+                    case 0: shape.up(); break;
+                    case 1: shape.down(); break;
+                    case 2: shape.left(); break;
+                    default: shape.right(); break;
+                }
+            }
+            assertEquals(brutePairs(shapes), tickPairs(world, shapes), "round " + round);
+        }
+        assertEquals(1, world.mergeSorts, "small moves are insertion sorted");
+
+        // every shape somewhere else: the insertion sort gives up
+        for (Transformable shape : shapes) {
+            if (shape instanceof Circle) {
+                ((Circle) shape).position[0] = random.nextInt(size);
+            } else {
+                ((Rectangle) shape).x = random.nextInt(size);
+            }
+        }
+        assertEquals(brutePairs(shapes), tickPairs(world, shapes));
+        assertEquals(2, world.mergeSorts);
+        assertEquals(brutePairs(shapes), tickPairs(world, shapes), "nothing moved");
+        assertEquals(2, world.mergeSorts);
+    }
+
+    @Test
+    @DisplayName("Touching edges collide, a circle beside a rectangle's corner only when it reaches it")
+    void touchingShapes() {
+        CollisionWorld world = new CollisionWorld();
+        List<Transformable> shapes = new ArrayList<>();
+        shapes.add(rectangle(10, 10, 0, 0));
+        shapes.add(rectangle(5, 5, 10, 3)); // shares the right edge of 0
+        shapes.add(rectangle(-4, -4, 0, 0)); // touches 0 at its corner only
+        shapes.add(circle(5, 23, 14)); // exactly 5 from the corner (20, 10) of 4
+        shapes.add(rectangle(5, 5, 15, 5)); // shares the edge x = 15 with 1
+        shapes.add(circle(5, 24, 14)); // bounds overlap 4, but the corner is farther than 5
+        shapes.add(circle(5, 34, 14)); // touches circle 5, not circle 3
+        shapes.add(circle(2, -10, -10));
+        for (Transformable shape : shapes) {
+            world.add(shape);
+        }
+        Set<String> expected = new HashSet<>();
+        for (String pair : new String[]{"0-1", "0-2", "1-4", "3-4", "3-5", "5-6"}) {
+            expected.add(pair);
+        }
+        assertEquals(expected, brutePairs(shapes), "the test's own geometry");
+        assertEquals(expected, tickPairs(world, shapes));
+
+        assertThrows(IllegalArgumentException.class, () -> world.add(new ConcurrentCircle(1)));
+        assertEquals(shapes.size(), world.size());
+    }
+
+    @Test
+    @DisplayName("remove() keeps the remaining shapes and their pairs")
+    void removesShapes() {
+        Random random = new Random(47);
+        CollisionWorld world = new CollisionWorld();
+        List<Transformable> shapes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Transformable shape = randomShape(random, 120);
+            shapes.add(shape);
+            world.add(shape);
+        }
+        tickPairs(world, shapes);
+        while (shapes.size() > 1) {
+            // the first, the last and anything in between, so the last is renamed into the gap
+            int at = shapes.size() % 3 == 0 ? 0 : shapes.size() % 3 == 1 ? shapes.size() - 1 : random.nextInt(shapes.size());
+            Transformable shape = shapes.remove(at);
+            assertTrue(world.remove(shape));
+            assertFalse(world.remove(shape), "already removed");
+            assertEquals(shapes.size(), world.size());
+            shapes.get(random.nextInt(shapes.size())).right();
+            if (shapes.size() % 7 == 0 && random.nextBoolean()) {
+                Transformable added = randomShape(random, 120);
+                shapes.add(added);
+                world.add(added);
+            }
+            assertEquals(brutePairs(shapes), tickPairs(world, shapes), shapes.size() + " shapes");
+        }
+        assertFalse(world.remove(circle(1, 0, 0)));
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+class ConcurrentMoveTest {
+
+    static final int THREADS = 8;
+    static final int MOVES = 100000;
+
+    // Starts THREADS threads together, each running the same body, and waits for them all
+    private void runTogether(Runnable body) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                body.run();
+            });
+            threads[i].start();
+        }
+        ready.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    @DisplayName("Test ConcurrentRectangle loses no moves under contention")
+    void rectangleNoLostMovesTest() throws InterruptedException {
+        ConcurrentRectangle rect = new ConcurrentRectangle(10, 5);
+        runTogether(() -> {
+            for (int i = 0; i < MOVES; i++) {
+                rect.up();
+                rect.right();
+                rect.right();
+                rect.down();
+                rect.up();
+            }
+        });
+        assertEquals(THREADS * MOVES * 2, rect.position.getX(), "Every right() should be counted");
+        assertEquals(THREADS * MOVES, rect.position.getY(), "Every up() and down() should be counted");
+    }
+
+    @Test
+    @DisplayName("Test ConcurrentCircle loses no moves under contention")
+    void circleNoLostMovesTest() throws InterruptedException {
+        ConcurrentCircle cir = new ConcurrentCircle(3);
+        runTogether(() -> {
+            for (int i = 0; i < MOVES; i++) {
+                cir.left();
+                cir.up();
+            }
+        });
+        assertEquals(-3 * THREADS * MOVES, cir.position.getX(), "Every left() should move by the radius");
+        assertEquals(3 * THREADS * MOVES, cir.position.getY(), "Every up() should move by the radius");
+    }
+
+    @Test
+    @DisplayName("Test ConcurrentCircle steps match Circle")
+    void circleMatchesCircleTest() {
+        Circle cir = new Circle(2.5);
+        ConcurrentCircle concurrent = new ConcurrentCircle(2.5);
+        for (int i = 0; i < 7; i++) {
+            cir.up();
+            concurrent.up();
+            cir.left();
+            concurrent.left();
+        }
+        cir.down();
+        concurrent.down();
+        assertEquals(cir.position[0], concurrent.position.getX(), "x should match Circle");
+        assertEquals(cir.position[1], concurrent.position.getY(), "y should match Circle");
+    }
+
+    @Test
+    @DisplayName("Test AtomicPosition keeps negative coordinates apart")
+    void atomicPositionNegativeTest() {
+        AtomicPosition position = new AtomicPosition(-5, -7);
+        position.move(1, -1);
+        assertEquals(-4, position.getX());
+        assertEquals(-8, position.getY());
+    }
+
+    @Test
+    @DisplayName("Test ShapeBuffer and MappedShapeStore take concurrent shapes with their positions")
+    void ingestConcurrentShapesTest() throws Exception {
+        ConcurrentCircle cir = new ConcurrentCircle(2);
+        cir.left();
+        ConcurrentRectangle rect = new ConcurrentRectangle(3, 4);
+        rect.up();
+        rect.up();
+        ShapeBuffer buffer = new ShapeBuffer();
+        buffer.add(cir);
+        buffer.add(rect);
+        assertEquals(ShapeBuffer.CIRCLE, buffer.getKind(0));
+        assertEquals(-2, buffer.getX(0));
+        assertEquals(cir.getArea(), buffer.getArea(0));
+        assertEquals(2, buffer.getY(1));
+        assertEquals(rect.getPerimeter(), buffer.getPerimeter(1));
+
+        Path file = Files.createTempFile("concurrent", ".shapes");
+        try (MappedShapeStore store = MappedShapeStore.open(file)) {
+            store.append(cir);
+            store.append(rect);
+            assertEquals(-2, store.getX(0));
+            assertEquals(2, store.getY(1));
+            assertEquals(rect.getArea(), store.get(1).getArea());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
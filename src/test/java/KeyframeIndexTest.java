@@ -0,0 +1,192 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class KeyframeIndexTest {
+
+    @TempDir
+    Path dir;
+
+    // One TS packet: video PID 0x100 or audio PID 0x101, with a PES header carrying pts when it starts a frame
+    private static void packet(ByteBuffer out, boolean video, boolean keyframe, long pts) {
+        int start = out.position();
+        out.put(KeyframeIndex.TS_SYNC);
+        out.put((byte) ((pts >= 0 ? 0x40 : 0) | 0x01));
+        out.put((byte) (video ? 0x00 : 0x01));
+        out.put((byte) (keyframe ? 0x30 : 0x10)); // adaptation field only on keyframes
+        if (keyframe) {
+            out.put((byte) 1).put((byte) 0x40); // random access indicator
+        }
+        if (pts >= 0) {
+            out.put((byte) 0).put((byte) 0).put((byte) 1).put((byte) (video ? 0xE0 : 0xC0));
+            out.put((byte) 0).put((byte) 0).put((byte) 0x80).put((byte) 0x80).put((byte) 5);
+            out.put((byte) (0x21 | (pts >> 29) & 0x0E));
+            out.put((byte) (pts >> 22));
+            out.put((byte) ((pts >> 14) | 1));
+            out.put((byte) (pts >> 7));
+            out.put((byte) ((pts << 1) | 1));
+        }
+        while (out.position() - start < KeyframeIndex.TS_PACKET) {
+            out.put((byte) 0xFF);
+        }
+    }
+
+    // keyframes at the times listed, in ms, each followed by a few ordinary packets
+    private List<Long> writeStream(Path file, int... times) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(times.length * 8 * KeyframeIndex.TS_PACKET);
+        List<Long> offsets = new ArrayList<>();
+        for (int time : times) {
+            offsets.add((long) out.position());
+            packet(out, true, true, 90000 + time * 90L);
+            packet(out, false, false, 90000 + time * 90L);
+            packet(out, true, false, -1);
+            packet(out, true, false, 90000 + time * 90L + 3600);
+        }
+        Files.write(file, Arrays.copyOf(out.array(), out.position()));
+        return offsets;
+    }
+
+    @Test
+    @DisplayName("fastForward, rewind and seek land on the keyframe at or before the current time")
+    void seeksToKeyframes() throws IOException {
+        Path file = dir.resolve("movie.ts");
+        int[] times = new int[200];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = i * 1500 + (i % 3) * 200;
+        }
+        List<Long> offsets = writeStream(file, times);
+        VideoPlayer player = new VideoPlayer("movie");
+        player.open(file);
+        assertEquals(times.length, player.keyframes.size());
+        assertEquals(0, player.getCurrentTime());
+        assertEquals(0, player.getPosition());
+        for (int step = 0; step < 400; step++) {
+            if (step % 7 == 3) {
+                player.rewind();
+            } else if (step % 50 == 49) {
+                player.seek(step % 300);
+            } else {
+                player.fastForward();
+            }
+            long millis = player.getCurrentTime() * 1000L;
+            int expected = 0;
+            for (int i = 0; i < times.length; i++) {
+                if (times[i] <= millis) {
+                    expected = i;
+                }
+            }
+            assertEquals((long) offsets.get(expected), player.getPosition(), "at " + millis + " ms");
+        }
+        player.setVideo("other");
+        assertEquals(0, player.getPosition());
+    }
+
+    @Test
+    @DisplayName("The sidecar is reused until the video changes")
+    void reusesSidecar() throws IOException {
+        Path file = dir.resolve("clip.ts");
+        writeStream(file, 0, 2000, 4000);
+        KeyframeIndex index = KeyframeIndex.open(file);
+        Path sidecar = KeyframeIndex.sidecarOf(file);
+        assertEquals(KeyframeIndex.HEADER_BYTES + 3 * 12, Files.size(sidecar));
+        assertEquals(4000, index.getTime(2));
+        FileTime written = FileTime.fromMillis(Files.getLastModifiedTime(sidecar).toMillis() - 60000);
+        Files.setLastModifiedTime(sidecar, written);
+        assertEquals(3, KeyframeIndex.open(file).size());
+        assertEquals(written, Files.getLastModifiedTime(sidecar));
+
+        writeStream(file, 0, 1000, 2000, 3000);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+        index = KeyframeIndex.open(file);
+        assertEquals(4, index.size());
+        assertEquals(3 * 4 * KeyframeIndex.TS_PACKET, index.getOffset(3));
+        assertEquals(2, index.floor(2999));
+        assertEquals(0, index.floor(-5000));
+
+        Files.write(dir.resolve("notes.txt"), new byte[400]);
+        assertThrows(IOException.class, () -> KeyframeIndex.open(dir.resolve("notes.txt")));
+    }
+
+    @Test
+    @DisplayName("A sidecar that cannot be written leaves the index in memory and no temporary files behind")
+    void indexesInMemory() throws IOException {
+        Path file = dir.resolve("blocked.ts");
+        writeStream(file, 0, 1500, 3000);
+        Path sidecar = KeyframeIndex.sidecarOf(file);
+        Files.createDirectory(sidecar); // neither mapped nor replaced by the move
+        Files.write(sidecar.resolve("keep"), new byte[1]);
+        KeyframeIndex index = KeyframeIndex.open(file);
+        assertEquals(3, index.size());
+        assertEquals(3000, index.getTime(2));
+        assertEquals(1, index.floor(2999));
+        assertTrue(Files.isDirectory(sidecar));
+
+        VideoPlayer player = new VideoPlayer("blocked");
+        player.open(file);
+        player.fastForward();
+        assertEquals(2 * 4 * KeyframeIndex.TS_PACKET, player.getPosition(), "5 s in, on the keyframe at 3 s");
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(Arrays.asList("blocked.ts", "blocked.ts.kfi"), files.map(f -> f.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+
+        Path media = Files.createDirectory(dir.resolve("media"));
+        Path video = media.resolve("clip.ts");
+        writeStream(video, 0, 2000);
+        assertTrue(media.toFile().setWritable(false));
+        try {
+            assertEquals(2, KeyframeIndex.open(video).size(), "read-only directory");
+            if (!Files.isWritable(media)) { // root writes anyway
+                assertFalse(Files.exists(KeyframeIndex.sidecarOf(video)));
+            }
+        } finally {
+            media.toFile().setWritable(true);
+        }
+    }
+
+    @Test
+    @DisplayName("Threads indexing the same video each write their own temporary file")
+    void indexesConcurrently() throws Exception {
+        Path file = dir.resolve("shared.ts");
+        int[] times = new int[500];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = i * 1000;
+        }
+        writeStream(file, times);
+        Path sidecar = KeyframeIndex.sidecarOf(file);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                Files.deleteIfExists(sidecar);
+                List<Future<KeyframeIndex>> opened = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    opened.add(pool.submit(() -> KeyframeIndex.open(file)));
+                }
+                for (Future<KeyframeIndex> index : opened) {
+                    assertEquals(times.length, index.get().size());
+                    assertEquals(499000, index.get().getTime(499));
+                }
+                assertEquals(KeyframeIndex.HEADER_BYTES + 12 * times.length, Files.size(sidecar));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count(), "no temporary files left");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class MappedShapeStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private List<Shape> shapes(int n) {
+        Random random = new Random(n);
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            switch (i % 3) {
+                case 0:
+                    Circle cir = new Circle(random.nextDouble() * 10);
+                    cir.position[0] = random.nextInt(2001) - 1000;
+                    cir.position[1] = random.nextInt(2001) - 1000;
+                    shapes.add(cir);
+                    break;
+                case 1:
+                    Rectangle rect = new Rectangle(random.nextDouble() * 10, random.nextDouble() * 10);
+                    rect.x = random.nextInt(2001) - 1000;
+                    rect.y = random.nextInt(2001) - 1000;
+                    shapes.add(rect);
+                    break;
+                default:
+                    shapes.add(new Triangle(random.nextDouble() * 10, random.nextDouble() * 10));
+                    break;
+            }
+        }
+        return shapes;
+    }
+
+    private void assertRecord(Shape expected, MappedShapeStore store, int index) {
+        assertEquals(expected.toString(), store.get(index).toString(), "record " + index);
+        assertEquals(expected.getArea(), store.getArea(index), "area of record " + index);
+        assertEquals(expected.getPerimeter(), store.getPerimeter(index), "perimeter of record " + index);
+        if (expected instanceof Transformable) {
+            assertEquals(Positions.x((Transformable) expected), store.getX(index), "x of record " + index);
+            assertEquals(Positions.y((Transformable) expected), store.getY(index), "y of record " + index);
+        }
+    }
+
+    @Test
+    @DisplayName("Records survive append, delete, compact and reopening the file")
+    void roundTrips() throws IOException {
+        Path file = dir.resolve("shapes.bin");
+        // enough records to remap the file a few times
+        List<Shape> shapes = shapes(1000);
+        try (MappedShapeStore store = MappedShapeStore.open(file)) {
+            store.appendAll(shapes);
+            assertEquals(shapes.size(), store.size());
+            for (int i = 0; i < shapes.size(); i++) {
+                assertRecord(shapes.get(i), store, i);
+            }
+        }
+
+        List<Shape> live = new ArrayList<>();
+        try (MappedShapeStore store = MappedShapeStore.open(file)) {
+            assertEquals(shapes.size(), store.size());
+            for (int i = 0; i < shapes.size(); i++) {
+                assertRecord(shapes.get(i), store, i);
+                if (i % 4 == 1) {
+                    store.delete(i);
+                } else {
+                    live.add(shapes.get(i));
+                }
+            }
+            assertTrue(store.isDeleted(1));
+            assertFalse(store.isDeleted(0));
+
+            ShapeBuffer buffer = new ShapeBuffer();
+            store.loadInto(buffer);
+            assertEquals(live.size(), buffer.size());
+            for (int i = 0; i < live.size(); i++) {
+                assertEquals(live.get(i).toString(), buffer.get(i).toString(), "loaded row " + i);
+            }
+
+            store.compact();
+            assertEquals(live.size(), store.size());
+            for (int i = 0; i < live.size(); i++) {
+                assertRecord(live.get(i), store, i);
+            }
+        }
+        assertEquals(MappedShapeStore.offset(live.size()), Files.size(file), "compact shrinks the file");
+
+        try (MappedShapeStore store = MappedShapeStore.open(file)) {
+            assertEquals(live.size(), store.size());
+            for (int i = 0; i < live.size(); i++) {
+                assertRecord(live.get(i), store, i);
+            }
+            // appending after a compact grows the file again
+            Circle cir = new Circle(4);
+            cir.position[0] = -7;
+            int index = store.append(cir);
+            assertEquals(live.size(), index);
+            assertRecord(cir, store, index);
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(index + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Compacting away every record leaves an empty store")
+    void compactsToEmpty() throws IOException {
+        Path file = dir.resolve("empty.bin");
+        try (MappedShapeStore store = MappedShapeStore.open(file)) {
+            store.append(new Circle(1));
+            store.append(new Rectangle(2, 3));
+            store.delete(0);
+            store.delete(1);
+            store.compact();
+            assertEquals(0, store.size());
+        }
+        try (MappedShapeStore store = MappedShapeStore.open(file)) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Files with another version, a bad magic number or a bad count are refused")
+    void rejectsForeignFiles() throws IOException {
+        Path file = dir.resolve("old.bin");
+        try (MappedShapeStore store = MappedShapeStore.open(file)) {
+            store.append(new Circle(1));
+        }
+        rewriteHeader(file, 4, MappedShapeStore.VERSION + 1);
+        IOException version = assertThrows(IOException.class, () -> MappedShapeStore.open(file));
+        assertTrue(version.getMessage().contains("version"), version.getMessage());
+
+        rewriteHeader(file, 4, MappedShapeStore.VERSION);
+        rewriteHeader(file, 0, 0x12345678);
+        assertThrows(IOException.class, () -> MappedShapeStore.open(file));
+
+        rewriteHeader(file, 0, MappedShapeStore.MAGIC);
+        rewriteHeader(file, 8, 1_000_000);
+        assertThrows(IOException.class, () -> MappedShapeStore.open(file));
+
+        Path tiny = dir.resolve("tiny.bin");
+        Files.write(tiny, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> MappedShapeStore.open(tiny));
+    }
+
+    private void rewriteHeader(Path file, int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.putInt(value).flip();
+            channel.write(bytes, offset);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import javax.management.ObjectName;
+
+class MetricsTest {
+
+    @Test
+    @DisplayName("Histogram buckets cover every value once, within 12.5% of it")
+    void bucketsAreTight() {
+        Random random = new Random(9);
+        int previous = -1;
+        for (long value = 0; value < 100000; value++) {
+            int bucket = LatencyHistogram.bucket(value);
+            if (bucket != previous) {
+                // a new bucket starts right after the previous one's top value
+                assertEquals(previous + 1, bucket, "buckets do not skip at " + value);
+                assertEquals(value - 1, LatencyHistogram.highestValue(previous), "top of bucket " + previous);
+                previous = bucket;
+            }
+            long highest = LatencyHistogram.highestValue(bucket);
+            assertTrue(highest >= value, "value " + value + " above its bucket's top " + highest);
+            assertTrue(highest - value <= value / LatencyHistogram.SUB_BUCKETS, "bucket too wide at " + value);
+        }
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            long highest = LatencyHistogram.highestValue(LatencyHistogram.bucket(value));
+            assertTrue(highest >= value && highest - value <= value / LatencyHistogram.SUB_BUCKETS, "bucket of " + value);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.bucket(Long.MAX_VALUE)));
+        assertEquals(0, LatencyHistogram.bucket(-5), "clock steps backwards count as 0");
+    }
+
+    @Test
+    @DisplayName("Percentiles land in the right bucket and never exceed the max")
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.5), "empty histogram");
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        for (double fraction : new double[]{0.01, 0.25, 0.5, 0.9, 0.99}) {
+            long exact = (long) Math.ceil(fraction * 1000);
+            long reported = histogram.percentile(fraction);
+            assertTrue(reported >= exact && reported <= exact + exact / LatencyHistogram.SUB_BUCKETS,
+                    "p" + fraction + " was " + reported + ", exact " + exact);
+        }
+        assertEquals(1000, histogram.percentile(1.0));
+        assertEquals(1, histogram.percentile(0), "p0 is the smallest value recorded");
+
+        histogram.record(5000);
+        assertEquals(5000, histogram.percentile(1.0), "the top bucket is capped at the real max");
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    @DisplayName("Wrapped shapes and players count every call and time one in sampleEvery")
+    void countsThroughWrappers() throws Exception {
+        Metrics metrics = new Metrics(4);
+        Rectangle rect = new Rectangle(2, 3);
+        Shape wrapped = metrics.wrap(rect);
+        assertTrue(wrapped instanceof Transformable, "rectangles stay movable");
+        assertFalse(metrics.wrap(new Triangle(1, 1)) instanceof Transformable);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(6.0, wrapped.getArea());
+        }
+        assertEquals(10.0, wrapped.getPerimeter());
+        ((Transformable) wrapped).up();
+        ((Transformable) wrapped).right();
+        ((Transformable) wrapped).right();
+        assertEquals(2, rect.x, "moves reach the wrapped shape");
+        assertEquals(1, rect.y);
+        assertEquals(rect.toString(), wrapped.toString());
+
+        assertEquals(10, metrics.getCalls("Rectangle.getArea"));
+        assertEquals(2, metrics.metric("Rectangle.getArea").getLatency().getCount(), "10 calls sampled 1 in 4");
+        assertEquals(1, metrics.getCalls("Rectangle.getPerimeter"));
+        assertEquals(2, metrics.getCalls("Rectangle.right"));
+        assertEquals(0, metrics.getCalls("Rectangle.down"));
+        assertEquals(0, metrics.getCalls("no such metric"));
+
+        Player player = metrics.wrap(new MusicPlayer(new String[]{"a", "b"}));
+        player.start();
+        player.volumeUp();
+        player.volumeUp();
+        player.volumeDown();
+        player.stop();
+        assertEquals(1, player.getVolume());
+        assertEquals(2, metrics.getCalls("MusicPlayer.volumeUp"));
+        assertEquals(1, metrics.getCalls("MusicPlayer.start"));
+
+        String[] names = metrics.getMetricNames();
+        for (int i = 1; i < names.length; i++) {
+            assertTrue(names[i - 1].compareTo(names[i]) < 0, "names are sorted");
+        }
+        assertTrue(metrics.getSnapshot().contains("Rectangle.getArea calls=10 sampled=2"), metrics.getSnapshot());
+
+        ObjectName name = metrics.registerMBean("shapes.test:type=Metrics");
+        try {
+            assertEquals(10L, ManagementFactory.getPlatformMBeanServer()
+                    .invoke(name, "getCalls", new Object[]{"Rectangle.getArea"}, new String[]{String.class.getName()}));
+        } finally {
+            metrics.unregisterMBean(name);
+        }
+
+        metrics.reset();
+        assertEquals(0, metrics.getCalls("Rectangle.getArea"));
+        assertEquals(0, metrics.getLatencyPercentile("Rectangle.getArea", 0.5));
+    }
+
+    @Test
+    @DisplayName("Wrapped shapes go into ShapeBuffer and MappedShapeStore like the shapes they wrap")
+    void ingestsWrappedShapes() throws Exception {
+        Metrics metrics = new Metrics();
+        Circle cir = new Circle(3);
+        cir.position[0] = 4;
+        Shape[] shapes = {metrics.wrap(cir), metrics.wrap(new Triangle(2, 5)), metrics.wrap(new ImmutableRectangle(1, 2))};
+        ShapeBuffer buffer = new ShapeBuffer();
+        buffer.addAll(Arrays.asList(shapes));
+        assertEquals(ShapeBuffer.CIRCLE, buffer.getKind(0));
+        assertEquals(4, buffer.getX(0));
+        assertEquals(5.0, buffer.getArea(1));
+        assertEquals(ShapeBuffer.RECTANGLE, buffer.getKind(2));
+
+        Path file = Files.createTempFile("metrics", ".shapes");
+        try (MappedShapeStore store = MappedShapeStore.open(file)) {
+            for (Shape shape : shapes) {
+                store.append(shape);
+            }
+            assertEquals(4, store.getX(0));
+            assertEquals(shapes[1].toString(), store.get(1).toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+class MoveBatchTest {
+
+    private List<Transformable> randomShapes(Random random, int n) {
+        List<Transformable> shapes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (random.nextBoolean()) {
+                // fractional and negative radii go through the same int conversion
+                Circle cir = new Circle(random.nextInt(40) / 4.0 - 2);
+                cir.position[0] = random.nextInt(100);
+                cir.position[1] = random.nextInt(100);
+                shapes.add(cir);
+            } else {
+                Rectangle rect = new Rectangle(random.nextInt(10), random.nextInt(10));
+                rect.x = random.nextInt(100);
+                rect.y = random.nextInt(100);
+                shapes.add(rect);
+            }
+        }
+        return shapes;
+    }
+
+    private List<Transformable> copy(List<Transformable> shapes) {
+        ShapeBuffer buffer = new ShapeBuffer();
+        List<Transformable> copies = new ArrayList<>();
+        for (Transformable shape : shapes) {
+            copies.add((Transformable) buffer.toShape(buffer.add((Shape) shape)));
+        }
+        return copies;
+    }
+
+    private int[] positions(List<Transformable> shapes) {
+        int[] positions = new int[2 * shapes.size()];
+        for (int i = 0; i < shapes.size(); i++) {
+            positions[2 * i] = Positions.x(shapes.get(i));
+            positions[2 * i + 1] = Positions.y(shapes.get(i));
+        }
+        return positions;
+    }
+
+    private int[] positions(ShapeBuffer buffer) {
+        int[] positions = new int[2 * buffer.size()];
+        for (int i = 0; i < buffer.size(); i++) {
+            positions[2 * i] = buffer.getX(i);
+            positions[2 * i + 1] = buffer.getY(i);
+        }
+        return positions;
+    }
+
+    @Test
+    @DisplayName("List, array and ShapeBuffer batches move shapes exactly like up(), down(), left() and right()")
+    void matchesSingleMoves() {
+        Random random = new Random(53);
+        List<Transformable> shapes = randomShapes(random, 200);
+        List<Transformable> one = copy(shapes);
+        List<Transformable> list = copy(shapes);
+        Transformable[] array = copy(shapes).toArray(new Transformable[0]);
+        ShapeBuffer buffer = new ShapeBuffer();
+        for (Transformable shape : shapes) {
+            buffer.add((Shape) shape);
+        }
+
+        MoveBatch batch = new MoveBatch(4);
+        for (int tick = 0; tick < 20; tick++) {
+            batch.clear();
+            for (int i = 0; i < 1000; i++) {
+                int target = random.nextInt(shapes.size());
+                Transformable shape = one.get(target);
+                switch (random.nextInt(4)) {
+                    case 0: batch.up(target); shape.up(); break;
+                    case 1: batch.down(target); shape.down(); break;
+                    case 2: batch.left(target); shape.left(); break;
+                    default: batch.right(target); shape.right(); break;
+                }
+            }
+            assertEquals(1000, batch.size());
+            batch.apply(list);
+            batch.apply(array);
+            batch.apply(buffer);
+            int[] expected = positions(one);
+            assertArrayEquals(expected, positions(list), "List, tick " + tick);
+            assertArrayEquals(expected, positions(Arrays.asList(array)), "array, tick " + tick);
+            assertArrayEquals(expected, positions(buffer), "ShapeBuffer, tick " + tick);
+        }
+
+        // any other Transformable goes through the interface
+        ConcurrentCircle other = new ConcurrentCircle(3);
+        batch.clear();
+        batch.add(0, MoveBatch.RIGHT);
+        batch.add(0, MoveBatch.UP);
+        batch.add(0, MoveBatch.UP);
+        batch.apply(new Transformable[]{other});
+        ConcurrentCircle expected = new ConcurrentCircle(3);
+        expected.right();
+        expected.up();
+        expected.up();
+        assertEquals(Positions.x(expected), Positions.x(other));
+        assertEquals(Positions.y(expected), Positions.y(other));
+    }
+
+    @Test
+    @DisplayName("A batch the ShapeBuffer rejects moves none of its rows")
+    void rejectsWholeBatch() {
+        ShapeBuffer buffer = new ShapeBuffer();
+        buffer.addCircle(2);
+        buffer.addRectangle(1, 1);
+        buffer.addTriangle(3, 4);
+        buffer.setPosition(0, 10, 20);
+        buffer.setPosition(1, -5, 7);
+        int[] before = positions(buffer);
+
+        byte[] ops = {MoveBatch.UP, MoveBatch.RIGHT, MoveBatch.LEFT};
+        assertThrows(IndexOutOfBoundsException.class, () -> MoveBatch.apply(ops, new int[]{0, 1, 3}, 0, 3, buffer));
+        assertArrayEquals(before, positions(buffer), "target past the end");
+        assertThrows(IndexOutOfBoundsException.class, () -> MoveBatch.apply(ops, new int[]{0, 1, -1}, 0, 3, buffer));
+        assertArrayEquals(before, positions(buffer), "negative target");
+        assertThrows(IllegalArgumentException.class, () -> MoveBatch.apply(ops, new int[]{0, 1, 2}, 0, 3, buffer));
+        assertArrayEquals(before, positions(buffer), "a triangle cannot move");
+        byte[] bad = {MoveBatch.UP, MoveBatch.RIGHT, 7};
+        assertThrows(IllegalArgumentException.class, () -> MoveBatch.apply(bad, new int[]{0, 1, 1}, 0, 3, buffer));
+        assertArrayEquals(before, positions(buffer), "unknown opcode");
+
+        // only [from, to) is checked and applied
+        MoveBatch.apply(bad, new int[]{0, 1, 2}, 0, 2, buffer);
+        assertArrayEquals(new int[]{10, 22, -4, 7, 0, 0}, positions(buffer));
+
+        MoveBatch batch = new MoveBatch();
+        assertThrows(IllegalArgumentException.class, () -> batch.add(0, (byte) -1));
+        assertEquals(0, batch.size());
+    }
+}
@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class MoveLogTest {
+
+    private int[][] positions(List<Transformable> shapes) {
+        int[][] positions = new int[2][shapes.size()];
+        for (int i = 0; i < shapes.size(); i++) {
+            positions[0][i] = Positions.x(shapes.get(i));
+            positions[1][i] = Positions.y(shapes.get(i));
+        }
+        return positions;
+    }
+
+    @Test
+    @DisplayName("Replay rebuilds the positions after every tick")
+    void replaysEveryTick() {
+        Random random = new Random(5);
+        MoveLog log = new MoveLog(3, 7);
+        List<Transformable> shapes = new ArrayList<>();
+        List<int[][]> history = new ArrayList<>();
+        for (int t = 0; t < 40; t++) {
+            if (t % 10 == 0) {
+                // registered in several waves, with odd radii that round differently at negative positions
+                for (int i = 0; i < 1500; i++) {
+                    if (random.nextBoolean()) {
+                        Circle cir = new Circle(random.nextInt(7) - 3 + (random.nextBoolean() ? 0.5 : 0));
+                        cir.position[0] = random.nextInt(100) - 50;
+                        shapes.add(cir);
+                    } else {
+                        Rectangle rect = new Rectangle(2, 3);
+                        rect.y = random.nextInt(100) - 50;
+                        shapes.add(rect);
+                    }
+                    log.register(shapes.get(shapes.size() - 1));
+                }
+            }
+            if (t == 0) {
+                history.add(positions(shapes));
+            }
+            for (int k = 0; k < 5000; k++) {
+                Transformable shape = shapes.get(random.nextInt(shapes.size()));
+                switch (random.nextInt(4)) {
+                    case 0: shape.up(); break;
+                    case 1: shape.down(); break;
+                    case 2: shape.left(); break;
+                    default: shape.right(); break;
+                }
+                // moves the log cannot predict end up as corrections
+                if (random.nextInt(1000) == 0 && shape instanceof Circle) {
+                    ((Circle) shape).setRadius(random.nextDouble() * 5 - 2);
+                }
+                if (random.nextInt(2000) == 0) {
+                    Affine.rotate(Math.PI / 2).apply((Shape) shape);
+                }
+            }
+            log.tick();
+            history.add(positions(shapes));
+        }
+
+        for (int t = 0; t <= 40; t++) {
+            int[] x = new int[shapes.size()];
+            int[] y = new int[shapes.size()];
+            log.positionsAt(t, x, y);
+            int[][] expected = history.get(t);
+            for (int i = 0; i < expected[0].length; i++) {
+                assertEquals(expected[0][i], x[i], "x of shape " + i + " after tick " + t);
+                assertEquals(expected[1][i], y[i], "y of shape " + i + " after tick " + t);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A position written directly is replayed from the next move on")
+    void replaysDirectWrites() {
+        MoveLog log = new MoveLog(2, 4);
+        Rectangle rect = new Rectangle(2, 3);
+        Circle cir = new Circle(2);
+        log.register(rect);
+        log.register(cir);
+        rect.up();
+        log.tick();
+        rect.x = 100;
+        rect.up();
+        cir.position[1] = -7;
+        cir.right();
+        log.tick();
+        cir.position[0] = 40;
+        cir.position[1] = 5;
+        // a move that lands back where the log last saw it
+        cir.position[0] = 0;
+        cir.position[1] = 2;
+        cir.left();
+        cir.right();
+        log.tick();
+        rect.x = 50;
+        rect.down();
+        rect.up();
+        log.tick();
+
+        int[][] expected = {{0, 100, 100, 50}, {1, 2, 2, 2}, {0, 2, 0, 0}, {0, -7, 2, 2}};
+        int[] x = new int[2];
+        int[] y = new int[2];
+        for (int t = 1; t <= 4; t++) {
+            log.positionsAt(t, x, y);
+            assertEquals(expected[0][t - 1], x[0], "rectangle x after tick " + t);
+            assertEquals(expected[1][t - 1], y[0], "rectangle y after tick " + t);
+            assertEquals(expected[2][t - 1], x[1], "circle x after tick " + t);
+            assertEquals(expected[3][t - 1], y[1], "circle y after tick " + t);
+        }
+    }
+
+    @Test
+    @DisplayName("Only circles and rectangles can be registered")
+    void rejectsOtherShapes() {
+        MoveLog log = new MoveLog();
+        assertThrows(IllegalArgumentException.class, () -> log.register(new ConcurrentCircle(2)));
+        assertThrows(IllegalArgumentException.class, () -> log.positionsAt(1, new int[0], new int[0]));
+    }
+}
@@ -0,0 +1,157 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+class PartitionedShapeListTest {
+
+    private List<Shape> shapes(int n, long seed) {
+        Random random = new Random(seed);
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            switch (random.nextInt(4)) {
+                case 0: shapes.add(new Circle(random.nextDouble() * 50)); break;
+                case 1: shapes.add(new Rectangle(random.nextDouble() * 100, random.nextDouble() * 100)); break;
+                case 2: shapes.add(new Triangle(random.nextDouble() * 100, random.nextDouble() * 100)); break;
+                default: shapes.add(new ImmutableCircle(random.nextDouble() * 50)); break;
+            }
+        }
+        return shapes;
+    }
+
+    // circles, then rectangles, then triangles, then the rest, each in the order added
+    private List<Shape> segmentOrder(List<Shape> shapes) {
+        List<Shape> ordered = new ArrayList<>();
+        for (Class<?> kind : new Class<?>[]{Circle.class, Rectangle.class, Triangle.class}) {
+            for (Shape shape : shapes) {
+                if (shape.getClass() == kind) {
+                    ordered.add(shape);
+                }
+            }
+        }
+        for (Shape shape : shapes) {
+            if (shape.getClass() != Circle.class && shape.getClass() != Rectangle.class && shape.getClass() != Triangle.class) {
+                ordered.add(shape);
+            }
+        }
+        return ordered;
+    }
+
+    private List<Shape> iterated(PartitionedShapeList list) {
+        List<Shape> shapes = new ArrayList<>();
+        for (Shape shape : list) {
+            shapes.add(shape);
+        }
+        return shapes;
+    }
+
+    @Test
+    @DisplayName("iterator() and forEach() go through the segments in order, skipping empty ones")
+    void iteratesBySegment() {
+        List<Shape> shapes = shapes(200, 61);
+        PartitionedShapeList list = new PartitionedShapeList(shapes);
+        assertEquals(shapes.size(), list.size());
+        assertEquals(segmentOrder(shapes), iterated(list));
+        List<Shape> consumed = new ArrayList<>();
+        list.forEach(consumed::add);
+        assertEquals(segmentOrder(shapes), consumed);
+
+        // no circles or triangles
+        PartitionedShapeList gaps = new PartitionedShapeList();
+        Rectangle rect = new Rectangle(1, 2);
+        ImmutableCircle other = new ImmutableCircle(3);
+        gaps.add(other);
+        gaps.add(rect);
+        Iterator<Shape> it = gaps.iterator();
+        assertSame(rect, it.next());
+        assertSame(other, it.next());
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+
+        assertFalse(new PartitionedShapeList().iterator().hasNext());
+        assertThrows(NullPointerException.class, () -> gaps.add(null));
+    }
+
+    @Test
+    @DisplayName("Iterator.remove() removes the last shape returned, also after hasNext() moved to the next segment")
+    void removesAcrossSegments() {
+        PartitionedShapeList list = new PartitionedShapeList();
+        Circle c1 = new Circle(1);
+        Circle c2 = new Circle(2);
+        Rectangle r1 = new Rectangle(1, 1);
+        Triangle t1 = new Triangle(3, 4);
+        ImmutableCircle o1 = new ImmutableCircle(5);
+        list.add(c1);
+        list.add(r1);
+        list.add(c2);
+        list.add(t1);
+        list.add(o1);
+
+        Iterator<Shape> it = list.iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        assertSame(c1, it.next());
+        assertSame(c2, it.next());
+        assertTrue(it.hasNext(), "now on the rectangles");
+        it.remove();
+        assertThrows(IllegalStateException.class, it::remove, "only once per next()");
+        assertSame(r1, it.next());
+        it.remove();
+        assertSame(t1, it.next());
+        assertSame(o1, it.next());
+        assertFalse(it.hasNext());
+        it.remove();
+
+        assertEquals(2, list.size());
+        assertEquals(1, list.getCircles().size());
+        assertSame(c1, list.getCircles().get(0));
+        assertTrue(list.getRectangles().isEmpty());
+        List<Shape> rest = new ArrayList<>();
+        rest.add(c1);
+        rest.add(t1);
+        assertEquals(rest, iterated(list));
+
+        // removeIf goes through the same iterator
+        List<Shape> shapes = shapes(300, 67);
+        PartitionedShapeList big = new PartitionedShapeList(shapes);
+        assertTrue(big.removeIf(shape -> shape.getArea() > 1000));
+        shapes.removeIf(shape -> shape.getArea() > 1000);
+        assertEquals(segmentOrder(shapes), iterated(big));
+    }
+
+    @Test
+    @DisplayName("totalArea(), totalPerimeter() and the reductions match a plain loop over every shape")
+    void matchesPlainLoop() {
+        List<Shape> shapes = shapes(1000, 71);
+        PartitionedShapeList list = new PartitionedShapeList(shapes);
+        double area = 0;
+        double perimeter = 0;
+        double maxArea = Double.NEGATIVE_INFINITY;
+        double minPerimeter = Double.POSITIVE_INFINITY;
+        for (Shape shape : shapes) {
+            area += shape.getArea();
+            perimeter += shape.getPerimeter();
+            maxArea = Math.max(maxArea, shape.getArea());
+            minPerimeter = Math.min(minPerimeter, shape.getPerimeter());
+        }
+        // sums are added in segment order, so only close
+        assertEquals(area, list.totalArea(), area * 1e-12);
+        assertEquals(perimeter, list.totalPerimeter(), perimeter * 1e-12);
+        assertEquals(area, list.reduceArea(0, Double::sum), area * 1e-12);
+        assertEquals(perimeter, list.reducePerimeter(0, Double::sum), perimeter * 1e-12);
+        assertEquals(maxArea, list.reduceArea(Double.NEGATIVE_INFINITY, Math::max));
+        assertEquals(minPerimeter, list.reducePerimeter(Double.POSITIVE_INFINITY, Math::min));
+
+        PartitionedShapeList empty = new PartitionedShapeList();
+        assertEquals(0.0, empty.totalArea());
+        assertEquals(0.0, empty.totalPerimeter());
+        assertEquals(-1.0, empty.reduceArea(-1, Math::max));
+        list.clear();
+        assertEquals(0, list.size());
+        assertEquals(0.0, list.totalArea());
+    }
+}
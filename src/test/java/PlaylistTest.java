@@ -0,0 +1,182 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class PlaylistTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Shuffle.at() and positionOf() are inverse bijections of 0..n-1")
+    void shuffleIsABijection() {
+        for (int n : new int[]{0, 1, 2, 3, 1000}) {
+            for (long seed = 0; seed < 5; seed++) {
+                Shuffle shuffle = new Shuffle(n, seed);
+                assertEquals(n, shuffle.size());
+                boolean[] seen = new boolean[n];
+                for (int position = 0; position < n; position++) {
+                    int index = shuffle.at(position);
+                    assertTrue(index >= 0 && index < n, "index " + index + " out of 0.." + (n - 1));
+                    assertFalse(seen[index], "index " + index + " played twice");
+                    seen[index] = true;
+                    assertEquals(position, shuffle.positionOf(index), "positionOf(at(" + position + ")), n " + n);
+                }
+                assertThrows(IndexOutOfBoundsException.class, () -> shuffle.at(n));
+                assertThrows(IndexOutOfBoundsException.class, () -> shuffle.positionOf(-1));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Shuffle(-1, 0));
+    }
+
+    @Test
+    @DisplayName("Titles round-trip through add(), load() and indexOf() as UTF-8")
+    void storesTitles() throws IOException {
+        Playlist playlist = Playlist.of("Alpha", "B\u00e9t\u00e0", "", "\u65e5\u672c\u8a9e");
+        assertEquals(4, playlist.size());
+        assertEquals("B\u00e9t\u00e0", playlist.get(1));
+        assertEquals("", playlist.get(2));
+        assertEquals("\u65e5\u672c\u8a9e", playlist.get(3));
+        assertEquals(3, playlist.indexOf("\u65e5\u672c\u8a9e"));
+        assertEquals(-1, playlist.indexOf("Beta"));
+        assertThrows(IndexOutOfBoundsException.class, () -> playlist.get(4));
+
+        Path file = this.dir.resolve("titles.txt");
+        Files.write(file, "one\r\n\ntwo\nthr\u00e9e".getBytes(StandardCharsets.UTF_8));
+        Playlist loaded = Playlist.load(file);
+        assertEquals(3, loaded.size(), "empty lines are skipped");
+        assertEquals("one", loaded.get(0));
+        assertEquals("thr\u00e9e", loaded.get(2));
+        assertEquals(3, loaded.add("four"));
+        assertEquals("four", loaded.get(3));
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append("Track ").append(i).append('\n');
+        }
+        Playlist big = Playlist.load(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(20000, big.size());
+        assertEquals("Track 12345", big.get(12345));
+    }
+
+    @Test
+    @DisplayName("A shuffled player plays every title once, including ones added after shuffle()")
+    void shufflesGrowingPlaylist() {
+        Playlist playlist = Playlist.of("a", "b", "c");
+        MusicPlayer player = new MusicPlayer(playlist);
+        player.shuffle(7);
+        player.start();
+        int added = playlist.add("d");
+        playlist.add("e");
+
+        List<Integer> order = new ArrayList<>();
+        order.add(player.getCurrentIndex());
+        for (int i = 0; i < 10; i++) {
+            int following = player.following(player.getCurrentIndex());
+            player.next();
+            if (following < 0) {
+                break;
+            }
+            assertEquals(following, player.getCurrentIndex(), "following() agrees with next()");
+            order.add(player.getCurrentIndex());
+        }
+        assertEquals(5, order.size(), "played " + order);
+        assertEquals(List.of(3, 4), order.subList(3, 5), "titles added later come after the shuffled ones");
+        for (int i = 0; i < 4; i++) {
+            player.previous();
+        }
+        assertEquals((int) order.get(0), player.getCurrentIndex());
+
+        // a title found after it was added, then jumped to
+        player.jumpTo(added);
+        assertEquals("d", player.getCurrentSong());
+        player.next();
+        assertEquals("e", player.getCurrentSong());
+        player.previous();
+        player.previous();
+        assertEquals((int) order.get(2), player.getCurrentIndex());
+
+        // shuffling again covers the new titles too
+        player.shuffle(8);
+        player.stop();
+        player.start();
+        boolean[] seen = new boolean[playlist.size()];
+        seen[player.getCurrentIndex()] = true;
+        for (int i = 1; i < playlist.size(); i++) {
+            player.next();
+            assertFalse(seen[player.getCurrentIndex()]);
+            seen[player.getCurrentIndex()] = true;
+        }
+
+        MusicPlayer empty = new MusicPlayer(new Playlist());
+        empty.shuffle(1);
+        empty.playlist.add("only");
+        empty.start();
+        assertEquals("only", empty.getCurrentSong());
+        assertEquals(-1, empty.following(0));
+    }
+
+    @Test
+    @DisplayName("start() on an empty library leaves the player off, and works once there is a title")
+    void startsEmptyLibrary() {
+        for (MusicPlayer player : new MusicPlayer[]{new MusicPlayer(new String[0]), new MusicPlayer(new Playlist())}) {
+            player.start();
+            assertFalse(player.getOnOff());
+            assertEquals("", player.getCurrentSong());
+            assertEquals(-1, player.getCurrentIndex());
+            player.next();
+            player.previous();
+            assertEquals(-1, player.getCurrentIndex());
+            player.shuffle(2);
+            player.start();
+            assertFalse(player.getOnOff(), "shuffled");
+            player.stop();
+            assertThrows(IndexOutOfBoundsException.class, () -> player.jumpTo(0));
+        }
+
+        Playlist playlist = new Playlist();
+        MusicPlayer player = new MusicPlayer(playlist);
+        player.start();
+        playlist.add("first");
+        player.start();
+        assertTrue(player.getOnOff());
+        assertEquals("first", player.getCurrentSong());
+    }
+
+    @Test
+    @DisplayName("snapshot() keeps the titles and order without copying them, and later changes do not show in it")
+    void snapshotsWithoutCopying() {
+        String[] titles = {"a", "b", "c", "d"};
+        MusicPlayer player = new MusicPlayer(titles);
+        player.shuffle(5);
+        MusicPlayer snapshot = player.snapshot();
+        assertSame(player.musicList, snapshot.musicList, "shared, not cloned");
+        assertSame(player.musicList, player.snapshot().musicList);
+        titles[0] = "changed";
+        assertEquals("a", snapshot.title(0), "the player copied the caller's array");
+        assertEquals("a", player.title(0));
+        player.unshuffle();
+        for (int i = 0; i < titles.length; i++) {
+            assertEquals(player.title(i), snapshot.title(i));
+        }
+        assertTrue(snapshot.isShuffled(), "keeps the order of when it was taken");
+        assertFalse(snapshot.getOnOff());
+
+        Playlist playlist = Playlist.of("x", "y");
+        MusicPlayer listed = new MusicPlayer(playlist);
+        MusicPlayer before = listed.snapshot();
+        playlist.add("z");
+        assertEquals(2, before.size());
+        assertEquals(3, listed.snapshot().size());
+        assertEquals("y", before.title(1));
+    }
+}
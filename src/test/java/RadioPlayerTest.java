@@ -0,0 +1,174 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+class RadioPlayerTest {
+
+    private double[] randomStations(Random random, int n) {
+        double[] stations = new double[n];
+        for (int i = 0; i < n; i++) {
+            switch (random.nextInt(10)) {
+                case 0: stations[i] = Double.NaN; break;
+                case 1: stations[i] = random.nextBoolean() ? 0.0 : -0.0; break;
+                default: stations[i] = 87.5 + random.nextInt(200) / 10.0; break;
+            }
+        }
+        return stations;
+    }
+
+    @Test
+    @DisplayName("Ranks follow frequency, equal frequencies keep list order, NaN comes last")
+    void sortsStations() {
+        Random random = new Random(37);
+        for (int n : new int[]{0, 1, 2, 5, 300, 5000}) {
+            double[] stations = randomStations(random, n);
+            StationIndex index = new StationIndex(stations);
+            int nan = 0;
+            for (double station : stations) {
+                if (station != station) {
+                    nan++;
+                }
+            }
+            assertEquals(n - nan, index.valid);
+            for (int r = 0; r < n; r++) {
+                assertEquals(r, index.rank[index.order[r]]);
+                assertEquals(Double.doubleToLongBits(stations[index.order[r]]), Double.doubleToLongBits(index.sorted[r]));
+                if (r > 0) {
+                    boolean ordered = index.sorted[r - 1] < index.sorted[r]
+                            || (index.sorted[r - 1] == index.sorted[r] && index.order[r - 1] < index.order[r])
+                            || (r >= index.valid && (r - 1 < index.valid || index.order[r - 1] < index.order[r]));
+                    assertTrue(ordered, "ranks " + (r - 1) + " and " + r + " of " + n);
+                }
+                if (r < index.valid) {
+                    int start = index.runStart[r];
+                    assertEquals(index.sorted[start], index.sorted[r]);
+                    assertTrue(start == 0 || index.sorted[start - 1] != index.sorted[r], "run of rank " + r + " starts at " + start);
+                    int end = index.runEnd[r];
+                    assertEquals(index.sorted[end - 1], index.sorted[r]);
+                    assertTrue(end == index.valid || index.sorted[end] != index.sorted[r], "run of rank " + r + " ends at " + end);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("nearest() finds the closest station, the lower one when two are equally close")
+    void findsNearest() {
+        Random random = new Random(41);
+        double[] stations = randomStations(random, 2000);
+        StationIndex index = new StationIndex(stations);
+        for (int q = 0; q < 20000; q++) {
+            double frequency = random.nextInt(5) == 0 ? 87.5 + random.nextInt(400) / 20.0 : random.nextDouble() * 120 - 5;
+            double best = Double.POSITIVE_INFINITY;
+            for (double station : stations) {
+                if (station == station) {
+                    best = Math.min(best, Math.abs(station - frequency));
+                }
+            }
+            double expected = Double.NaN;
+            for (double station : stations) {
+                if (Math.abs(station - frequency) <= best + StationIndex.tolerance(frequency) && !(station >= expected)) {
+                    expected = station;
+                }
+            }
+            int r = index.nearest(frequency);
+            assertEquals(expected, index.sorted[r], 0.0, "nearest to " + frequency);
+            assertEquals(index.runStart[r], r, "the first of equal stations");
+        }
+        assertEquals(-1, index.nearest(Double.NaN));
+        assertEquals(-1, new StationIndex(new double[]{Double.NaN}).nearest(100));
+        assertEquals(-1, new StationIndex(new double[0]).nearest(100));
+    }
+
+    @Test
+    @DisplayName("tuneNearest() honours maxDistance and treats arithmetic noise as a tie")
+    void tunesNearest() {
+        double noisy = Math.nextUp(101.3);
+        RadioPlayer radio = new RadioPlayer(new double[]{101.5, noisy, 101.1, Double.NaN, 101.3});
+        assertTrue(radio.tuneNearest(noisy));
+        assertTrue(radio.getOnOff(), "tuning turns the radio on");
+        assertEquals(4, radio.index, "equally near within the tolerance, the lower one wins over an exact match");
+
+        assertTrue(radio.tuneNearest(101.2, 0.1));
+        assertEquals(101.1, radio.getStation(), "a midpoint goes to the lower station");
+        assertFalse(radio.tuneNearest(103, 1));
+        assertEquals(101.1, radio.getStation(), "nothing changes when no station is close enough");
+        assertTrue(radio.tuneNearest(103));
+        assertEquals(101.5, radio.getStation());
+        assertFalse(radio.tuneNearest(Double.NaN));
+        assertTrue(radio.tuneNearest(Double.NEGATIVE_INFINITY));
+        assertEquals(101.1, radio.getStation());
+    }
+
+    @Test
+    @DisplayName("Scanning wraps around the band, skips equal frequencies and leaves NaN stations")
+    void scansWithWraparound() {
+        double[] stations = {99.9, Double.NaN, 88.1, 104.5, 99.9, 0.0, -0.0, 88.1};
+        RadioPlayer radio = new RadioPlayer(stations);
+        radio.scanUp();
+        assertEquals(0, radio.getStation(), "does nothing while off");
+        radio.start();
+        assertEquals(99.9, radio.getStation());
+
+        double[] up = {104.5, 0.0, 88.1, 99.9, 104.5};
+        for (double expected : up) {
+            radio.scanUp();
+            assertEquals(expected, radio.getStation(), 0.0);
+        }
+        radio.tuneNearest(0);
+        assertEquals(5, radio.index, "0.0 and -0.0 are one frequency, the first in the list");
+        radio.scanDown();
+        assertEquals(104.5, radio.getStation(), "down from the lowest wraps to the highest");
+        radio.scanDown();
+        radio.scanDown();
+        assertEquals(88.1, radio.getStation());
+        assertEquals(2, radio.index);
+
+        radio.next(); // the list order still works, and reaches the NaN station
+        radio.previous();
+        radio.previous();
+        assertEquals(1, radio.index);
+        assertTrue(Double.isNaN(radio.getStation()));
+        radio.scanDown();
+        assertEquals(104.5, radio.getStation(), "down from a NaN station goes to the highest");
+        radio.tune(1);
+        radio.scanUp();
+        assertEquals(0.0, radio.getStation(), "up from a NaN station goes to the lowest");
+
+        RadioPlayer single = new RadioPlayer(new double[]{Double.NaN, 95.0, 95.0});
+        single.start();
+        single.scanUp();
+        assertEquals(1, single.index);
+        single.scanUp();
+        assertEquals(1, single.index, "one frequency scans to itself");
+        single.scanDown();
+        assertEquals(1, single.index);
+
+        RadioPlayer silent = new RadioPlayer(new double[]{Double.NaN});
+        silent.start();
+        silent.scanUp();
+        silent.scanDown();
+        assertEquals(0, silent.index);
+    }
+
+    @Test
+    @DisplayName("start() without stations leaves the radio off")
+    void startsWithoutStations() {
+        RadioPlayer radio = new RadioPlayer(new double[0]);
+        radio.start();
+        assertFalse(radio.getOnOff());
+        assertEquals(-1, radio.index);
+        assertEquals(0.0, radio.getStation());
+        radio.next();
+        radio.previous();
+        radio.scanUp();
+        radio.scanDown();
+        assertEquals(-1, radio.index);
+        assertFalse(radio.tuneNearest(95.0));
+        assertFalse(radio.getOnOff());
+        radio.stop();
+        assertFalse(radio.getOnOff());
+    }
+}
@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+class RasterizerTest {
+
+    // Pixel centre test against every shape, the slow way the rasterizer replaces
+    private boolean inside(Shape shape, int px, int py) {
+        double x = px + 0.5;
+        double y = py + 0.5;
+        if (shape instanceof Circle) {
+            Circle cir = (Circle) shape;
+            double dx = x - cir.position[0];
+            double dy = y - cir.position[1];
+            return dx * dx + dy * dy <= cir.radius * cir.radius;
+        }
+        Rectangle rect = (Rectangle) shape;
+        return x >= Math.min(rect.x, rect.x + rect.length) && x <= Math.max(rect.x, rect.x + rect.length)
+                && y >= Math.min(rect.y, rect.y + rect.width) && y <= Math.max(rect.y, rect.y + rect.width);
+    }
+
+    @Test
+    @DisplayName("Occupancy and coverage match a per-pixel test across tile edges")
+    void matchesBruteForce() {
+        int width = 600;
+        int height = 300;
+        Random random = new Random(3);
+        Shape[] shapes = new Shape[400];
+        Rasterizer raster = new Rasterizer(width, height);
+        for (int i = 0; i < shapes.length; i++) {
+            if ((i & 1) == 0) {
+                Circle cir = new Circle(random.nextInt(40) + random.nextDouble());
+                cir.position[0] = random.nextInt(width + 100) - 50;
+                cir.position[1] = random.nextInt(height + 100) - 50;
+                shapes[i] = cir;
+            } else {
+                Rectangle rect = new Rectangle(random.nextInt(161) - 80 + random.nextDouble(), random.nextInt(81) - 40);
+                rect.x = random.nextInt(width + 100) - 50;
+                rect.y = random.nextInt(height + 100) - 50;
+                shapes[i] = rect;
+            }
+            raster.add(shapes[i]);
+        }
+        long[] bitmap = raster.occupancy();
+        int[] counts = raster.coverage();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int expected = 0;
+                for (Shape shape : shapes) {
+                    if (inside(shape, x, y)) {
+                        expected++;
+                    }
+                }
+                assertEquals(expected, counts[y * width + x], "coverage at " + x + ", " + y);
+                assertEquals(expected > 0, Rasterizer.isSet(bitmap, raster.wordsPerRow(), x, y), "occupancy at " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Shapes without a position are rejected")
+    void rejectsTriangles() {
+        Rasterizer raster = new Rasterizer(64, 64);
+        assertThrows(IllegalArgumentException.class, () -> raster.add(new Triangle(3, 4)));
+    }
+}
@@ -0,0 +1,153 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class ShapeBufferTest {
+
+    // Circle, Rectangle and Triangle with odd sizes, including negative and zero ones
+    private List<Shape> shapes(int n, long seed) {
+        Random random = new Random(seed);
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double d1 = random.nextInt(10) == 0 ? 0 : random.nextDouble() * 200 - 20;
+            double d2 = random.nextDouble() * 200 - 20;
+            switch (random.nextInt(3)) {
+                case 0:
+                    Circle cir = new Circle(d1);
+                    cir.position[0] = random.nextInt();
+                    cir.position[1] = random.nextInt();
+                    shapes.add(cir);
+                    break;
+                case 1:
+                    Rectangle rect = new Rectangle(d1, d2);
+                    rect.x = random.nextInt();
+                    rect.y = random.nextInt();
+                    shapes.add(rect);
+                    break;
+                default:
+                    shapes.add(new Triangle(d1, d2));
+                    break;
+            }
+        }
+        return shapes;
+    }
+
+    private String appended(Shape shape) {
+        StringBuilder out = new StringBuilder("> ");
+        shape.appendTo(out);
+        return out.toString();
+    }
+
+    private void assertSameShape(Shape expected, Shape actual, String message) {
+        assertEquals(expected.getClass(), actual.getClass(), message);
+        assertEquals(expected.toString(), actual.toString(), message);
+        if (expected instanceof Transformable) {
+            assertEquals(Positions.x((Transformable) expected), Positions.x((Transformable) actual), message);
+            assertEquals(Positions.y((Transformable) expected), Positions.y((Transformable) actual), message);
+        }
+    }
+
+    @Test
+    @DisplayName("Rows give exactly the area, perimeter and text of the Circle, Rectangle or Triangle they came from")
+    void matchesShapes() {
+        List<Shape> shapes = shapes(500, 73);
+        ShapeBuffer buffer = new ShapeBuffer();
+        for (int i = 0; i < shapes.size(); i++) {
+            assertEquals(i, buffer.add(shapes.get(i)));
+        }
+        assertEquals(shapes.size(), buffer.size());
+
+        double[] areas = new double[shapes.size() + 1];
+        double[] perimeters = new double[shapes.size() + 1];
+        buffer.areas(0, buffer.size(), areas, 1);
+        buffer.perimeters(0, buffer.size(), perimeters, 1);
+        for (int i = 0; i < shapes.size(); i++) {
+            Shape shape = shapes.get(i);
+            String at = "row " + i + ", " + shape;
+            // assertEquals on doubles compares bits, so these must be the same formulas
+            assertEquals(shape.getArea(), buffer.getArea(i), at);
+            assertEquals(shape.getPerimeter(), buffer.getPerimeter(i), at);
+            assertEquals(shape.getArea(), areas[i + 1], at);
+            assertEquals(shape.getPerimeter(), perimeters[i + 1], at);
+            StringBuilder out = new StringBuilder("> ");
+            buffer.appendTo(i, out);
+            assertEquals(appended(shape), out.toString(), at);
+
+            Shape view = buffer.get(i);
+            assertEquals(shape.getArea(), view.getArea(), at);
+            assertEquals(shape.getPerimeter(), view.getPerimeter(), at);
+            assertEquals(shape.toString(), view.toString(), at);
+            assertEquals(appended(shape), appended(view), at);
+
+            assertSameShape(shape, buffer.toShape(i), at);
+            if (shape instanceof Transformable) {
+                assertEquals(Positions.x((Transformable) shape), buffer.getX(i), at);
+                assertEquals(Positions.y((Transformable) shape), buffer.getY(i), at);
+            } else {
+                assertEquals(0, buffer.getX(i), at);
+                assertEquals(0, buffer.getY(i), at);
+            }
+        }
+
+        // the bulk sums add in row order, like this loop
+        double area = 0;
+        double perimeter = 0;
+        for (int i = 10; i < 300; i++) {
+            area += shapes.get(i).getArea();
+            perimeter += shapes.get(i).getPerimeter();
+        }
+        assertEquals(area, buffer.getArea(10, 300));
+        assertEquals(perimeter, buffer.getPerimeter(10, 300));
+        assertEquals(0.0, buffer.getArea(7, 7));
+    }
+
+    @Test
+    @DisplayName("Adding past the initial capacity keeps every row, views and positions included")
+    void growsPastCapacity() {
+        List<Shape> shapes = shapes(1000, 79);
+        ShapeBuffer buffer = new ShapeBuffer(0);
+        List<Shape> views = new ArrayList<>();
+        for (int i = 0; i < shapes.size(); i++) {
+            buffer.add(shapes.get(i));
+            // a view taken before the columns are copied reads the new ones
+            views.add(buffer.get(i));
+            if (i % 100 == 0) {
+                for (int j = 0; j <= i; j++) {
+                    assertSameShape(shapes.get(j), buffer.toShape(j), "row " + j + " of " + (i + 1));
+                }
+            }
+        }
+        assertTrue(buffer.kinds.length >= shapes.size());
+        for (int i = 0; i < shapes.size(); i++) {
+            assertEquals(shapes.get(i).toString(), views.get(i).toString());
+            assertEquals(shapes.get(i).getArea(), views.get(i).getArea());
+        }
+
+        // a view is a shape too, and copies with its position
+        ShapeBuffer copy = new ShapeBuffer(1);
+        for (Shape view : views) {
+            copy.add(view);
+        }
+        for (int i = 0; i < shapes.size(); i++) {
+            assertSameShape(shapes.get(i), copy.toShape(i), "copied row " + i);
+        }
+
+        buffer.setPosition(0, 5, 6);
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.addCircle(2));
+        assertEquals(0, buffer.getX(0), "a reused row starts at the origin");
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.getArea(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.getArea(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> buffer.add(new Shape() {
+            public double getArea() { return 0; }
+            public double getPerimeter() { return 0; }
+            public void appendTo(StringBuilder out) { }
+        }));
+    }
+}
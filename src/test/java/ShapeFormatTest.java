@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class ShapeFormatTest {
+
+    private List<Shape> sampleShapes() {
+        List<Shape> shapes = new ArrayList<>();
+        double[] values = {0, 5, 10.5, -3.25, 1e-7, 1e21, 123456.789, Double.NaN, Double.POSITIVE_INFINITY};
+        for (double a : values) {
+            shapes.add(new Circle(a));
+            for (double b : values) {
+                shapes.add(new Rectangle(a, b));
+                shapes.add(new Triangle(a, b));
+            }
+        }
+        return shapes;
+    }
+
+    private String expected(List<Shape> shapes) {
+        StringBuilder out = new StringBuilder();
+        for (Shape shape : shapes) {
+            out.append(shape.toString()).append('\n');
+        }
+        return out.toString();
+    }
+
+    @Test
+    @DisplayName("Test appendTo matches toString for every shape class")
+    void appendToMatchesToStringTest() {
+        ShapeBuffer buffer = new ShapeBuffer();
+        for (Shape shape : sampleShapes()) {
+            StringBuilder out = new StringBuilder();
+            shape.appendTo(out);
+            assertEquals(shape.toString(), out.toString());
+
+            Shape view = buffer.get(buffer.add(shape));
+            out.setLength(0);
+            view.appendTo(out);
+            assertEquals(shape.toString(), out.toString(), "ShapeBuffer view should format like the original");
+        }
+    }
+
+    @Test
+    @DisplayName("Test ShapeReportWriter output is identical to toString to a Writer")
+    void reportWriterToWriterTest() throws Exception {
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            shapes.addAll(sampleShapes());
+        }
+        StringWriter writer = new StringWriter();
+        ShapeReportWriter report = new ShapeReportWriter(writer);
+        report.writeAll(shapes);
+        report.flush();
+        assertEquals(expected(shapes), writer.toString());
+    }
+
+    @Test
+    @DisplayName("Test ShapeReportWriter output is identical to toString to a ByteBuffer")
+    void reportWriterToByteBufferTest() throws Exception {
+        List<Shape> shapes = sampleShapes();
+        ShapeBuffer buffer = new ShapeBuffer();
+        buffer.addAll(shapes);
+        ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+        ShapeReportWriter report = new ShapeReportWriter(bytes);
+        report.writeAll(buffer);
+        report.flush();
+        bytes.flip();
+        assertEquals(expected(shapes), StandardCharsets.US_ASCII.decode(bytes).toString());
+    }
+
+    @Test
+    @DisplayName("Test ShapeReportWriter keeps its text when the ByteBuffer is too full to take it")
+    void reportWriterOverflowTest() throws Exception {
+        List<Shape> shapes = sampleShapes();
+        int length = expected(shapes).length();
+        ByteBuffer bytes = ByteBuffer.allocate(length + 10);
+        ShapeReportWriter report = new ShapeReportWriter(bytes);
+        report.writeAll(shapes);
+        bytes.put(new byte[11]);
+        assertThrows(BufferOverflowException.class, report::flush);
+        assertEquals(11, bytes.position(), "nothing written on overflow");
+
+        bytes.clear();
+        report.flush();
+        bytes.flip();
+        assertEquals(expected(shapes), StandardCharsets.US_ASCII.decode(bytes).toString());
+    }
+}
@@ -0,0 +1,167 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class ShapeIndexTest {
+
+    private Shape randomShape(Random random, int dimensions) {
+        switch (random.nextInt(6)) {
+            case 0: return new Circle(random.nextInt(dimensions) / 4.0);
+            case 1: return new Rectangle(random.nextInt(dimensions), random.nextInt(4));
+            case 2: return new Triangle(random.nextInt(4), random.nextInt(dimensions));
+            case 3: return new ImmutableCircle(random.nextInt(dimensions) / 4.0);
+            case 4: return new ConcurrentRectangle(random.nextInt(dimensions), random.nextInt(4));
+            default: return new ImmutableTriangle(random.nextInt(4), random.nextInt(dimensions));
+        }
+    }
+
+    // The toString() of the shape an entry stands for
+    private String key(ShapeIndex index, int entry) {
+        switch (index.getKind(entry)) {
+            case ShapeBuffer.CIRCLE: return "Circle: " + index.getDim1(entry);
+            case ShapeBuffer.RECTANGLE: return "Rectangle: " + index.getDim1(entry) + " by " + index.getDim2(entry);
+            default: return "Triangle: " + index.getDim1(entry) + " by " + index.getDim2(entry);
+        }
+    }
+
+    @Test
+    @DisplayName("Counts match a toString() keyed map through several rehashes")
+    void countsLikeStringKeys() {
+        Random random = new Random(19);
+        ShapeIndex index = new ShapeIndex();
+        Map<String, Integer> expected = new HashMap<>();
+        int tableLength = index.table.length;
+        int rehashes = 0;
+        for (int i = 0; i < 50000; i++) {
+            Shape shape = randomShape(random, 2000);
+            boolean added = index.add(shape);
+            Integer before = expected.merge(shape.toString(), 1, Integer::sum);
+            assertEquals(before == 1, added, "add() reports new shapes: " + shape);
+            if (index.table.length != tableLength) {
+                tableLength = index.table.length;
+                rehashes++;
+            }
+            assertTrue(index.distinct() * 2 <= index.table.length, "table stays at most half full");
+        }
+        assertTrue(rehashes >= 5, "the table grew " + rehashes + " times");
+        assertEquals(expected.size(), index.distinct());
+        assertEquals(50000, index.total());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            String[] parts = entry.getKey().split(": | by ");
+            Shape shape = parts[0].equals("Circle") ? new Circle(Double.parseDouble(parts[1]))
+                    : parts[0].equals("Rectangle") ? new Rectangle(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]))
+                    : new Triangle(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            assertEquals((int) entry.getValue(), index.count(shape), entry.getKey());
+            assertEquals(entry.getKey(), key(index, index.indexOf(shape)), "entry columns hold the shape");
+        }
+        assertEquals(0, index.count(new Circle(-1)));
+        assertFalse(index.contains(new Rectangle(1, 99)));
+    }
+
+    @Test
+    @DisplayName("Every NaN is one value, 0.0 and -0.0 are two, positions do not matter")
+    void keyRules() {
+        ShapeIndex index = new ShapeIndex();
+        assertTrue(index.add(new Circle(Double.NaN)));
+        assertFalse(index.add(new Circle(Double.longBitsToDouble(0x7ff8000000000123L))), "another NaN bit pattern");
+        assertFalse(index.add(new ImmutableCircle(0.0 / 0.0)));
+        assertEquals(3, index.count(new Circle(Double.NaN)));
+
+        assertTrue(index.add(new Rectangle(0.0, 1)));
+        assertTrue(index.add(new Rectangle(-0.0, 1)));
+        assertTrue(index.add(new Triangle(0.0, 1)), "same dimensions, other kind");
+        assertTrue(index.add(new Rectangle(1, 0.0)), "length and width are not interchangeable");
+        assertTrue(index.add(new Rectangle(0.0, 1.0 + Math.ulp(1.0))));
+
+        Circle moved = new Circle(2);
+        moved.position[0] = 40;
+        moved.position[1] = -3;
+        assertTrue(index.add(new Circle(2)));
+        assertFalse(index.add(moved));
+        assertFalse(index.add(new ImmutableCircle(2)));
+        assertFalse(index.add(new ConcurrentCircle(2)));
+        assertEquals(7, index.distinct());
+        assertEquals(12, index.total());
+        assertThrows(IllegalArgumentException.class, () -> index.insert((byte) 3, 1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getCount(7));
+    }
+
+    @Test
+    @DisplayName("intern() and the factories hand back the first shape for equal dimensions")
+    void internsFlyweights() {
+        ShapeIndex index = new ShapeIndex();
+        Circle first = new Circle(3);
+        assertSame(first, index.intern(first));
+        assertSame(first, index.intern(new Circle(3)));
+        assertSame(first, index.circle(3));
+        assertNotSame(first, index.circle(-3));
+        assertEquals(3, index.count(first), "interning counts like add()");
+
+        Rectangle rect = index.rectangle(2, 5);
+        assertSame(rect, index.intern(new Rectangle(2, 5)));
+        assertSame(rect, index.rectangle(2, 5));
+        assertNotSame(rect, index.rectangle(5, 2));
+        Triangle tri = new Triangle(4, 1);
+        assertSame(tri, index.intern(tri));
+        assertSame(tri, index.triangle(4, 1));
+
+        // a shape counted by add() has no canonical one yet, the first intern picks it
+        index.add(new Triangle(7, 7));
+        Triangle later = new Triangle(7, 7);
+        assertSame(later, index.intern(later));
+    }
+
+    @Test
+    @DisplayName("clear() forgets every shape and canonical instance")
+    void clears() {
+        ShapeIndex index = new ShapeIndex();
+        Circle first = index.circle(1);
+        for (int i = 0; i < 1000; i++) {
+            index.rectangle(i, i);
+        }
+        index.clear();
+        assertEquals(0, index.distinct());
+        assertEquals(0, index.total());
+        assertFalse(index.contains(first));
+        assertEquals(0, index.count(new Rectangle(5, 5)));
+        Circle second = index.circle(1);
+        assertNotSame(first, second);
+        assertEquals(1, index.count(second));
+        assertEquals(0, index.indexOf(second), "entries are numbered from 0 again");
+    }
+
+    @Test
+    @DisplayName("addAll(ShapeBuffer) gives the same entries as addAll(Iterable)")
+    void bufferMatchesShapes() {
+        Random random = new Random(23);
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            shapes.add(randomShape(random, 300));
+        }
+        shapes.add(new Circle(Double.NaN));
+        shapes.add(new Circle(-0.0));
+        shapes.add(new Circle(0.0));
+        ShapeBuffer buffer = new ShapeBuffer();
+        buffer.addAll(shapes);
+
+        ShapeIndex fromShapes = new ShapeIndex();
+        ShapeIndex fromBuffer = new ShapeIndex();
+        assertEquals(fromShapes.addAll(shapes), fromBuffer.addAll(buffer));
+        assertEquals(fromShapes.distinct(), fromBuffer.distinct());
+        assertEquals(fromShapes.total(), fromBuffer.total());
+        for (int entry = 0; entry < fromShapes.distinct(); entry++) {
+            assertEquals(fromShapes.getKind(entry), fromBuffer.getKind(entry));
+            assertEquals(Double.doubleToLongBits(fromShapes.getDim1(entry)), Double.doubleToLongBits(fromBuffer.getDim1(entry)));
+            assertEquals(Double.doubleToLongBits(fromShapes.getDim2(entry)), Double.doubleToLongBits(fromBuffer.getDim2(entry)));
+            assertEquals(fromShapes.getCount(entry), fromBuffer.getCount(entry));
+        }
+        assertEquals(0, fromBuffer.addAll(buffer), "nothing is new the second time");
+        assertEquals(2 * shapes.size(), fromBuffer.total());
+    }
+}
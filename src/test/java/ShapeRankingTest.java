@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+class ShapeRankingTest {
+
+    private double randomValue(Random random) {
+        switch (random.nextInt(8)) {
+            case 0: return Double.NaN;
+            case 1: return random.nextBoolean() ? 0.0 : -0.0;
+            case 2: return random.nextBoolean() ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+            case 3: return random.nextInt(5); // plenty of ties
+            case 4: return -random.nextDouble() * 100;
+            case 5: return Double.longBitsToDouble(random.nextLong());
+            default: return random.nextDouble() * 100;
+        }
+    }
+
+    // Every index, largest first, NaN last, ties in index order, -0.0 below 0.0
+    private int[] expectedOrder(double[] values) {
+        Integer[] indexes = new Integer[values.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        Comparator<Integer> largestFirst = (a, b) -> {
+            boolean nanA = Double.isNaN(values[a]);
+            boolean nanB = Double.isNaN(values[b]);
+            if (nanA != nanB) {
+                return nanA ? 1 : -1;
+            }
+            return Double.compare(values[b], values[a]);
+        };
+        Arrays.sort(indexes, largestFirst.thenComparing(Comparator.naturalOrder()));
+        int[] order = new int[indexes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = indexes[i];
+        }
+        return order;
+    }
+
+    @Test
+    @DisplayName("order() and top(k) match a stable comparator sort, with NaN last")
+    void matchesComparatorSort() {
+        Random random = new Random(29);
+        // the larger sizes split top() into several fork/join chunks
+        for (int n : new int[]{0, 1, 2, 3, 17, 1000, ShapeRanking.THRESHOLD + 1, 3 * ShapeRanking.THRESHOLD + 7}) {
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = randomValue(random);
+            }
+            int[] expected = expectedOrder(values);
+            assertArrayEquals(expected, ShapeRanking.order(values), "order of " + n);
+            for (int k : new int[]{0, 1, 5, n / 2, n, n + 3}) {
+                assertArrayEquals(Arrays.copyOf(expected, Math.min(k, n)), ShapeRanking.top(values, k), "top " + k + " of " + n);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> ShapeRanking.top(new double[3], -1));
+    }
+
+    @Test
+    @DisplayName("Equal values keep their index order, and NaN ranks below -Infinity")
+    void keepsTiesStable() {
+        double[] values = {2, Double.NaN, 2, -0.0, Double.NEGATIVE_INFINITY, 0.0, 2, Double.NaN, 7};
+        assertArrayEquals(new int[]{8, 0, 2, 6, 5, 3, 4, 1, 7}, ShapeRanking.order(values));
+        assertArrayEquals(new int[]{8, 0, 2}, ShapeRanking.top(values, 3));
+        assertArrayEquals(new int[]{8, 0, 2, 6, 5, 3, 4, 1}, ShapeRanking.top(values, 8));
+        assertArrayEquals(new int[0], ShapeRanking.top(values, 0));
+        assertArrayEquals(ShapeRanking.order(values), ShapeRanking.top(values, 100), "k larger than n gives every index");
+
+        double[] same = new double[200000];
+        Arrays.fill(same, 1.5);
+        int[] order = ShapeRanking.order(same);
+        int[] top = ShapeRanking.top(same, 1000);
+        for (int i = 0; i < order.length; i++) {
+            assertEquals(i, order[i]);
+        }
+        for (int i = 0; i < top.length; i++) {
+            assertEquals(i, top[i], "the earliest of equal values win");
+        }
+    }
+
+    @Test
+    @DisplayName("The list and ShapeBuffer paths rank the same shapes the same way")
+    void bufferMatchesList() {
+        Random random = new Random(31);
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            switch (random.nextInt(4)) {
+                case 0: shapes.add(new Circle(random.nextInt(20) / 2.0)); break;
+                case 1: shapes.add(new Rectangle(random.nextInt(10), random.nextInt(10))); break;
+                case 2: shapes.add(new Triangle(random.nextDouble() * 10, random.nextDouble() * 10)); break;
+                default: shapes.add(new Rectangle(Double.NaN, 1)); break;
+            }
+        }
+        ShapeBuffer buffer = new ShapeBuffer();
+        buffer.addAll(shapes);
+        assertArrayEquals(ShapeRanking.sortByArea(shapes), ShapeRanking.sortByArea(buffer));
+        assertArrayEquals(ShapeRanking.sortByPerimeter(shapes), ShapeRanking.sortByPerimeter(buffer));
+        assertArrayEquals(ShapeRanking.topByArea(shapes, 500), ShapeRanking.topByArea(buffer, 500));
+        assertArrayEquals(ShapeRanking.topByPerimeter(shapes, 500), ShapeRanking.topByPerimeter(buffer, 500));
+
+        List<Shape> largest = ShapeRanking.select(shapes, ShapeRanking.topByArea(shapes, 10));
+        List<Shape> sorted = new ArrayList<>(shapes);
+        sorted.removeIf(shape -> Double.isNaN(shape.getArea()));
+        sorted.sort(Comparator.comparingDouble(Shape::getArea).reversed());
+        assertEquals(sorted.subList(0, 10), largest, "List.sort is stable too");
+    }
+}
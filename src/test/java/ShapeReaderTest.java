@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class ShapeReaderTest {
+
+    private double randomDouble(Random random) {
+        switch (random.nextInt(6)) {
+            case 0: return random.nextInt(1000);
+            case 1: return random.nextInt(100000) / 100.0;
+            case 2: return random.nextDouble() * Math.pow(10, random.nextInt(60) - 30);
+            case 3: return -random.nextDouble();
+            // any bit pattern at all, including NaN, infinities and subnormals
+            case 4: return Double.longBitsToDouble(random.nextLong());
+            default: return new double[]{0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                    Double.MIN_VALUE, Double.MAX_VALUE, 1e22, 1e23, 9007199254740993.0}[random.nextInt(10)];
+        }
+    }
+
+    private ShapeReader reader(String text, int bufferSize) {
+        return new ShapeReader(Channels.newChannel(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))), bufferSize);
+    }
+
+    @Test
+    @DisplayName("Records written by appendTo read back bit for bit")
+    void roundTripsAppendTo() throws IOException {
+        Random random = new Random(7);
+        List<Shape> shapes = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            Shape shape;
+            switch (random.nextInt(3)) {
+                case 0: shape = new Circle(randomDouble(random)); break;
+                case 1: shape = new Rectangle(randomDouble(random), randomDouble(random)); break;
+                default: shape = new Triangle(randomDouble(random), randomDouble(random)); break;
+            }
+            shapes.add(shape);
+            shape.appendTo(text);
+            text.append('\n');
+        }
+        // small buffers split records across reads
+        for (int bufferSize : new int[]{16, 37, 64 * 1024}) {
+            ShapeBuffer buffer = new ShapeBuffer();
+            assertEquals(shapes.size(), reader(text.toString(), bufferSize).readAll(buffer));
+            for (int i = 0; i < shapes.size(); i++) {
+                ShapeBuffer expected = new ShapeBuffer();
+                expected.add(shapes.get(i));
+                assertEquals(expected.getKind(0), buffer.getKind(i), "kind of line " + (i + 1));
+                assertEquals(Double.doubleToLongBits(expected.dim1[0]), Double.doubleToLongBits(buffer.dim1[i]),
+                        "first dimension of line " + (i + 1) + ": " + shapes.get(i));
+                assertEquals(Double.doubleToLongBits(expected.dim2[0]), Double.doubleToLongBits(buffer.dim2[i]),
+                        "second dimension of line " + (i + 1) + ": " + shapes.get(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Blank lines, extra spaces, CRLF and a missing final newline are accepted")
+    void acceptsLooseLayout() throws IOException {
+        ShapeBuffer buffer = new ShapeBuffer();
+        long read = reader("\n  Circle:   2.5\r\n\nRectangle: 3 by\t4.0\r\nTriangle: 1e2 by -0.0", 16).readAll(buffer);
+        assertEquals(3, read);
+        assertEquals(2.5, buffer.dim1[0]);
+        assertEquals(12.0, buffer.getArea(1));
+        assertEquals(100.0, buffer.dim1[2]);
+        assertEquals(-0.0, buffer.dim2[2]);
+    }
+
+    @Test
+    @DisplayName("Malformed records name the line they are on")
+    void reportsBadLines() {
+        String[] bad = {"Square: 4", "Circle: x", "Rectangle: 3 4", "Triangle: 3 by 4 5", "Circle: 1e", "Circle: -"};
+        for (String line : bad) {
+            IOException error = assertThrows(IOException.class, () -> reader("Circle: 1\n\n" + line + "\n", 64).readAll(new ShapeBuffer()), line);
+            assertTrue(error.getMessage().contains("line 3"), error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+class ShapeRegistryTest {
+
+    private Shape randomShape(Random random) {
+        switch (random.nextInt(6)) {
+            case 0: return new Circle(random.nextDouble() * 10);
+            case 1: return new Rectangle(random.nextDouble() * 10, random.nextDouble() * 10);
+            case 2: return new Triangle(random.nextDouble() * 10, random.nextDouble() * 10);
+            case 3: return new ImmutableCircle(random.nextDouble() * 10);
+            case 4: return new ConcurrentRectangle(random.nextDouble() * 10, random.nextDouble() * 10);
+            default: return new CachedShape(new Circle(random.nextDouble() * 10));
+        }
+    }
+
+    // The totals a fresh pass would give, summed in the registry's own order, to within ulps ulps
+    private void assertExact(ShapeRegistry registry, int ulps) {
+        double[] areas = new double[4];
+        double[] perimeters = new double[4];
+        long[] counts = new long[4];
+        for (Map.Entry<ShapeRegistry.Key, ShapeRegistry.Contribution> entry : registry.shapes.entrySet()) {
+            Shape shape = entry.getKey().shape;
+            int kind = ShapeRegistry.kindOf(shape);
+            areas[kind] += shape.getArea();
+            perimeters[kind] += shape.getPerimeter();
+            counts[kind]++;
+        }
+        for (int kind = 0; kind < 4; kind++) {
+            assertEquals(areas[kind], registry.getArea(kind), ulps * Math.ulp(areas[kind]), "area of kind " + kind);
+            assertEquals(perimeters[kind], registry.getPerimeter(kind), ulps * Math.ulp(perimeters[kind]), "perimeter of kind " + kind);
+            assertEquals(counts[kind], registry.getCount(kind), "count of kind " + kind);
+        }
+    }
+
+    @Test
+    @DisplayName("Per-kind totals follow adds, removes and setters, and recompute makes them exact")
+    void tracksTotalsExactly() {
+        Random random = new Random(11);
+        ShapeRegistry registry = new ShapeRegistry();
+        List<Shape> live = new ArrayList<>();
+        for (int step = 0; step < 20000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5 || live.isEmpty()) {
+                Shape shape = randomShape(random);
+                assertTrue(registry.add(shape));
+                assertFalse(registry.add(shape), "a shape is only counted once");
+                live.add(shape);
+            } else if (action < 7) {
+                Shape shape = live.remove(random.nextInt(live.size()));
+                assertTrue(registry.remove(shape));
+                assertFalse(registry.remove(shape));
+            } else {
+                Shape shape = live.get(random.nextInt(live.size()));
+                if (shape instanceof Circle) {
+                    ((Circle) shape).setRadius(random.nextDouble() * 10);
+                } else if (shape instanceof Rectangle) {
+                    ((Rectangle) shape).setWidth(random.nextDouble() * 10);
+                } else if (shape instanceof Triangle) {
+                    ((Triangle) shape).setBase(random.nextDouble() * 10);
+                }
+            }
+        }
+        assertEquals(live.size(), registry.size());
+        double area = 0;
+        for (Shape shape : live) {
+            area += shape.getArea();
+        }
+        // incremental totals carry add/subtract rounding, but only a little
+        assertEquals(area, registry.getTotalArea(), area * 1e-9);
+
+        // a public field written without a setter is only caught by recompute
+        for (Shape shape : live) {
+            if (shape instanceof Rectangle) {
+                ((Rectangle) shape).length += 1;
+            }
+        }
+        assertTrue(registry.recompute());
+        assertExact(registry, 0);
+    }
+
+    @Test
+    @DisplayName("Concurrent adds, removes and resizes leave consistent totals once quiet")
+    void concurrentAddRemove() throws InterruptedException {
+        ShapeRegistry registry = new ShapeRegistry();
+        int threads = 8;
+        List<List<Shape>> kept = new ArrayList<>();
+        CountDownLatch ready = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            List<Shape> mine = new ArrayList<>();
+            kept.add(mine);
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 20000; i++) {
+                    Shape shape = randomShape(random);
+                    registry.add(shape);
+                    if (random.nextInt(3) == 0) {
+                        registry.remove(shape);
+                    } else {
+                        mine.add(shape);
+                        if (shape instanceof Circle) {
+                            ((Circle) shape).setRadius(random.nextDouble() * 10);
+                        }
+                    }
+                    if (i % 5000 == 0) {
+                        registry.recompute(); // drift correction running alongside
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        ready.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long expected = 0;
+        double area = 0;
+        for (List<Shape> mine : kept) {
+            expected += mine.size();
+            for (Shape shape : mine) {
+                area += shape.getArea();
+            }
+        }
+        assertEquals(expected, registry.size());
+        long counted = 0;
+        for (int kind = 0; kind < 4; kind++) {
+            counted += registry.getCount(kind);
+        }
+        assertEquals(expected, counted);
+        // a recompute that overlapped the updates must not have undone any of them
+        assertEquals(area, registry.getTotalArea(), area * 1e-9);
+        assertTrue(registry.recompute(), "nothing else is running now");
+        // contended adders hold their totals in several cells, so the last bits can differ
+        assertExact(registry, 8);
+    }
+
+    @Test
+    @DisplayName("Equal shapes are counted separately, and wrapped shapes by the kind they wrap")
+    void countsByIdentity() {
+        ShapeRegistry registry = new ShapeRegistry();
+        ImmutableCircle first = new ImmutableCircle(2);
+        ImmutableCircle second = new ImmutableCircle(2);
+        assertEquals(first, second);
+        assertTrue(registry.add(first));
+        assertTrue(registry.add(second), "an equal shape is another shape");
+        assertFalse(registry.add(first));
+        assertTrue(registry.add(new ImmutableTriangle(3, 4)));
+        assertTrue(registry.add(new ImmutableTriangle(3, 4)));
+        assertEquals(4, registry.size());
+        assertEquals(2, registry.getCount(ShapeRegistry.CIRCLES));
+        assertEquals(2 * first.getArea(), registry.getArea(ShapeRegistry.CIRCLES));
+        assertEquals(12.0, registry.getArea(ShapeRegistry.TRIANGLES));
+
+        assertFalse(registry.remove(new ImmutableCircle(2)), "only the shape itself removes it");
+        assertTrue(registry.remove(second));
+        assertEquals(1, registry.getCount(ShapeRegistry.CIRCLES));
+        assertEquals(first.getArea(), registry.getArea(ShapeRegistry.CIRCLES));
+
+        Metrics metrics = new Metrics();
+        assertTrue(registry.add(new CachedShape(new Circle(1))));
+        assertTrue(registry.add(metrics.wrap(new Rectangle(2, 5))));
+        assertTrue(registry.add(metrics.wrap(new CachedShape(new Triangle(2, 2)))));
+        assertEquals(2, registry.getCount(ShapeRegistry.CIRCLES));
+        assertEquals(1, registry.getCount(ShapeRegistry.RECTANGLES));
+        assertEquals(10.0, registry.getArea(ShapeRegistry.RECTANGLES));
+        assertEquals(3, registry.getCount(ShapeRegistry.TRIANGLES));
+        assertEquals(0, registry.getCount(ShapeRegistry.OTHERS));
+        assertExact(registry, 0);
+    }
+}
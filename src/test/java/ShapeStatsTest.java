@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+class ShapeStatsTest {
+
+    private List<Shape> shapes(int n, long seed) {
+        Random random = new Random(seed);
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            switch (random.nextInt(3)) {
+                case 0: shapes.add(new Circle(random.nextDouble() * 50)); break;
+                case 1: shapes.add(new Rectangle(random.nextDouble() * 100, random.nextDouble() * 100)); break;
+                default: shapes.add(new Triangle(random.nextDouble() * 100, random.nextDouble() * 100)); break;
+            }
+        }
+        return shapes;
+    }
+
+    private void assertClose(double expected, double actual, String message) {
+        assertEquals(expected, actual, Math.abs(expected) * ShapeStats.TOLERANCE, message);
+    }
+
+    private void assertMatches(List<Shape> shapes, ShapeStats stats, double histMin, double histMax, int binCount) {
+        // the plain loop the fork/join split replaces
+        double area = 0;
+        double perimeter = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long[] bins = new long[binCount];
+        for (Shape shape : shapes) {
+            area += shape.getArea();
+            perimeter += shape.getPerimeter();
+            min = Math.min(min, shape.getArea());
+            max = Math.max(max, shape.getArea());
+            if (binCount > 0) {
+                int bin = (int) ((shape.getArea() - histMin) / (histMax - histMin) * binCount);
+                bins[Math.max(0, Math.min(binCount - 1, bin))]++;
+            }
+        }
+        String size = shapes.size() + " shapes";
+        assertEquals(shapes.size(), stats.getCount(), size);
+        assertClose(area, stats.getTotalArea(), "area of " + size);
+        assertClose(perimeter, stats.getTotalPerimeter(), "perimeter of " + size);
+        if (shapes.isEmpty()) {
+            assertTrue(Double.isNaN(stats.getMinArea()));
+            assertTrue(Double.isNaN(stats.getMaxArea()));
+            assertTrue(Double.isNaN(stats.getAverageArea()));
+        } else {
+            // min and max combine exactly, whatever the split
+            assertEquals(min, stats.getMinArea(), size);
+            assertEquals(max, stats.getMaxArea(), size);
+            assertClose(area / shapes.size(), stats.getAverageArea(), "average of " + size);
+        }
+        assertArrayEquals(bins, stats.getHistogram(), "histogram of " + size);
+    }
+
+    @Test
+    @DisplayName("Lists, arrays and buffers match a sequential loop around THRESHOLD")
+    void matchesSequentialLoop() {
+        int t = ShapeStats.THRESHOLD;
+        int[] sizes = {0, 1, 2, t - 1, t, t + 1, 2 * t - 1, 2 * t, 2 * t + 1, 4 * t + 3, 100_000};
+        for (int n : sizes) {
+            List<Shape> shapes = shapes(n, n);
+            ShapeBuffer buffer = new ShapeBuffer();
+            buffer.addAll(shapes);
+            assertMatches(shapes, ShapeStats.of(shapes, 0, 5000, 16), 0, 5000, 16);
+            assertMatches(shapes, ShapeStats.of(shapes.toArray(new Shape[0]), 0, 5000, 16), 0, 5000, 16);
+            assertMatches(shapes, ShapeStats.of(buffer, 0, 5000, 16), 0, 5000, 16);
+            assertMatches(shapes, ShapeStats.of(new LinkedList<>(shapes)), 0, 0, 0);
+            assertMatches(shapes, ShapeStats.of(buffer), 0, 0, 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Histogram arguments are checked before any work starts")
+    void rejectsBadHistogram() {
+        List<Shape> shapes = shapes(10, 1);
+        assertThrows(IllegalArgumentException.class, () -> ShapeStats.of(shapes, 0, 10, -1));
+        assertThrows(IllegalArgumentException.class, () -> ShapeStats.of(shapes, 10, 10, 4));
+    }
+}
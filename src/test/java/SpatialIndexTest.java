@@ -0,0 +1,148 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+class SpatialIndexTest {
+
+    private List<Transformable> bruteRange(List<Transformable> shapes, int minX, int minY, int maxX, int maxY) {
+        List<Transformable> found = new ArrayList<>();
+        for (Transformable shape : shapes) {
+            int x = Positions.x(shape);
+            int y = Positions.y(shape);
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                found.add(shape);
+            }
+        }
+        return found;
+    }
+
+    // Ties can be broken either way, so nearest answers are compared by their distances
+    private long[] distances(List<Transformable> shapes, int x, int y) {
+        long[] distances = new long[shapes.size()];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = Neighbours.distanceSquared(x, y, Positions.x(shapes.get(i)), Positions.y(shapes.get(i)));
+        }
+        return distances;
+    }
+
+    private long[] bruteNearest(List<Transformable> shapes, int x, int y, int k) {
+        long[] all = distances(shapes, x, y);
+        Arrays.sort(all);
+        return Arrays.copyOf(all, Math.min(k, all.length));
+    }
+
+    private void checkIndex(SpatialIndex index, long seed) {
+        Random random = new Random(seed);
+        int world = 2000;
+        List<Transformable> shapes = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Transformable shape;
+            if (random.nextBoolean()) {
+                Circle cir = new Circle(random.nextInt(40));
+                cir.position[0] = random.nextInt(world);
+                cir.position[1] = random.nextInt(world);
+                shape = cir;
+            } else {
+                Rectangle rect = new Rectangle(random.nextInt(40), 3);
+                rect.x = random.nextInt(world);
+                rect.y = random.nextInt(world);
+                shape = rect;
+            }
+            shapes.add(shape);
+            index.add(shape);
+        }
+        String name = index.getClass().getSimpleName();
+        for (int round = 0; round < 5; round++) {
+            // moves carry some shapes past the region edges and across cells
+            for (int i = 0; i < 20000; i++) {
+                Transformable shape = shapes.get(random.nextInt(shapes.size()));
+                switch (random.nextInt(4)) {
+                    case 0: shape.up(); break;
+                    case 1: shape.down(); break;
+                    case 2: shape.left(); break;
+                    default: shape.right(); break;
+                }
+            }
+            for (int i = 0; i < 100; i++) {
+                Transformable shape = shapes.remove(random.nextInt(shapes.size()));
+                index.remove(shape);
+            }
+            index.checkConsistency();
+            assertEquals(shapes.size(), index.size(), name);
+
+            for (int q = 0; q < 200; q++) {
+                int x = random.nextInt(world + 400) - 200;
+                int y = random.nextInt(world + 400) - 200;
+                int half = random.nextInt(300);
+                List<Transformable> expected = bruteRange(shapes, x - half, y - half, x + half, y + half);
+                List<Transformable> actual = index.range(x - half, y - half, x + half, y + half);
+                assertEquals(expected.size(), actual.size(), name + " range size at " + x + ", " + y);
+                assertEquals(new HashSet<>(expected), new HashSet<>(actual), name + " range at " + x + ", " + y);
+
+                int k = random.nextInt(20);
+                assertArrayEquals(bruteNearest(shapes, x, y, k), distances(index.nearest(x, y, k), x, y),
+                        name + " " + k + " nearest to " + x + ", " + y);
+            }
+        }
+        int k = shapes.size() + 5;
+        assertArrayEquals(bruteNearest(shapes, 7, 7, k), distances(index.nearest(7, 7, k), 7, 7), name + " more than size");
+    }
+
+    @Test
+    @DisplayName("GridIndex range and nearest queries match brute force after moves")
+    void gridMatchesBruteForce() {
+        checkIndex(new GridIndex(64), 1);
+    }
+
+    @Test
+    @DisplayName("QuadTreeIndex range and nearest queries match brute force after moves")
+    void quadTreeMatchesBruteForce() {
+        checkIndex(new QuadTreeIndex(0, 0, 1000), 2);
+    }
+
+    @Test
+    @DisplayName("Asking a sparse index for more neighbours than it holds gives each shape once")
+    void nearestInSparseWorld() {
+        for (SpatialIndex index : new SpatialIndex[]{new GridIndex(16), new QuadTreeIndex(0, 0, 1024)}) {
+            String name = index.getClass().getSimpleName();
+            List<Transformable> shapes = new ArrayList<>();
+            int[][] positions = {{3, 4}, {5000, 5000}, {-3000, 7000}};
+            for (int[] position : positions) {
+                Circle cir = new Circle(1);
+                cir.position[0] = position[0];
+                cir.position[1] = position[1];
+                shapes.add(cir);
+                index.add(cir);
+                List<Transformable> nearest = index.nearest(0, 0, 5);
+                assertEquals(shapes.size(), nearest.size(), name + " with " + shapes.size() + " shapes");
+                assertEquals(new HashSet<>(shapes), new HashSet<>(nearest), name);
+                assertArrayEquals(bruteNearest(shapes, 0, 0, 5), distances(nearest, 0, 0), name);
+            }
+            assertEquals(1, index.nearest(0, 0, 1).size());
+        }
+    }
+
+    @Test
+    @DisplayName("A position written without telling the index is reported")
+    void detectsDirectWrites() {
+        for (SpatialIndex index : new SpatialIndex[]{new GridIndex(16), new QuadTreeIndex(0, 0, 1024)}) {
+            List<Rectangle> shapes = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Rectangle rect = new Rectangle(1, 1);
+                rect.x = i * 10;
+                rect.y = i * 10;
+                shapes.add(rect);
+                index.add(rect);
+            }
+            index.checkConsistency();
+            shapes.get(40).x = 900;
+            assertThrows(IllegalStateException.class, index::checkConsistency, index.getClass().getSimpleName());
+        }
+    }
+}
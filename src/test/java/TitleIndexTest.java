@@ -0,0 +1,144 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+class TitleIndexTest {
+
+    private static final String[] WORDS = {"Love", "night", "RIVER", "blue", "fire", "Caf\u00e9", "\u00dcnter", "a", "ab", "road"};
+
+    private String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        for (int w = random.nextInt(4); w >= 0; w--) {
+            title.append(WORDS[random.nextInt(WORDS.length)]).append(w > 0 ? " " : "");
+        }
+        return title.append(random.nextInt(50)).toString();
+    }
+
+    // matching only folds ASCII letters
+    private String fold(String text, int offset) {
+        StringBuilder folded = new StringBuilder(text);
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (c < 128 && Character.isLetter(c)) {
+                folded.setCharAt(i, (char) (Character.toLowerCase(c) + offset));
+            }
+        }
+        return folded.toString();
+    }
+
+    private int[] expected(Playlist titles, String query, boolean prefix) {
+        String lower = fold(query, 0);
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < titles.size(); id++) {
+            String title = fold(titles.get(id), 0);
+            if (prefix ? title.startsWith(lower) : title.contains(lower)) {
+                ids.add(id);
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private void check(TitleIndex index, Playlist titles, Random random) {
+        for (int q = 0; q < 100; q++) {
+            String title = titles.get(random.nextInt(titles.size()));
+            int from = random.nextInt(title.length());
+            String prefix = title.substring(0, 1 + random.nextInt(title.length()));
+            String part = title.substring(from, from + 1 + random.nextInt(title.length() - from));
+            if (random.nextBoolean()) {
+                part = fold(part, 'A' - 'a');
+            }
+            int[] found = index.startingWith(prefix, Integer.MAX_VALUE);
+            Arrays.sort(found);
+            assertArrayEquals(expected(titles, prefix, true), found, prefix);
+            found = index.containing(part, Integer.MAX_VALUE);
+            Arrays.sort(found);
+            assertArrayEquals(expected(titles, part, false), found, part);
+            assertEquals(Math.min(3, found.length), index.containing(part, 3).length);
+        }
+    }
+
+    @Test
+    @DisplayName("Prefix and substring queries match a scan, before and after titles are added")
+    void matchesScan() {
+        Random random = new Random(11);
+        Playlist titles = new Playlist();
+        for (int i = 0; i < 5000; i++) {
+            titles.add(title(random));
+        }
+        TitleIndex index = new TitleIndex(titles);
+        check(index, titles, random);
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 600; i++) {
+                titles.add(title(random));
+            }
+            check(index, titles, random); // new titles are not indexed yet
+            index.update();
+            assertEquals(titles.size(), index.indexed());
+            check(index, titles, random);
+        }
+        assertArrayEquals(new int[0], index.containing("zzz", 10));
+    }
+
+    // Titles in the main segment's sort order, compared as folded unsigned bytes
+    private void assertSorted(TitleIndex index, Playlist titles) {
+        int[] sorted = index.main.sorted;
+        assertEquals(titles.size(), sorted.length);
+        for (int i = 1; i < sorted.length; i++) {
+            byte[] a = TitleIndex.folded(titles.get(sorted[i - 1]));
+            byte[] b = TitleIndex.folded(titles.get(sorted[i]));
+            int order = 0;
+            for (int k = 0; order == 0 && k < Math.min(a.length, b.length); k++) {
+                order = (a[k] & 0xFF) - (b[k] & 0xFF);
+            }
+            assertTrue(order < 0 || (order == 0 && a.length <= b.length), "titles " + sorted[i - 1] + " and " + sorted[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Titles sharing a long prefix sort without running out of stack")
+    void sortsLongSharedPrefixes() {
+        Random random = new Random(17);
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            prefix.append((char) ('a' + random.nextInt(3)));
+        }
+        Playlist titles = new Playlist();
+        for (int i = 0; i < 40; i++) {
+            titles.add(prefix + (i % 2 == 0 ? "" : prefix.toString()) + i);
+        }
+        titles.add(prefix.toString());
+        titles.add(prefix.toString());
+        TitleIndex index = new TitleIndex(titles);
+        assertSorted(index, titles);
+        assertEquals(titles.size(), index.startingWith(prefix.toString(), Integer.MAX_VALUE).length);
+        assertArrayEquals(new int[]{36}, index.startingWith(prefix + "36", 10));
+
+        // enough titles for the sort to fork, most of them sharing their first bytes
+        Playlist many = new Playlist();
+        for (int i = 0; i < 60000; i++) {
+            many.add(random.nextInt(4) == 0 ? title(random) : "The Artist - " + title(random));
+        }
+        assertSorted(new TitleIndex(many), many);
+    }
+
+    @Test
+    @DisplayName("A search result can be played straight away")
+    void jumpsToResult() {
+        MusicPlayer music = new MusicPlayer(new String[]{"Hey Jude", "Yesterday", "Let It Be"});
+        TitleIndex index = TitleIndex.of(music);
+        int[] found = index.containing("terd", 10);
+        assertArrayEquals(new int[]{1}, found);
+        music.jumpTo(found[0]);
+        assertTrue(music.getOnOff());
+        assertEquals("Yesterday", music.getCurrentSong());
+        music.next();
+        assertEquals("Let It Be", music.getCurrentSong());
+        assertArrayEquals(new int[]{2}, index.startingWith("let", 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> music.jumpTo(3));
+    }
+}
@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UndoHistoryTest {
+
+    @Test
+    @DisplayName("A run of moves on one shape is one entry and one undo step")
+    void collapsesRuns() {
+        UndoHistory history = new UndoHistory(4);
+        Circle cir = new Circle(2.5);
+        history.track(cir);
+        for (int i = 0; i < 1000; i++) {
+            cir.right();
+        }
+        assertEquals(1, history.getEntries());
+        assertEquals(2000, cir.position[0]);
+        assertTrue(history.undo());
+        assertEquals(0, cir.position[0]);
+        assertFalse(history.undo());
+        assertTrue(history.redo());
+        assertEquals(2000, cir.position[0]);
+    }
+
+    @Test
+    @DisplayName("A transaction is undone and redone as a whole")
+    void groupsTransactions() {
+        UndoHistory history = new UndoHistory();
+        Rectangle a = new Rectangle(1, 1);
+        Rectangle b = new Rectangle(1, 1);
+        history.track(a);
+        history.track(b);
+        a.up();
+        history.begin();
+        a.right();
+        b.down();
+        a.right();
+        history.commit();
+        assertEquals(2, history.getUndoSteps());
+        assertThrows(IllegalStateException.class, history::commit);
+
+        history.undo();
+        assertEquals(0, a.x);
+        assertEquals(1, a.y);
+        assertEquals(0, b.y);
+        history.redo();
+        assertEquals(2, a.x);
+        assertEquals(-1, b.y);
+
+        // a new move drops what could have been redone
+        history.undo();
+        b.left();
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    @DisplayName("The oldest steps are dropped first when the history is full")
+    void evictsOldestFirst() {
+        UndoHistory history = new UndoHistory(3);
+        Rectangle[] shapes = new Rectangle[5];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = new Rectangle(1, 1);
+            history.track(shapes[i]);
+            shapes[i].up();
+        }
+        assertEquals(3, history.getUndoSteps());
+        while (history.undo()) {
+        }
+        assertEquals(1, shapes[0].y);
+        assertEquals(1, shapes[1].y);
+        assertEquals(0, shapes[2].y);
+        assertEquals(0, shapes[4].y);
+    }
+}